@@ -61,7 +61,8 @@ CREATE TABLE IF NOT EXISTS products (
     description TEXT,
     price DECIMAL(10, 2) NOT NULL,
     discount_price DECIMAL(10, 2),
-    stock_quantity INT NOT NULL DEFAULT 0,
+    stock_quantity INT NOT NULL DEFAULT 0,       -- sellable (excludes held units)
+    reserved_quantity INT NOT NULL DEFAULT 0,    -- held by pending orders (stock_holds)
     reorder_point INT DEFAULT 10,
     reorder_quantity INT DEFAULT 50,
     category_id BIGINT,
@@ -87,7 +88,9 @@ CREATE TABLE IF NOT EXISTS products (
     INDEX idx_name (name),
     INDEX idx_featured (featured),
     INDEX idx_rating (rating),
-    INDEX idx_sales_count (sales_count)
+    INDEX idx_sales_count (sales_count),
+    INDEX idx_active_created_date (active, created_date),  -- keyset pagination
+    INDEX idx_active_price (active, price)                 -- keyset pagination
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- ================================================
@@ -119,6 +122,30 @@ CREATE TABLE IF NOT EXISTS product_tags (
     INDEX idx_tag (tag)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- ================================================
+-- Table: product_import_jobs
+-- Purpose: Progress of bulk product imports (CSV / NDJSON)
+-- last_committed_row is written with each inserted batch - resume point
+-- ================================================
+
+CREATE TABLE IF NOT EXISTS product_import_jobs (
+    product_import_job_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    file_name VARCHAR(255),
+    format VARCHAR(10) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    rows_read BIGINT NOT NULL DEFAULT 0,
+    rows_imported BIGINT NOT NULL DEFAULT 0,
+    rows_skipped BIGINT NOT NULL DEFAULT 0,
+    rows_failed BIGINT NOT NULL DEFAULT 0,
+    last_committed_row BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000),
+    created_date DATETIME(6),
+    updated_date DATETIME(6),
+    finished_date DATETIME(6),
+
+    INDEX idx_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- ================================================
 -- Table: customers
 -- Purpose: Customer accounts with authentication and verification
@@ -154,7 +181,8 @@ CREATE TABLE IF NOT EXISTS customers (
     INDEX idx_email_verification_token (email_verification_token),
     INDEX idx_reset_password_token (reset_password_token),
     INDEX idx_active (active),
-    INDEX idx_role (role)
+    INDEX idx_role (role),
+    INDEX idx_created_date (created_date)  -- keyset pagination (created_date, customer_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- ================================================
@@ -205,7 +233,8 @@ CREATE TABLE IF NOT EXISTS carts (
     INDEX idx_customer_id (customer_id),
     INDEX idx_session_id (session_id),
     INDEX idx_expiration_date (expiration_date),
-    INDEX idx_is_saved (is_saved)
+    INDEX idx_is_saved (is_saved),
+    INDEX idx_carts_updated (updated_date, cart_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- ================================================
@@ -300,7 +329,8 @@ CREATE TABLE IF NOT EXISTS orders (
     INDEX idx_order_number (order_number),
     INDEX idx_customer_id (customer_id),
     INDEX idx_order_status (order_status),
-    INDEX idx_order_date (order_date)
+    INDEX idx_order_date (order_date),
+    INDEX idx_created_date (created_date)  -- keyset pagination (created_date, order_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- ================================================
@@ -487,6 +517,140 @@ CREATE TABLE IF NOT EXISTS inventory_transactions (
     INDEX idx_transaction_date (transaction_date)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- ================================================
+-- Table: stock_holds
+-- Purpose: Time-boxed stock holds per pending order line
+-- Rows are deleted when the order is paid, cancelled or the hold expires
+-- (StockHoldSweeper, driven by idx_expiry_date)
+-- ================================================
+
+CREATE TABLE IF NOT EXISTS stock_holds (
+    stock_hold_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    expiry_date DATETIME(6) NOT NULL,
+    created_date DATETIME(6),
+
+    FOREIGN KEY (order_id) REFERENCES orders(order_id),
+    FOREIGN KEY (product_id) REFERENCES products(product_id),
+    INDEX idx_order_id (order_id),
+    INDEX idx_expiry_date (expiry_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ================================================
+-- Table: inventory_audit_outbox
+-- Purpose: Transactional outbox for inventory_transactions
+-- Rows are written in the same transaction as the stock change (one JDBC
+-- batch per transaction) and moved to inventory_transactions in batches
+-- by InventoryAuditLog. Same columns as inventory_transactions.
+-- ================================================
+
+CREATE TABLE IF NOT EXISTS inventory_audit_outbox (
+    outbox_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    transaction_date DATETIME(6) NOT NULL,
+    quantity_before INT NOT NULL,
+    quantity_after INT NOT NULL,
+    quantity_change INT NOT NULL,
+    reason VARCHAR(500),
+    reference_id VARCHAR(100),
+    user_id VARCHAR(100),
+    batch_number VARCHAR(100),
+    expiry_date DATETIME(6),
+    cost_per_unit DECIMAL(10, 2),
+    total_cost DECIMAL(10, 2),
+    notes VARCHAR(1000),
+
+    INDEX idx_product_id (product_id),
+    INDEX idx_transaction_date (transaction_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ================================================
+-- Tables: flash_sale_allocations, flash_sale_journal
+-- Purpose: Flash-sale stock handed out from in-memory tokens (FlashSaleService)
+-- allocations.remaining = units moved out of products.stock_quantity when the
+-- product was armed and not yet folded into products.reserved_quantity.
+-- journal = one row per token reservation, written in the order transaction and
+-- folded into products/allocations in batches (tokens = remaining - journal).
+-- owner_id / lease_until = the shop-service instance whose pool serves the
+-- allocation; renewed by the owner, claimed by another instance once expired.
+-- ================================================
+
+CREATE TABLE IF NOT EXISTS flash_sale_allocations (
+    product_id BIGINT PRIMARY KEY,
+    allocated INT NOT NULL DEFAULT 0,
+    remaining INT NOT NULL DEFAULT 0,
+    armed BOOLEAN NOT NULL DEFAULT TRUE,
+    armed_date DATETIME(6),
+    updated_date DATETIME(6),
+    owner_id VARCHAR(64),
+    lease_until DATETIME(6),
+
+    FOREIGN KEY (product_id) REFERENCES products(product_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS flash_sale_journal (
+    journal_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    created_date DATETIME(6) NOT NULL,
+
+    INDEX idx_product_id (product_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ================================================
+-- Tables: inventory_stock_snapshots, inventory_daily_movements
+-- Purpose: Inventory ledger (InventoryLedger) - stock of every product at
+-- the start of each day and movements rolled up per product, day and type.
+-- inventory_transactions older than the retention window are deleted once
+-- rolled up; snapshots older than it are kept for the 1st of each month.
+-- ================================================
+
+CREATE TABLE IF NOT EXISTS inventory_stock_snapshots (
+    product_id BIGINT NOT NULL,
+    snapshot_date DATE NOT NULL,
+    stock_quantity INT NOT NULL,
+    created_date DATETIME(6) NOT NULL,
+
+    PRIMARY KEY (product_id, snapshot_date),
+    INDEX idx_snapshot_date (snapshot_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS inventory_daily_movements (
+    product_id BIGINT NOT NULL,
+    movement_date DATE NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    transaction_count INT NOT NULL,
+    quantity_in INT NOT NULL,
+    quantity_out INT NOT NULL,
+    net_change INT NOT NULL,
+
+    PRIMARY KEY (product_id, movement_date, transaction_type),
+    INDEX idx_movement_date (movement_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ================================================
+-- Table: cart_sweep_progress
+-- Purpose: Progress of AbandonedCartSweeper - keyset cursor and windows of
+-- the pass in progress (NULL cursor = no pass running), candidate_to marks
+-- how far abandoned-cart candidates have been reported.
+-- ================================================
+
+CREATE TABLE IF NOT EXISTS cart_sweep_progress (
+    sweep_name VARCHAR(50) PRIMARY KEY,
+    delete_cutoff DATETIME(6),
+    candidate_from DATETIME(6),
+    candidate_to DATETIME(6),
+    last_updated_date DATETIME(6),
+    last_cart_id BIGINT,
+    carts_deleted BIGINT NOT NULL DEFAULT 0,
+    candidates_emitted BIGINT NOT NULL DEFAULT 0,
+    updated_date DATETIME(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- ================================================
 -- End of shop-CREATE-TABLE.sql
 -- 
@@ -0,0 +1,49 @@
+-- ============================================
+-- Perfect8 Shop Migration - Abandoned cart sweeper
+-- Database: shopDB
+-- ============================================
+-- Lägger till index carts(updated_date, cart_id) som AbandonedCartSweeper
+-- går igenom i ordning, och tabellen cart_sweep_progress där svepets
+-- position sparas så att det fortsätter där det slutade efter omstart.
+-- Detta script är idempotent - kan köras flera gånger
+-- ============================================
+
+-- ============================================
+-- 1. carts.idx_carts_updated
+-- ============================================
+
+SET @index_exists = (
+    SELECT COUNT(*)
+    FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'carts'
+    AND INDEX_NAME = 'idx_carts_updated'
+);
+
+SET @sql = IF(@index_exists = 0,
+    'CREATE INDEX idx_carts_updated ON carts (updated_date, cart_id)',
+    'SELECT "idx_carts_updated finns redan, hoppar över" as status'
+);
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ============================================
+-- 2. cart_sweep_progress
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS cart_sweep_progress (
+    sweep_name VARCHAR(50) PRIMARY KEY,
+    delete_cutoff DATETIME(6),
+    candidate_from DATETIME(6),
+    candidate_to DATETIME(6),
+    last_updated_date DATETIME(6),
+    last_cart_id BIGINT,
+    carts_deleted BIGINT NOT NULL DEFAULT 0,
+    candidates_emitted BIGINT NOT NULL DEFAULT 0,
+    updated_date DATETIME(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+SELECT 'Abandoned cart sweeper migration klar' as status,
+       (SELECT COUNT(*) FROM carts) as carts,
+       (SELECT COUNT(*) FROM cart_sweep_progress) as progress_rows;
@@ -0,0 +1,70 @@
+-- ============================================
+-- Perfect8 Shop Migration - Flash sale
+-- Database: shopDB
+-- ============================================
+-- Skapar tabellerna flash_sale_allocations och flash_sale_journal.
+-- Lager som "armas" för flash sale flyttas från products.stock_quantity till
+-- en allokering och säljs ur minnet; journalen gör det kraschsäkert.
+-- owner_id / lease_until anger vilken shop-service-instans som äger allokeringen
+-- (lease som förnyas av ägaren och tas över när den gått ut).
+-- Detta script är idempotent - kan köras flera gånger
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS flash_sale_allocations (
+    product_id BIGINT PRIMARY KEY,
+    allocated INT NOT NULL DEFAULT 0,
+    remaining INT NOT NULL DEFAULT 0,
+    armed BOOLEAN NOT NULL DEFAULT TRUE,
+    armed_date DATETIME(6),
+    updated_date DATETIME(6),
+    owner_id VARCHAR(64),
+    lease_until DATETIME(6),
+
+    FOREIGN KEY (product_id) REFERENCES products(product_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS flash_sale_journal (
+    journal_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    created_date DATETIME(6) NOT NULL,
+
+    INDEX idx_product_id (product_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Kolumnen owner_id (för databaser som skapades innan lease-ägarskap)
+SET @col_exists = (
+    SELECT COUNT(*)
+    FROM INFORMATION_SCHEMA.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'flash_sale_allocations'
+    AND COLUMN_NAME = 'owner_id'
+);
+
+SET @sql = IF(@col_exists = 0,
+    'ALTER TABLE flash_sale_allocations ADD COLUMN owner_id VARCHAR(64) AFTER updated_date',
+    'SELECT "owner_id finns redan, hoppar över" as status'
+);
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Kolumnen lease_until (för databaser som skapades innan lease-ägarskap)
+SET @col_exists = (
+    SELECT COUNT(*)
+    FROM INFORMATION_SCHEMA.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'flash_sale_allocations'
+    AND COLUMN_NAME = 'lease_until'
+);
+
+SET @sql = IF(@col_exists = 0,
+    'ALTER TABLE flash_sale_allocations ADD COLUMN lease_until DATETIME(6) AFTER owner_id',
+    'SELECT "lease_until finns redan, hoppar över" as status'
+);
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT 'Flash sale migration klar' as status;
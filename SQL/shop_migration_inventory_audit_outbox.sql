@@ -0,0 +1,50 @@
+-- ============================================
+-- Perfect8 Shop Migration - Inventory audit outbox
+-- Database: shopDB
+-- ============================================
+-- Skapar tabellen inventory_audit_outbox. Lagerrörelser skrivs dit i samma
+-- transaktion som lagerändringen och flyttas sedan i batchar till
+-- inventory_transactions (InventoryAuditLog).
+-- Index på transaction_date - lagerhistorik och ledger läser outboxen per datumintervall.
+-- Detta script är idempotent - kan köras flera gånger
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS inventory_audit_outbox (
+    outbox_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    transaction_date DATETIME(6) NOT NULL,
+    quantity_before INT NOT NULL,
+    quantity_after INT NOT NULL,
+    quantity_change INT NOT NULL,
+    reason VARCHAR(500),
+    reference_id VARCHAR(100),
+    user_id VARCHAR(100),
+    batch_number VARCHAR(100),
+    expiry_date DATETIME(6),
+    cost_per_unit DECIMAL(10, 2),
+    total_cost DECIMAL(10, 2),
+    notes VARCHAR(1000),
+
+    INDEX idx_product_id (product_id),
+    INDEX idx_transaction_date (transaction_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Index på transaction_date (för databaser som skapades utan det)
+SET @index_exists = (
+    SELECT COUNT(*)
+    FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'inventory_audit_outbox'
+    AND INDEX_NAME = 'idx_transaction_date'
+);
+
+SET @sql = IF(@index_exists = 0,
+    'CREATE INDEX idx_transaction_date ON inventory_audit_outbox (transaction_date)',
+    'SELECT "idx_transaction_date finns redan, hoppar över" as status'
+);
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT 'Inventory audit outbox migration klar' as status, COUNT(*) as outbox_rows FROM inventory_audit_outbox;
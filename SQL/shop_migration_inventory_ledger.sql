@@ -0,0 +1,37 @@
+-- ============================================
+-- Perfect8 Shop Migration - Inventory ledger
+-- Database: shopDB
+-- ============================================
+-- Skapar tabellerna inventory_stock_snapshots och inventory_daily_movements.
+-- Varje natt sparas lagersaldot per produkt vid dygnets start och dagens
+-- lagerrörelser summeras per produkt, dag och typ (InventoryLedger).
+-- Rörelser äldre än retention-fönstret tas bort när de är summerade.
+-- Detta script är idempotent - kan köras flera gånger
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS inventory_stock_snapshots (
+    product_id BIGINT NOT NULL,
+    snapshot_date DATE NOT NULL,
+    stock_quantity INT NOT NULL,
+    created_date DATETIME(6) NOT NULL,
+
+    PRIMARY KEY (product_id, snapshot_date),
+    INDEX idx_snapshot_date (snapshot_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS inventory_daily_movements (
+    product_id BIGINT NOT NULL,
+    movement_date DATE NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    transaction_count INT NOT NULL,
+    quantity_in INT NOT NULL,
+    quantity_out INT NOT NULL,
+    net_change INT NOT NULL,
+
+    PRIMARY KEY (product_id, movement_date, transaction_type),
+    INDEX idx_movement_date (movement_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+SELECT 'Inventory ledger migration klar' as status,
+       (SELECT COUNT(*) FROM inventory_stock_snapshots) as snapshot_rows,
+       (SELECT COUNT(*) FROM inventory_daily_movements) as summary_rows;
@@ -0,0 +1,54 @@
+-- ============================================
+-- Perfect8 Shop Migration - Bulk product import
+-- Database: shopDB
+-- ============================================
+-- Lägger till tabellen product_import_jobs som ProductImportService
+-- använder för jobbstatus och framsteg. last_committed_row skrivs med
+-- varje importerad batch så att ett avbrutet jobb kan återupptas.
+-- Detta script är idempotent - kan köras flera gånger
+-- ============================================
+
+-- ============================================
+-- 1. product_import_jobs
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS product_import_jobs (
+    product_import_job_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    file_name VARCHAR(255),
+    format VARCHAR(10) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    rows_read BIGINT NOT NULL DEFAULT 0,
+    rows_imported BIGINT NOT NULL DEFAULT 0,
+    rows_skipped BIGINT NOT NULL DEFAULT 0,
+    rows_failed BIGINT NOT NULL DEFAULT 0,
+    last_committed_row BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000),
+    created_date DATETIME(6),
+    updated_date DATETIME(6),
+    finished_date DATETIME(6),
+
+    INDEX idx_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- 2. product_import_jobs.idx_status (om tabellen skapades utan index)
+-- ============================================
+
+SET @index_exists = (
+    SELECT COUNT(*)
+    FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'product_import_jobs'
+    AND INDEX_NAME = 'idx_status'
+);
+
+SET @sql = IF(@index_exists = 0,
+    'CREATE INDEX idx_status ON product_import_jobs (status)',
+    'SELECT "idx_status finns redan, hoppar över" as status'
+);
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT 'Product import migration klar' as status,
+       (SELECT COUNT(*) FROM product_import_jobs) as import_jobs;
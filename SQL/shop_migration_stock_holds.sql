@@ -0,0 +1,72 @@
+-- ============================================
+-- Perfect8 Shop Migration - Stock holds
+-- Database: shopDB
+-- ============================================
+-- Lägger till products.reserved_quantity och tabellen stock_holds,
+-- och skapar holds för PENDING-ordrar som redan har dragit lager
+-- (så att de kan släppas vid avbokning/utgång).
+-- Detta script är idempotent - kan köras flera gånger
+-- ============================================
+
+-- ============================================
+-- 1. products.reserved_quantity
+-- ============================================
+
+SET @col_exists = (
+    SELECT COUNT(*)
+    FROM INFORMATION_SCHEMA.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'products'
+    AND COLUMN_NAME = 'reserved_quantity'
+);
+
+SET @sql = IF(@col_exists = 0,
+    'ALTER TABLE products ADD COLUMN reserved_quantity INT NOT NULL DEFAULT 0 AFTER stock_quantity',
+    'SELECT "reserved_quantity finns redan, hoppar över" as status'
+);
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ============================================
+-- 2. stock_holds
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS stock_holds (
+    stock_hold_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    expiry_date DATETIME(6) NOT NULL,
+    created_date DATETIME(6),
+
+    FOREIGN KEY (order_id) REFERENCES orders(order_id),
+    FOREIGN KEY (product_id) REFERENCES products(product_id),
+    INDEX idx_order_id (order_id),
+    INDEX idx_expiry_date (expiry_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- 3. Holds för befintliga PENDING-ordrar (30 min från nu)
+-- Bara ordrar som saknar holds - säkert att köra igen
+-- ============================================
+
+START TRANSACTION;
+
+INSERT INTO stock_holds (order_id, product_id, quantity, expiry_date, created_date)
+SELECT oi.order_id, oi.product_id, SUM(oi.quantity), NOW(6) + INTERVAL 30 MINUTE, NOW(6)
+FROM order_items oi
+JOIN orders o ON o.order_id = oi.order_id
+WHERE o.order_status = 'PENDING'
+AND NOT EXISTS (SELECT 1 FROM stock_holds h WHERE h.order_id = o.order_id)
+GROUP BY oi.order_id, oi.product_id;
+
+-- reserved_quantity = summan av aktiva holds
+UPDATE products p
+LEFT JOIN (SELECT product_id, SUM(quantity) AS held FROM stock_holds GROUP BY product_id) h
+    ON h.product_id = p.product_id
+SET p.reserved_quantity = COALESCE(h.held, 0);
+
+COMMIT;
+
+SELECT 'Stock holds migration klar' as status, COUNT(*) as active_holds FROM stock_holds;
@@ -0,0 +1,79 @@
+package com.perfect8.blog.config;
+
+import com.perfect8.blog.service.PostVersion;
+import com.perfect8.common.cache.ContentVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Conditional GET for the public post endpoints
+ *
+ * ETag = PostVersion + hash of path and query string. A matching If-None-Match
+ * is answered with 304 before the controller runs (no query, no JSON).
+ * A 304 on GET /api/posts/{slug} is not counted as a view.
+ *
+ * FIXED (2026-10-17): Other GETs only get the ETag when the controller answers 2xx
+ * (set just before the body is written), so errors are never cached.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class PostETagInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private static final String ETAG_ATTRIBUTE = PostETagInterceptor.class.getName() + ".etag";
+
+    private final PostVersion postVersion;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+
+        String requestKey = request.getQueryString() != null
+                ? request.getRequestURI() + "?" + request.getQueryString()
+                : request.getRequestURI();
+        String etag = postVersion.etagFor(requestKey);
+
+        if (ContentVersion.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && response instanceof ServletServerHttpResponse servletResponse) {
+            Object etag = servletRequest.getServletRequest().getAttribute(ETAG_ATTRIBUTE);
+            int status = servletResponse.getServletResponse().getStatus();
+            if (etag != null && status >= 200 && status < 300) {
+                response.getHeaders().set(HttpHeaders.ETAG, etag.toString());
+                response.getHeaders().set(HttpHeaders.CACHE_CONTROL, "no-cache");
+            }
+        }
+        return body;
+    }
+}
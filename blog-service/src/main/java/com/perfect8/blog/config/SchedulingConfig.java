@@ -0,0 +1,23 @@
+package com.perfect8.blog.config;
+
+import com.perfect8.common.counter.ViewCounter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (view counter flushes etc.)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Write-behind views of published posts (Post.viewCount)
+     */
+    @Bean
+    public ViewCounter postViewCounter(JdbcTemplate jdbcTemplate) {
+        return new ViewCounter("post-views", "posts", "view_count", "post_id", jdbcTemplate::batchUpdate);
+    }
+}
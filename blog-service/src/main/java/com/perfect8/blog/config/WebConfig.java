@@ -0,0 +1,22 @@
+package com.perfect8.blog.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * MVC configuration - ETag / 304 on the public post endpoints
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final PostETagInterceptor postETagInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(postETagInterceptor)
+                .addPathPatterns("/api/posts", "/api/posts/**");
+    }
+}
@@ -1,5 +1,6 @@
 package com.perfect8.blog.controller;
 
+import com.perfect8.common.counter.ViewCounter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
@@ -27,6 +28,9 @@ public class HealthController implements HealthIndicator {
     @Autowired(required = false)
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired(required = false)
+    private ViewCounter postViewCounter;
+
     @Value("${server.port:8080}")
     private String serverPort;
 
@@ -122,6 +126,11 @@ public class HealthController implements HealthIndicator {
             health.put("database", database);
         }
 
+        // Write-behind view counter (pending backlog + flush lag)
+        if (postViewCounter != null) {
+            health.put("viewCounter", postViewCounter.getMetrics());
+        }
+
         health.put("status", "UP");
         return ResponseEntity.ok(health);
     }
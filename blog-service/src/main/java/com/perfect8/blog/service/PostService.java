@@ -6,6 +6,7 @@ import com.perfect8.blog.dto.PostDto;
 import com.perfect8.blog.exception.ResourceNotFoundException;
 import com.perfect8.blog.model.Post;
 import com.perfect8.blog.repository.PostRepository;
+import com.perfect8.common.counter.ViewCounter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -22,6 +23,8 @@ import java.time.LocalDateTime;
 public class PostService {
 
     private final PostRepository postRepository;
+    private final ViewCounter postViewCounter;
+    private final PostVersion postVersion;
 
     // ==================== Public Methods (Read) ====================
 
@@ -49,15 +52,16 @@ public class PostService {
     }
 
     /**
-     * Get published post by slug (increments view count)
+     * Get published post by slug (counts a view)
+     * FIXED (2026-10-16): Pure read - the view is counted in the post ViewCounter and written
+     * in batches, instead of a row-locking save() on every public read
      */
+    @Transactional(readOnly = true)
     public Post getPublishedPostBySlug(String slug) {
         Post post = postRepository.findBySlugAndIsPublishedTrue(slug)
                 .orElseThrow(() -> new ResourceNotFoundException("Published post not found with slug: " + slug));
 
-        // Increment view count
-        post.incrementViewCount();
-        postRepository.save(post);
+        postViewCounter.recordView(post.getPostId());
 
         return post;
     }
@@ -104,6 +108,7 @@ public class PostService {
 
         Post savedPost = postRepository.save(post);
         log.info("Post created with id: {}", savedPost.getPostId());
+        postVersion.bumpAfterCommit();
 
         return savedPost;
     }
@@ -133,6 +138,7 @@ public class PostService {
 
         Post savedPost = postRepository.save(post);
         log.info("Post created with id: {}, published: {}", savedPost.getPostId(), shouldPublish);
+        postVersion.bumpAfterCommit();
 
         return savedPost;
     }
@@ -155,6 +161,7 @@ public class PostService {
 
         Post updatedPost = postRepository.save(post);
         log.info("Post updated: {}", postId);
+        postVersion.bumpAfterCommit();
 
         return updatedPost;
     }
@@ -173,6 +180,7 @@ public class PostService {
         Post post = getPostById(postId);
         postRepository.delete(post);
         log.info("Post deleted: {}", postId);
+        postVersion.bumpAfterCommit();
     }
 
     /**
@@ -183,6 +191,7 @@ public class PostService {
         post.publish();
         Post publishedPost = postRepository.save(post);
         log.info("Post published: {}", postId);
+        postVersion.bumpAfterCommit();
         return publishedPost;
     }
 
@@ -194,6 +203,7 @@ public class PostService {
         post.unpublish();
         Post unpublishedPost = postRepository.save(post);
         log.info("Post unpublished: {}", postId);
+        postVersion.bumpAfterCommit();
         return unpublishedPost;
     }
 
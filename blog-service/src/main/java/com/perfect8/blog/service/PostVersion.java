@@ -0,0 +1,45 @@
+package com.perfect8.blog.service;
+
+import com.perfect8.common.cache.ContentVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Monotonic version of the public post content, bumped by PostService writes.
+ *
+ * The bump is deferred until the write transaction commits, so a client can
+ * never revalidate against a version whose data is not yet visible.
+ * View counts are not part of the version - they are write-behind anyway.
+ */
+@Service
+@Slf4j
+public class PostVersion {
+
+    private final ContentVersion version = new ContentVersion("posts");
+
+    /**
+     * Bump after the current transaction commits (immediately if there is none).
+     */
+    public void bumpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump();
+                }
+            });
+        } else {
+            bump();
+        }
+    }
+
+    public String etagFor(String requestKey) {
+        return version.etagFor(requestKey);
+    }
+
+    private void bump() {
+        log.debug("Post content version {}", version.bump());
+    }
+}
@@ -0,0 +1,69 @@
+package com.perfect8.common.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content version - Version 1.0
+ * Shared between shop-service (catalog) and blog-service (posts)
+ *
+ * A monotonic counter bumped after every committed write to the content it covers.
+ * Public GET responses are tagged with
+ *   W/"<name>-<bootId>-<version>-<request hash>"
+ * so a client revalidating with If-None-Match can be answered 304 from the
+ * counter alone - no repository query, no serialization.
+ *
+ * bootId is random per process, so ETags from a previous run (or another
+ * instance with its own counter) never match.
+ */
+public class ContentVersion {
+
+    private final String name;
+    private final String bootId;
+    private final AtomicLong version = new AtomicLong();
+
+    public ContentVersion(String name) {
+        this.name = name;
+        this.bootId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Invalidate all ETags handed out so far. Call after the write has committed.
+     */
+    public long bump() {
+        return version.incrementAndGet();
+    }
+
+    /**
+     * Weak ETag for a request key (method + path + query) at the current version.
+     */
+    public String etagFor(String requestKey) {
+        return "W/\"" + name + "-" + bootId + "-" + version.get() + "-"
+                + Integer.toHexString(requestKey != null ? requestKey.hashCode() : 0) + "\"";
+    }
+
+    /**
+     * True if an If-None-Match header value matches the ETag (weak comparison, lists and "*").
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
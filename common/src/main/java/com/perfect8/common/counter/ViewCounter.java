@@ -0,0 +1,74 @@
+package com.perfect8.common.counter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * View Counter - Version 1.0
+ * Write-behind view counting for one table, shared by blog-service (posts.view_count)
+ * and shop-service (products.views). Each service declares it as a bean with its table
+ * and columns.
+ *
+ * Recording a view only bumps an in-memory counter; the deltas are written every
+ * view-counter.flush-ms as one batched UPDATE table SET column = column + ? WHERE id = ?.
+ * At most one flush interval of views is lost if the service crashes.
+ */
+@Slf4j
+public class ViewCounter {
+
+    /**
+     * Runs one JDBC batch - typically JdbcTemplate::batchUpdate.
+     */
+    @FunctionalInterface
+    public interface BatchUpdater {
+        void batchUpdate(String sql, List<Object[]> batchArgs);
+    }
+
+    private final String name;
+    private final WriteBehindCounter counter;
+
+    public ViewCounter(String name, String table, String countColumn, String idColumn, BatchUpdater batchUpdater) {
+        this.name = name;
+        String flushSql = "UPDATE " + table + " SET " + countColumn + " = " + countColumn + " + ? WHERE "
+                + idColumn + " = ?";
+        this.counter = new WriteBehindCounter(name, deltas -> {
+            List<Object[]> batch = new ArrayList<>(deltas.size());
+            for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                batch.add(new Object[]{delta.getValue(), delta.getKey()});
+            }
+            batchUpdater.batchUpdate(flushSql, batch);
+        });
+    }
+
+    public void recordView(Long entityId) {
+        counter.increment(entityId);
+    }
+
+    /**
+     * Views not yet written to the database.
+     */
+    public long getPendingViews(Long entityId) {
+        return counter.getPending(entityId);
+    }
+
+    @Scheduled(fixedDelayString = "${view-counter.flush-ms:5000}",
+            initialDelayString = "${view-counter.flush-ms:5000}")
+    public void flush() {
+        counter.flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} before shutdown", name);
+        counter.flush();
+    }
+
+    public Map<String, Object> getMetrics() {
+        return counter.getMetrics();
+    }
+}
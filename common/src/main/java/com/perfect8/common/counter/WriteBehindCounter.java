@@ -0,0 +1,167 @@
+package com.perfect8.common.counter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind counter - Version 1.0
+ * Shared between blog-service (post views) and shop-service (product views)
+ *
+ * Hot path: increment() only touches a per-entity LongAdder (striped, no locks, no DB).
+ * A scheduled job calls flush(), which drains all deltas and hands them - sorted by
+ * entity ID so concurrent flushers always lock rows in the same order - to the
+ * service's Flusher, typically one batched
+ *   UPDATE table SET counter = counter + ? WHERE id = ?
+ *
+ * Loss window: at most one flush interval of increments is lost on a crash
+ * (a failed flush puts its deltas back, and services flush on shutdown).
+ *
+ * One LongAdder is kept per entity that has ever been counted, so memory is
+ * bounded by the number of entities (posts/products), not by traffic.
+ */
+@Slf4j
+public class WriteBehindCounter {
+
+    /**
+     * Persists drained deltas (entityId -> amount to add). Throwing keeps the deltas for the next flush.
+     */
+    @FunctionalInterface
+    public interface Flusher {
+        void flush(Map<Long, Long> deltas) throws Exception;
+    }
+
+    private final String name;
+    private final Flusher flusher;
+    private final ConcurrentHashMap<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+    // Time of the oldest increment not yet flushed (0 = nothing pending)
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+
+    private final AtomicLong totalIncrements = new AtomicLong();
+    private final AtomicLong totalFlushed = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private volatile long lastFlushMillis;
+    private volatile long lastFlushDurationMillis;
+    private volatile long lastFlushLagMillis;
+    private volatile long maxFlushLagMillis;
+    private volatile String lastError;
+
+    public WriteBehindCounter(String name, Flusher flusher) {
+        this.name = name;
+        this.flusher = flusher;
+    }
+
+    public void increment(Long entityId) {
+        add(entityId, 1L);
+    }
+
+    public void add(Long entityId, long delta) {
+        if (entityId == null || delta == 0) {
+            return;
+        }
+        counters.computeIfAbsent(entityId, id -> new LongAdder()).add(delta);
+        oldestPendingMillis.compareAndSet(0L, System.currentTimeMillis());
+        totalIncrements.addAndGet(delta);
+    }
+
+    /**
+     * Not yet flushed amount for one entity (add to the persisted value for an up-to-date figure).
+     */
+    public long getPending(Long entityId) {
+        LongAdder adder = entityId != null ? counters.get(entityId) : null;
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    /**
+     * Drain and persist all pending deltas. Returns the number of entities written.
+     */
+    public synchronized int flush() {
+        long pendingSince = oldestPendingMillis.getAndSet(0L);
+        if (pendingSince == 0L) {
+            return 0;
+        }
+
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            flusher.flush(deltas);
+        } catch (Exception e) {
+            // Put everything back - retried on the next flush
+            deltas.forEach(this::restore);
+            oldestPendingMillis.accumulateAndGet(pendingSince,
+                    (current, failed) -> current == 0L ? failed : Math.min(current, failed));
+            flushFailures.incrementAndGet();
+            lastError = e.getMessage();
+            log.error("Flush of {} counter failed ({} entities kept for retry): {}", name, deltas.size(), e.getMessage());
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long flushedAmount = deltas.values().stream().mapToLong(Long::longValue).sum();
+        totalFlushed.addAndGet(flushedAmount);
+        flushCount.incrementAndGet();
+        lastFlushMillis = now;
+        lastFlushDurationMillis = now - start;
+        lastFlushLagMillis = now - pendingSince;
+        maxFlushLagMillis = Math.max(maxFlushLagMillis, lastFlushLagMillis);
+        lastError = null;
+        log.debug("Flushed {} counter: {} entities, +{} ({} ms, lag {} ms)",
+                name, deltas.size(), flushedAmount, lastFlushDurationMillis, lastFlushLagMillis);
+        return deltas.size();
+    }
+
+    private void restore(Long entityId, Long delta) {
+        counters.computeIfAbsent(entityId, id -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Counter metrics - pending backlog and flush lag (age of the oldest unflushed increment).
+     */
+    public Map<String, Object> getMetrics() {
+        long pendingSince = oldestPendingMillis.get();
+        long pendingTotal = 0;
+        int pendingEntities = 0;
+        for (LongAdder adder : counters.values()) {
+            long sum = adder.sum();
+            if (sum != 0) {
+                pendingTotal += sum;
+                pendingEntities++;
+            }
+        }
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("name", name);
+        metrics.put("pendingEntities", pendingEntities);
+        metrics.put("pendingTotal", pendingTotal);
+        metrics.put("currentLagMillis", pendingSince == 0L ? 0L : System.currentTimeMillis() - pendingSince);
+        metrics.put("lastFlushLagMillis", lastFlushLagMillis);
+        metrics.put("maxFlushLagMillis", maxFlushLagMillis);
+        metrics.put("lastFlushDurationMillis", lastFlushDurationMillis);
+        metrics.put("lastFlushMillis", lastFlushMillis);
+        metrics.put("flushCount", flushCount.get());
+        metrics.put("flushFailures", flushFailures.get());
+        metrics.put("totalIncrements", totalIncrements.get());
+        metrics.put("totalFlushed", totalFlushed.get());
+        if (lastError != null) {
+            metrics.put("lastError", lastError);
+        }
+        return metrics;
+    }
+}
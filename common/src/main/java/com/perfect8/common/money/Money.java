@@ -0,0 +1,169 @@
+package com.perfect8.common.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Money - Version 1.0
+ * Shared money type - an amount in minor units (öre / cents) plus a currency code.
+ *
+ * Cart and checkout arithmetic runs on the long minor units:
+ * - the static operations (times, percentOf, divide) work on plain longs and allocate
+ *   nothing - use them in loops over order / cart lines
+ * - the instance methods wrap the same operations for values passed around
+ * - overflow throws ArithmeticException (Math.*Exact), rounding is always explicit
+ *
+ * BigDecimal only at the boundaries: toMinor() when reading an entity / request field,
+ * toBigDecimal() when writing one back. All supported currencies (SEK, EUR, USD)
+ * have two minor digits.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int MINOR_DIGITS = 2;
+
+    // Percentages in basis points: 2500 = 25 %
+    public static final long BASIS_POINTS_PER_WHOLE = 10_000;
+
+    private final long minor;
+    private final String currency;
+
+    private Money(long minor, String currency) {
+        this.minor = minor;
+        this.currency = Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money ofMinor(long minor, String currency) {
+        return new Money(minor, currency);
+    }
+
+    public static Money of(BigDecimal amount, String currency) {
+        return new Money(toMinor(amount), currency);
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0, currency);
+    }
+
+    public long getMinor() {
+        return minor;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minor, other.minor), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minor, other.minor), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(times(minor, quantity), currency);
+    }
+
+    public Money percent(long basisPoints, RoundingMode roundingMode) {
+        return new Money(percentOf(minor, basisPoints, roundingMode), currency);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minor);
+    }
+
+    // ========== Primitive operations (no allocation) ==========
+
+    public static long times(long minor, long quantity) {
+        return Math.multiplyExact(minor, quantity);
+    }
+
+    /**
+     * basisPoints / 10 000 of an amount, e.g. percentOf(10_000, 2500, HALF_UP) = 2500 (25 %)
+     */
+    public static long percentOf(long minor, long basisPoints, RoundingMode roundingMode) {
+        return divide(Math.multiplyExact(minor, basisPoints), BASIS_POINTS_PER_WHOLE, roundingMode);
+    }
+
+    /**
+     * Integer division with BigDecimal rounding semantics
+     */
+    public static long divide(long dividend, long divisor, RoundingMode roundingMode) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+
+        int signum = (dividend < 0) == (divisor < 0) ? 1 : -1;
+        long absRemainder = Math.abs(remainder);
+        // < 0 below half, 0 exactly half, > 0 above half
+        int half = Long.compare(absRemainder, Math.abs(divisor) - absRemainder);
+        boolean awayFromZero = switch (roundingMode) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> signum > 0;
+            case FLOOR -> signum < 0;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary: " + dividend + " / " + divisor);
+        };
+        return awayFromZero ? quotient + signum : quotient;
+    }
+
+    // ========== BigDecimal boundary ==========
+
+    /**
+     * Minor units of a BigDecimal amount (null = 0), rounded HALF_UP to MINOR_DIGITS
+     */
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        BigDecimal scaled = amount.scale() == MINOR_DIGITS ? amount : amount.setScale(MINOR_DIGITS, RoundingMode.HALF_UP);
+        return scaled.movePointRight(MINOR_DIGITS).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, MINOR_DIGITS);
+    }
+
+    // ========== Object ==========
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Money money)) {
+            return false;
+        }
+        return minor == money.minor && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor) * 31 + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+}
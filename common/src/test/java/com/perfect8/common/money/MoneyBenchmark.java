@@ -0,0 +1,121 @@
+package com.perfect8.common.money;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark: totals of a 50-line cart with BigDecimal (the old cart / checkout code)
+ * against Money minor units - line totals, subtotal, 10 % discount, 25 % VAT, grand total.
+ *
+ * - bigDecimal: multiply / add / setScale per line, like CartService and OrderService did
+ * - minorFromBigDecimal: the current path - BigDecimal prices from the entities converted
+ *   with Money.toMinor, long arithmetic, one BigDecimal at the end
+ * - minorUnits: long arithmetic only (prices already in minor units)
+ * - moneyObjects: the Money value type (one small object per operation)
+ *
+ * Not run by mvn test. Run with (JMH forks a JVM, so it needs the test classpath):
+ * mvn -pl common test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ *     "-Dexec.args=-cp %classpath com.perfect8.common.money.MoneyBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int LINES = 50;
+    private static final String CURRENCY = "SEK";
+
+    private static final BigDecimal VAT_RATE = new BigDecimal("0.25");
+    private static final BigDecimal DISCOUNT_RATE = new BigDecimal("0.10");
+    private static final long VAT_BASIS_POINTS = 2_500;
+    private static final long DISCOUNT_BASIS_POINTS = 1_000;
+
+    private final BigDecimal[] unitPrices = new BigDecimal[LINES];
+    private final long[] unitPricesMinor = new long[LINES];
+    private final Money[] unitPricesMoney = new Money[LINES];
+    private final int[] quantities = new int[LINES];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int line = 0; line < LINES; line++) {
+            long minor = 1_000 + random.nextInt(200_000);
+            unitPrices[line] = BigDecimal.valueOf(minor, Money.MINOR_DIGITS);
+            unitPricesMinor[line] = minor;
+            unitPricesMoney[line] = Money.ofMinor(minor, CURRENCY);
+            quantities[line] = 1 + random.nextInt(5);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int line = 0; line < LINES; line++) {
+            BigDecimal lineTotal = unitPrices[line].multiply(BigDecimal.valueOf(quantities[line]))
+                    .setScale(Money.MINOR_DIGITS, RoundingMode.HALF_UP);
+            subtotal = subtotal.add(lineTotal);
+        }
+        BigDecimal discount = subtotal.multiply(DISCOUNT_RATE).setScale(Money.MINOR_DIGITS, RoundingMode.HALF_UP);
+        BigDecimal taxable = subtotal.subtract(discount);
+        BigDecimal tax = taxable.multiply(VAT_RATE).setScale(Money.MINOR_DIGITS, RoundingMode.HALF_UP);
+        return taxable.add(tax);
+    }
+
+    @Benchmark
+    public BigDecimal minorFromBigDecimal() {
+        long subtotal = 0;
+        for (int line = 0; line < LINES; line++) {
+            subtotal = Math.addExact(subtotal, Money.times(Money.toMinor(unitPrices[line]), quantities[line]));
+        }
+        return Money.toBigDecimal(totalWithDiscountAndTax(subtotal));
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        long subtotal = 0;
+        for (int line = 0; line < LINES; line++) {
+            subtotal = Math.addExact(subtotal, Money.times(unitPricesMinor[line], quantities[line]));
+        }
+        return totalWithDiscountAndTax(subtotal);
+    }
+
+    @Benchmark
+    public Money moneyObjects() {
+        Money subtotal = Money.zero(CURRENCY);
+        for (int line = 0; line < LINES; line++) {
+            subtotal = subtotal.plus(unitPricesMoney[line].times(quantities[line]));
+        }
+        Money taxable = subtotal.minus(subtotal.percent(DISCOUNT_BASIS_POINTS, RoundingMode.HALF_UP));
+        return taxable.plus(taxable.percent(VAT_BASIS_POINTS, RoundingMode.HALF_UP));
+    }
+
+    private static long totalWithDiscountAndTax(long subtotal) {
+        long taxable = subtotal - Money.percentOf(subtotal, DISCOUNT_BASIS_POINTS, RoundingMode.HALF_UP);
+        return Math.addExact(taxable, Money.percentOf(taxable, VAT_BASIS_POINTS, RoundingMode.HALF_UP));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.perfect8.common.money;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for Money minor-unit arithmetic.
+ */
+class MoneyTest {
+
+    @Test
+    @DisplayName("HALF_EVEN rounds exact halves to the even neighbour")
+    void halfEven() {
+        assertEquals(2, Money.divide(25, 10, RoundingMode.HALF_EVEN));
+        assertEquals(4, Money.divide(35, 10, RoundingMode.HALF_EVEN));
+        assertEquals(3, Money.divide(26, 10, RoundingMode.HALF_EVEN));
+        assertEquals(-2, Money.divide(-25, 10, RoundingMode.HALF_EVEN));
+        assertEquals(-4, Money.divide(-35, 10, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    @DisplayName("HALF_UP rounds exact halves away from zero")
+    void halfUp() {
+        assertEquals(3, Money.divide(25, 10, RoundingMode.HALF_UP));
+        assertEquals(2, Money.divide(24, 10, RoundingMode.HALF_UP));
+        assertEquals(-3, Money.divide(-25, 10, RoundingMode.HALF_UP));
+        assertEquals(-2, Money.divide(-24, 10, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    @DisplayName("divide matches BigDecimal for every rounding mode, sign and remainder")
+    void divideMatchesBigDecimal() {
+        long[] divisors = {1, 2, 3, 7, 10, 100, 10_000, -3, -10};
+        for (RoundingMode mode : RoundingMode.values()) {
+            if (mode == RoundingMode.UNNECESSARY) {
+                continue;
+            }
+            for (long dividend = -250; dividend <= 250; dividend++) {
+                for (long divisor : divisors) {
+                    long expected = BigDecimal.valueOf(dividend)
+                            .divide(BigDecimal.valueOf(divisor), 0, mode)
+                            .longValueExact();
+                    assertEquals(expected, Money.divide(dividend, divisor, mode),
+                            dividend + " / " + divisor + " " + mode);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("UNNECESSARY throws only when rounding is needed")
+    void unnecessary() {
+        assertEquals(5, Money.divide(50, 10, RoundingMode.UNNECESSARY));
+        assertThrows(ArithmeticException.class, () -> Money.divide(51, 10, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    @DisplayName("percentOf rounds negative amounts symmetrically")
+    void percentOfNegative() {
+        // 25 % of 0.10 = 0.025 -> 0.03 / 0.02
+        assertEquals(3, Money.percentOf(10, 2500, RoundingMode.HALF_UP));
+        assertEquals(-3, Money.percentOf(-10, 2500, RoundingMode.HALF_UP));
+        assertEquals(2, Money.percentOf(10, 2500, RoundingMode.HALF_EVEN));
+        assertEquals(-2, Money.percentOf(-10, 2500, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    @DisplayName("Negative amounts add, subtract and convert like BigDecimal")
+    void negativeAmounts() {
+        Money refund = Money.of(new BigDecimal("-19.90"), "SEK");
+        Money price = Money.of(new BigDecimal("49.95"), "SEK");
+
+        assertEquals(-1990, refund.getMinor());
+        assertEquals(new BigDecimal("30.05"), price.plus(refund).toBigDecimal());
+        assertEquals(new BigDecimal("-69.85"), refund.minus(price).toBigDecimal());
+        assertEquals(new BigDecimal("-59.70"), refund.times(3).toBigDecimal());
+        assertEquals("-19.90 SEK", refund.toString());
+    }
+
+    @Test
+    @DisplayName("times and percentOf throw on overflow instead of wrapping")
+    void overflow() {
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2 + 1, 2));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MIN_VALUE, -1));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE, "SEK").times(2));
+        assertThrows(ArithmeticException.class, () -> Money.percentOf(Long.MAX_VALUE, 2500, RoundingMode.HALF_UP));
+        assertThrows(ArithmeticException.class,
+                () -> Money.ofMinor(Long.MAX_VALUE, "SEK").plus(Money.ofMinor(1, "SEK")));
+        assertEquals(Long.MAX_VALUE - 1, Money.times(Long.MAX_VALUE / 2, 2));
+    }
+
+    @Test
+    @DisplayName("toMinor rounds extra digits HALF_UP and treats null as zero")
+    void toMinor() {
+        assertEquals(1235, Money.toMinor(new BigDecimal("12.345")));
+        assertEquals(-1235, Money.toMinor(new BigDecimal("-12.345")));
+        assertEquals(1234, Money.toMinor(new BigDecimal("12.344")));
+        assertEquals(1200, Money.toMinor(new BigDecimal("12")));
+        assertEquals(0, Money.toMinor(null));
+    }
+
+    @Test
+    @DisplayName("Mixing currencies is rejected")
+    void currencyMismatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Money.ofMinor(100, "SEK").plus(Money.ofMinor(100, "EUR")));
+    }
+}
@@ -0,0 +1,82 @@
+package com.perfect8.shop.config;
+
+import com.perfect8.common.cache.ContentVersion;
+import com.perfect8.shop.service.CatalogVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Conditional GET for the public catalog endpoints (products, categories)
+ *
+ * The ETag is the CatalogVersion plus a hash of path and query string, taken before
+ * the controller reads anything - if the catalog changes while the response is being
+ * built, the client holds an older ETag and simply revalidates again.
+ * A matching If-None-Match is answered with 304 right here - no service call,
+ * no repository query, no JSON.
+ *
+ * FIXED (2026-10-17): Other GETs only get the ETag and "Cache-Control: no-cache"
+ * (store, but revalidate) when the controller answers 2xx - set just before the body
+ * is written, so errors and 404s are never cached under a catalog ETag.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class CatalogETagInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private static final String ETAG_ATTRIBUTE = CatalogETagInterceptor.class.getName() + ".etag";
+
+    private final CatalogVersion catalogVersion;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+
+        String requestKey = request.getQueryString() != null
+                ? request.getRequestURI() + "?" + request.getQueryString()
+                : request.getRequestURI();
+        String etag = catalogVersion.etagFor(requestKey);
+
+        if (ContentVersion.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && response instanceof ServletServerHttpResponse servletResponse) {
+            Object etag = servletRequest.getServletRequest().getAttribute(ETAG_ATTRIBUTE);
+            int status = servletResponse.getServletResponse().getStatus();
+            if (etag != null && status >= 200 && status < 300) {
+                response.getHeaders().set(HttpHeaders.ETAG, etag.toString());
+                response.getHeaders().set(HttpHeaders.CACHE_CONTROL, "no-cache");
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,23 @@
+package com.perfect8.shop.config;
+
+import com.perfect8.common.counter.ViewCounter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (catalog reloads, view counter flushes etc.)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Write-behind product detail views (Product.views)
+     */
+    @Bean
+    public ViewCounter productViewCounter(JdbcTemplate jdbcTemplate) {
+        return new ViewCounter("product-views", "products", "views", "product_id", jdbcTemplate::batchUpdate);
+    }
+}
@@ -1,17 +1,48 @@
 package com.perfect8.shop.config;
 
+import com.perfect8.shop.security.CurrentCustomerIdArgumentResolver;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
+
+    private final CatalogETagInterceptor catalogETagInterceptor;
+    private final CurrentCustomerIdArgumentResolver currentCustomerIdArgumentResolver;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOriginPatterns("*")  // Tillåter alla origins med credentials
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("ETag")
                 .allowCredentials(true);
     }
+
+    // ETag / 304 på publika katalog-endpoints (admin-endpoints undantagna)
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogETagInterceptor)
+                .addPathPatterns("/api/products", "/api/products/**", "/api/categories", "/api/categories/**")
+                .excludePathPatterns("/api/products/low-stock", "/api/products/import/**",
+                        "/api/products/*/stock-history", "/api/products/flash-sale",
+                        "/api/products/*/stock-at", "/api/products/inventory-report",
+                        "/api/categories/search", "/api/categories/statistics",
+                        "/api/categories/with-product-count", "/api/categories/check-slug",
+                        "/api/categories/dropdown");
+    }
+
+    // @CurrentCustomerId - cachad uppslagning av inloggad kund
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentCustomerIdArgumentResolver);
+    }
 }
@@ -3,8 +3,7 @@ package com.perfect8.shop.controller;
 import com.perfect8.shop.dto.*;
 import com.perfect8.shop.service.ShippingService;
 import com.perfect8.shop.service.CartService;
-import com.perfect8.shop.service.CustomerService;
-import com.perfect8.shop.entity.Customer;
+import com.perfect8.shop.security.CurrentCustomerId;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +16,9 @@ import java.util.Collections;
 /**
  * Cart Controller - Version 1.0
  * FIXED: Using Long customerId instead of String!
+ * FIXED (2026-10-16): customerId is bound with @CurrentCustomerId (cached lookup)
+ * instead of loading the Customer by email on every request
+ * ADDED (2026-10-16): /guest endpoints (token in X-Guest-Cart-Token) and /merge on login
  * CORS hanteras globalt av WebConfig
  */
 @RestController
@@ -27,7 +29,8 @@ public class CartController {
 
     private final CartService cartService;
     private final ShippingService shippingService;
-    private final CustomerService customerService;  // ADDED: To convert email to customerId
+
+    private static final String GUEST_TOKEN_HEADER = "X-Guest-Cart-Token";
 
     /**
      * Add item to cart - Core functionality
@@ -36,9 +39,8 @@ public class CartController {
     @PostMapping("/add")
     public ResponseEntity<ApiResponse<CartResponse>> addToCart(
             @Valid @RequestBody AddToCartRequest request,
-            Principal principal) {
+            @CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             CartResponse response = cartService.addToCart(customerIdLong, request);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Item added to cart successfully",
@@ -62,9 +64,8 @@ public class CartController {
     @PutMapping("/update")
     public ResponseEntity<ApiResponse<CartResponse>> updateCartItem(
             @Valid @RequestBody UpdateCartItemRequest request,
-            Principal principal) {
+            @CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             CartResponse response = cartService.updateCartItem(customerIdLong, request);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Cart item updated successfully",
@@ -88,9 +89,8 @@ public class CartController {
     @DeleteMapping("/remove/{productId}")
     public ResponseEntity<ApiResponse<CartResponse>> removeFromCart(
             @PathVariable Long productId,
-            Principal principal) {
+            @CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             CartResponse response = cartService.removeFromCart(customerIdLong, productId);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Item removed from cart successfully",
@@ -107,14 +107,38 @@ public class CartController {
         }
     }
 
+    /**
+     * Apply several add / update / remove operations at once - offline cart sync
+     * All or nothing, returns the recalculated cart
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<CartResponse>> applyBatch(
+            @Valid @RequestBody CartBatchRequest request,
+            @CurrentCustomerId Long customerIdLong) {
+        try {
+            CartResponse response = cartService.applyBatch(customerIdLong, request);
+            return ResponseEntity.ok(new ApiResponse<>(
+                    "Cart updated successfully",
+                    response,
+                    true
+            ));
+        } catch (Exception e) {
+            log.error("Error applying cart operations: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ApiResponse<>(
+                    e.getMessage(),
+                    Collections.singletonList(e.getMessage()),
+                    false
+            ));
+        }
+    }
+
     /**
      * Get cart - Core functionality
      * FIXED: Converting email to customerId
      */
     @GetMapping({"", "/"})
-    public ResponseEntity<ApiResponse<CartResponse>> getCart(Principal principal) {
+    public ResponseEntity<ApiResponse<CartResponse>> getCart(@CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             CartResponse response = cartService.getCart(customerIdLong);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Cart retrieved successfully",
@@ -136,9 +160,8 @@ public class CartController {
      * FIXED: Converting email to customerId
      */
     @DeleteMapping("/clear")
-    public ResponseEntity<ApiResponse<Void>> clearCart(Principal principal) {
+    public ResponseEntity<ApiResponse<Void>> clearCart(@CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             cartService.clearCart(customerIdLong);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Cart cleared successfully",
@@ -160,9 +183,8 @@ public class CartController {
      * FIXED: Converting email to customerId
      */
     @GetMapping("/count")
-    public ResponseEntity<ApiResponse<Integer>> getCartItemCount(Principal principal) {
+    public ResponseEntity<ApiResponse<Integer>> getCartItemCount(@CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             Integer count = cartService.getCartItemCount(customerIdLong);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Cart item count retrieved successfully",
@@ -179,6 +201,149 @@ public class CartController {
         }
     }
 
+    // ========== Guest carts (no customer account) ==========
+
+    /**
+     * Create guest cart - anonymous shoppers, no customer account needed
+     * The returned guestToken is sent as X-Guest-Cart-Token on the guest endpoints
+     */
+    @PostMapping("/guest")
+    public ResponseEntity<ApiResponse<CartResponse>> createGuestCart() {
+        try {
+            CartResponse response = cartService.createGuestCart();
+            return ResponseEntity.ok(new ApiResponse<>(
+                    "Guest cart created successfully",
+                    response,
+                    true
+            ));
+        } catch (Exception e) {
+            log.error("Error creating guest cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ApiResponse<>(
+                    e.getMessage(),
+                    Collections.singletonList(e.getMessage()),
+                    false
+            ));
+        }
+    }
+
+    /**
+     * Get guest cart
+     */
+    @GetMapping("/guest")
+    public ResponseEntity<ApiResponse<CartResponse>> getGuestCart(@RequestHeader(GUEST_TOKEN_HEADER) String guestToken) {
+        try {
+            CartResponse response = cartService.getGuestCart(guestToken);
+            return ResponseEntity.ok(new ApiResponse<>(
+                    "Cart retrieved successfully",
+                    response,
+                    true
+            ));
+        } catch (Exception e) {
+            log.error("Error retrieving guest cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ApiResponse<>(
+                    e.getMessage(),
+                    Collections.singletonList(e.getMessage()),
+                    false
+            ));
+        }
+    }
+
+    /**
+     * Add item to guest cart
+     */
+    @PostMapping("/guest/add")
+    public ResponseEntity<ApiResponse<CartResponse>> addToGuestCart(
+            @Valid @RequestBody AddToCartRequest request,
+            @RequestHeader(GUEST_TOKEN_HEADER) String guestToken) {
+        try {
+            CartResponse response = cartService.addToGuestCart(guestToken, request);
+            return ResponseEntity.ok(new ApiResponse<>(
+                    "Item added to cart successfully",
+                    response,
+                    true
+            ));
+        } catch (Exception e) {
+            log.error("Error adding to guest cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ApiResponse<>(
+                    e.getMessage(),
+                    Collections.singletonList(e.getMessage()),
+                    false
+            ));
+        }
+    }
+
+    /**
+     * Update guest cart item quantity
+     */
+    @PutMapping("/guest/update")
+    public ResponseEntity<ApiResponse<CartResponse>> updateGuestCartItem(
+            @Valid @RequestBody UpdateCartItemRequest request,
+            @RequestHeader(GUEST_TOKEN_HEADER) String guestToken) {
+        try {
+            CartResponse response = cartService.updateGuestCartItem(guestToken, request);
+            return ResponseEntity.ok(new ApiResponse<>(
+                    "Cart item updated successfully",
+                    response,
+                    true
+            ));
+        } catch (Exception e) {
+            log.error("Error updating guest cart item: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ApiResponse<>(
+                    e.getMessage(),
+                    Collections.singletonList(e.getMessage()),
+                    false
+            ));
+        }
+    }
+
+    /**
+     * Remove item from guest cart
+     */
+    @DeleteMapping("/guest/remove/{productId}")
+    public ResponseEntity<ApiResponse<CartResponse>> removeFromGuestCart(
+            @PathVariable Long productId,
+            @RequestHeader(GUEST_TOKEN_HEADER) String guestToken) {
+        try {
+            CartResponse response = cartService.removeFromGuestCart(guestToken, productId);
+            return ResponseEntity.ok(new ApiResponse<>(
+                    "Item removed from cart successfully",
+                    response,
+                    true
+            ));
+        } catch (Exception e) {
+            log.error("Error removing from guest cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ApiResponse<>(
+                    e.getMessage(),
+                    Collections.singletonList(e.getMessage()),
+                    false
+            ));
+        }
+    }
+
+    /**
+     * Merge guest cart into the customer's cart - called by the client after login
+     */
+    @PostMapping("/merge")
+    public ResponseEntity<ApiResponse<CartResponse>> mergeGuestCart(
+            @RequestHeader(GUEST_TOKEN_HEADER) String guestToken,
+            @CurrentCustomerId Long customerIdLong) {
+        try {
+            CartResponse response = cartService.mergeGuestCart(customerIdLong, guestToken);
+            return ResponseEntity.ok(new ApiResponse<>(
+                    "Guest cart merged successfully",
+                    response,
+                    true
+            ));
+        } catch (Exception e) {
+            log.error("Error merging guest cart: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ApiResponse<>(
+                    e.getMessage(),
+                    Collections.singletonList(e.getMessage()),
+                    false
+            ));
+        }
+    }
+
     /**
      * Get shipping options - Core functionality for checkout
      */
@@ -234,9 +399,8 @@ public class CartController {
      */
     @PostMapping("/validate-checkout")
     public ResponseEntity<ApiResponse<CheckoutValidationResponse>> validateCheckout(
-            Principal principal) {
+            @CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             CheckoutValidationResponse response = cartService.validateCheckout(customerIdLong);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Checkout validation completed",
@@ -260,9 +424,8 @@ public class CartController {
     @PostMapping("/prepare-checkout")
     public ResponseEntity<ApiResponse<CheckoutPreparationResponse>> prepareCheckout(
             @Valid @RequestBody CheckoutPreparationRequest request,
-            Principal principal) {
+            @CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             CheckoutPreparationResponse response = cartService.prepareCheckout(customerIdLong, request);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Checkout preparation completed",
@@ -279,31 +442,6 @@ public class CartController {
         }
     }
 
-    /**
-     * Helper method to get customerId from Principal
-     * FIXED: Converting email to customerId properly
-     */
-    private Long getCustomerIdFromPrincipal(Principal principal) {
-        if (principal == null) {
-            return null;
-        }
-
-        // Principal.getName() returns the email
-        String customerEmail = principal.getName();
-        if (customerEmail == null || customerEmail.isEmpty()) {
-            return null;
-        }
-
-        // Get customer by email and return the customerId
-        Customer customer = customerService.getCustomerByEmail(customerEmail);
-        if (customer == null) {
-            log.warn("No customer found for email: {}", customerEmail);
-            return null;
-        }
-
-        return customer.getCustomerId();
-    }
-
     /* ============================================
      * VERSION 2.0 ENDPOINTS - Commented out for v1.0
      * ============================================
@@ -317,9 +455,8 @@ public class CartController {
     @PostMapping("/apply-coupon")
     public ResponseEntity<ApiResponse<CartResponse>> applyCoupon(
             @Valid @RequestBody ApplyCouponRequest request,
-            Principal principal) {
+            @CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             CartResponse response = cartService.applyCoupon(customerIdLong, request);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Coupon applied successfully",
@@ -337,9 +474,8 @@ public class CartController {
 
     // Version 2.0: Remove coupon from cart
     @DeleteMapping("/remove-coupon")
-    public ResponseEntity<ApiResponse<CartResponse>> removeCoupon(Principal principal) {
+    public ResponseEntity<ApiResponse<CartResponse>> removeCoupon(@CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             CartResponse response = cartService.removeCoupon(customerIdLong);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Coupon removed successfully",
@@ -359,9 +495,8 @@ public class CartController {
     @PostMapping("/save")
     public ResponseEntity<ApiResponse<SavedCartResponse>> saveCart(
             @Valid @RequestBody SaveCartRequest request,
-            Principal principal) {
+            @CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             SavedCartResponse response = cartService.saveCart(customerIdLong, request);
             return ResponseEntity.ok(new ApiResponse<>(
                     "Cart saved successfully",
@@ -379,9 +514,8 @@ public class CartController {
 
     // Version 2.0: Get saved carts
     @GetMapping("/saved")
-    public ResponseEntity<ApiResponse<SavedCartResponse>> getSavedCarts(Principal principal) {
+    public ResponseEntity<ApiResponse<SavedCartResponse>> getSavedCarts(@CurrentCustomerId Long customerIdLong) {
         try {
-            Long customerIdLong = getCustomerIdFromPrincipal(principal);
             SavedCartResponse response = cartService.getSavedCarts(customerIdLong);
             if (response != null) {
                 return ResponseEntity.ok(new ApiResponse<>(
@@ -134,6 +134,7 @@ public class CategoryController {
 
     /**
      * Get products by category with pagination (Public endpoint)
+     * includeSubcategories=true also returns products of all descendant categories
      */
     @GetMapping("/{categoryId}/products")
     public ResponseEntity<ApiResponse<Page<Product>>> getProductsByCategory(
@@ -141,14 +142,15 @@ public class CategoryController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories) {
         try {
             Sort sort = sortDir.equalsIgnoreCase("desc")
                     ? Sort.by(sortBy).descending()
                     : Sort.by(sortBy).ascending();
 
             Pageable pageable = PageRequest.of(page, size, sort);
-            Page<Product> products = categoryService.getProductsByCategory(categoryId, pageable);
+            Page<Product> products = categoryService.getProductsByCategory(categoryId, includeSubcategories, pageable);
             return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", products));
         } catch (Exception e) {
             log.error("Error retrieving products for category {}: {}", categoryId, e.getMessage());
@@ -1,6 +1,9 @@
 package com.perfect8.shop.controller;
 
+import com.perfect8.shop.security.CurrentCustomerId;
 import com.perfect8.shop.service.CustomerService;
+import com.perfect8.shop.service.PageCursor;
+import com.perfect8.shop.dto.CursorPage;
 import com.perfect8.shop.dto.CustomerDTO;
 import com.perfect8.shop.dto.CustomerUpdateDTO;
 import com.perfect8.shop.dto.AddressDTO;
@@ -16,9 +19,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Set;
 
 /**
  * REST controller for customer management - Version 1.0
@@ -26,14 +29,18 @@ import java.util.List;
  * UPDATED (2025-12-28 - FAS 3):
  * - Removed JwtTokenProvider dependency (Gateway handles JWT)
  * - Removed helper methods (getCurrentCustomerId, getCurrentUserRole)
- * - Reads customer info directly from Gateway headers (X-Auth-User, X-Auth-Customer-Id, X-Auth-Role)
+ * - Reads customer info directly from Gateway headers (X-Auth-User, X-Auth-Role)
  * - Gateway validates JWT and adds headers before request reaches this service
  * 
  * Gateway Headers:
- * - X-Auth-User: username/email
- * - X-Auth-Customer-Id: customer ID (for customer logins)
+ * - X-User-Id: user ID from the JWT - CustomerIdResolver maps it to customers.user_id
+ * - X-Auth-User: username/email - CustomerIdResolver falls back to customers.email
  * - X-Auth-Role: user role (ROLE_ADMIN, ROLE_CUSTOMER, etc.)
  * 
+ * UPDATED (2026-10-16):
+ * - Customer endpoints take @CurrentCustomerId (cached X-User-Id / X-Auth-User
+ *   lookup) instead of loading the customer by email
+ * 
  * Magnum Opus Principles:
  * - Returns DTOs not Entities
  * - Descriptive variable names (customerId not id)
@@ -46,6 +53,8 @@ import java.util.List;
 @RequestMapping("/api/customers")
 public class CustomerController {
 
+    private static final Set<String> SCROLL_SORT_PROPERTIES = Set.of("createdDate", "customerId", "email");
+
     @Autowired
     private CustomerService customerService;
 
@@ -56,25 +65,12 @@ public class CustomerController {
      */
     @GetMapping("/profile")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('USER')")
-    public ResponseEntity<ApiResponse<CustomerDTO>> getProfile(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse<CustomerDTO>> getProfile(@CurrentCustomerId Long customerId) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-            if (customerIdHeader == null) {
-                // Fallback: lookup by email from X-Auth-User header
-                String email = request.getHeader("X-Auth-User");
-                if (email != null) {
-                    CustomerDTO customer = customerService.getCustomerDTOByEmail(email);
-                    return ResponseEntity.ok(new ApiResponse<>(
-                            "Customer profile retrieved successfully",
-                            customer,
-                            true
-                    ));
-                }
+            if (customerId == null) {
                 throw new RuntimeException("Unable to determine customer ID");
             }
-            
-            Long customerId = Long.parseLong(customerIdHeader);
+
             CustomerDTO customer = customerService.getCustomerById(customerId);
 
             ApiResponse<CustomerDTO> response = new ApiResponse<>(
@@ -101,25 +97,12 @@ public class CustomerController {
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('USER')")
     public ResponseEntity<ApiResponse<CustomerDTO>> updateProfile(
             @Valid @RequestBody CustomerUpdateDTO updateDTO,
-            HttpServletRequest request) {
+            @CurrentCustomerId Long customerId) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-            if (customerIdHeader == null) {
-                String email = request.getHeader("X-Auth-User");
-                if (email != null) {
-                    CustomerDTO existingCustomer = customerService.getCustomerDTOByEmail(email);
-                    CustomerDTO updatedCustomer = customerService.updateCustomer(existingCustomer.getCustomerId(), updateDTO);
-                    return ResponseEntity.ok(new ApiResponse<>(
-                            "Customer profile updated successfully",
-                            updatedCustomer,
-                            true
-                    ));
-                }
+            if (customerId == null) {
                 throw new RuntimeException("Unable to determine customer ID");
             }
-            
-            Long customerId = Long.parseLong(customerIdHeader);
+
             CustomerDTO updatedCustomer = customerService.updateCustomer(customerId, updateDTO);
 
             ApiResponse<CustomerDTO> response = new ApiResponse<>(
@@ -192,6 +175,39 @@ public class CustomerController {
         }
     }
 
+    /**
+     * Get all customers with cursor (keyset) pagination (admin only)
+     * Constant cost per page - pass nextCursor back as ?cursor= for the next page
+     */
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorPage<CustomerDTO>>> scrollAllCustomers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "createdDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            Sort sort = PageCursor.sortOf(sortBy, sortDir, SCROLL_SORT_PROPERTIES);
+            CursorPage<CustomerDTO> customers = customerService.scrollAllCustomers(cursor, size, sort, includeTotal);
+
+            ApiResponse<CursorPage<CustomerDTO>> response = new ApiResponse<>(
+                    "Customers retrieved successfully",
+                    customers,
+                    true
+            );
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            ApiResponse<CursorPage<CustomerDTO>> errorResponse = new ApiResponse<>(
+                    "Failed to retrieve customers: " + e.getMessage(),
+                    null,
+                    false
+            );
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /**
      * Get all customers with pagination (admin only)
      */
@@ -264,25 +280,12 @@ public class CustomerController {
      */
     @GetMapping("/addresses")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('USER')")
-    public ResponseEntity<ApiResponse<List<AddressDTO>>> getCustomerAddresses(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse<List<AddressDTO>>> getCustomerAddresses(@CurrentCustomerId Long customerId) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-            if (customerIdHeader == null) {
-                String email = request.getHeader("X-Auth-User");
-                if (email != null) {
-                    CustomerDTO customer = customerService.getCustomerDTOByEmail(email);
-                    List<AddressDTO> addresses = customerService.getCustomerAddresses(customer.getCustomerId());
-                    return ResponseEntity.ok(new ApiResponse<>(
-                            "Customer addresses retrieved successfully",
-                            addresses,
-                            true
-                    ));
-                }
+            if (customerId == null) {
                 throw new RuntimeException("Unable to determine customer ID");
             }
-            
-            Long customerId = Long.parseLong(customerIdHeader);
+
             List<AddressDTO> addresses = customerService.getCustomerAddresses(customerId);
 
             ApiResponse<List<AddressDTO>> response = new ApiResponse<>(
@@ -309,25 +312,12 @@ public class CustomerController {
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('USER')")
     public ResponseEntity<ApiResponse<AddressDTO>> addCustomerAddress(
             @Valid @RequestBody AddressDTO addressDTO,
-            HttpServletRequest request) {
+            @CurrentCustomerId Long customerId) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-            if (customerIdHeader == null) {
-                String email = request.getHeader("X-Auth-User");
-                if (email != null) {
-                    CustomerDTO customer = customerService.getCustomerDTOByEmail(email);
-                    AddressDTO newAddress = customerService.addCustomerAddress(customer.getCustomerId(), addressDTO);
-                    return ResponseEntity.ok(new ApiResponse<>(
-                            "Address added successfully",
-                            newAddress,
-                            true
-                    ));
-                }
+            if (customerId == null) {
                 throw new RuntimeException("Unable to determine customer ID");
             }
-            
-            Long customerId = Long.parseLong(customerIdHeader);
+
             AddressDTO newAddress = customerService.addCustomerAddress(customerId, addressDTO);
 
             ApiResponse<AddressDTO> response = new ApiResponse<>(
@@ -355,25 +345,12 @@ public class CustomerController {
     public ResponseEntity<ApiResponse<AddressDTO>> updateCustomerAddress(
             @PathVariable Long addressId,
             @Valid @RequestBody AddressDTO addressDTO,
-            HttpServletRequest request) {
+            @CurrentCustomerId Long customerId) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-            if (customerIdHeader == null) {
-                String email = request.getHeader("X-Auth-User");
-                if (email != null) {
-                    CustomerDTO customer = customerService.getCustomerDTOByEmail(email);
-                    AddressDTO updatedAddress = customerService.updateCustomerAddress(customer.getCustomerId(), addressId, addressDTO);
-                    return ResponseEntity.ok(new ApiResponse<>(
-                            "Address updated successfully",
-                            updatedAddress,
-                            true
-                    ));
-                }
+            if (customerId == null) {
                 throw new RuntimeException("Unable to determine customer ID");
             }
-            
-            Long customerId = Long.parseLong(customerIdHeader);
+
             AddressDTO updatedAddress = customerService.updateCustomerAddress(customerId, addressId, addressDTO);
 
             ApiResponse<AddressDTO> response = new ApiResponse<>(
@@ -400,25 +377,12 @@ public class CustomerController {
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('USER')")
     public ResponseEntity<ApiResponse<String>> deleteCustomerAddress(
             @PathVariable Long addressId,
-            HttpServletRequest request) {
+            @CurrentCustomerId Long customerId) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-            if (customerIdHeader == null) {
-                String email = request.getHeader("X-Auth-User");
-                if (email != null) {
-                    CustomerDTO customer = customerService.getCustomerDTOByEmail(email);
-                    customerService.deleteCustomerAddress(customer.getCustomerId(), addressId);
-                    return ResponseEntity.ok(new ApiResponse<>(
-                            "Address deleted successfully",
-                            "Address has been removed",
-                            true
-                    ));
-                }
+            if (customerId == null) {
                 throw new RuntimeException("Unable to determine customer ID");
             }
-            
-            Long customerId = Long.parseLong(customerIdHeader);
+
             customerService.deleteCustomerAddress(customerId, addressId);
 
             ApiResponse<String> response = new ApiResponse<>(
@@ -446,25 +410,12 @@ public class CustomerController {
     public ResponseEntity<ApiResponse<AddressDTO>> setDefaultAddress(
             @PathVariable Long addressId,
             @RequestParam String addressType,
-            HttpServletRequest request) {
+            @CurrentCustomerId Long customerId) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-            if (customerIdHeader == null) {
-                String email = request.getHeader("X-Auth-User");
-                if (email != null) {
-                    CustomerDTO customer = customerService.getCustomerDTOByEmail(email);
-                    AddressDTO defaultAddress = customerService.setDefaultAddress(customer.getCustomerId(), addressId, addressType);
-                    return ResponseEntity.ok(new ApiResponse<>(
-                            "Default address set successfully",
-                            defaultAddress,
-                            true
-                    ));
-                }
+            if (customerId == null) {
                 throw new RuntimeException("Unable to determine customer ID");
             }
-            
-            Long customerId = Long.parseLong(customerIdHeader);
+
             AddressDTO defaultAddress = customerService.setDefaultAddress(customerId, addressId, addressType);
 
             ApiResponse<AddressDTO> response = new ApiResponse<>(
@@ -492,28 +443,14 @@ public class CustomerController {
     @GetMapping("/orders")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('USER')")
     public ResponseEntity<ApiResponse<Page<OrderDTO>>> getCustomerOrders(
-            HttpServletRequest request,
+            @CurrentCustomerId Long customerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-            if (customerIdHeader == null) {
-                String email = request.getHeader("X-Auth-User");
-                if (email != null) {
-                    CustomerDTO customer = customerService.getCustomerDTOByEmail(email);
-                    Pageable pageable = PageRequest.of(page, size);
-                    Page<OrderDTO> orders = customerService.getCustomerOrders(customer.getCustomerId(), pageable);
-                    return ResponseEntity.ok(new ApiResponse<>(
-                            "Customer orders retrieved successfully",
-                            orders,
-                            true
-                    ));
-                }
+            if (customerId == null) {
                 throw new RuntimeException("Unable to determine customer ID");
             }
-            
-            Long customerId = Long.parseLong(customerIdHeader);
+
             Pageable pageable = PageRequest.of(page, size);
             Page<OrderDTO> orders = customerService.getCustomerOrders(customerId, pageable);
 
@@ -1,5 +1,18 @@
 package com.perfect8.shop.controller;
 
+import com.perfect8.common.counter.ViewCounter;
+import com.perfect8.shop.security.CustomerIdResolver;
+import com.perfect8.shop.service.AbandonedCartSweeper;
+import com.perfect8.shop.service.CartCache;
+import com.perfect8.shop.service.CheckoutMetrics;
+import com.perfect8.shop.service.FlashSaleService;
+import com.perfect8.shop.service.GuestCartStore;
+import com.perfect8.shop.service.InventoryAuditLog;
+import com.perfect8.shop.service.InventoryLedger;
+import com.perfect8.shop.service.InventoryService;
+import com.perfect8.shop.service.ReorderEngine;
+import com.perfect8.shop.service.StockAvailabilityCache;
+import com.perfect8.shop.service.StockHoldSweeper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
@@ -27,6 +40,45 @@ public class HealthController implements HealthIndicator {
     @Autowired(required = false)
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired(required = false)
+    private ViewCounter productViewCounter;
+
+    @Autowired(required = false)
+    private InventoryService inventoryService;
+
+    @Autowired(required = false)
+    private StockHoldSweeper stockHoldSweeper;
+
+    @Autowired(required = false)
+    private InventoryAuditLog inventoryAuditLog;
+
+    @Autowired(required = false)
+    private ReorderEngine reorderEngine;
+
+    @Autowired(required = false)
+    private FlashSaleService flashSaleService;
+
+    @Autowired(required = false)
+    private StockAvailabilityCache stockAvailabilityCache;
+
+    @Autowired(required = false)
+    private InventoryLedger inventoryLedger;
+
+    @Autowired(required = false)
+    private CheckoutMetrics checkoutMetrics;
+
+    @Autowired(required = false)
+    private CartCache cartCache;
+
+    @Autowired(required = false)
+    private CustomerIdResolver customerIdResolver;
+
+    @Autowired(required = false)
+    private GuestCartStore guestCartStore;
+
+    @Autowired(required = false)
+    private AbandonedCartSweeper abandonedCartSweeper;
+
     @Value("${server.port:8080}")
     private String serverPort;
 
@@ -122,6 +174,71 @@ public class HealthController implements HealthIndicator {
             health.put("database", database);
         }
 
+        // Write-behind view counter (pending backlog + flush lag)
+        if (productViewCounter != null) {
+            health.put("viewCounter", productViewCounter.getMetrics());
+        }
+
+        // Stock reservation contention (most contended products)
+        if (inventoryService != null) {
+            health.put("stockReservations", inventoryService.getReservationMetrics(20));
+        }
+
+        // Pending-order stock holds (active count + expiry sweeper progress)
+        if (stockHoldSweeper != null) {
+            try {
+                health.put("stockHolds", stockHoldSweeper.getMetrics());
+            } catch (Exception e) {
+                health.put("stockHolds", Map.of("error", String.valueOf(e.getMessage())));
+            }
+        }
+
+        // Inventory audit outbox (backlog + relay progress)
+        if (inventoryAuditLog != null) {
+            try {
+                health.put("inventoryAudit", inventoryAuditLog.getMetrics());
+            } catch (Exception e) {
+                health.put("inventoryAudit", Map.of("error", String.valueOf(e.getMessage())));
+            }
+        }
+
+        // Reorder engine (tracked products + last nightly recompute)
+        if (reorderEngine != null) {
+            health.put("reorderEngine", reorderEngine.getMetrics());
+        }
+
+        // Flash-sale token pools (available tokens, rejections, reconciliation lag)
+        if (flashSaleService != null) {
+            health.put("flashSale", flashSaleService.getMetrics());
+        }
+
+        // Cart-time stock cache (hit rate, invalidations, age of served values)
+        if (stockAvailabilityCache != null) {
+            health.put("stockCache", stockAvailabilityCache.getMetrics());
+        }
+
+        // Inventory ledger (newest checkpoint, last nightly roll-up and compaction)
+        if (inventoryLedger != null) {
+            health.put("inventoryLedger", inventoryLedger.getMetrics());
+        }
+
+        // Checkout latency by order size (p50/p99 for 1, 2-10, 11-50, 51+ lines)
+        if (checkoutMetrics != null) {
+            health.put("checkout", checkoutMetrics.getMetrics());
+        }
+        if (cartCache != null) {
+            health.put("cartCache", cartCache.getMetrics());
+        }
+        if (customerIdResolver != null) {
+            health.put("customerResolver", customerIdResolver.getMetrics());
+        }
+        if (guestCartStore != null) {
+            health.put("guestCarts", guestCartStore.getMetrics());
+        }
+        if (abandonedCartSweeper != null) {
+            health.put("abandonedCarts", abandonedCartSweeper.getMetrics());
+        }
+
         health.put("status", "UP");
         return ResponseEntity.ok(health);
     }
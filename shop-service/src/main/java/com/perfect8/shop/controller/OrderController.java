@@ -3,11 +3,13 @@ package com.perfect8.shop.controller;
 import com.perfect8.common.enums.OrderStatus;
 import com.perfect8.shop.dto.ApiResponse;
 import com.perfect8.shop.dto.CreateOrderRequest;
+import com.perfect8.shop.dto.CursorPage;
 import com.perfect8.shop.dto.OrderDTO;
 import com.perfect8.shop.entity.Order;
 import com.perfect8.shop.exception.UnauthorizedAccessException;
-import com.perfect8.shop.service.CustomerService;
+import com.perfect8.shop.security.CustomerIdResolver;
 import com.perfect8.shop.service.OrderService;
+import com.perfect8.shop.service.PageCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +18,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,11 +26,12 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 /**
  * REST Controller for Order operations.
  * 
- * SECURITY: All customer-facing endpoints verify ownership via X-Auth-Customer-Id header.
+ * SECURITY: All customer-facing endpoints verify ownership via the Gateway's X-User-Id / X-Auth-User headers.
  * Admin endpoints are protected with @PreAuthorize("hasRole('ADMIN')").
  * 
  * @version 1.3.1 - Security fix for IDOR vulnerabilities
@@ -39,40 +43,20 @@ import java.time.LocalDateTime;
 @Tag(name = "Orders", description = "Order management endpoints")
 public class OrderController {
 
+    private static final Set<String> SCROLL_SORT_PROPERTIES = Set.of("createdDate", "orderDate", "orderId");
+
     private final OrderService orderService;
-    private final CustomerService customerService;
+    private final CustomerIdResolver customerIdResolver;
 
     // ========== HELPER METHODS FOR SECURITY ==========
 
     /**
-     * Extracts customerId from Gateway header.
-     * Returns null if not present (for admin requests).
+     * Extracts customerId from the Gateway headers - cached X-User-Id / X-Auth-User
+     * lookup (CustomerIdResolver).
+     * Returns null if the caller has no customer profile (admin requests).
      */
     private Long getCustomerIdFromRequest(HttpServletRequest request) {
-        String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
-        if (customerIdHeader != null && !customerIdHeader.isEmpty()) {
-            try {
-                return Long.parseLong(customerIdHeader);
-            } catch (NumberFormatException e) {
-                log.warn("Invalid X-Auth-Customer-Id header: {}", customerIdHeader);
-            }
-        }
-
-        // Fallback: lookup by email from X-Auth-User header (set by Gateway)
-        String email = request.getHeader("X-Auth-User");
-        if (email != null) {
-            try {
-                var customer = customerService.getCustomerDTOByEmail(email);
-                if (customer != null) {
-                    log.debug("Resolved customerId {} from email {}", customer.getCustomerId(), email);
-                    return customer.getCustomerId();
-                }
-            } catch (Exception e) {
-                log.warn("Could not lookup customer by email {}: {}", email, e.getMessage());
-            }
-        }
-
-        return null;
+        return customerIdResolver.resolve(request);
     }
 
     /**
@@ -324,6 +308,38 @@ public class OrderController {
                 .build());
     }
 
+    @GetMapping("/admin/scroll")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    @Operation(summary = "Scroll all orders (Admin)",
+            description = "Cursor (keyset) pagination over all orders. Pass nextCursor back as cursor. Admin only.")
+    public ResponseEntity<ApiResponse<CursorPage<OrderDTO>>> scrollAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "createdDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        log.debug("Admin: Scrolling all orders");
+
+        try {
+            Sort sort = PageCursor.sortOf(sortBy, sortDir, SCROLL_SORT_PROPERTIES);
+            CursorPage<OrderDTO> orders = orderService.scrollAllOrders(cursor, size, sort, includeTotal);
+
+            return ResponseEntity.ok(ApiResponse.<CursorPage<OrderDTO>>builder()
+                    .success(true)
+                    .message("Orders retrieved successfully")
+                    .data(orders)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.<CursorPage<OrderDTO>>builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+    }
+
     @PutMapping("/admin/{orderId}/status")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
     @Operation(summary = "Update order status (Admin)", description = "Updates the status of an order. Admin only.")
@@ -9,6 +9,7 @@ import com.perfect8.shop.service.PaymentService;
 import com.perfect8.shop.service.OrderService;
 import com.perfect8.shop.exception.UnauthorizedAccessException;
 import com.perfect8.shop.exception.PaymentException;
+import com.perfect8.shop.security.CustomerIdResolver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -28,12 +29,12 @@ import java.util.Map;
  * UPDATED (2025-12-28 - FAS 3):
  * - Removed JwtTokenProvider dependency (Gateway handles JWT)
  * - Removed helper methods (getCurrentCustomerId, hasRole)
- * - Reads customer info directly from Gateway headers (X-Auth-User, X-Auth-Customer-Id, X-Auth-Role)
+ * - Reads customer info directly from Gateway headers (X-Auth-User, X-Auth-Role)
  * - Gateway validates JWT and adds headers before request reaches this service
  * 
  * Gateway Headers:
- * - X-Auth-User: username/email
- * - X-Auth-Customer-Id: customer ID (for customer logins)
+ * - X-User-Id: user ID from the JWT - CustomerIdResolver maps it to customers.user_id
+ * - X-Auth-User: username/email - CustomerIdResolver falls back to customers.email
  * - X-Auth-Role: user role (ROLE_ADMIN, ROLE_CUSTOMER, etc.)
  * 
  * Essential endpoints for v1.0:
@@ -58,6 +59,7 @@ public class PaymentController {
 
     private final PaymentService paymentService;
     private final OrderService orderService;
+    private final CustomerIdResolver customerIdResolver;
 
     /**
      * Process payment for an order
@@ -69,14 +71,9 @@ public class PaymentController {
             @Valid @RequestBody PaymentRequestDTO paymentRequest,
             HttpServletRequest request) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
+            // Customer ID from Gateway headers (cached email / user lookup as fallback)
+            Long customerId = customerIdResolver.resolve(request);
             String role = request.getHeader("X-Auth-Role");
-            
-            Long customerId = null;
-            if (customerIdHeader != null) {
-                customerId = Long.parseLong(customerIdHeader);
-            }
 
             // Get and validate order
             Order order = orderService.getOrderById(orderId);
@@ -118,14 +115,9 @@ public class PaymentController {
             @RequestBody Map<String, Object> paymentDetails,
             HttpServletRequest request) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
+            // Customer ID from Gateway headers (cached email / user lookup as fallback)
+            Long customerId = customerIdResolver.resolve(request);
             String role = request.getHeader("X-Auth-Role");
-            
-            Long customerId = null;
-            if (customerIdHeader != null) {
-                customerId = Long.parseLong(customerIdHeader);
-            }
 
             // Get and validate order
             Order order = orderService.getOrderById(orderId);
@@ -186,14 +178,9 @@ public class PaymentController {
             @PathVariable Long orderId,
             HttpServletRequest request) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
+            // Customer ID from Gateway headers (cached email / user lookup as fallback)
+            Long customerId = customerIdResolver.resolve(request);
             String role = request.getHeader("X-Auth-Role");
-            
-            Long customerId = null;
-            if (customerIdHeader != null) {
-                customerId = Long.parseLong(customerIdHeader);
-            }
 
             // Get order to verify ownership
             Order order = orderService.getOrderById(orderId);
@@ -235,14 +222,9 @@ public class PaymentController {
             @PathVariable Long orderId,
             HttpServletRequest request) {
         try {
-            // Read customer ID from Gateway header
-            String customerIdHeader = request.getHeader("X-Auth-Customer-Id");
+            // Customer ID from Gateway headers (cached email / user lookup as fallback)
+            Long customerId = customerIdResolver.resolve(request);
             String role = request.getHeader("X-Auth-Role");
-            
-            Long customerId = null;
-            if (customerIdHeader != null) {
-                customerId = Long.parseLong(customerIdHeader);
-            }
 
             // Get order to verify ownership
             Order order = orderService.getOrderById(orderId);
@@ -1,34 +1,53 @@
 package com.perfect8.shop.controller;
 
+import com.perfect8.common.counter.ViewCounter;
 import com.perfect8.shop.dto.*;
 import com.perfect8.shop.entity.Product;
+import com.perfect8.shop.service.FlashSaleService;
+import com.perfect8.shop.service.InventoryService;
+import com.perfect8.shop.service.PageCursor;
+import com.perfect8.shop.service.ProductImportService;
 import com.perfect8.shop.service.ProductService;
+import com.perfect8.shop.service.TypeaheadIndex;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Product Controller - Version 1.0
  * CORS hanteras globalt av WebConfig
+ * FIXED (2026-10-16): Listing endpoints (list/scroll/search/category/featured) return
+ * ProductSummaryResponse cards; the full ProductResponse is only returned by GET /{productId}
  */
 @RestController
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final Set<String> SCROLL_SORT_PROPERTIES = Set.of("name", "price", "createdDate", "productId");
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final InventoryService inventoryService;
+    private final FlashSaleService flashSaleService;
+    private final ViewCounter productViewCounter;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getAllProducts(
+    public ResponseEntity<ApiResponse<Page<ProductSummaryResponse>>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "name") String sortBy,
@@ -45,13 +64,35 @@ public class ProductController {
 
             Pageable pageable = PageRequest.of(page, size, sort);
 
-            Page<Product> products = productService.findProducts(
+            Page<ProductSummaryResponse> products = productService.findProducts(
                     pageable, categoryId, minPrice, maxPrice, featured, inStock);
 
-            Page<ProductResponse> productResponses = products.map(this::convertToProductResponse);
+            return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", products));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Failed to retrieve products", e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", productResponses));
+    /**
+     * Cursor mode for infinite scroll - pass nextCursor back as ?cursor= for the next page.
+     * Every page costs the same as the first (no OFFSET, no COUNT).
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<ProductSummaryResponse>>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "productId") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            Sort sort = PageCursor.sortOf(sortBy, sortDir, SCROLL_SORT_PROPERTIES);
+            CursorPage<ProductSummaryResponse> products = productService
+                    .scrollProducts(cursor, size, sort, categoryId, includeTotal);
 
+            return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", products));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     ApiResponse.error("Failed to retrieve products", e.getMessage()));
@@ -61,7 +102,8 @@ public class ProductController {
     @GetMapping("/{productId}")
     public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long productId) {
         try {
-            Product product = productService.findById(productId);
+            Product product = productService.findByIdWithAvailability(productId);
+            productViewCounter.recordView(productId);
             ProductResponse response = convertToProductResponse(product);
             return ResponseEntity.ok(ApiResponse.success("Product retrieved successfully", response));
         } catch (Exception e) {
@@ -71,33 +113,73 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<Page<ProductResponse>>> searchProducts(
+    public ResponseEntity<ApiResponse<Page<ProductSummaryResponse>>> searchProducts(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.searchProducts(query, pageable);
-            Page<ProductResponse> productResponses = products.map(this::convertToProductResponse);
+            Page<ProductSummaryResponse> products = productService.searchProducts(query, pageable);
 
-            return ResponseEntity.ok(ApiResponse.success("Search completed successfully", productResponses));
+            return ResponseEntity.ok(ApiResponse.success("Search completed successfully", products));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     ApiResponse.error("Search failed", e.getMessage()));
         }
     }
 
+    /**
+     * Typeahead - answered from memory, meant to be called on every keystroke
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<ApiResponse<List<ProductSuggestionResponse>>> autocomplete(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "8") int limit) {
+        try {
+            int boundedLimit = Math.max(1, Math.min(limit, TypeaheadIndex.TOP_K));
+            List<ProductSuggestionResponse> suggestions = productService.autocomplete(query, boundedLimit).stream()
+                    .map(this::convertToSuggestionResponse)
+                    .toList();
+
+            return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Autocomplete failed", e.getMessage()));
+        }
+    }
+
+    /**
+     * Facet counts for the listing filters - answered from memory (count queries while the index loads)
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<ProductFacetsResponse>> getFacets(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) String tag) {
+        try {
+            ProductFacetsResponse facets = productService.getFacets(
+                    categoryId, minPrice, maxPrice, featured, inStock, tag);
+
+            return ResponseEntity.ok(ApiResponse.success("Facets retrieved successfully", facets));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Failed to retrieve facets", e.getMessage()));
+        }
+    }
+
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getProductsByCategory(
+    public ResponseEntity<ApiResponse<Page<ProductSummaryResponse>>> getProductsByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.findByCategory(categoryId, pageable);
-            Page<ProductResponse> productResponses = products.map(this::convertToProductResponse);
+            Page<ProductSummaryResponse> products = productService.findByCategory(categoryId, pageable);
 
-            return ResponseEntity.ok(ApiResponse.success("Products by category retrieved successfully", productResponses));
+            return ResponseEntity.ok(ApiResponse.success("Products by category retrieved successfully", products));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     ApiResponse.error("Failed to retrieve products by category", e.getMessage()));
@@ -105,15 +187,12 @@ public class ProductController {
     }
 
     @GetMapping("/featured")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getFeaturedProducts(
+    public ResponseEntity<ApiResponse<List<ProductSummaryResponse>>> getFeaturedProducts(
             @RequestParam(defaultValue = "10") int limit) {
         try {
-            List<Product> products = productService.findFeaturedProducts(limit);
-            List<ProductResponse> productResponses = products.stream()
-                    .map(this::convertToProductResponse)
-                    .toList();
+            List<ProductSummaryResponse> products = productService.findFeaturedProducts(limit);
 
-            return ResponseEntity.ok(ApiResponse.success("Featured products retrieved successfully", productResponses));
+            return ResponseEntity.ok(ApiResponse.success("Featured products retrieved successfully", products));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     ApiResponse.error("Failed to retrieve featured products", e.getMessage()));
@@ -153,6 +232,46 @@ public class ProductController {
         }
     }
 
+    /**
+     * Bulk import (CSV with header row, or NDJSON) streamed from the request body.
+     * Answers 202 with the job as soon as the upload is stored - poll GET /import/{jobId}.
+     * Resume an interrupted import by sending the same file again with ?jobId=
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ProductImportResponse>> importProducts(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String fileName,
+            @RequestParam(required = false) Long jobId,
+            HttpServletRequest request) {
+        try {
+            ProductImportResponse result = productImportService.startImport(
+                    request.getInputStream(),
+                    ProductImportService.resolveFormat(format, request.getContentType()),
+                    fileName, jobId);
+
+            return ResponseEntity.status(202).body(ApiResponse.success("Product import started", result));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(
+                    ApiResponse.error("Product import already running or completed", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Product import failed", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ProductImportResponse>> getImportJob(@PathVariable Long jobId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Import job retrieved successfully",
+                    productImportService.getJob(jobId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(404).body(
+                    ApiResponse.error("Import job not found", e.getMessage()));
+        }
+    }
+
     @PutMapping("/{productId}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<ProductResponse>> updateProduct(
@@ -207,13 +326,95 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/{productId}/stock-history")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getStockHistory(@PathVariable Long productId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Stock history retrieved successfully",
+                    inventoryService.getStockAdjustmentHistory(productId)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Failed to retrieve stock history", e.getMessage()));
+        }
+    }
+
+    /**
+     * Stock of a product at a point in time, e.g. ?at=2026-10-01T12:00:00
+     */
+    @GetMapping("/{productId}/stock-at")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStockAt(
+            @PathVariable Long productId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Stock level retrieved successfully",
+                    inventoryService.getStockAt(productId, at)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Failed to retrieve stock level", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/inventory-report")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getInventoryReport(
+            @RequestParam(defaultValue = "month") String period) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Inventory report retrieved successfully",
+                    inventoryService.getInventoryReport(period)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Failed to retrieve inventory report", e.getMessage()));
+        }
+    }
+
+    /**
+     * Arm flash-sale mode - moves tokens units of sellable stock into an in-memory pool.
+     * Calling it again for an armed product adds tokens.
+     */
+    @PostMapping("/{productId}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> armFlashSale(
+            @PathVariable Long productId,
+            @RequestParam int tokens) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Flash sale armed",
+                    flashSaleService.arm(productId, tokens)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Failed to arm flash sale", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{productId}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> disarmFlashSale(@PathVariable Long productId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Flash sale disarmed",
+                    flashSaleService.disarm(productId)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(
+                    ApiResponse.error("Flash sale not armed", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    ApiResponse.error("Failed to disarm flash sale", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getFlashSales() {
+        return ResponseEntity.ok(ApiResponse.success("Flash sale status retrieved successfully",
+                flashSaleService.getMetrics()));
+    }
+
     @PostMapping("/{productId}/check-availability")
     public ResponseEntity<ApiResponse<Boolean>> checkAvailability(
             @PathVariable Long productId,
             @RequestParam Integer quantity) {
         try {
-            Product product = productService.findById(productId);
-            Boolean available = product.getStockQuantity() >= quantity;
+            Product product = productService.findByIdWithAvailability(productId);
+            Boolean available = product.hasEnoughStock(quantity);
             String message = available ? "Product is available" : "Product is not available in requested quantity";
 
             return ResponseEntity.ok(ApiResponse.success(message, available));
@@ -229,6 +430,7 @@ public class ProductController {
             @RequestParam(defaultValue = "5") int limit) {
         try {
             List<Product> products = productService.findRelatedProducts(productId, limit);
+            productService.loadFlashSaleUnits(products);
             List<ProductResponse> productResponses = products.stream()
                     .map(this::convertToProductResponse)
                     .toList();
@@ -249,6 +451,7 @@ public class ProductController {
                 .discountPrice(product.getDiscountPrice())
                 .sku(product.getSku())
                 .stockQuantity(product.getStockQuantity())
+                .availableQuantity(product.getAvailableQuantity())
                 .imageUrl(product.getImageUrl())
                 .category(product.getCategory() != null ? product.getCategory().getName() : null)
                 .categoryId(product.getCategory() != null ? product.getCategory().getCategoryId() : null)
@@ -259,7 +462,16 @@ public class ProductController {
                 .tags(product.getTags())
                 .createdDate(product.getCreatedDate())
                 .updatedDate(product.getUpdatedDate())
-                .inStock(product.getStockQuantity() != null && product.getStockQuantity() > 0)
+                .inStock(product.isInStock())
+                .build();
+    }
+
+    private ProductSuggestionResponse convertToSuggestionResponse(TypeaheadIndex.Suggestion suggestion) {
+        return ProductSuggestionResponse.builder()
+                .type(suggestion.getType().name())
+                .id(suggestion.getId())
+                .text(suggestion.getText())
+                .imageUrl(suggestion.getImageUrl())
                 .build();
     }
 
@@ -0,0 +1,55 @@
+package com.perfect8.shop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for applying several cart changes at once (offline cart sync,
+ * "buy the whole outfit"). Operations are applied in list order.
+ *
+ * - ADD: adds quantity to the line (creates it)
+ * - UPDATE: sets the line quantity, 0 removes the line (creates it when missing)
+ * - REMOVE: removes the line (no-op when missing)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequest {
+
+    @NotEmpty(message = "Operations are required")
+    @Size(max = 100, message = "At most 100 operations per batch")
+    @Valid
+    private List<CartOperation> operations;
+
+    public enum OperationType {
+        ADD, UPDATE, REMOVE
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CartOperation {
+
+        @NotNull(message = "Operation type is required")
+        private OperationType type;
+
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        @Min(value = 0, message = "Quantity cannot be negative")
+        @Max(value = 99, message = "Quantity cannot exceed 99")
+        private Integer quantity;
+    }
+}
@@ -30,6 +30,11 @@ public class CartResponse {
      */
     private Long customerId;
 
+    /**
+     * Guest cart token (anonymous carts only, customerId and cartId are null)
+     */
+    private String guestToken;
+
     /**
      * List of items in the cart
      */
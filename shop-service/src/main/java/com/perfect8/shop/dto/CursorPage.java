@@ -0,0 +1,32 @@
+package com.perfect8.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) listing.
+ * Pass nextCursor back as ?cursor= to continue; hasNext=false means the end was reached.
+ * approximateTotal is only filled when requested (includeTotal=true) and may be an estimate.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long approximateTotal;
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().<R>map(mapper).toList();
+        return new CursorPage<>(mapped, size, hasNext, nextCursor, approximateTotal);
+    }
+}
@@ -0,0 +1,39 @@
+package com.perfect8.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Facet counts for the storefront listing - GET /api/products/facets
+ *
+ * totalMatches counts products matching ALL filters. Each facet's counts ignore
+ * that facet's own filter (so other categories/buckets stay selectable) but
+ * respect every other filter.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsResponse {
+
+    private long totalMatches;
+    private List<FacetCount> categories;
+    private List<FacetCount> priceBuckets;
+    private List<FacetCount> tags;
+    private long inStockCount;
+    private long featuredCount;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private String value;
+        private String label;
+        private long count;
+    }
+}
@@ -0,0 +1,49 @@
+package com.perfect8.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bulk product import progress / result - POST /api/products/import and GET /api/products/import/{jobId}
+ *
+ * Row numbers count data records (the CSV header is not a row), starting at 1.
+ * To resume a failed or interrupted import, send the same file again with ?jobId=.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+
+    private Long jobId;
+    private String fileName;
+    private String format;
+    private String status;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsSkipped;
+    private long rowsFailed;
+    private long lastCommittedRow;
+    private String errorMessage;
+    private LocalDateTime createdDate;
+    private LocalDateTime updatedDate;
+    private LocalDateTime finishedDate;
+
+    // Per-row errors of this run (capped)
+    private List<RowError> errors;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String sku;
+        private String message;
+    }
+}
@@ -34,6 +34,8 @@ public class ProductResponse implements Serializable {
     private String imageUrl;
     private List<String> galleryImages;
     private Integer stockQuantity;
+    // Stock plus armed flash-sale units - what a customer can buy (stockQuantity when null)
+    private Integer availableQuantity;
     private Boolean featured;
     private Boolean active;
     private String category;  // Can be category name
@@ -68,16 +70,18 @@ public class ProductResponse implements Serializable {
      * Check if product is in stock
      */
     public boolean isInStock() {
-        return stockQuantity != null && stockQuantity > 0;
+        Integer available = availableQuantity != null ? availableQuantity : stockQuantity;
+        return available != null && available > 0;
     }
 
     /**
      * Get availability status string
      */
     public String getAvailability() {
-        if (stockQuantity == null || stockQuantity <= 0) {
+        Integer available = availableQuantity != null ? availableQuantity : stockQuantity;
+        if (available == null || available <= 0) {
             return "Out of Stock";
-        } else if (stockQuantity <= 5) {
+        } else if (available <= 5) {
             return "Limited Stock";
         } else {
             return "In Stock";
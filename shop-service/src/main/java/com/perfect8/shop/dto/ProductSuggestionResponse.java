@@ -0,0 +1,22 @@
+package com.perfect8.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Autocomplete suggestion - GET /api/products/autocomplete
+ * type: PRODUCT, SKU or CATEGORY. id is the productId (PRODUCT/SKU) or categoryId (CATEGORY).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionResponse {
+
+    private String type;
+    private Long id;
+    private String text;
+    private String imageUrl;
+}
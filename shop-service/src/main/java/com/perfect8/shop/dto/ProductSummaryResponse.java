@@ -0,0 +1,36 @@
+package com.perfect8.shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Product listing card - returned by list/search/category/featured endpoints.
+ * The full ProductResponse (description, dimensions, dates...) is only
+ * returned by GET /api/products/{productId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long productId;
+    private String name;
+    private BigDecimal price;
+    private BigDecimal discountPrice;
+    private String imageUrl;
+    private String category;
+    private Long categoryId;
+    private Boolean inStock;
+    private Boolean featured;
+    private List<String> tags;
+    private List<String> additionalImages;
+}
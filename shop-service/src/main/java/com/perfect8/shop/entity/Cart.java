@@ -10,6 +10,7 @@ import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -76,7 +77,7 @@ public class Cart {
     @PrePersist
     protected void onCreate() {
         createdDate = LocalDateTime.now();
-        updatedDate = LocalDateTime.now();
+        updatedDate = now();
         if (totalAmount == null) {
             totalAmount = BigDecimal.ZERO;
         }
@@ -98,7 +99,15 @@ public class Cart {
 
     @PreUpdate
     protected void onUpdate() {
-        updatedDate = LocalDateTime.now();
+        updatedDate = now();
+    }
+
+    /**
+     * FIXED (2026-10-17): updated_date is DATETIME(6) - kept at microseconds so the value
+     * in the entity (and in CartCache views built from it) is exactly the stored one
+     */
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 
     // ========== MAGNUM OPUS COMPLIANT ==========
@@ -1,5 +1,6 @@
 package com.perfect8.shop.entity;
 
+import com.perfect8.common.money.Money;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -114,7 +115,7 @@ public class CartItem {
     public void calculateSubtotal() {
         BigDecimal effectivePrice = getEffectivePrice();
         if (effectivePrice != null && quantity != null) {
-            this.subtotal = effectivePrice.multiply(BigDecimal.valueOf(quantity));
+            this.subtotal = Money.toBigDecimal(Money.times(Money.toMinor(effectivePrice), quantity));
         } else {
             this.subtotal = BigDecimal.ZERO;
         }
@@ -245,8 +246,8 @@ public class CartItem {
             if (!stockAvailable) {
                 this.requestedQuantity = quantity;
                 // Adjust quantity to available stock
-                if (product.getStockQuantity() > 0) {
-                    this.quantity = product.getStockQuantity();
+                if (product.getAvailableQuantity() > 0) {
+                    this.quantity = product.getAvailableQuantity();
                     calculateSubtotal();
                 }
             }
@@ -0,0 +1,35 @@
+package com.perfect8.shop.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Flash Sale Allocation - Version 1.0
+ * Read-only view of a flash_sale_allocations row for ProductRepository queries
+ * (armed units in the in-stock filter and the stock levels).
+ *
+ * FlashSaleService owns the table and writes it with JDBC (leases, journal folds) -
+ * this mapping is never saved.
+ */
+@Entity
+@Immutable
+@Table(name = "flash_sale_allocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSaleAllocation {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    // Armed units not sold yet (reservations not folded from the journal included)
+    @Column(nullable = false)
+    private Integer remaining;
+
+    @Column(nullable = false)
+    private Boolean armed;
+}
@@ -1,6 +1,7 @@
 package com.perfect8.shop.entity;
 
 import com.perfect8.common.enums.ItemStatus;
+import com.perfect8.common.money.Money;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -121,17 +122,11 @@ public class OrderItem {
      */
     public void calculatePrice() {
         if (unitPrice != null && quantity != null) {
-            BigDecimal baseAmount = unitPrice.multiply(BigDecimal.valueOf(quantity));
-
-            if (discountAmount != null) {
-                baseAmount = baseAmount.subtract(discountAmount);
-            }
-
-            if (taxAmount != null) {
-                baseAmount = baseAmount.add(taxAmount);
-            }
-
-            this.price = baseAmount;
+            // FIXED (2026-10-16): Long minor units, one BigDecimal for the result
+            long priceMinor = Money.times(Money.toMinor(unitPrice), quantity)
+                    - Money.toMinor(discountAmount)
+                    + Money.toMinor(taxAmount);
+            this.price = Money.toBigDecimal(priceMinor);
         }
     }
 
@@ -1,6 +1,8 @@
 package com.perfect8.shop.entity;
 
+import com.perfect8.common.money.Money;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,9 +22,16 @@ import java.util.List;
  * 
  * FIXED (2025-12-10): Added FetchType.EAGER on tags and additionalImages
  * to prevent LazyInitializationException when serializing to JSON
+ *
+ * FIXED (2026-10-17): @DynamicUpdate - saves only write the columns that changed
+ *
+ * FIXED (2026-10-17): flashSaleQuantity - armed flash-sale units count as available
+ * (isInStock, hasEnoughStock, getAvailableQuantity). Not loaded with the product: set from
+ * ProductRepository.findArmedFlashSaleUnits only where availability is shown.
  */
 @Entity
 @Table(name = "products")
+@DynamicUpdate
 @Data
 @Builder
 @NoArgsConstructor
@@ -50,10 +59,26 @@ public class Product {
     @Column(name = "sku", unique = true, nullable = false, length = 100)
     private String sku;
 
-    @Column(name = "stock_quantity", nullable = false)
+    // Sellable stock - already excludes units held by pending orders.
+    // FIXED (2026-10-17): Only changed by InventoryService's conditional UPDATEs (audited) -
+    // never written back from the entity, so a product save can not undo a checkout.
+    @Column(name = "stock_quantity", nullable = false, updatable = false)
     @Builder.Default
     private Integer stockQuantity = 0;
 
+    // Units held by pending orders (sum of active StockHold rows). On hand = stockQuantity + reservedQuantity.
+    // Only changed by InventoryService's conditional UPDATEs - never written back from the entity.
+    @Column(name = "reserved_quantity", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer reservedQuantity = 0;
+
+    // Units of an armed flash sale - moved out of stock_quantity while armed but still for sale.
+    // Not a column and not loaded with the product (every catalog, cart and order load would pay
+    // for it) - CatalogReadModel and ProductService set it where availability is shown, 0 elsewhere.
+    @Transient
+    @Builder.Default
+    private Integer flashSaleQuantity = 0;
+
     @Column(name = "reorder_point")
     @Builder.Default
     private Integer reorderPoint = 10;
@@ -141,6 +166,9 @@ public class Product {
         if (stockQuantity == null) {
             stockQuantity = 0;
         }
+        if (reservedQuantity == null) {
+            reservedQuantity = 0;
+        }
         if (views == null) {
             views = 0L;
         }
@@ -162,12 +190,19 @@ public class Product {
 
     // ========== Business methods ==========
 
+    /**
+     * Units a customer can buy - sellable stock plus armed flash-sale units
+     */
+    public int getAvailableQuantity() {
+        return (stockQuantity != null ? stockQuantity : 0) + (flashSaleQuantity != null ? flashSaleQuantity : 0);
+    }
+
     public boolean isInStock() {
-        return stockQuantity != null && stockQuantity > 0;
+        return getAvailableQuantity() > 0;
     }
 
     public boolean isOutOfStock() {
-        return stockQuantity == null || stockQuantity <= 0;
+        return getAvailableQuantity() <= 0;
     }
 
     public boolean isLowStock() {
@@ -189,15 +224,18 @@ public class Product {
         if (!isOnSale()) {
             return BigDecimal.ZERO;
         }
-        BigDecimal discount = price.subtract(discountPrice);
-        return discount.divide(price, 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+        // Whole percent, HALF_UP - computed on minor units
+        long priceMinor = Money.toMinor(price);
+        long discountMinor = priceMinor - Money.toMinor(discountPrice);
+        long percent = Money.divide(Math.multiplyExact(discountMinor, 100), priceMinor, RoundingMode.HALF_UP);
+        return BigDecimal.valueOf(percent * 100, 2);
     }
 
     public BigDecimal getDiscountAmount() {
         if (!isOnSale()) {
             return BigDecimal.ZERO;
         }
-        return price.subtract(discountPrice);
+        return Money.toBigDecimal(Money.toMinor(price) - Money.toMinor(discountPrice));
     }
 
     public void incrementViews() {
@@ -245,7 +283,7 @@ public class Product {
     }
 
     public boolean hasEnoughStock(int quantity) {
-        return stockQuantity != null && stockQuantity >= quantity;
+        return getAvailableQuantity() >= quantity;
     }
 
     public boolean needsReorder() {
@@ -0,0 +1,85 @@
+package com.perfect8.shop.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Product Import Job - Version 1.0
+ * Progress of one bulk product import (CSV / NDJSON).
+ *
+ * lastCommittedRow is updated in the same transaction as each inserted batch,
+ * so resuming a job skips exactly the rows that are already in the database.
+ */
+@Entity
+@Table(name = "product_import_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductImportJob {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long productImportJobId;
+
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+
+    @Column(nullable = false, length = 10)
+    private String format; // CSV, NDJSON
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "rows_read", nullable = false)
+    @Builder.Default
+    private Long rowsRead = 0L;
+
+    @Column(name = "rows_imported", nullable = false)
+    @Builder.Default
+    private Long rowsImported = 0L;
+
+    @Column(name = "rows_skipped", nullable = false)
+    @Builder.Default
+    private Long rowsSkipped = 0L; // SKU already exists
+
+    @Column(name = "rows_failed", nullable = false)
+    @Builder.Default
+    private Long rowsFailed = 0L;
+
+    @Column(name = "last_committed_row", nullable = false)
+    @Builder.Default
+    private Long lastCommittedRow = 0L;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_date")
+    private LocalDateTime createdDate;
+
+    @Column(name = "updated_date")
+    private LocalDateTime updatedDate;
+
+    @Column(name = "finished_date")
+    private LocalDateTime finishedDate;
+
+    @PrePersist
+    protected void onCreate() {
+        createdDate = LocalDateTime.now();
+        updatedDate = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedDate = LocalDateTime.now();
+    }
+}
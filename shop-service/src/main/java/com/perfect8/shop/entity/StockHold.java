@@ -0,0 +1,50 @@
+package com.perfect8.shop.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock Hold - Version 1.0
+ * Units of one product held for one pending order until expiryDate.
+ *
+ * The held units are already moved from Product.stockQuantity to
+ * Product.reservedQuantity. Whoever deletes the row (payment confirmation,
+ * cancellation or StockHoldSweeper) settles those units - exactly once.
+ */
+@Entity
+@Table(name = "stock_holds")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long stockHoldId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expiry_date", nullable = false)
+    private LocalDateTime expiryDate;
+
+    @Column(name = "created_date")
+    private LocalDateTime createdDate;
+
+    @PrePersist
+    protected void onCreate() {
+        createdDate = LocalDateTime.now();
+    }
+}
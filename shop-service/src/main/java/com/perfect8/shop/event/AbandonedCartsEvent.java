@@ -0,0 +1,39 @@
+package com.perfect8.shop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Abandoned Carts Event - Version 1.0
+ * Published by AbandonedCartSweeper once per scanned chunk with the carts that
+ * just passed the abandoned window (customer active and marketing consent given).
+ * Every cart is reported once.
+ *
+ * EmailService sends the reminders AFTER_COMMIT, on its own thread, when
+ * shop.cart-sweeper.reminder-emails is on.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class AbandonedCartsEvent {
+
+    private final List<Candidate> candidates;
+
+    @Getter
+    @AllArgsConstructor
+    @ToString
+    public static class Candidate {
+        private final Long cartId;
+        private final Long customerId;
+        private final String email;
+        private final String firstName;
+        private final int itemCount;
+        private final BigDecimal totalAmount;
+        private final LocalDateTime lastUpdated;
+    }
+}
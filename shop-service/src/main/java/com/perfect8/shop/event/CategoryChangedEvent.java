@@ -0,0 +1,20 @@
+package com.perfect8.shop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Category Changed Event - Version 1.0
+ * Published by CategoryService whenever a category is created, updated,
+ * moved, reordered or (de)activated.
+ *
+ * CategoryReadModel rebuilds its tree AFTER_COMMIT on this event.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+}
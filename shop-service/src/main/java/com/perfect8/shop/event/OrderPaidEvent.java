@@ -0,0 +1,25 @@
+package com.perfect8.shop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Order Paid Event - Version 1.0
+ * Published by OrderService when an order moves to PAID, with the sold
+ * quantity per product (lines of the same product merged).
+ *
+ * ReorderEngine adds the lines to its sales velocity AFTER_COMMIT.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OrderPaidEvent {
+
+    private final Long orderId;
+    private final Map<Long, Integer> quantitiesByProductId;
+    private final LocalDateTime paidDate;
+}
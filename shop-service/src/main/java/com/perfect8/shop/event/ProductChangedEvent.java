@@ -0,0 +1,21 @@
+package com.perfect8.shop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Product Changed Event - Version 1.0
+ * Published by ProductService and InventoryService whenever a product row
+ * is created, updated, deactivated or has its stock changed.
+ *
+ * Listeners use @TransactionalEventListener(AFTER_COMMIT) so in-memory
+ * read models only ever see committed data.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductChangedEvent {
+
+    private final Long productId;
+}
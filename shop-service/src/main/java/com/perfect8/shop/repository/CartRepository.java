@@ -14,6 +14,10 @@ import java.util.Optional;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
+    // Freshness check for CartCache - primary key read of one column
+    @Query("SELECT c.updatedDate FROM Cart c WHERE c.cartId = :cartId")
+    Optional<LocalDateTime> findUpdatedDateByCartId(@Param("cartId") Long cartId);
+
     Optional<Cart> findFirstByCustomerOrderByCreatedDateDesc(Customer customer);
 
     default Optional<Cart> findByCustomer(Customer customer) {
@@ -26,6 +30,10 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
         return findFirstByCustomerCustomerIdOrderByCreatedDateDesc(customerId);
     }
 
+    // Cart aggregate in one round trip - newest cart first
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.customer.customerId = :customerId ORDER BY c.createdDate DESC")
+    List<Cart> findWithItemsByCustomerId(@Param("customerId") Long customerId);
+
     @Query("SELECT c FROM Cart c WHERE c.customer.customerId = :customerId AND c.createdDate BETWEEN :start AND :end")
     List<Cart> findByCustomerIdAndCreatedDateBetween(@Param("customerId") Long customerId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
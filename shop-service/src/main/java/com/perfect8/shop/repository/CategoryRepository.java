@@ -19,6 +19,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     // Find by slug
     Optional<Category> findBySlug(String slug);
 
+    // Load every category with its parent in ONE query - source for the in-memory CategoryTree
+    @Query("SELECT c FROM Category c LEFT JOIN FETCH c.parent")
+    List<Category> findAllWithParent();
+
     // Find all active categories
     List<Category> findByActiveTrue();
 
@@ -3,6 +3,10 @@ package com.perfect8.shop.repository;
 import com.perfect8.shop.entity.Customer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -29,6 +33,13 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     Optional<Customer> findByEmail(String email);
     Optional<Customer> findByUserId(Long userId);
+
+    // ID-only lookups for request authentication (no entity / element collections loaded)
+    @Query("SELECT c.customerId FROM Customer c WHERE c.email = :email")
+    Optional<Long> findCustomerIdByEmail(@Param("email") String email);
+
+    @Query("SELECT c.customerId FROM Customer c WHERE c.userId = :userId")
+    Optional<Long> findCustomerIdByUserId(@Param("userId") Long userId);
     boolean existsByEmail(String email);
 
     @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM Customer c " +
@@ -43,6 +54,14 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     Page<Customer> findByActiveTrue(Pageable pageable);
     Page<Customer> findByActiveFalse(Pageable pageable);
+
+    // Keyset (cursor) pagination - seek predicate on sort keys + customerId, no COUNT
+    Window<Customer> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Approximate row count from InnoDB table statistics (no table scan)
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'customers'", nativeQuery = true)
+    Long estimateRowCount();
     long countByActiveTrue();
     long countByActiveFalse();
     List<Customer> findByActive(Boolean active);
@@ -5,6 +5,10 @@ import com.perfect8.shop.entity.Customer;
 import com.perfect8.common.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -47,6 +51,18 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     Page<Order> findByCustomerOrderByCreatedDateDesc(Customer customer, Pageable pageable);
 
+    /**
+     * Keyset (cursor) pagination over all orders - seek predicate on sort keys + orderId, no COUNT
+     */
+    Window<Order> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Approximate row count from InnoDB table statistics (no table scan)
+     */
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders'", nativeQuery = true)
+    Long estimateRowCount();
+
     /**
      * Find orders by status
      */
@@ -0,0 +1,10 @@
+package com.perfect8.shop.repository;
+
+/**
+ * Product id only - keyset (cursor) listing windows select this (plus the sort keys)
+ * and load the page rows as ProductSummaryView afterwards.
+ */
+public interface ProductIdView {
+
+    Long getProductId();
+}
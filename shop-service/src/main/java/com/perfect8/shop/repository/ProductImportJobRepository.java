@@ -0,0 +1,12 @@
+package com.perfect8.shop.repository;
+
+import com.perfect8.shop.entity.ProductImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for bulk product import jobs
+ */
+@Repository
+public interface ProductImportJobRepository extends JpaRepository<ProductImportJob, Long> {
+}
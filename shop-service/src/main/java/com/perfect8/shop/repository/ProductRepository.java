@@ -3,12 +3,18 @@ package com.perfect8.shop.repository;
 import com.perfect8.shop.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,24 +28,121 @@ import java.util.Optional;
  * 
  * FIXED (2026-01-23):
  * - Added findByIdWithCategory for single product lookup with eager loading
+ *
+ * ADDED (2026-10-16):
+ * - findAllActiveForCatalog - single load query for the in-memory CatalogReadModel
+ * - findAllByIdWithCategory - batched refresh of changed products for the CatalogReadModel
+ * - Keyset (cursor) variants of the active/category listings - Window + ScrollPosition,
+ *   Spring Data adds the seek predicate on the sort keys + productId
+ * - moveStock - conditional UPDATE of sellable/held stock used by InventoryService (no read-modify-write)
+ * - Summary (listing) projections + batched tag/image lookups per page:
+ *   no description TEXT, no per-product element collection selects
+ *
+ * ADDED (2026-10-17):
+ * - Facet count queries (COUNT / GROUP BY) - ProductService.getFacets uses them while
+ *   the in-memory FacetIndex is still loading
+ * - Keyset windows select ProductIdView; findSummariesByIds loads the page as summary rows
  */
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    String SUMMARY_SELECT = "SELECT p.productId AS productId, p.name AS name, p.price AS price, " +
+            "p.discountPrice AS discountPrice, p.imageUrl AS imageUrl, c.categoryId AS categoryId, " +
+            "c.name AS categoryName, p.stockQuantity AS stockQuantity, p.featured AS featured " +
+            "FROM Product p LEFT JOIN p.category c ";
+
+    // Sellable stock or armed flash-sale units - the flash-sale lookup only runs for
+    // products without stock and only when the inStock filter is used
+    String IN_STOCK = "(p.stockQuantity > 0 OR EXISTS (SELECT 1 FROM FlashSaleAllocation fa " +
+            "WHERE fa.productId = p.productId AND fa.armed = true AND fa.remaining > 0))";
+
+    String IN_STOCK_FILTER = "AND (:inStock IS NULL OR ((:inStock = true AND " + IN_STOCK + ") " +
+            "OR (:inStock = false AND NOT " + IN_STOCK + ")))";
+
+    String FILTER_WHERE = "WHERE p.active = true " +
+            "AND (:categoryId IS NULL OR c.categoryId = :categoryId) " +
+            "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+            "AND (:featured IS NULL OR p.featured = :featured) " +
+            IN_STOCK_FILTER;
+
+    // Facet fallback filter - tag key is trimmed and lower-cased like FacetIndex does
+    String TAG_FILTER = " AND (:tag IS NULL OR EXISTS (SELECT 1 FROM Product tp JOIN tp.tags t " +
+            "WHERE tp.productId = p.productId AND LOWER(TRIM(t)) = :tag))";
+
+    String SEARCH_WHERE = "WHERE p.active = true AND " +
+            "(LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+            "LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%')))";
+
     // Find by ID with category eager loaded - FIXED: Prevents LazyInitializationException
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.productId = :productId")
     Optional<Product> findByIdWithCategory(@Param("productId") Long productId);
 
+    // Load all active products for the in-memory catalog read model
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.active = true ORDER BY p.productId")
+    List<Product> findAllActiveForCatalog();
+
+    // Load a batch of changed products (any state) for the catalog read model
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.productId IN :productIds")
+    List<Product> findAllByIdWithCategory(@Param("productIds") Collection<Long> productIds);
+
     // Find by SKU
     Optional<Product> findBySku(String sku);
 
     // Check if SKU exists
     boolean existsBySku(String sku);
 
+    // Atomic move between sellable and held stock (hold: -q/+q, release: +q/-q, confirm: 0/-q).
+    // Only applied if neither counter goes below 0. Returns 1 if applied, 0 otherwise.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :stockDelta, " +
+            "p.reservedQuantity = p.reservedQuantity + :reservedDelta, p.updatedDate = CURRENT_TIMESTAMP " +
+            "WHERE p.productId = :productId AND p.stockQuantity + :stockDelta >= 0 " +
+            "AND p.reservedQuantity + :reservedDelta >= 0")
+    int moveStock(@Param("productId") Long productId, @Param("stockDelta") int stockDelta,
+                  @Param("reservedDelta") int reservedDelta);
+
+    // Product name only - for messages on paths that do not load the product
+    @Query("SELECT p.name FROM Product p WHERE p.productId = :productId")
+    Optional<String> findNameById(@Param("productId") Long productId);
+
+    // Current stock straight from the database (bypasses the persistence context)
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.productId = :productId")
+    Optional<Integer> findStockQuantity(@Param("productId") Long productId);
+
+    // Stock figures for StockAvailabilityCache - one IN query for all misses:
+    // [productId, stockQuantity, reorderPoint, armed flash-sale units]
+    @Query("SELECT p.productId, p.stockQuantity, p.reorderPoint, " +
+            "(SELECT COALESCE(SUM(fa.remaining), 0) FROM FlashSaleAllocation fa " +
+            "WHERE fa.productId = p.productId AND fa.armed = true) FROM Product p " +
+            "WHERE p.productId IN :productIds")
+    List<Object[]> findStockLevels(@Param("productIds") Collection<Long> productIds);
+
+    // Armed flash-sale units of some products - [productId, remaining], products without
+    // an armed allocation are left out. Sets Product.flashSaleQuantity where availability is shown.
+    @Query("SELECT fa.productId, fa.remaining FROM FlashSaleAllocation fa " +
+            "WHERE fa.armed = true AND fa.remaining > 0 AND fa.productId IN :productIds")
+    List<Object[]> findArmedFlashSaleUnits(@Param("productIds") Collection<Long> productIds);
+
+    // Armed flash-sale units of every product - [productId, remaining] (catalog snapshot loads)
+    @Query("SELECT fa.productId, fa.remaining FROM FlashSaleAllocation fa WHERE fa.armed = true AND fa.remaining > 0")
+    List<Object[]> findAllArmedFlashSaleUnits();
+
     // Find all active products - FIXED: Added JOIN FETCH
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.active = true")
     Page<Product> findByActiveTrue(Pageable pageable);
 
+    // Keyset pagination of active products - no OFFSET, no COUNT. Ids only, the page rows
+    // are loaded with findSummariesByIds
+    Window<ProductIdView> findIdsByActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    // Keyset pagination of active products in a category
+    Window<ProductIdView> findIdsByCategoryCategoryIdAndActiveTrue(Long categoryId, ScrollPosition position, Sort sort, Limit limit);
+
+    // Listing projection for a known set of products (keyset pages) - in no particular order
+    @Query(SUMMARY_SELECT + "WHERE p.productId IN :productIds")
+    List<ProductSummaryView> findSummariesByIds(@Param("productIds") Collection<Long> productIds);
+
     // Find by category and active - FIXED: Added JOIN FETCH
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.category.categoryId = :categoryId AND p.active = true")
     Page<Product> findByCategoryIdAndActiveTrue(@Param("categoryId") Long categoryId, Pageable pageable);
@@ -64,7 +167,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
             "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
             "AND (:featured IS NULL OR p.featured = :featured) " +
-            "AND (:inStock IS NULL OR ((:inStock = true AND p.stockQuantity > 0) OR (:inStock = false AND p.stockQuantity = 0)))")
+            IN_STOCK_FILTER)
     Page<Product> findProductsWithFilters(
             @Param("categoryId") Long categoryId,
             @Param("minPrice") BigDecimal minPrice,
@@ -74,6 +177,67 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             Pageable pageable
     );
 
+    // Listing projection with filters (null = no restriction)
+    @Query(value = SUMMARY_SELECT + FILTER_WHERE,
+            countQuery = "SELECT COUNT(p) FROM Product p LEFT JOIN p.category c " + FILTER_WHERE)
+    Page<ProductSummaryView> findSummariesWithFilters(
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("featured") Boolean featured,
+            @Param("inStock") Boolean inStock,
+            Pageable pageable
+    );
+
+    // Facet counts while the in-memory FacetIndex is loading (null = no restriction)
+    @Query("SELECT COUNT(p) FROM Product p LEFT JOIN p.category c " + FILTER_WHERE + TAG_FILTER)
+    long countForFacets(
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("featured") Boolean featured,
+            @Param("inStock") Boolean inStock,
+            @Param("tag") String tag
+    );
+
+    // [categoryId, categoryName, count] per category with matching products
+    @Query("SELECT c.categoryId, c.name, COUNT(p) FROM Product p JOIN p.category c " + FILTER_WHERE + TAG_FILTER +
+            " GROUP BY c.categoryId, c.name")
+    List<Object[]> countCategoriesForFacets(
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("featured") Boolean featured,
+            @Param("inStock") Boolean inStock,
+            @Param("tag") String tag
+    );
+
+    // [tag key, label, count] per tag with matching products
+    @Query("SELECT LOWER(TRIM(t)), MIN(TRIM(t)), COUNT(DISTINCT p.productId) FROM Product p " +
+            "LEFT JOIN p.category c JOIN p.tags t " + FILTER_WHERE + TAG_FILTER +
+            " AND TRIM(t) <> '' GROUP BY LOWER(TRIM(t))")
+    List<Object[]> countTagsForFacets(
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("featured") Boolean featured,
+            @Param("inStock") Boolean inStock,
+            @Param("tag") String tag
+    );
+
+    // Listing projection for LIKE search (fallback while the search index loads)
+    @Query(value = SUMMARY_SELECT + SEARCH_WHERE,
+            countQuery = "SELECT COUNT(p) FROM Product p " + SEARCH_WHERE)
+    Page<ProductSummaryView> searchSummaries(@Param("query") String query, Pageable pageable);
+
+    // Tags for one listing page - one IN query instead of one select per product
+    @Query("SELECT p.productId, t FROM Product p JOIN p.tags t WHERE p.productId IN :productIds")
+    List<Object[]> findTagsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Additional images for one listing page - one IN query instead of one select per product
+    @Query("SELECT p.productId, i FROM Product p JOIN p.additionalImages i WHERE p.productId IN :productIds")
+    List<Object[]> findAdditionalImagesByProductIds(@Param("productIds") Collection<Long> productIds);
+
     // Find by price range - FIXED: Added JOIN FETCH
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.price BETWEEN :minPrice AND :maxPrice AND p.active = true")
     Page<Product> findByPriceBetweenAndActiveTrue(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice, Pageable pageable);
@@ -82,14 +246,19 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.stockQuantity = :stockQuantity AND p.active = true")
     Page<Product> findByStockQuantityAndActiveTrue(@Param("stockQuantity") Integer stockQuantity, Pageable pageable);
 
-    // Find by multiple categories - FIXED: Added JOIN FETCH
+    // Find by multiple categories (e.g. a category subtree) - FIXED: Added JOIN FETCH
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.category.categoryId IN :categoryIds AND p.active = true")
-    Page<Product> findByCategoryIdInAndActiveTrue(@Param("categoryIds") List<Long> categoryIds, Pageable pageable);
+    Page<Product> findByCategoryIdInAndActiveTrue(@Param("categoryIds") Collection<Long> categoryIds, Pageable pageable);
 
     // Count by category
     @Query("SELECT COUNT(p) FROM Product p WHERE p.category.categoryId = :categoryId AND p.active = true")
     long countByCategoryIdAndActiveTrue(@Param("categoryId") Long categoryId);
 
+    // Counts for inventory metrics (only used until InventoryAggregates is loaded)
+    long countByActiveTrue();
+
+    long countByStockQuantityLessThanEqualAndActiveTrue(Integer stockQuantity);
+
     // Find products needing reorder - FIXED: Added JOIN FETCH
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.active = true AND p.stockQuantity <= p.reorderPoint")
     List<Product> findProductsNeedingReorder();
@@ -122,10 +291,6 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             Pageable pageable
     );
 
-    // Update stock quantity
-    @Query("UPDATE Product p SET p.stockQuantity = :quantity WHERE p.productId = :productId")
-    void updateStockQuantity(@Param("productId") Long productId, @Param("quantity") Integer quantity);
-
     // Bulk update prices
     @Query("UPDATE Product p SET p.price = p.price * :multiplier WHERE p.category.categoryId = :categoryId")
     void bulkUpdatePricesByCategory(@Param("categoryId") Long categoryId, @Param("multiplier") BigDecimal multiplier);
@@ -0,0 +1,28 @@
+package com.perfect8.shop.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Lightweight product listing row - interface projection used by ProductRepository
+ * summary queries. No description TEXT, no element collections.
+ */
+public interface ProductSummaryView {
+
+    Long getProductId();
+
+    String getName();
+
+    BigDecimal getPrice();
+
+    BigDecimal getDiscountPrice();
+
+    String getImageUrl();
+
+    Long getCategoryId();
+
+    String getCategoryName();
+
+    Integer getStockQuantity();
+
+    Boolean getFeatured();
+}
@@ -0,0 +1,40 @@
+package com.perfect8.shop.repository;
+
+import com.perfect8.shop.entity.StockHold;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for StockHold (active stock holds of pending orders)
+ *
+ * Both lookups lock the rows they return, so a hold is settled by exactly one
+ * of payment confirmation, cancellation and the expiry sweeper.
+ */
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+
+    // Holds of one order, locked (blocks until a concurrent sweep of them has committed)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM StockHold h WHERE h.orderId = :orderId ORDER BY h.productId")
+    List<StockHold> findByOrderIdForUpdate(@Param("orderId") Long orderId);
+
+    // Oldest expired holds via idx_expiry_date - rows locked by another sweeper/checkout are skipped
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT h FROM StockHold h WHERE h.expiryDate <= :now ORDER BY h.expiryDate")
+    List<StockHold> findExpiredForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Holds not yet due (expired ones still waiting for the sweeper are not counted)
+    @Query("SELECT COUNT(h) FROM StockHold h WHERE h.expiryDate > :now")
+    long countActive(@Param("now") LocalDateTime now);
+}
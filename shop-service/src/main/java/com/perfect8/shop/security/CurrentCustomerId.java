@@ -0,0 +1,20 @@
+package com.perfect8.shop.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Current Customer ID - Version 1.0
+ * Binds a Long controller parameter to the customerId of the authenticated request
+ * (null when the caller has no customer profile).
+ *
+ * Resolved by CurrentCustomerIdArgumentResolver through CustomerIdResolver.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentCustomerId {
+}
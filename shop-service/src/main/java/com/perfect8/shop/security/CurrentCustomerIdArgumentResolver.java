@@ -0,0 +1,34 @@
+package com.perfect8.shop.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Current Customer ID Argument Resolver - Version 1.0
+ * Supplies @CurrentCustomerId Long parameters (registered in WebConfig).
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentCustomerIdArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final CustomerIdResolver customerIdResolver;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentCustomerId.class)
+                && Long.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        return request != null ? customerIdResolver.resolve(request) : null;
+    }
+}
@@ -0,0 +1,167 @@
+package com.perfect8.shop.security;
+
+import com.perfect8.shop.repository.CustomerRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Customer ID Resolver - Version 1.0
+ * Turns the Gateway headers of an authenticated request into a customerId.
+ *
+ * Resolution order (both headers are set by the Gateway from the validated JWT):
+ * - X-User-Id -> customers.user_id
+ * - X-Auth-User (email) -> customers.email
+ *
+ * FIXED (2026-10-17): X-Auth-Customer-Id is no longer trusted - the Gateway neither
+ * sets nor strips it, so any client could send it and act as another customer.
+ *
+ * The two lookups go through a bounded LRU (shop.customer-resolver.max-entries) whose
+ * entries expire after shop.customer-resolver.ttl-seconds. Unknown users (admins without
+ * a customer profile) are not cached. CustomerService evicts a customer when it is
+ * updated, deactivated or linked to a user account.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerIdResolver {
+
+    private final CustomerRepository customerRepository;
+
+    @Value("${shop.customer-resolver.max-entries:50000}")
+    private int maxEntries;
+
+    @Value("${shop.customer-resolver.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final LinkedHashMap<String, CachedId> customerIds = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedId> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder unresolved = new LongAdder();
+
+    /**
+     * customerId of the request, or null when it does not belong to a customer
+     */
+    public Long resolve(HttpServletRequest request) {
+        String userIdHeader = request.getHeader("X-User-Id");
+        if (userIdHeader != null && !userIdHeader.isEmpty()) {
+            try {
+                Long customerId = resolveUserId(Long.parseLong(userIdHeader));
+                if (customerId != null) {
+                    return customerId;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid X-User-Id header: {}", userIdHeader);
+            }
+        }
+
+        return resolveEmail(request.getHeader("X-Auth-User"));
+    }
+
+    public Long resolveUserId(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        String key = "user:" + userId;
+        Long cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        return store(key, customerRepository.findCustomerIdByUserId(userId).orElse(null));
+    }
+
+    public Long resolveEmail(String email) {
+        if (email == null || email.isEmpty()) {
+            return null;
+        }
+        String key = "email:" + email;
+        Long cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        return store(key, customerRepository.findCustomerIdByEmail(email).orElse(null));
+    }
+
+    /**
+     * Drop every key of a customer - now, and again after the current transaction
+     * commits so a request resolving in between cannot re-cache the old row
+     */
+    public void evictCustomer(Long customerId) {
+        removeCustomer(customerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeCustomer(customerId);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> metrics = new HashMap<>();
+        synchronized (customerIds) {
+            metrics.put("entries", customerIds.size());
+        }
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", misses.sum());
+        metrics.put("unresolved", unresolved.sum());
+        metrics.put("hitRate", lookups == 0 ? 0.0 : Math.round(hitCount * 1000.0 / lookups) / 1000.0);
+        return metrics;
+    }
+
+    private Long lookup(String key) {
+        CachedId cached;
+        synchronized (customerIds) {
+            cached = customerIds.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.cachedMillis() > ttlSeconds * 1000) {
+                customerIds.remove(key);
+                cached = null;
+            }
+        }
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.customerId();
+    }
+
+    private Long store(String key, Long customerId) {
+        if (customerId == null) {
+            unresolved.increment();
+            return null;
+        }
+        synchronized (customerIds) {
+            customerIds.put(key, new CachedId(customerId, System.currentTimeMillis()));
+        }
+        return customerId;
+    }
+
+    private void removeCustomer(Long customerId) {
+        synchronized (customerIds) {
+            customerIds.values().removeIf(cached -> cached.customerId().equals(customerId));
+        }
+    }
+
+    private record CachedId(Long customerId, long cachedMillis) {
+    }
+}
@@ -0,0 +1,340 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.event.AbandonedCartsEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Abandoned Cart Sweeper - Version 1.0
+ * Deletes carts idle for shop.cart-sweeper.delete-after-days and reports carts idle for
+ * shop.cart-sweeper.abandoned-after-hours as abandoned-cart email candidates - in one pass.
+ *
+ * - a pass walks carts through idx_carts_updated in (updated_date, cart_id) keyset order,
+ *   chunk-size carts per transaction: one multi-row DELETE for the items and one for the
+ *   carts (saved carts are kept), candidates published as AbandonedCartsEvent
+ * - the keyset cursor and the pass windows live in cart_sweep_progress and are committed
+ *   with each chunk, so a restart resumes the pass where it stopped. Each chunk reads the
+ *   row FOR UPDATE, so instances sharing the database never sweep the same range twice
+ * - throttled: a pause between chunks, a chunk limit per run, and the run stops early when
+ *   the connection pool is busy (checkout traffic has priority)
+ * - each cart is a candidate once: a pass reports carts that crossed the abandoned window
+ *   since the previous pass, the already reported range is skipped
+ * - runs on its own thread (the scheduler thread only hands the run over), so the pauses
+ *   do not hold up the other @Scheduled jobs; a run still going when the next one is due
+ *   is skipped
+ * - customers whose cart was deleted lose their cached cart view after the chunk commits
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AbandonedCartSweeper {
+
+    private static final String SWEEP_NAME = "abandoned-carts";
+
+    // Cursor of a fresh pass - before every updated_date
+    private static final LocalDateTime CURSOR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String CHUNK_SQL = "SELECT cart_id, updated_date, customer_id, item_count, total_amount, is_saved "
+            + "FROM carts WHERE updated_date < ? AND (updated_date > ? OR (updated_date = ? AND cart_id > ?)) "
+            + "ORDER BY updated_date, cart_id LIMIT ?";
+
+    private static final String UPDATE_PROGRESS_SQL = "UPDATE cart_sweep_progress SET delete_cutoff = ?, "
+            + "candidate_from = ?, candidate_to = ?, last_updated_date = ?, last_cart_id = ?, "
+            + "carts_deleted = carts_deleted + ?, candidates_emitted = candidates_emitted + ?, updated_date = ? "
+            + "WHERE sweep_name = ?";
+
+    private static final String LOCK_PROGRESS_SQL = "SELECT delete_cutoff, candidate_from, candidate_to, "
+            + "last_updated_date, last_cart_id FROM cart_sweep_progress WHERE sweep_name = ? FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSource dataSource;
+    private final CartCache cartCache;
+
+    @Value("${shop.cart-sweeper.delete-after-days:30}")
+    private int deleteAfterDays;
+
+    @Value("${shop.cart-sweeper.abandoned-after-hours:24}")
+    private int abandonedAfterHours;
+
+    @Value("${shop.cart-sweeper.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${shop.cart-sweeper.pause-ms:200}")
+    private long pauseMillis;
+
+    @Value("${shop.cart-sweeper.max-chunks-per-run:50}")
+    private int maxChunksPerRun;
+
+    private final AtomicLong totalDeleted = new AtomicLong();
+    private final AtomicLong totalCandidates = new AtomicLong();
+    private final AtomicLong passesCompleted = new AtomicLong();
+    private final AtomicLong runsThrottled = new AtomicLong();
+    private volatile LocalDateTime lastRun;
+
+    // One run at a time, no queue - a run still going when the next one is due is skipped
+    private final ThreadPoolExecutor sweepExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "cart-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @Scheduled(fixedDelayString = "${shop.cart-sweeper.sweep-ms:300000}",
+            initialDelayString = "${shop.cart-sweeper.sweep-ms:300000}")
+    public void sweep() {
+        try {
+            sweepExecutor.execute(this::runSweep);
+        } catch (RejectedExecutionException e) {
+            log.debug("Abandoned cart sweep still running - skipping this run");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // The cursor is committed per chunk - an interrupted run resumes on the next start
+        sweepExecutor.shutdownNow();
+    }
+
+    private void runSweep() {
+        int chunks = 0;
+        try {
+            jdbcTemplate.update("INSERT IGNORE INTO cart_sweep_progress (sweep_name, updated_date) VALUES (?, ?)",
+                    SWEEP_NAME, Timestamp.valueOf(LocalDateTime.now()));
+            while (chunks < maxChunksPerRun) {
+                if (poolBusy()) {
+                    runsThrottled.incrementAndGet();
+                    log.debug("Cart sweep paused after {} chunks - connection pool busy", chunks);
+                    break;
+                }
+                boolean more = transactionTemplate.execute(status -> sweepChunk());
+                chunks++;
+                if (!more) {
+                    passesCompleted.incrementAndGet();
+                    break;
+                }
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Abandoned cart sweep failed after {} chunks: {}", chunks, e.getMessage(), e);
+        }
+        lastRun = LocalDateTime.now();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("totalDeleted", totalDeleted.get());
+        metrics.put("totalCandidates", totalCandidates.get());
+        metrics.put("passesCompleted", passesCompleted.get());
+        metrics.put("runsThrottled", runsThrottled.get());
+        metrics.put("lastRun", lastRun);
+        return metrics;
+    }
+
+    /**
+     * One chunk - lock the progress row, read, delete, report, advance the cursor.
+     * Returns false when the pass is done.
+     */
+    private boolean sweepChunk() {
+        // Held until commit - another instance waits and continues from the committed cursor
+        Pass pass = lockPass();
+
+        // Already reported and not yet deletable - jump over
+        if (!pass.cursorDate.isBefore(pass.deleteCutoff) && pass.cursorDate.isBefore(pass.candidateFrom)) {
+            pass.cursorDate = pass.candidateFrom;
+            pass.cursorCartId = 0L;
+        }
+
+        List<CartRow> rows = new ArrayList<>(chunkSize);
+        jdbcTemplate.query(CHUNK_SQL, rs -> {
+            rows.add(new CartRow(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(),
+                    rs.getObject(3, Long.class), rs.getInt(4), rs.getBigDecimal(5), rs.getBoolean(6)));
+        }, Timestamp.valueOf(pass.candidateTo), Timestamp.valueOf(pass.cursorDate),
+                Timestamp.valueOf(pass.cursorDate), pass.cursorCartId, chunkSize);
+
+        List<Long> deletable = new ArrayList<>();
+        List<Long> deletableCustomerIds = new ArrayList<>();
+        List<Long> candidateCartIds = new ArrayList<>();
+        for (CartRow row : rows) {
+            if (row.updatedDate.isBefore(pass.deleteCutoff)) {
+                if (!row.saved) {
+                    deletable.add(row.cartId);
+                    if (row.customerId != null) {
+                        deletableCustomerIds.add(row.customerId);
+                    }
+                }
+            } else if (!row.updatedDate.isBefore(pass.candidateFrom) && row.customerId != null && row.itemCount > 0) {
+                candidateCartIds.add(row.cartId);
+            }
+        }
+
+        int deleted = deleteCarts(deletable, pass.deleteCutoff);
+        if (deleted > 0) {
+            evictCachedCartsAfterCommit(deletableCustomerIds);
+        }
+        List<AbandonedCartsEvent.Candidate> candidates = loadCandidates(candidateCartIds);
+        if (!candidates.isEmpty()) {
+            eventPublisher.publishEvent(new AbandonedCartsEvent(candidates));
+        }
+
+        boolean more = rows.size() == chunkSize;
+        if (more) {
+            CartRow last = rows.get(rows.size() - 1);
+            pass.cursorDate = last.updatedDate;
+            pass.cursorCartId = last.cartId;
+        }
+        // Pass done: clear the cursor, candidate_to stays as the start of the next pass
+        jdbcTemplate.update(UPDATE_PROGRESS_SQL,
+                more ? Timestamp.valueOf(pass.deleteCutoff) : null,
+                Timestamp.valueOf(pass.candidateFrom), Timestamp.valueOf(pass.candidateTo),
+                more ? Timestamp.valueOf(pass.cursorDate) : null, more ? pass.cursorCartId : null,
+                deleted, candidates.size(), Timestamp.valueOf(LocalDateTime.now()), SWEEP_NAME);
+        if (!more) {
+            log.info("Abandoned cart sweep pass complete (carts idle before {} deleted)", pass.deleteCutoff);
+        }
+
+        totalDeleted.addAndGet(deleted);
+        totalCandidates.addAndGet(candidates.size());
+        return more;
+    }
+
+    /**
+     * Batched multi-row deletes - items first, then the carts. updated_date is checked
+     * again so a cart touched since the chunk was read is kept.
+     */
+    private int deleteCarts(List<Long> cartIds, LocalDateTime deleteCutoff) {
+        if (cartIds.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(cartIds.size(), "?"));
+        List<Object> args = new ArrayList<>(cartIds);
+        args.add(Timestamp.valueOf(deleteCutoff));
+
+        jdbcTemplate.update("DELETE ci FROM cart_items ci JOIN carts c ON c.cart_id = ci.cart_id "
+                + "WHERE c.cart_id IN (" + placeholders + ") AND c.updated_date < ?", args.toArray());
+        return jdbcTemplate.update("DELETE FROM carts WHERE cart_id IN (" + placeholders + ") AND updated_date < ?",
+                args.toArray());
+    }
+
+    /**
+     * CartService serves cached views - drop them once the deletes are visible. A cart kept by
+     * the updated_date re-check only loses its cached view, which is rebuilt on the next read.
+     */
+    private void evictCachedCartsAfterCommit(List<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                customerIds.forEach(cartCache::evict);
+            }
+        });
+    }
+
+    private List<AbandonedCartsEvent.Candidate> loadCandidates(List<Long> cartIds) {
+        if (cartIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT c.cart_id, cu.customer_id, cu.email, cu.first_name, c.item_count, "
+                        + "c.total_amount, c.updated_date FROM carts c JOIN customers cu ON cu.customer_id = c.customer_id "
+                        + "WHERE c.cart_id IN (" + String.join(",", Collections.nCopies(cartIds.size(), "?")) + ") "
+                        + "AND cu.active = TRUE AND cu.marketing_consent = TRUE",
+                (rs, rowNum) -> new AbandonedCartsEvent.Candidate(rs.getLong(1), rs.getLong(2), rs.getString(3),
+                        rs.getString(4), rs.getInt(5), rs.getBigDecimal(6), rs.getTimestamp(7).toLocalDateTime()),
+                cartIds.toArray());
+    }
+
+    /**
+     * The pass in progress (restart, or advanced by another instance) or a new one - read
+     * with the progress row locked. runSweep creates the row on first use.
+     */
+    private Pass lockPass() {
+        return jdbcTemplate.queryForObject(LOCK_PROGRESS_SQL,
+                (rs, rowNum) -> {
+                    Timestamp deleteCutoff = rs.getTimestamp(1);
+                    Timestamp candidateFrom = rs.getTimestamp(2);
+                    Timestamp candidateTo = rs.getTimestamp(3);
+                    Timestamp lastUpdated = rs.getTimestamp(4);
+                    if (deleteCutoff != null && lastUpdated != null) {
+                        return new Pass(deleteCutoff.toLocalDateTime(), candidateFrom.toLocalDateTime(),
+                                candidateTo.toLocalDateTime(), lastUpdated.toLocalDateTime(), rs.getLong(5));
+                    }
+                    return newPass(candidateTo != null ? candidateTo.toLocalDateTime() : null);
+                }, SWEEP_NAME);
+    }
+
+    private Pass newPass(LocalDateTime previousCandidateTo) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime deleteCutoff = now.minusDays(deleteAfterDays);
+        LocalDateTime candidateTo = now.minusHours(abandonedAfterHours);
+        // First pass ever: report only the last day instead of the whole backlog
+        LocalDateTime candidateFrom = previousCandidateTo != null ? previousCandidateTo : candidateTo.minusDays(1);
+        if (candidateFrom.isBefore(deleteCutoff)) {
+            candidateFrom = deleteCutoff;
+        }
+        return new Pass(deleteCutoff, candidateFrom, candidateTo, CURSOR_START, 0L);
+    }
+
+    /**
+     * Waiting threads or a mostly used pool mean the shop is busy - sweep later
+     */
+    private boolean poolBusy() {
+        if (!(dataSource instanceof HikariDataSource hikari) || hikari.getHikariPoolMXBean() == null) {
+            return false;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return pool.getThreadsAwaitingConnection() > 0
+                || pool.getActiveConnections() * 2 > hikari.getMaximumPoolSize();
+    }
+
+    private record CartRow(Long cartId, LocalDateTime updatedDate, Long customerId, int itemCount,
+                           BigDecimal totalAmount, boolean saved) {
+    }
+
+    private static final class Pass {
+        final LocalDateTime deleteCutoff;
+        final LocalDateTime candidateFrom;
+        final LocalDateTime candidateTo;
+        LocalDateTime cursorDate;
+        Long cursorCartId;
+
+        Pass(LocalDateTime deleteCutoff, LocalDateTime candidateFrom, LocalDateTime candidateTo,
+             LocalDateTime cursorDate, Long cursorCartId) {
+            this.deleteCutoff = deleteCutoff;
+            this.candidateFrom = candidateFrom;
+            this.candidateTo = candidateTo;
+            this.cursorDate = cursorDate;
+            this.cursorCartId = cursorCartId;
+        }
+    }
+}
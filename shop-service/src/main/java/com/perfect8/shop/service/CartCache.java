@@ -0,0 +1,150 @@
+package com.perfect8.shop.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cart Cache - Version 1.0
+ * Per-customer cart views for the cart page and cart badge.
+ *
+ * - bounded LRU (shop.cart-cache.max-entries), entries expire after
+ *   shop.cart-cache.ttl-seconds as a safety net
+ * - FIXED (2026-10-17): CartService checks a cached view against carts.updated_date
+ *   (one primary key read) before serving it, so a change made on another instance is
+ *   never served from here - evictStale drops the outdated view
+ * - write-through: CartService puts the new view after its transaction commits
+ *   (a rolled back mutation never reaches the cache), a view is never replaced
+ *   by one with an older cart updatedDate
+ *
+ * Views hold what the cart row and its items hold - product names and stock are
+ * added when the response is built (catalog snapshot, StockAvailabilityCache).
+ */
+@Slf4j
+@Component
+public class CartCache {
+
+    @Value("${shop.cart-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${shop.cart-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final LinkedHashMap<Long, CachedView> views = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedView> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    public CartView get(Long customerId) {
+        CachedView cached;
+        synchronized (views) {
+            cached = views.get(customerId);
+            if (cached != null && System.currentTimeMillis() - cached.cachedMillis() > ttlSeconds * 1000) {
+                views.remove(customerId);
+                cached = null;
+            }
+        }
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.view();
+    }
+
+    /**
+     * Cache a freshly built view - after commit when called inside a transaction
+     */
+    public void putAfterCommit(CartView view) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(view);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(view);
+            }
+        });
+    }
+
+    public void evict(Long customerId) {
+        synchronized (views) {
+            views.remove(customerId);
+        }
+    }
+
+    /**
+     * Drop a view whose cart changed in the database since it was cached
+     */
+    public void evictStale(Long customerId) {
+        stale.increment();
+        evict(customerId);
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> metrics = new HashMap<>();
+        synchronized (views) {
+            metrics.put("entries", views.size());
+        }
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", misses.sum());
+        metrics.put("hitRate", lookups == 0 ? 0.0 : Math.round(hitCount * 1000.0 / lookups) / 1000.0);
+        metrics.put("puts", puts.sum());
+        metrics.put("stale", stale.sum());
+        return metrics;
+    }
+
+    private void put(CartView view) {
+        synchronized (views) {
+            CachedView existing = views.get(view.customerId());
+            if (existing != null && existing.view().updatedDate() != null && view.updatedDate() != null
+                    && existing.view().updatedDate().isAfter(view.updatedDate())) {
+                return;
+            }
+            views.put(view.customerId(), new CachedView(view, System.currentTimeMillis()));
+        }
+        puts.increment();
+    }
+
+    private record CachedView(CartView view, long cachedMillis) {
+    }
+
+    /**
+     * Immutable copy of a cart and its lines
+     */
+    public record CartView(Long cartId, Long customerId, List<Line> lines, BigDecimal totalAmount,
+                           LocalDateTime createdDate, LocalDateTime updatedDate) {
+
+        public int totalQuantity() {
+            int total = 0;
+            for (Line line : lines) {
+                total += line.quantity();
+            }
+            return total;
+        }
+    }
+
+    public record Line(Long cartItemId, Long productId, int quantity, BigDecimal unitPrice) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.perfect8.shop.service;
 
+import com.perfect8.common.money.Money;
 import com.perfect8.shop.dto.*;
 import com.perfect8.shop.entity.*;
 import com.perfect8.shop.exception.*;
@@ -7,13 +8,24 @@ import com.perfect8.shop.repository.*;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +37,24 @@ import java.util.stream.Collectors;
  * - NO backward compatibility - built right from start
  * - NO alias methods - one method, one name
  * - Clean variable names without redundant suffixes
+ *
+ * FIXED (2026-10-16): Stock checks read StockAvailabilityCache (short TTL, one IN
+ * query for a whole cart) instead of the product rows - soft checks only, the
+ * reservation at order time stays authoritative
+ *
+ * FIXED (2026-10-16): Totals, line prices and checkout tax are computed on long minor
+ * units (common Money) - BigDecimal only for the entity fields and responses
+ *
+ * FIXED (2026-10-16): Carts are loaded with their items in one fetch-join query keyed by
+ * customer ID (no customer lookup, no lazy item loads); product fields come from the
+ * catalog snapshot. getCart / getCartItemCount are served from CartCache, every mutation
+ * writes the new view through after commit.
+ *
+ * ADDED (2026-10-16): applyBatch - a list of add / update / remove operations applied in
+ * memory and written with one statement per kind of item change (cart sync)
+ *
+ * ADDED (2026-10-16): Guest carts - anonymous carts live in GuestCartStore (no database
+ * writes) and are merged into the customer's cart on login through the same batch path
  */
 @Service
 @RequiredArgsConstructor
@@ -37,6 +67,20 @@ public class CartService {
     private final ProductRepository productRepository;
     private final CustomerRepository customerRepository;
     private final ShippingService shippingService;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final CartCache cartCache;
+    private final CatalogReadModel catalogReadModel;
+    private final JdbcTemplate jdbcTemplate;
+    private final GuestCartStore guestCartStore;
+
+    private static final long DEFAULT_SHIPPING_MINOR = 999;   // 9.99
+    private static final long CHECKOUT_TAX_BASIS_POINTS = 800; // 8%
+
+    private static final String INSERT_CART_ITEM_SQL = "INSERT INTO cart_items (cart_id, product_id, quantity, "
+            + "unit_price, subtotal, product_name, product_sku, product_image_url, is_saved_for_later, is_gift, "
+            + "added_date, updated_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, FALSE, FALSE, ?, ?)";
+    private static final String UPDATE_CART_ITEM_SQL = "UPDATE cart_items SET quantity = ?, subtotal = ?, "
+            + "updated_date = ? WHERE cart_item_id = ?";
 
     /**
      * Validate checkout - Core functionality for v1.0
@@ -46,10 +90,7 @@ public class CartService {
             throw new CustomerNotFoundException("Customer ID cannot be null");
         }
 
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId));
-
-        Cart cart = cartRepository.findByCustomer(customer)
+        Cart cart = loadCart(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for customer"));
 
         // Build response with correct structure
@@ -79,10 +120,13 @@ public class CartService {
                         .warnings(new ArrayList<>())
                         .build();
 
+        Map<Long, StockAvailabilityCache.StockLevel> stockLevels = loadStockLevels(cart);
+
         for (CartItem cartItem : cart.getItems()) {
-            Product product = cartItem.getProduct();
+            Product product = productOf(cartItem);
+            int available = availableStock(stockLevels, product.getProductId());
 
-            if (product.getStockQuantity() == 0) {
+            if (available <= 0) {
                 CheckoutValidationResponse.OutOfStockItem outOfStockItem =
                         CheckoutValidationResponse.OutOfStockItem.builder()
                                 .productId(product.getProductId())
@@ -95,21 +139,21 @@ public class CartService {
                 inventoryValidation.setValid(false);
                 response.addIssue("Out of stock: " + product.getName());
 
-            } else if (product.getStockQuantity() < cartItem.getQuantity()) {
+            } else if (available < cartItem.getQuantity()) {
                 CheckoutValidationResponse.LowStockItem lowStockItem =
                         CheckoutValidationResponse.LowStockItem.builder()
                                 .productId(product.getProductId())
                                 .productName(product.getName())
                                 .sku(product.getSku())
                                 .requestedQuantity(cartItem.getQuantity())
-                                .availableQuantity(product.getStockQuantity())
-                                .warning("Only " + product.getStockQuantity() + " available")
+                                .availableQuantity(available)
+                                .warning("Only " + available + " available")
                                 .build();
                 inventoryValidation.getLowStockItems().add(lowStockItem);
                 inventoryValidation.setValid(false);
                 response.addIssue("Insufficient stock for " + product.getName() +
                         " (requested: " + cartItem.getQuantity() +
-                        ", available: " + product.getStockQuantity() + ")");
+                        ", available: " + available + ")");
             }
         }
 
@@ -131,13 +175,12 @@ public class CartService {
             throw new CustomerNotFoundException("Customer ID cannot be null");
         }
 
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId));
-
-        Cart cart = cartRepository.findByCustomer(customer)
-                .orElseGet(() -> createNewCart(customer));
-
-        return convertToCartResponse(cart);
+        CartCache.CartView view = freshCachedView(customerId);
+        if (view == null) {
+            view = toView(loadOrCreateCart(customerId));
+            cartCache.putAfterCommit(view);
+        }
+        return convertToCartResponse(view);
     }
 
     /**
@@ -148,18 +191,20 @@ public class CartService {
             throw new CustomerNotFoundException("Customer ID cannot be null");
         }
 
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId));
-
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new ProductNotFoundException("Product not found with customerEmailDTOId: " + request.getProductId()));
+        Map<Long, StockAvailabilityCache.StockLevel> stockLevels =
+                stockAvailabilityCache.getLevels(List.of(request.getProductId()));
+        if (!stockLevels.containsKey(request.getProductId())) {
+            throw new ProductNotFoundException("Product not found with customerEmailDTOId: " + request.getProductId());
+        }
+        int available = availableStock(stockLevels, request.getProductId());
 
-        if (product.getStockQuantity() < request.getQuantity()) {
-            throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
+        if (available < request.getQuantity()) {
+            String productName = productRepository.findNameById(request.getProductId())
+                    .orElse(String.valueOf(request.getProductId()));
+            throw new InsufficientStockException("Insufficient stock for product: " + productName);
         }
 
-        Cart cart = cartRepository.findByCustomer(customer)
-                .orElseGet(() -> createNewCart(customer));
+        Cart cart = loadOrCreateCart(customerId);
 
         Optional<CartItem> existingCartItem = cart.getItems().stream()
                 .filter(cartItem -> cartItem.getProduct().getProductId().equals(request.getProductId()))
@@ -168,12 +213,15 @@ public class CartService {
         if (existingCartItem.isPresent()) {
             CartItem cartItem = existingCartItem.get();
             Integer newQuantity = cartItem.getQuantity() + request.getQuantity();
-            if (newQuantity > product.getStockQuantity()) {
+            if (newQuantity > available) {
                 throw new InsufficientStockException("Total quantity exceeds available stock");
             }
             cartItem.setQuantity(newQuantity);
             cartItemRepository.save(cartItem);
         } else {
+            // Product row only needed for a new line (price)
+            Product product = productRepository.findById(request.getProductId())
+                    .orElseThrow(() -> new ProductNotFoundException("Product not found with customerEmailDTOId: " + request.getProductId()));
             CartItem newCartItem = new CartItem();
             newCartItem.setCart(cart);
             newCartItem.setProduct(product);
@@ -184,9 +232,9 @@ public class CartService {
         }
 
         updateCartTotals(cart);
-        cartRepository.save(cart);
+        cartRepository.saveAndFlush(cart);
 
-        return convertToCartResponse(cart);
+        return cacheAndConvert(cart);
     }
 
     /**
@@ -197,10 +245,7 @@ public class CartService {
             throw new CustomerNotFoundException("Customer ID cannot be null");
         }
 
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId));
-
-        Cart cart = cartRepository.findByCustomer(customer)
+        Cart cart = loadCart(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for customer"));
 
         CartItem cartItem = cart.getItems().stream()
@@ -212,7 +257,7 @@ public class CartService {
             cart.getItems().remove(cartItem);
             cartItemRepository.delete(cartItem);
         } else {
-            if (request.getQuantity() > cartItem.getProduct().getStockQuantity()) {
+            if (request.getQuantity() > stockAvailabilityCache.getAvailable(request.getProductId())) {
                 throw new InsufficientStockException("Insufficient stock for product");
             }
             cartItem.setQuantity(request.getQuantity());
@@ -220,9 +265,9 @@ public class CartService {
         }
 
         updateCartTotals(cart);
-        cartRepository.save(cart);
+        cartRepository.saveAndFlush(cart);
 
-        return convertToCartResponse(cart);
+        return cacheAndConvert(cart);
     }
 
     /**
@@ -233,10 +278,7 @@ public class CartService {
             throw new CustomerNotFoundException("Customer ID cannot be null");
         }
 
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId));
-
-        Cart cart = cartRepository.findByCustomer(customer)
+        Cart cart = loadCart(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for customer"));
 
         CartItem cartItemToRemove = cart.getItems().stream()
@@ -248,9 +290,237 @@ public class CartService {
         cartItemRepository.delete(cartItemToRemove);
 
         updateCartTotals(cart);
-        cartRepository.save(cart);
+        cartRepository.saveAndFlush(cart);
+
+        return cacheAndConvert(cart);
+    }
+
+    /**
+     * Apply several cart operations in one go - offline cart sync, "buy the whole outfit"
+     *
+     * One cart query, one stock query and at most one product query for all lines; the
+     * operations run in memory and the item changes go out as one DELETE, one UPDATE batch
+     * and one INSERT batch. All or nothing: an unknown product or a line above available
+     * stock rejects the whole batch.
+     */
+    public CartResponse applyBatch(Long customerId, CartBatchRequest request) {
+        return applyOperations(customerId, request.getOperations(), false);
+    }
+
+    /**
+     * clipToStock (guest cart merge): unknown products are skipped and lines are lowered
+     * to the available stock instead of rejecting the batch
+     */
+    private CartResponse applyOperations(Long customerId, List<CartBatchRequest.CartOperation> operations,
+                                         boolean clipToStock) {
+        if (customerId == null) {
+            throw new CustomerNotFoundException("Customer ID cannot be null");
+        }
+
+        Cart cart = loadOrCreateCart(customerId);
+
+        // Working copy of the lines - the managed items are never modified
+        Map<Long, BatchLine> lines = new LinkedHashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            lines.put(cartItem.getProduct().getProductId(), new BatchLine(cartItem, cartItem.getQuantity()));
+        }
+
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartBatchRequest.CartOperation operation : operations) {
+            productIds.add(operation.getProductId());
+        }
+        Map<Long, StockAvailabilityCache.StockLevel> stockLevels = stockAvailabilityCache.getLevels(productIds);
+        for (Long productId : productIds) {
+            if (!stockLevels.containsKey(productId) && !clipToStock) {
+                throw new ProductNotFoundException("Product not found: " + productId);
+            }
+        }
+        productIds.retainAll(stockLevels.keySet());
+
+        for (CartBatchRequest.CartOperation operation : operations) {
+            Long productId = operation.getProductId();
+            if (!productIds.contains(productId)) {
+                continue;
+            }
+            BatchLine line = lines.get(productId);
+            switch (operation.getType()) {
+                case ADD -> {
+                    if (operation.getQuantity() == null || operation.getQuantity() < 1) {
+                        throw new IllegalArgumentException("Quantity must be at least 1 to add product: " + productId);
+                    }
+                    if (line == null) {
+                        lines.put(productId, new BatchLine(null, operation.getQuantity()));
+                    } else {
+                        line.quantity += operation.getQuantity();
+                    }
+                }
+                case UPDATE -> {
+                    if (operation.getQuantity() == null) {
+                        throw new IllegalArgumentException("Quantity is required to update product: " + productId);
+                    }
+                    if (line == null) {
+                        lines.put(productId, new BatchLine(null, operation.getQuantity()));
+                    } else {
+                        line.quantity = operation.getQuantity();
+                    }
+                }
+                case REMOVE -> {
+                    if (line != null) {
+                        line.quantity = 0;
+                    }
+                }
+            }
+        }
+
+        // Stock - only lines that grew (lowering a line never fails a sync)
+        for (Long productId : productIds) {
+            BatchLine line = lines.get(productId);
+            if (line == null) {
+                continue;
+            }
+            int original = line.cartItem != null ? line.cartItem.getQuantity() : 0;
+            int available = availableStock(stockLevels, productId);
+            if (line.quantity > original && line.quantity > available) {
+                if (!clipToStock) {
+                    throw new InsufficientStockException("Insufficient stock for product: " + productId);
+                }
+                line.quantity = Math.max(original, available);
+            }
+        }
+
+        List<Long> removedCartItemIds = new ArrayList<>();
+        List<BatchLine> changedLines = new ArrayList<>();
+        List<Long> addedProductIds = new ArrayList<>();
+        for (Map.Entry<Long, BatchLine> entry : lines.entrySet()) {
+            BatchLine line = entry.getValue();
+            if (line.cartItem == null) {
+                if (line.quantity > 0) {
+                    addedProductIds.add(entry.getKey());
+                }
+            } else if (line.quantity == 0) {
+                removedCartItemIds.add(line.cartItem.getCartItemId());
+            } else if (line.quantity != line.cartItem.getQuantity()) {
+                changedLines.add(line);
+            }
+        }
+
+        // New lines take the current price and product details
+        Map<Long, Product> products = loadProducts(addedProductIds);
+        for (Long productId : addedProductIds) {
+            lines.get(productId).unitPrice = products.get(productId).getPrice();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (!removedCartItemIds.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_item_id IN ("
+                    + String.join(",", Collections.nCopies(removedCartItemIds.size(), "?")) + ")",
+                    removedCartItemIds.toArray());
+        }
+        if (!changedLines.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_CART_ITEM_SQL, changedLines, changedLines.size(), (ps, line) -> {
+                ps.setInt(1, line.quantity);
+                ps.setBigDecimal(2, line.subtotal());
+                ps.setTimestamp(3, now);
+                ps.setLong(4, line.cartItem.getCartItemId());
+            });
+        }
+        Map<Long, Long> addedCartItemIds = addedProductIds.isEmpty()
+                ? Map.of()
+                : insertCartItems(cart.getCartId(), addedProductIds, lines, products, now);
+
+        // Cart row through the entity (one UPDATE at flush), view from the working copy
+        List<CartCache.Line> viewLines = new ArrayList<>();
+        long totalMinor = 0;
+        for (Map.Entry<Long, BatchLine> entry : lines.entrySet()) {
+            BatchLine line = entry.getValue();
+            if (line.quantity == 0) {
+                continue;
+            }
+            Long cartItemId = line.cartItem != null ? line.cartItem.getCartItemId() : addedCartItemIds.get(entry.getKey());
+            viewLines.add(new CartCache.Line(cartItemId, entry.getKey(), line.quantity, line.unitPrice));
+            totalMinor = Math.addExact(totalMinor, Money.times(Money.toMinor(line.unitPrice), line.quantity));
+        }
+
+        cart.setTotalAmount(Money.toBigDecimal(totalMinor));
+        cart.setItemCount(viewLines.size());
+        cart.setUpdatedDate(now.toLocalDateTime());
+        // Flushed: @PreUpdate sets the stored updated_date, the view must carry that value
+        cartRepository.saveAndFlush(cart);
+
+        CartCache.CartView view = new CartCache.CartView(cart.getCartId(), customerId, List.copyOf(viewLines),
+                cart.getTotalAmount(), cart.getCreatedDate(), cart.getUpdatedDate());
+        cartCache.putAfterCommit(view);
+
+        log.debug("Applied {} cart operations for customer {}: {} added, {} changed, {} removed",
+                operations.size(), customerId, addedProductIds.size(), changedLines.size(),
+                removedCartItemIds.size());
+        return convertToCartResponse(view);
+    }
 
-        return convertToCartResponse(cart);
+    // ========== Guest carts ==========
+
+    /**
+     * New empty guest cart - the token in the response identifies it from now on
+     */
+    public CartResponse createGuestCart() {
+        return convertToGuestCartResponse(guestCartStore.create());
+    }
+
+    public CartResponse getGuestCart(String guestToken) {
+        return convertToGuestCartResponse(requireGuestCart(guestToken));
+    }
+
+    public CartResponse addToGuestCart(String guestToken, AddToCartRequest request) {
+        GuestCartStore.GuestCart guestCart = requireGuestCart(guestToken);
+        int newQuantity = guestCart.lines().getOrDefault(request.getProductId(), 0) + request.getQuantity();
+        checkGuestStock(request.getProductId(), newQuantity);
+        return convertToGuestCartResponse(
+                guestCartStore.setQuantity(guestToken, request.getProductId(), newQuantity));
+    }
+
+    public CartResponse updateGuestCartItem(String guestToken, UpdateCartItemRequest request) {
+        GuestCartStore.GuestCart guestCart = requireGuestCart(guestToken);
+        if (!guestCart.lines().containsKey(request.getProductId())) {
+            throw new ResourceNotFoundException("Item not found in cart");
+        }
+        if (request.getQuantity() > 0) {
+            checkGuestStock(request.getProductId(), request.getQuantity());
+        }
+        return convertToGuestCartResponse(
+                guestCartStore.setQuantity(guestToken, request.getProductId(), request.getQuantity()));
+    }
+
+    public CartResponse removeFromGuestCart(String guestToken, Long productId) {
+        GuestCartStore.GuestCart guestCart = requireGuestCart(guestToken);
+        if (!guestCart.lines().containsKey(productId)) {
+            throw new ResourceNotFoundException("Item not found in cart");
+        }
+        return convertToGuestCartResponse(guestCartStore.setQuantity(guestToken, productId, 0));
+    }
+
+    /**
+     * Merge a guest cart into the customer's cart on login - one batched write, quantities
+     * are added to existing lines and lowered to the available stock. The guest cart is
+     * dropped once the merge commits.
+     */
+    public CartResponse mergeGuestCart(Long customerId, String guestToken) {
+        GuestCartStore.GuestCart guestCart = requireGuestCart(guestToken);
+
+        List<CartBatchRequest.CartOperation> operations = new ArrayList<>(guestCart.lines().size());
+        for (Map.Entry<Long, Integer> line : guestCart.lines().entrySet()) {
+            operations.add(CartBatchRequest.CartOperation.builder()
+                    .type(CartBatchRequest.OperationType.ADD)
+                    .productId(line.getKey())
+                    .quantity(line.getValue())
+                    .build());
+        }
+
+        CartResponse response = operations.isEmpty()
+                ? getCart(customerId)
+                : applyOperations(customerId, operations, true);
+        guestCartStore.removeAfterCommit(guestToken);
+        log.info("Merged guest cart ({} lines) into cart of customer {}", operations.size(), customerId);
+        return response;
     }
 
     /**
@@ -261,17 +531,16 @@ public class CartService {
             throw new CustomerNotFoundException("Customer ID cannot be null");
         }
 
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId));
-
-        Cart cart = cartRepository.findByCustomer(customer)
+        Cart cart = loadCart(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for customer"));
 
         cartItemRepository.deleteAll(cart.getItems());
         cart.getItems().clear();
         cart.setTotalAmount(BigDecimal.ZERO);
         cart.setItemCount(0);
-        cartRepository.save(cart);
+        cart.setUpdatedDate(LocalDateTime.now());
+        cartRepository.saveAndFlush(cart);
+        cartCache.putAfterCommit(toView(cart));
     }
 
     /**
@@ -283,19 +552,40 @@ public class CartService {
         }
 
         try {
-            Customer customer = customerRepository.findById(customerId)
-                    .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId));
-
-            Cart cart = cartRepository.findByCustomer(customer)
-                    .orElse(null);
-
-            return cart != null ? cart.getItemCount() : 0;
+            CartCache.CartView view = freshCachedView(customerId);
+            if (view == null) {
+                Cart cart = loadCart(customerId).orElse(null);
+                if (cart == null) {
+                    return 0;
+                }
+                view = toView(cart);
+                cartCache.putAfterCommit(view);
+            }
+            return view.lines().size();
         } catch (Exception e) {
             log.error("Error getting cart item count for customer {}: {}", customerId, e.getMessage());
             return 0;
         }
     }
 
+    /**
+     * The cached view while carts.updated_date still matches it - the cart may have been
+     * changed (or deleted) through another instance
+     */
+    private CartCache.CartView freshCachedView(Long customerId) {
+        CartCache.CartView view = cartCache.get(customerId);
+        if (view == null) {
+            return null;
+        }
+        LocalDateTime updatedDate = view.cartId() != null
+                ? cartRepository.findUpdatedDateByCartId(view.cartId()).orElse(null) : null;
+        if (updatedDate == null || view.updatedDate() == null || updatedDate.isAfter(view.updatedDate())) {
+            cartCache.evictStale(customerId);
+            return null;
+        }
+        return view;
+    }
+
     /**
      * Prepare checkout - Core functionality for v1.0
      */
@@ -306,10 +596,7 @@ public class CartService {
             throw new CustomerNotFoundException("Customer ID cannot be null");
         }
 
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId));
-
-        Cart cart = cartRepository.findByCustomer(customer)
+        Cart cart = loadCart(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for customer"));
 
         // Validate cart has items
@@ -318,16 +605,17 @@ public class CartService {
         }
 
         // Convert cart items to response items
-        List<CartItemResponse> cartItemResponses = cart.getItems().stream()
-                .map(this::convertToCartItemResponse)
-                .collect(Collectors.toList());
+        List<CartItemResponse> cartItemResponses = convertToCartResponse(toView(cart)).getItems();
 
         // Calculate amounts
-        BigDecimal subtotalAmount = cart.getTotalAmount();
-        BigDecimal shippingCostAmount = BigDecimal.valueOf(9.99); // Default shipping
+        // Calculate amounts in minor units, tax rounded HALF_UP to whole cents
+        long subtotalMinor = Money.toMinor(cart.getTotalAmount());
+        long taxMinor = Money.percentOf(subtotalMinor, CHECKOUT_TAX_BASIS_POINTS, RoundingMode.HALF_UP);
+        BigDecimal subtotalAmount = Money.toBigDecimal(subtotalMinor);
+        BigDecimal shippingCostAmount = Money.toBigDecimal(DEFAULT_SHIPPING_MINOR);
         BigDecimal taxRate = BigDecimal.valueOf(0.08); // 8% tax rate
-        BigDecimal taxAmount = subtotalAmount.multiply(taxRate);
-        BigDecimal totalAmount = subtotalAmount.add(shippingCostAmount).add(taxAmount);
+        BigDecimal taxAmount = Money.toBigDecimal(taxMinor);
+        BigDecimal totalAmount = Money.toBigDecimal(subtotalMinor + DEFAULT_SHIPPING_MINOR + taxMinor);
 
         // Build checkout preparation response
         CheckoutPreparationResponse response = CheckoutPreparationResponse.builder()
@@ -381,46 +669,235 @@ public class CartService {
         return cartRepository.save(newCart);
     }
 
+    private GuestCartStore.GuestCart requireGuestCart(String guestToken) {
+        GuestCartStore.GuestCart guestCart = guestCartStore.get(guestToken);
+        if (guestCart == null) {
+            throw new ResourceNotFoundException("Guest cart not found or expired");
+        }
+        return guestCart;
+    }
+
+    private void checkGuestStock(Long productId, int quantity) {
+        Map<Long, StockAvailabilityCache.StockLevel> stockLevels = stockAvailabilityCache.getLevels(List.of(productId));
+        if (!stockLevels.containsKey(productId)) {
+            throw new ProductNotFoundException("Product not found: " + productId);
+        }
+        if (quantity > availableStock(stockLevels, productId)) {
+            throw new InsufficientStockException("Insufficient stock for product: " + productId);
+        }
+    }
+
+    /**
+     * Guest carts carry no prices - lines are priced from the catalog on every read
+     */
+    private CartResponse convertToGuestCartResponse(GuestCartStore.GuestCart guestCart) {
+        Map<Long, Product> products = loadProducts(new ArrayList<>(guestCart.lines().keySet()));
+        List<CartCache.Line> lines = new ArrayList<>(guestCart.lines().size());
+        long totalMinor = 0;
+        for (Map.Entry<Long, Integer> line : guestCart.lines().entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                continue;
+            }
+            BigDecimal unitPrice = product.getPrice();
+            lines.add(new CartCache.Line(null, line.getKey(), line.getValue(), unitPrice));
+            totalMinor = Math.addExact(totalMinor, Money.times(Money.toMinor(unitPrice), line.getValue()));
+        }
+
+        CartCache.CartView view = new CartCache.CartView(null, null, List.copyOf(lines), Money.toBigDecimal(totalMinor),
+                toLocalDateTime(guestCart.createdMillis()), toLocalDateTime(guestCart.updatedMillis()));
+        CartResponse response = convertToCartResponse(view);
+        response.setGuestToken(guestCart.token());
+        return response;
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Products by ID - catalog snapshot first, the rest in one IN query (deleted products
+     * are left out)
+     */
+    private Map<Long, Product> loadProducts(List<Long> productIds) {
+        Map<Long, Product> products = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        for (Long productId : productIds) {
+            Product product = snapshot != null ? snapshot.getProduct(productId) : null;
+            if (product != null) {
+                products.put(productId, product);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Product product : productRepository.findAllById(missing)) {
+                products.put(product.getProductId(), product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * JDBC batch insert of new lines - returns cart item IDs by product
+     */
+    private Map<Long, Long> insertCartItems(Long cartId, List<Long> productIds, Map<Long, BatchLine> lines,
+                                            Map<Long, Product> products, Timestamp now) {
+        jdbcTemplate.batchUpdate(INSERT_CART_ITEM_SQL, productIds, productIds.size(), (ps, productId) -> {
+            BatchLine line = lines.get(productId);
+            Product product = products.get(productId);
+            ps.setLong(1, cartId);
+            ps.setLong(2, productId);
+            ps.setInt(3, line.quantity);
+            ps.setBigDecimal(4, line.unitPrice);
+            ps.setBigDecimal(5, line.subtotal());
+            ps.setString(6, product.getName());
+            ps.setString(7, product.getSku());
+            ps.setString(8, product.getImageUrl());
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+
+        List<Object> args = new ArrayList<>(productIds.size() + 1);
+        args.add(cartId);
+        args.addAll(productIds);
+        Map<Long, Long> cartItemIds = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, cart_item_id FROM cart_items WHERE cart_id = ? AND product_id IN ("
+                        + String.join(",", Collections.nCopies(productIds.size(), "?")) + ")",
+                rs -> {
+                    cartItemIds.put(rs.getLong(1), rs.getLong(2));
+                }, args.toArray());
+        return cartItemIds;
+    }
+
     private void updateCartTotals(Cart cart) {
-        BigDecimal totalAmount = cart.getItems().stream()
-                .map(cartItem -> cartItem.getUnitPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long totalMinor = 0;
+        for (CartItem cartItem : cart.getItems()) {
+            totalMinor = Math.addExact(totalMinor,
+                    Money.times(Money.toMinor(cartItem.getUnitPrice()), cartItem.getQuantity()));
+        }
 
-        cart.setTotalAmount(totalAmount);
+        cart.setTotalAmount(Money.toBigDecimal(totalMinor));
         cart.setItemCount(cart.getItems().size());
         cart.setUpdatedDate(LocalDateTime.now());
     }
 
-    private CartResponse convertToCartResponse(Cart cart) {
-        List<CartItemResponse> cartItemResponses = cart.getItems().stream()
-                .map(this::convertToCartItemResponse)
+    /**
+     * Cart aggregate - the newest cart of the customer with its items in one query.
+     * Item products stay lazy proxies (their IDs are known); names and SKUs come
+     * from the catalog snapshot.
+     */
+    private Optional<Cart> loadCart(Long customerId) {
+        List<Cart> carts = cartRepository.findWithItemsByCustomerId(customerId);
+        return carts.isEmpty() ? Optional.empty() : Optional.of(carts.get(0));
+    }
+
+    private Cart loadOrCreateCart(Long customerId) {
+        return loadCart(customerId).orElseGet(() -> createNewCart(customerRepository.findById(customerId)
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with customerEmailDTOId: " + customerId))));
+    }
+
+    /**
+     * Write-through after a mutation - the cart must be flushed first, so the view carries
+     * the updated_date @PreUpdate stored and freshCachedView keeps serving it
+     */
+    private CartResponse cacheAndConvert(Cart cart) {
+        CartCache.CartView view = toView(cart);
+        cartCache.putAfterCommit(view);
+        return convertToCartResponse(view);
+    }
+
+    private CartCache.CartView toView(Cart cart) {
+        List<CartCache.Line> lines = new ArrayList<>(cart.getItems().size());
+        for (CartItem cartItem : cart.getItems()) {
+            lines.add(new CartCache.Line(cartItem.getCartItemId(), cartItem.getProduct().getProductId(),
+                    cartItem.getQuantity(), cartItem.getUnitPrice()));
+        }
+        return new CartCache.CartView(cart.getCartId(), cart.getCustomer().getCustomerId(), List.copyOf(lines),
+                cart.getTotalAmount(), cart.getCreatedDate(), cart.getUpdatedDate());
+    }
+
+    private Product productOf(CartItem cartItem) {
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        Product cached = snapshot != null ? snapshot.getProduct(cartItem.getProduct().getProductId()) : null;
+        return cached != null ? cached : cartItem.getProduct();
+    }
+
+    private CartResponse convertToCartResponse(CartCache.CartView view) {
+        List<Long> productIds = view.lines().stream()
+                .map(CartCache.Line::productId)
+                .collect(Collectors.toList());
+        Map<Long, StockAvailabilityCache.StockLevel> stockLevels = stockAvailabilityCache.getLevels(productIds);
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+
+        List<CartItemResponse> cartItemResponses = view.lines().stream()
+                .map(line -> convertToCartItemResponse(line, snapshot, stockLevels))
                 .collect(Collectors.toList());
 
         return CartResponse.builder()
-                .cartId(cart.getCartId())
-                .customerId(cart.getCustomer().getCustomerId())
+                .cartId(view.cartId())
+                .customerId(view.customerId())
                 .items(cartItemResponses)
-                .totalAmount(cart.getTotalAmount())
-                .itemCount(cart.getItems().size())
-                .totalQuantity(cart.getItems().stream().mapToInt(CartItem::getQuantity).sum())
-                .createdDate(cart.getCreatedDate())
-                .updatedDate(cart.getUpdatedDate())
+                .totalAmount(view.totalAmount())
+                .itemCount(view.lines().size())
+                .totalQuantity(view.totalQuantity())
+                .createdDate(view.createdDate())
+                .updatedDate(view.updatedDate())
                 .build();
     }
 
-    private CartItemResponse convertToCartItemResponse(CartItem cartItem) {
-        Product product = cartItem.getProduct();
+    private Map<Long, StockAvailabilityCache.StockLevel> loadStockLevels(Cart cart) {
+        List<Long> productIds = cart.getItems().stream()
+                .map(cartItem -> cartItem.getProduct().getProductId())
+                .collect(Collectors.toList());
+        return stockAvailabilityCache.getLevels(productIds);
+    }
+
+    private int availableStock(Map<Long, StockAvailabilityCache.StockLevel> stockLevels, Long productId) {
+        StockAvailabilityCache.StockLevel stockLevel = stockLevels.get(productId);
+        return stockLevel != null ? stockLevel.available() : 0;
+    }
+
+    private CartItemResponse convertToCartItemResponse(CartCache.Line line, CatalogSnapshot snapshot,
+                                                       Map<Long, StockAvailabilityCache.StockLevel> stockLevels) {
+        // Inactive products are not in the snapshot - rare, load the row
+        Product product = snapshot != null ? snapshot.getProduct(line.productId()) : null;
+        if (product == null) {
+            product = productRepository.findById(line.productId())
+                    .orElseThrow(() -> new ProductNotFoundException("Product not found: " + line.productId()));
+        }
+        int available = availableStock(stockLevels, line.productId());
         return CartItemResponse.builder()
-                .cartItemId(cartItem.getCartItemId())
-                .productId(product.getProductId())
+                .cartItemId(line.cartItemId())
+                .productId(line.productId())
                 .productName(product.getName())
                 .productSku(product.getSku())
                 .imageUrl(product.getImageUrl())
-                .quantity(cartItem.getQuantity())
-                .unitPrice(cartItem.getUnitPrice())
-                .totalPrice(cartItem.getUnitPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())))
-                .stockAvailable(product.getStockQuantity())
-                .inStock(product.getStockQuantity() > 0)
+                .quantity(line.quantity())
+                .unitPrice(line.unitPrice())
+                .totalPrice(Money.toBigDecimal(Money.times(Money.toMinor(line.unitPrice()), line.quantity())))
+                .stockAvailable(available)
+                .inStock(available > 0)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Mutable working copy of a cart line during applyBatch
+     */
+    private static final class BatchLine {
+        final CartItem cartItem;
+        int quantity;
+        BigDecimal unitPrice;
+
+        BatchLine(CartItem cartItem, int quantity) {
+            this.cartItem = cartItem;
+            this.quantity = quantity;
+            this.unitPrice = cartItem != null ? cartItem.getUnitPrice() : null;
+        }
+
+        BigDecimal subtotal() {
+            return Money.toBigDecimal(Money.times(Money.toMinor(unitPrice), quantity));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Product;
+
+import java.util.Collection;
+
+/**
+ * Catalog Listener - Version 1.0
+ * Implemented by in-memory structures that are derived from the catalog
+ * (search index, typeahead, facets...). CatalogReadModel does the single
+ * database lookup per change and pushes the result to every listener, so
+ * listeners never query MySQL themselves.
+ *
+ * Calls are made under the CatalogReadModel write lock, in commit order.
+ */
+public interface CatalogListener {
+
+    /**
+     * Full (re)load - replace everything with these active products.
+     */
+    void onCatalogLoaded(Collection<Product> activeProducts);
+
+    /**
+     * Product created or updated (always active).
+     */
+    void onProductUpdated(Product product);
+
+    /**
+     * Product deactivated or deleted.
+     */
+    void onProductRemoved(Long productId);
+}
@@ -0,0 +1,257 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Product;
+import com.perfect8.shop.event.ProductChangedEvent;
+import com.perfect8.shop.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Catalog Read Model - Version 1.0
+ * Keeps an immutable CatalogSnapshot of all active products in memory so
+ * storefront listings (ProductService.findProducts/findByCategory/findFeaturedProducts)
+ * are answered without touching MySQL.
+ *
+ * Lifecycle:
+ * - Full load once the application is ready, then a periodic full reload
+ *   as a safety net for writes that bypass ProductService (SQL scripts etc.)
+ * - Incremental refresh after each committed write (ProductChangedEvent, AFTER_COMMIT).
+ *   Changed product IDs are queued and applied in batches: one thread at a time drains
+ *   the queue, loads the batch in one query and swaps in one new snapshot, so a burst
+ *   of stock writes costs one column copy instead of one per write.
+ *
+ * Every change is also pushed to the registered CatalogListener beans
+ * (search index etc.) so derived structures share the same single lookup.
+ * The CatalogVersion (ETags) is bumped after each swap, once readers see the change.
+ *
+ * If the snapshot is not loaded (startup, DB error) getSnapshot() returns null
+ * and callers fall back to the repository queries.
+ *
+ * FIXED (2026-10-17): Armed flash-sale units are set on the loaded products with one
+ * extra query per load (Product.flashSaleQuantity is not a column) - snapshot in-stock
+ * bits and facets count them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogReadModel {
+
+    private final ProductRepository productRepository;
+    private final ObjectProvider<CatalogListener> catalogListeners;
+    private final CatalogVersion catalogVersion;
+
+    @Value("${catalog.read-model.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.read-model.refresh-batch-size:500}")
+    private int refreshBatchSize;
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    private volatile CatalogSnapshot snapshot;
+
+    // Product IDs changed while a full load was running - re-applied afterwards
+    private final Set<Long> changedDuringLoad = new LinkedHashSet<>();
+    private boolean loading = false;
+
+    // Committed changes waiting for the next batched refresh
+    private final Set<Long> pendingRefresh = new LinkedHashSet<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Current snapshot, or null if the read model is disabled or not loaded yet.
+     */
+    public CatalogSnapshot getSnapshot() {
+        return enabled ? snapshot : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.read-model.full-reload-ms:900000}",
+            initialDelayString = "${catalog.read-model.full-reload-ms:900000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * Full reload - one query for all active products (category fetched).
+     */
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (loading) {
+                return;
+            }
+            loading = true;
+            changedDuringLoad.clear();
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            List<Product> activeProducts = productRepository.findAllActiveForCatalog();
+            applyFlashSaleUnits(activeProducts, productRepository.findAllArmedFlashSaleUnits());
+            CatalogSnapshot loaded = CatalogSnapshot.build(versionSequence.incrementAndGet(), activeProducts);
+
+            Set<Long> pending;
+            synchronized (this) {
+                snapshot = loaded;
+                notifyListeners(listener -> listener.onCatalogLoaded(activeProducts));
+                catalogVersion.bump();
+                pending = new LinkedHashSet<>(changedDuringLoad);
+                changedDuringLoad.clear();
+                loading = false;
+            }
+            log.info("Catalog read model loaded: {} products, version {} ({} ms)",
+                    loaded.size(), loaded.getVersion(), System.currentTimeMillis() - start);
+
+            if (!pending.isEmpty()) {
+                synchronized (pendingRefresh) {
+                    pendingRefresh.addAll(pending);
+                }
+                drainPendingRefresh();
+            }
+        } catch (Exception e) {
+            synchronized (this) {
+                loading = false;
+            }
+            log.error("Failed to load catalog read model, falling back to database queries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Apply a committed product change to the snapshot.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled || event.getProductId() == null) {
+            // Nothing to patch (reads go to MySQL, or the change came with a full reload)
+            catalogVersion.bump();
+            return;
+        }
+        synchronized (this) {
+            if (loading) {
+                changedDuringLoad.add(event.getProductId());
+                return;
+            }
+        }
+        synchronized (pendingRefresh) {
+            pendingRefresh.add(event.getProductId());
+        }
+        drainPendingRefresh();
+    }
+
+    /**
+     * Apply queued changes until the queue is empty. If another thread is already
+     * draining, return - it picks up our IDs (the re-check after releasing the flag
+     * closes the gap between its last poll and the release).
+     */
+    private void drainPendingRefresh() {
+        while (refreshing.compareAndSet(false, true)) {
+            try {
+                List<Long> batch;
+                while (!(batch = pollPendingRefresh()).isEmpty()) {
+                    refreshProducts(batch);
+                }
+            } finally {
+                refreshing.set(false);
+            }
+            synchronized (pendingRefresh) {
+                if (pendingRefresh.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<Long> pollPendingRefresh() {
+        synchronized (pendingRefresh) {
+            List<Long> batch = new ArrayList<>(Math.min(pendingRefresh.size(), refreshBatchSize));
+            Iterator<Long> iterator = pendingRefresh.iterator();
+            while (iterator.hasNext() && batch.size() < refreshBatchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        }
+    }
+
+    // rows: [productId, remaining]
+    private static void applyFlashSaleUnits(List<Product> products, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> unitsById = new HashMap<>();
+        for (Object[] row : rows) {
+            unitsById.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        for (Product product : products) {
+            product.setFlashSaleQuantity(unitsById.getOrDefault(product.getProductId(), 0));
+        }
+    }
+
+    private void refreshProducts(List<Long> productIds) {
+        try {
+            List<Product> loaded = productRepository.findAllByIdWithCategory(productIds);
+            applyFlashSaleUnits(loaded, productRepository.findArmedFlashSaleUnits(productIds));
+            Set<Long> removed = new LinkedHashSet<>(productIds);
+            List<Product> active = new ArrayList<>(loaded.size());
+            for (Product product : loaded) {
+                if (product.isActive()) {
+                    active.add(product);
+                    removed.remove(product.getProductId());
+                }
+            }
+            synchronized (this) {
+                CatalogSnapshot current = snapshot;
+                if (current != null) {
+                    snapshot = current.withChanges(versionSequence.incrementAndGet(), active, removed);
+                    active.forEach(product -> notifyListeners(listener -> listener.onProductUpdated(product)));
+                    removed.forEach(productId -> notifyListeners(listener -> listener.onProductRemoved(productId)));
+                }
+                catalogVersion.bump();
+            }
+            log.debug("Catalog read model refreshed {} products", productIds.size());
+        } catch (Exception e) {
+            // Never serve a snapshot we know is stale - drop it until the next full reload
+            log.error("Failed to refresh products {} in catalog read model: {}", productIds, e.getMessage());
+            synchronized (this) {
+                snapshot = null;
+                catalogVersion.bump();
+            }
+        }
+    }
+
+    private void notifyListeners(Consumer<CatalogListener> action) {
+        catalogListeners.orderedStream().forEach(listener -> {
+            try {
+                action.accept(listener);
+            } catch (Exception e) {
+                log.error("Catalog listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,422 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Product;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Catalog Snapshot - Version 1.0
+ * Immutable, versioned in-memory view of all active products.
+ *
+ * Every product gets a "slot". Filter columns are stored as primitive arrays
+ * (categoryIds, priceCents) and bitsets (live, featured, inStock), and each
+ * supported sort order is a precomputed permutation of slots. A query is a
+ * single pass over one permutation - no database round trips.
+ *
+ * Writers never modify a snapshot; withChanges() returns a copy with a batch of
+ * changes applied so readers can keep using the old instance.
+ */
+public final class CatalogSnapshot {
+
+    /** Sort properties that can be served from memory - anything else falls back to MySQL */
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("name", "price", "createdDate", "productId");
+
+    private static final long NO_CATEGORY = 0L;
+
+    @Getter
+    private final long version;
+
+    private final Product[] products;
+    private final long[] productIds;
+    private final long[] categoryIds;
+    private final long[] priceCents;
+    private final long[] createdEpochSeconds;
+    private final BitSet live;
+    private final BitSet featured;
+    private final BitSet inStock;
+    private final Map<Long, Integer> slotByProductId;
+
+    private final int[] byName;
+    private final int[] byPrice;
+    private final int[] byCreatedDate;
+    private final int[] byProductId;
+
+    private CatalogSnapshot(long version, Product[] products, long[] productIds, long[] categoryIds,
+                            long[] priceCents, long[] createdEpochSeconds, BitSet live, BitSet featured,
+                            BitSet inStock, Map<Long, Integer> slotByProductId,
+                            int[] byName, int[] byPrice, int[] byCreatedDate, int[] byProductId) {
+        this.version = version;
+        this.products = products;
+        this.productIds = productIds;
+        this.categoryIds = categoryIds;
+        this.priceCents = priceCents;
+        this.createdEpochSeconds = createdEpochSeconds;
+        this.live = live;
+        this.featured = featured;
+        this.inStock = inStock;
+        this.slotByProductId = slotByProductId;
+        this.byName = byName;
+        this.byPrice = byPrice;
+        this.byCreatedDate = byCreatedDate;
+        this.byProductId = byProductId;
+    }
+
+    // ========== Building ==========
+
+    /**
+     * Build a snapshot from a full load of active products (category fetched).
+     */
+    public static CatalogSnapshot build(long version, Collection<Product> activeProducts) {
+        int size = activeProducts.size();
+        Product[] products = new Product[size];
+        long[] productIds = new long[size];
+        long[] categoryIds = new long[size];
+        long[] priceCents = new long[size];
+        long[] createdEpochSeconds = new long[size];
+        BitSet live = new BitSet(size);
+        BitSet featured = new BitSet(size);
+        BitSet inStock = new BitSet(size);
+        Map<Long, Integer> slotByProductId = new HashMap<>(size * 2);
+
+        int slot = 0;
+        for (Product product : activeProducts) {
+            writeSlot(slot, product, products, productIds, categoryIds, priceCents, createdEpochSeconds,
+                    live, featured, inStock);
+            slotByProductId.put(product.getProductId(), slot);
+            slot++;
+        }
+
+        CatalogSnapshot unsorted = new CatalogSnapshot(version, products, productIds, categoryIds, priceCents,
+                createdEpochSeconds, live, featured, inStock, slotByProductId,
+                null, null, null, null);
+
+        return new CatalogSnapshot(version, products, productIds, categoryIds, priceCents,
+                createdEpochSeconds, live, featured, inStock, slotByProductId,
+                unsorted.sortedSlots("name"), unsorted.sortedSlots("price"),
+                unsorted.sortedSlots("createdDate"), unsorted.sortedSlots("productId"));
+    }
+
+    /**
+     * Empty snapshot - used when the catalog has no active products yet.
+     */
+    public static CatalogSnapshot empty(long version) {
+        return build(version, List.of());
+    }
+
+    /**
+     * Return a copy with a batch of changes applied - products inserted or replaced,
+     * and products removed. Inactive products in {@code updated} are removed too, since
+     * the catalog only holds active ones.
+     *
+     * The columns are copied once per batch, not once per product, and a sort
+     * permutation is only rebuilt when a changed product moved in it (a stock-only
+     * change keeps all four). Removed slots are kept (cleared from "live") so other
+     * slot numbers stay stable.
+     */
+    public CatalogSnapshot withChanges(long newVersion, Collection<Product> updated, Collection<Long> removed) {
+        Map<Long, Integer> newSlots = slotByProductId;
+        int capacity = products.length;
+        for (Product product : updated) {
+            if (product.isActive() && !newSlots.containsKey(product.getProductId())) {
+                if (newSlots == slotByProductId) {
+                    newSlots = new HashMap<>(slotByProductId);
+                }
+                newSlots.put(product.getProductId(), capacity++);
+            }
+        }
+
+        Product[] newProducts = Arrays.copyOf(products, capacity);
+        long[] newProductIds = Arrays.copyOf(productIds, capacity);
+        long[] newCategoryIds = Arrays.copyOf(categoryIds, capacity);
+        long[] newPriceCents = Arrays.copyOf(priceCents, capacity);
+        long[] newCreated = Arrays.copyOf(createdEpochSeconds, capacity);
+        BitSet newLive = (BitSet) live.clone();
+        BitSet newFeatured = (BitSet) featured.clone();
+        BitSet newInStock = (BitSet) inStock.clone();
+
+        BitSet changed = new BitSet(capacity);
+        for (Product product : updated) {
+            if (!product.isActive()) {
+                clearSlot(newSlots.get(product.getProductId()), newProducts, newLive, newFeatured, newInStock, changed);
+                continue;
+            }
+            int slot = newSlots.get(product.getProductId());
+            writeSlot(slot, product, newProducts, newProductIds, newCategoryIds, newPriceCents, newCreated,
+                    newLive, newFeatured, newInStock);
+            changed.set(slot);
+        }
+        for (Long productId : removed) {
+            clearSlot(newSlots.get(productId), newProducts, newLive, newFeatured, newInStock, changed);
+        }
+
+        CatalogSnapshot columns = new CatalogSnapshot(newVersion, newProducts, newProductIds, newCategoryIds,
+                newPriceCents, newCreated, newLive, newFeatured, newInStock, newSlots,
+                null, null, null, null);
+
+        return new CatalogSnapshot(newVersion, newProducts, newProductIds, newCategoryIds, newPriceCents,
+                newCreated, newLive, newFeatured, newInStock, newSlots,
+                columns.reposition(byName, changed, this, "name"),
+                columns.reposition(byPrice, changed, this, "price"),
+                columns.reposition(byCreatedDate, changed, this, "createdDate"),
+                columns.reposition(byProductId, changed, this, "productId"));
+    }
+
+    // ========== Queries ==========
+
+    /**
+     * Check if the requested sort can be served from memory (single property, known column).
+     */
+    public static boolean supportsSort(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && SORTABLE_PROPERTIES.contains(orders.get(0).getProperty());
+    }
+
+    /**
+     * Run a filtered, sorted, paged query against the snapshot.
+     */
+    public Page<Product> find(Filter filter, Pageable pageable) {
+        BitSet candidates = candidates(filter);
+        long minCents = filter.getMinPrice() != null
+                ? toCents(filter.getMinPrice(), RoundingMode.CEILING) : Long.MIN_VALUE;
+        long maxCents = filter.getMaxPrice() != null
+                ? toCents(filter.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+        Long categoryId = filter.getCategoryId();
+        Set<Long> categoryIds = filter.getCategoryIds();
+
+        Sort.Order order = pageable.getSort().isSorted() ? pageable.getSort().toList().get(0) : null;
+        int[] permutation = permutationFor(order != null ? order.getProperty() : "productId");
+        boolean descending = order != null && order.isDescending();
+
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<Product> content = new ArrayList<>(Math.min(limit, 64));
+        long matched = 0;
+
+        for (int i = 0; i < permutation.length; i++) {
+            int slot = permutation[descending ? permutation.length - 1 - i : i];
+            if (!candidates.get(slot)) {
+                continue;
+            }
+            if (categoryId != null && this.categoryIds[slot] != categoryId) {
+                continue;
+            }
+            if (categoryIds != null && !categoryIds.contains(this.categoryIds[slot])) {
+                continue;
+            }
+            long cents = priceCents[slot];
+            if (cents < minCents || cents > maxCents) {
+                continue;
+            }
+            if (matched >= offset && content.size() < limit) {
+                content.add(products[slot]);
+            }
+            matched++;
+        }
+
+        return new PageImpl<>(content, pageable, matched);
+    }
+
+    /**
+     * Number of live products in the snapshot.
+     */
+    public int size() {
+        return live.cardinality();
+    }
+
+    /**
+     * Look up a single product by ID (null if not active in the catalog).
+     */
+    public Product getProduct(Long productId) {
+        Integer slot = slotByProductId.get(productId);
+        return slot != null && live.get(slot) ? products[slot] : null;
+    }
+
+    // ========== Helpers ==========
+
+    private BitSet candidates(Filter filter) {
+        BitSet candidates = (BitSet) live.clone();
+        if (filter.getFeatured() != null) {
+            if (filter.getFeatured()) {
+                candidates.and(featured);
+            } else {
+                candidates.andNot(featured);
+            }
+        }
+        if (filter.getInStock() != null) {
+            if (filter.getInStock()) {
+                candidates.and(inStock);
+            } else {
+                candidates.andNot(inStock);
+            }
+        }
+        return candidates;
+    }
+
+    private int[] permutationFor(String property) {
+        switch (property) {
+            case "name":
+                return byName;
+            case "price":
+                return byPrice;
+            case "createdDate":
+                return byCreatedDate;
+            default:
+                return byProductId;
+        }
+    }
+
+    private int compareSlots(String property, int left, int right) {
+        int result;
+        switch (property) {
+            case "name":
+                result = String.CASE_INSENSITIVE_ORDER.compare(nameOf(left), nameOf(right));
+                break;
+            case "price":
+                result = Long.compare(priceCents[left], priceCents[right]);
+                break;
+            case "createdDate":
+                result = Long.compare(createdEpochSeconds[left], createdEpochSeconds[right]);
+                break;
+            default:
+                result = 0;
+                break;
+        }
+        return result != 0 ? result : Long.compare(productIds[left], productIds[right]);
+    }
+
+    private String nameOf(int slot) {
+        Product product = products[slot];
+        return product != null && product.getName() != null ? product.getName() : "";
+    }
+
+    private int[] sortedSlots(String property) {
+        return IntStream.range(0, products.length)
+                .filter(live::get)
+                .boxed()
+                .sorted((left, right) -> compareSlots(property, left, right))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Re-sort the changed slots of a permutation taken from {@code previous}: slots whose
+     * sort key and liveness are unchanged stay where they are, the rest are removed and
+     * merged back in at their sorted position. Returns the same array when nothing moved.
+     */
+    private int[] reposition(int[] permutation, BitSet changed, CatalogSnapshot previous, String property) {
+        BitSet moved = new BitSet();
+        for (int slot = changed.nextSetBit(0); slot >= 0; slot = changed.nextSetBit(slot + 1)) {
+            boolean wasLive = slot < previous.products.length && previous.live.get(slot);
+            if (wasLive != live.get(slot) || (wasLive && !sameSortKey(previous, slot, property))) {
+                moved.set(slot);
+            }
+        }
+        if (moved.isEmpty()) {
+            return permutation;
+        }
+
+        int[] inserted = moved.stream()
+                .filter(live::get)
+                .boxed()
+                .sorted((left, right) -> compareSlots(property, left, right))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        int[] result = new int[permutation.length + inserted.length];
+        int target = 0;
+        int next = 0;
+        for (int slot : permutation) {
+            if (moved.get(slot)) {
+                continue;
+            }
+            while (next < inserted.length && compareSlots(property, inserted[next], slot) < 0) {
+                result[target++] = inserted[next++];
+            }
+            result[target++] = slot;
+        }
+        while (next < inserted.length) {
+            result[target++] = inserted[next++];
+        }
+        return target == result.length ? result : Arrays.copyOf(result, target);
+    }
+
+    private boolean sameSortKey(CatalogSnapshot previous, int slot, String property) {
+        switch (property) {
+            case "name":
+                return nameOf(slot).equals(previous.nameOf(slot));
+            case "price":
+                return priceCents[slot] == previous.priceCents[slot];
+            case "createdDate":
+                return createdEpochSeconds[slot] == previous.createdEpochSeconds[slot];
+            default:
+                return true;
+        }
+    }
+
+    private static void clearSlot(Integer slot, Product[] products, BitSet live, BitSet featured,
+                                  BitSet inStock, BitSet changed) {
+        if (slot == null || !live.get(slot)) {
+            return;
+        }
+        products[slot] = null;
+        live.clear(slot);
+        featured.clear(slot);
+        inStock.clear(slot);
+        changed.set(slot);
+    }
+
+    private static void writeSlot(int slot, Product product, Product[] products, long[] productIds,
+                                  long[] categoryIds, long[] priceCents, long[] createdEpochSeconds,
+                                  BitSet live, BitSet featured, BitSet inStock) {
+        products[slot] = product;
+        productIds[slot] = product.getProductId();
+        categoryIds[slot] = product.getCategory() != null && product.getCategory().getCategoryId() != null
+                ? product.getCategory().getCategoryId() : NO_CATEGORY;
+        priceCents[slot] = product.getPrice() != null ? toCents(product.getPrice(), RoundingMode.HALF_UP) : 0L;
+        createdEpochSeconds[slot] = product.getCreatedDate() != null
+                ? product.getCreatedDate().toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+        live.set(slot);
+        featured.set(slot, product.isFeatured());
+        inStock.set(slot, product.isInStock());
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.setScale(2, roundingMode).unscaledValue().longValue();
+    }
+
+    /**
+     * Filter criteria - same semantics as ProductRepository.findProductsWithFilters
+     * (null = no restriction).
+     */
+    @Getter
+    @Builder
+    public static class Filter {
+        private final Long categoryId;
+        /** Any of these categories (e.g. a category subtree from CategoryTree) */
+        private final Set<Long> categoryIds;
+        private final BigDecimal minPrice;
+        private final BigDecimal maxPrice;
+        private final Boolean featured;
+        private final Boolean inStock;
+    }
+}
@@ -0,0 +1,41 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.common.cache.ContentVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Catalog Version - Version 1.0
+ * Monotonic version of everything the public product and category endpoints return.
+ *
+ * FIXED (2026-10-17): Bumped by the read models themselves, right after they swap in
+ * the changed data (CatalogReadModel for products, CategoryReadModel for categories) -
+ * never before, so a new ETag is never handed out together with a stale response.
+ * When a read model is disabled or unloaded the bump follows the commit directly,
+ * since reads then go to MySQL.
+ *
+ * CatalogETagInterceptor derives the ETags from it and answers If-None-Match with 304.
+ */
+@Slf4j
+@Service
+public class CatalogVersion {
+
+    private final ContentVersion version = new ContentVersion("catalog");
+
+    /**
+     * Invalidate all catalog ETags - call once the new data is visible to readers.
+     */
+    public long bump() {
+        long current = version.bump();
+        log.debug("Catalog version {}", current);
+        return current;
+    }
+
+    public long current() {
+        return version.current();
+    }
+
+    public String etagFor(String requestKey) {
+        return version.etagFor(requestKey);
+    }
+}
@@ -0,0 +1,76 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Category;
+import com.perfect8.shop.event.CategoryChangedEvent;
+import com.perfect8.shop.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Category Read Model - Version 1.0
+ * Holds the current immutable CategoryTree.
+ *
+ * - Loaded with ONE query (all categories, parent fetched) when the application is ready
+ * - Rebuilt after each committed category write (CategoryChangedEvent, AFTER_COMMIT)
+ *   and swapped in atomically - readers see either the old or the new tree, never a mix.
+ *   The CatalogVersion (ETags) is bumped after the swap.
+ * - Category trees are small, so a full rebuild is simpler and safer than patching
+ *   (a move changes depth, paths and intervals of the whole subtree)
+ *
+ * If loading fails getTree() returns null and CategoryService falls back to the repository.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryReadModel {
+
+    private final CategoryRepository categoryRepository;
+    private final CatalogVersion catalogVersion;
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    private volatile CategoryTree tree;
+
+    /**
+     * Current tree, or null if not loaded.
+     */
+    public CategoryTree getTree() {
+        return tree;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        log.debug("Category {} changed - rebuilding category tree", event.getCategoryId());
+        reload();
+    }
+
+    /**
+     * Rebuild from a single query and swap in atomically.
+     */
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        try {
+            List<Category> categories = categoryRepository.findAllWithParent();
+            tree = CategoryTree.build(versionSequence.incrementAndGet(), categories);
+            log.info("Category tree loaded: {} categories, version {} ({} ms)",
+                    tree.size(), tree.getVersion(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to load category tree, falling back to database queries: {}", e.getMessage());
+            tree = null;
+        }
+        catalogVersion.bump();
+    }
+}
@@ -3,13 +3,16 @@ package com.perfect8.shop.service;
 import com.perfect8.shop.entity.Category;
 import com.perfect8.shop.entity.Product;
 import com.perfect8.shop.dto.CategoryDTO;
+import com.perfect8.shop.event.CategoryChangedEvent;
 import com.perfect8.shop.repository.CategoryRepository;
 import com.perfect8.shop.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -17,6 +20,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Category Service - Version 1.0
@@ -26,6 +30,12 @@ import java.util.Map;
  * - Readable variable names (categoryId not customerEmailDTOId)
  * - NO backward compatibility - built right from start
  * - Use createdDate/updatedDate (consistent with Customer entity)
+ *
+ * ADDED (2026-10-16):
+ * - Tree, subcategories, breadcrumb, dropdown and subtree products are served from the
+ *   in-memory CategoryTree (CategoryReadModel) - one query per rebuild instead of N+1
+ * - Every write publishes CategoryChangedEvent so the tree is rebuilt after commit
+ * - moveCategory rejects moves that would create a cycle
  */
 @Slf4j
 @Service
@@ -35,6 +45,9 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final CategoryReadModel categoryReadModel;
+    private final CatalogReadModel catalogReadModel;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
@@ -54,18 +67,37 @@ public class CategoryService {
                 .orElseThrow(() -> new RuntimeException("Category not found with slug: " + slug));
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Category> getParentCategories() {
+        CategoryTree tree = categoryReadModel.getTree();
+        if (tree != null) {
+            return tree.getRoots();
+        }
         return categoryRepository.findByParentIsNull();
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Category> getSubcategoriesByParentId(Long parentId) {
+        CategoryTree tree = categoryReadModel.getTree();
+        if (tree != null) {
+            return tree.getChildren(parentId);
+        }
         return categoryRepository.findByParentId(parentId);
     }
 
+    /**
+     * Root categories with all levels of subcategories attached.
+     * FIXED (2026-10-16): Served from the in-memory tree instead of one query per parent (N+1)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Category> getCategoryTree() {
-        List<Category> parentCategories = getParentCategories();
+        CategoryTree tree = categoryReadModel.getTree();
+        if (tree != null) {
+            return tree.getRoots();
+        }
+        List<Category> parentCategories = categoryRepository.findByParentIsNull();
         for (Category parentCategory : parentCategories) {
-            parentCategory.setSubcategories(getSubcategoriesByParentId(parentCategory.getCategoryId()));
+            parentCategory.setSubcategories(categoryRepository.findByParentId(parentCategory.getCategoryId()));
         }
         return parentCategories;
     }
@@ -74,6 +106,26 @@ public class CategoryService {
         return productRepository.findByCategoryIdAndActiveTrue(categoryId, pageable);
     }
 
+    /**
+     * Active products in the category and (optionally) all its descendants.
+     * The subtree is a pre-order range in the CategoryTree; products come from the
+     * catalog snapshot when loaded, otherwise from a single IN query.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<Product> getProductsByCategory(Long categoryId, boolean includeSubcategories, Pageable pageable) {
+        CategoryTree tree = categoryReadModel.getTree();
+        if (!includeSubcategories || tree == null || !tree.contains(categoryId)) {
+            return getProductsByCategory(categoryId, pageable);
+        }
+
+        Set<Long> subtreeIds = tree.getSubtreeCategoryIds(categoryId);
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        if (snapshot != null && CatalogSnapshot.supportsSort(pageable.getSort())) {
+            return snapshot.find(CatalogSnapshot.Filter.builder().categoryIds(subtreeIds).build(), pageable);
+        }
+        return productRepository.findByCategoryIdInAndActiveTrue(subtreeIds, pageable);
+    }
+
     public Category createCategory(CategoryDTO categoryDTO) {
         Category category = Category.builder()
                 .name(categoryDTO.getName())
@@ -88,7 +140,9 @@ public class CategoryService {
             category.setParent(parentCategory);
         }
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getCategoryId()));
+        return savedCategory;
     }
 
     public Category updateCategory(Long categoryId, CategoryDTO categoryDTO) {
@@ -100,11 +154,14 @@ public class CategoryService {
         category.setUpdatedDate(LocalDateTime.now());
 
         if (categoryDTO.getParentId() != null) {
+            rejectCycle(categoryId, categoryDTO.getParentId());
             Category parentCategory = getCategoryByCategoryId(categoryDTO.getParentId());
             category.setParent(parentCategory);
         }
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return savedCategory;
     }
 
     public void deleteCategory(Long categoryId) {
@@ -112,20 +169,25 @@ public class CategoryService {
         category.setActive(false);
         category.setUpdatedDate(LocalDateTime.now());
         categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
     }
 
     public Category restoreCategory(Long categoryId) {
         Category category = getCategoryByCategoryId(categoryId);
         category.setActive(true);
         category.setUpdatedDate(LocalDateTime.now());
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return savedCategory;
     }
 
     public Category toggleCategoryStatus(Long categoryId) {
         Category category = getCategoryByCategoryId(categoryId);
         category.setActive(!category.getActive());
         category.setUpdatedDate(LocalDateTime.now());
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return savedCategory;
     }
 
     public void reorderCategories(List<Long> categoryIds) {
@@ -134,6 +196,7 @@ public class CategoryService {
             category.setSortOrder(i + 1);
             categoryRepository.save(category);
         }
+        eventPublisher.publishEvent(new CategoryChangedEvent(null));
     }
 
     public List<Category> searchCategories(String searchTerm) {
@@ -167,6 +230,7 @@ public class CategoryService {
         Category category = getCategoryByCategoryId(categoryId);
 
         if (newParentId != null) {
+            rejectCycle(categoryId, newParentId);
             Category newParentCategory = getCategoryByCategoryId(newParentId);
             category.setParent(newParentCategory);
         } else {
@@ -174,10 +238,23 @@ public class CategoryService {
         }
 
         category.setUpdatedDate(LocalDateTime.now());
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        // Depth, breadcrumbs and subtree ranges of the whole moved subtree change with the rebuild
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return savedCategory;
     }
 
+    /**
+     * Path from the root category down to the given category.
+     * FIXED (2026-10-16): Precomputed in the in-memory tree instead of one lazy load per level
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Category> getCategoryBreadcrumb(Long categoryId) {
+        CategoryTree tree = categoryReadModel.getTree();
+        if (tree != null && tree.contains(categoryId)) {
+            return tree.getBreadcrumb(categoryId);
+        }
+
         List<Category> breadcrumb = new ArrayList<>();
         Category category = getCategoryByCategoryId(categoryId);
 
@@ -196,8 +273,12 @@ public class CategoryService {
         return !categoryRepository.existsBySlug(slug);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<CategoryDropdownItem> getCategoriesForDropdown() {
-        List<Category> categories = categoryRepository.findByActiveTrueOrderByName();
+        CategoryTree tree = categoryReadModel.getTree();
+        List<Category> categories = tree != null
+                ? tree.getActiveCategoriesByName()
+                : categoryRepository.findByActiveTrueOrderByName();
         List<CategoryDropdownItem> dropdown = new ArrayList<>();
 
         for (Category category : categories) {
@@ -207,6 +288,31 @@ public class CategoryService {
         return dropdown;
     }
 
+    /**
+     * A category cannot be moved below itself or one of its own descendants.
+     */
+    private void rejectCycle(Long categoryId, Long newParentId) {
+        if (categoryId.equals(newParentId)) {
+            throw new IllegalArgumentException("A category cannot be its own parent");
+        }
+        CategoryTree tree = categoryReadModel.getTree();
+        if (tree != null && tree.contains(newParentId)) {
+            if (tree.isInSubtree(categoryId, newParentId)) {
+                throw new IllegalArgumentException("Cannot move category " + categoryId
+                        + " below its own descendant " + newParentId);
+            }
+            return;
+        }
+        Category ancestor = getCategoryByCategoryId(newParentId);
+        while (ancestor != null) {
+            if (categoryId.equals(ancestor.getCategoryId())) {
+                throw new IllegalArgumentException("Cannot move category " + categoryId
+                        + " below its own descendant " + newParentId);
+            }
+            ancestor = ancestor.getParent();
+        }
+    }
+
     // Helper classes
     public static class CategoryStatistics {
         public final long totalCategories;
@@ -0,0 +1,256 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Category;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Category Tree - Version 1.0
+ * Immutable in-memory category hierarchy built from a single query.
+ *
+ * Categories are numbered in pre-order (children by sortOrder, then name).
+ * For every node we keep:
+ * - depth and the full ancestor path (root first) - breadcrumbs without queries
+ * - post = last pre-order number inside its subtree, so
+ *   "x is in the subtree of a" is the range check pre(a) <= pre(x) <= post(a)
+ *   and a subtree is the contiguous slice preOrder[pre(a)..post(a)]
+ *
+ * The Category objects handed out are detached copies wired to each other
+ * (parent/subcategories) - they must never be modified or saved.
+ */
+public final class CategoryTree {
+
+    private static final Comparator<Category> SIBLING_ORDER = Comparator
+            .comparing((Category category) -> category.getSortOrder() != null ? category.getSortOrder() : 0)
+            .thenComparing(category -> category.getName() != null ? category.getName() : "", String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Category::getCategoryId);
+
+    @Getter
+    private final long version;
+
+    private final Category[] preOrder;
+    private final int[] post;
+    private final int[] depth;
+    private final List<List<Category>> ancestorPaths;
+    private final Map<Long, Integer> preById;
+    private final List<Category> roots;
+    private final List<Category> activeByName;
+
+    private CategoryTree(long version, Category[] preOrder, int[] post, int[] depth,
+                         List<List<Category>> ancestorPaths, Map<Long, Integer> preById,
+                         List<Category> roots, List<Category> activeByName) {
+        this.version = version;
+        this.preOrder = preOrder;
+        this.post = post;
+        this.depth = depth;
+        this.ancestorPaths = ancestorPaths;
+        this.preById = preById;
+        this.roots = roots;
+        this.activeByName = activeByName;
+    }
+
+    /**
+     * Build the tree from all categories (parent fetched).
+     * Categories whose parent is missing, or which sit in a parent cycle, are treated as roots.
+     */
+    public static CategoryTree build(long version, Collection<Category> categories) {
+        Map<Long, Category> copies = new HashMap<>(categories.size() * 2);
+        for (Category category : categories) {
+            copies.put(category.getCategoryId(), copyOf(category));
+        }
+
+        Map<Long, List<Category>> childrenById = new HashMap<>();
+        List<Category> rootCandidates = new ArrayList<>();
+        for (Category category : categories) {
+            Category copy = copies.get(category.getCategoryId());
+            Long parentId = category.getParent() != null ? category.getParent().getCategoryId() : null;
+            Category parentCopy = parentId != null ? copies.get(parentId) : null;
+            if (parentCopy == null || parentId.equals(category.getCategoryId())) {
+                rootCandidates.add(copy);
+            } else {
+                childrenById.computeIfAbsent(parentId, key -> new ArrayList<>()).add(copy);
+            }
+        }
+
+        int size = copies.size();
+        Category[] preOrder = new Category[size];
+        int[] post = new int[size];
+        int[] depth = new int[size];
+        List<List<Category>> ancestorPaths = new ArrayList<>(size);
+        Map<Long, Integer> preById = new HashMap<>(size * 2);
+
+        rootCandidates.sort(SIBLING_ORDER);
+        List<Category> roots = new ArrayList<>(rootCandidates);
+        int[] counter = {0};
+        for (Category root : rootCandidates) {
+            number(root, null, 0, List.of(), childrenById, preOrder, post, depth, ancestorPaths, preById, counter);
+        }
+
+        // Anything not reached sits in a parent cycle - detach it as an extra root
+        List<Category> unreached = new ArrayList<>();
+        for (Category copy : copies.values()) {
+            if (!preById.containsKey(copy.getCategoryId())) {
+                unreached.add(copy);
+            }
+        }
+        unreached.sort(SIBLING_ORDER);
+        for (Category orphan : unreached) {
+            if (!preById.containsKey(orphan.getCategoryId())) {
+                roots.add(orphan);
+                number(orphan, null, 0, List.of(), childrenById, preOrder, post, depth, ancestorPaths, preById, counter);
+            }
+        }
+
+        List<Category> activeByName = new ArrayList<>();
+        for (Category category : preOrder) {
+            if (Boolean.TRUE.equals(category.getActive())) {
+                activeByName.add(category);
+            }
+        }
+        activeByName.sort(Comparator.comparing(
+                (Category category) -> category.getName() != null ? category.getName() : "", String.CASE_INSENSITIVE_ORDER));
+
+        return new CategoryTree(version, preOrder, post, depth, ancestorPaths, preById,
+                Collections.unmodifiableList(roots), Collections.unmodifiableList(activeByName));
+    }
+
+    private static void number(Category node, Category parent, int level, List<Category> parentPath,
+                               Map<Long, List<Category>> childrenById, Category[] preOrder, int[] post,
+                               int[] depth, List<List<Category>> ancestorPaths, Map<Long, Integer> preById,
+                               int[] counter) {
+        int pre = counter[0]++;
+        preById.put(node.getCategoryId(), pre);
+        preOrder[pre] = node;
+        depth[pre] = level;
+        node.setParent(parent);
+
+        List<Category> path = new ArrayList<>(parentPath.size() + 1);
+        path.addAll(parentPath);
+        path.add(node);
+        List<Category> immutablePath = Collections.unmodifiableList(path);
+        ancestorPaths.add(immutablePath);
+
+        List<Category> children = childrenById.getOrDefault(node.getCategoryId(), List.of());
+        List<Category> reachable = new ArrayList<>(children.size());
+        for (Category child : children) {
+            if (!preById.containsKey(child.getCategoryId())) {
+                reachable.add(child);
+            }
+        }
+        reachable.sort(SIBLING_ORDER);
+        node.setSubcategories(Collections.unmodifiableList(reachable));
+        for (Category child : reachable) {
+            number(child, node, level + 1, immutablePath, childrenById, preOrder, post, depth,
+                    ancestorPaths, preById, counter);
+        }
+        post[pre] = counter[0] - 1;
+    }
+
+    private static Category copyOf(Category category) {
+        return Category.builder()
+                .categoryId(category.getCategoryId())
+                .name(category.getName())
+                .description(category.getDescription())
+                .slug(category.getSlug())
+                .imageUrl(category.getImageUrl())
+                .active(category.getActive())
+                .sortOrder(category.getSortOrder())
+                .metaTitle(category.getMetaTitle())
+                .metaDescription(category.getMetaDescription())
+                .metaKeywords(category.getMetaKeywords())
+                .createdDate(category.getCreatedDate())
+                .updatedDate(category.getUpdatedDate())
+                .products(List.of())
+                .build();
+    }
+
+    // ========== Queries ==========
+
+    public int size() {
+        return preOrder.length;
+    }
+
+    public boolean contains(Long categoryId) {
+        return categoryId != null && preById.containsKey(categoryId);
+    }
+
+    /**
+     * Category by ID, or null if unknown.
+     */
+    public Category getCategory(Long categoryId) {
+        Integer pre = categoryId != null ? preById.get(categoryId) : null;
+        return pre != null ? preOrder[pre] : null;
+    }
+
+    /**
+     * Root categories with subcategories attached (all levels), in display order.
+     */
+    public List<Category> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Direct children in display order (empty if unknown).
+     */
+    public List<Category> getChildren(Long categoryId) {
+        Category category = getCategory(categoryId);
+        return category != null ? category.getSubcategories() : List.of();
+    }
+
+    /**
+     * Path from the root down to (and including) the category; empty if unknown.
+     */
+    public List<Category> getBreadcrumb(Long categoryId) {
+        Integer pre = categoryId != null ? preById.get(categoryId) : null;
+        return pre != null ? ancestorPaths.get(pre) : List.of();
+    }
+
+    /**
+     * Depth below the root (roots are 0), or -1 if unknown.
+     */
+    public int getDepth(Long categoryId) {
+        Integer pre = categoryId != null ? preById.get(categoryId) : null;
+        return pre != null ? depth[pre] : -1;
+    }
+
+    /**
+     * True if candidateId is ancestorId itself or one of its descendants - a range check.
+     */
+    public boolean isInSubtree(Long ancestorId, Long candidateId) {
+        Integer ancestorPre = ancestorId != null ? preById.get(ancestorId) : null;
+        Integer candidatePre = candidateId != null ? preById.get(candidateId) : null;
+        return ancestorPre != null && candidatePre != null
+                && candidatePre >= ancestorPre && candidatePre <= post[ancestorPre];
+    }
+
+    /**
+     * IDs of the category and all its descendants (the contiguous pre-order slice).
+     */
+    public Set<Long> getSubtreeCategoryIds(Long categoryId) {
+        Integer pre = categoryId != null ? preById.get(categoryId) : null;
+        if (pre == null) {
+            return Set.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (int i = pre; i <= post[pre]; i++) {
+            ids.add(preOrder[i].getCategoryId());
+        }
+        return ids;
+    }
+
+    /**
+     * Active categories sorted by name.
+     */
+    public List<Category> getActiveCategoriesByName() {
+        return activeByName;
+    }
+}
@@ -0,0 +1,83 @@
+package com.perfect8.shop.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checkout Metrics - Version 1.0
+ * Latency of OrderService.createOrder by order size (1, 2-10, 11-50, 51+ lines).
+ *
+ * - p50 / p99 / max over the last SAMPLES orders of each size, so the cost of an
+ *   extra line shows up directly (batched checkout: close to flat)
+ * - measured inside the order transaction, excluding the commit
+ *
+ * Recording is a ring buffer write; percentiles are computed when the metrics are read.
+ */
+@Component
+public class CheckoutMetrics {
+
+    private static final int SAMPLES = 1024;
+    private static final int[] BUCKET_MAX_LINES = {1, 10, 50, Integer.MAX_VALUE};
+    private static final String[] BUCKET_NAMES = {"1", "2-10", "11-50", "51+"};
+
+    private final Bucket[] buckets = new Bucket[BUCKET_MAX_LINES.length];
+
+    public CheckoutMetrics() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    public void record(int lines, long elapsedNanos) {
+        int index = 0;
+        while (lines > BUCKET_MAX_LINES[index]) {
+            index++;
+        }
+        Bucket bucket = buckets[index];
+        bucket.orders.increment();
+        bucket.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        bucket.samples.set((int) (bucket.next.getAndIncrement() % SAMPLES), elapsedNanos);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            Bucket bucket = buckets[i];
+            int count = (int) Math.min(bucket.next.get(), SAMPLES);
+            long[] sorted = new long[count];
+            for (int sample = 0; sample < count; sample++) {
+                sorted[sample] = bucket.samples.get(sample);
+            }
+            Arrays.sort(sorted);
+
+            Map<String, Object> size = new LinkedHashMap<>();
+            size.put("orders", bucket.orders.sum());
+            size.put("p50Millis", percentileMillis(sorted, 0.50));
+            size.put("p99Millis", percentileMillis(sorted, 0.99));
+            size.put("maxMillis", bucket.maxNanos.get() / 1_000_000.0);
+            metrics.put(BUCKET_NAMES[i] + " lines", size);
+        }
+        return metrics;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static final class Bucket {
+        final LongAdder orders = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLong next = new AtomicLong();
+        final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    }
+}
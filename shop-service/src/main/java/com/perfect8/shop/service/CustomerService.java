@@ -11,10 +11,13 @@ import com.perfect8.shop.exception.UnauthorizedAccessException;
 import com.perfect8.shop.repository.AddressRepository;
 import com.perfect8.shop.repository.CustomerRepository;
 import com.perfect8.shop.repository.OrderRepository;
+import com.perfect8.shop.security.CustomerIdResolver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +34,9 @@ import java.util.stream.Collectors;
  * - Lombok generates: isActive(), setActive() from field "active"
  * - Builder uses: .active(boolean), .emailVerified(boolean)
  * - Repository uses: countByActiveTrue(), findByEmailVerifiedTrue()
+ *
+ * ADDED (2026-10-16): updateCustomer / deactivateCustomer / linkCustomerToUser evict the
+ * customer from CustomerIdResolver (cached request -> customerId lookups)
  */
 @Service
 @RequiredArgsConstructor
@@ -42,6 +48,7 @@ public class CustomerService {
     private final AddressRepository addressRepository;
     private final OrderRepository orderRepository;
     private final EmailService emailService;
+    private final CustomerIdResolver customerIdResolver;
 
     // ==================== Customer Retrieval ====================
 
@@ -177,6 +184,7 @@ public class CustomerService {
 
         customer.setUserId(userId);
         Customer savedCustomer = customerRepository.save(customer);
+        customerIdResolver.evictCustomer(customerId);
 
         log.info("Customer {} linked to userId {}", customerId, userId);
         return convertToDTO(savedCustomer);
@@ -214,6 +222,7 @@ public class CustomerService {
         }
 
         Customer savedCustomer = customerRepository.save(customer);
+        customerIdResolver.evictCustomer(customerId);
         log.info("Customer {} updated successfully", customerId);
 
         return convertToDTO(savedCustomer);
@@ -228,6 +237,7 @@ public class CustomerService {
 
         customer.setActive(false);
         Customer savedCustomer = customerRepository.save(customer);
+        customerIdResolver.evictCustomer(customerId);
 
         log.info("Customer {} deactivated", customerId);
         return convertToDTO(savedCustomer);
@@ -398,6 +408,17 @@ public class CustomerService {
         return customerRepository.findAll(pageable).map(this::convertToDTO);
     }
 
+    /**
+     * Keyset (cursor) listing of all customers - constant cost per page, no COUNT(*).
+     * includeTotal adds an estimate from InnoDB table statistics.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CustomerDTO> scrollAllCustomers(String cursor, int size, Sort sort, boolean includeTotal) {
+        Window<Customer> window = customerRepository.findAllBy(PageCursor.decode(cursor, sort), sort, PageCursor.limitOf(size));
+        return PageCursor.toPage(window, sort, this::convertToDTO,
+                includeTotal ? customerRepository.estimateRowCount() : null);
+    }
+
     @Transactional(readOnly = true)
     public Page<CustomerDTO> searchCustomers(String searchTerm, Pageable pageable) {
         log.debug("Searching customers with term: {}", searchTerm);
@@ -3,16 +3,25 @@ package com.perfect8.shop.service;
 import com.perfect8.common.enums.OrderStatus;
 import com.perfect8.shop.entity.Order;
 import com.perfect8.shop.entity.OrderItem;
+import com.perfect8.shop.event.AbandonedCartsEvent;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -34,12 +43,30 @@ public class EmailService {
     @Value("${SHOP_API_KEY:p8shop_1Lm3pV6bC9fK2hW4}")
     private String shopApiKey;
 
+    @Value("${shop.cart-sweeper.reminder-emails:false}")
+    private boolean abandonedCartReminders;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    private static final int MAX_QUEUED_REMINDER_BATCHES = 100;
+
+    // Reminders are sent off the sweeper's transaction thread, one batch at a time
+    private final ThreadPoolExecutor reminderExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_REMINDER_BATCHES), runnable -> {
+                Thread thread = new Thread(runnable, "abandoned-cart-email");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     public EmailService() {
         this.restTemplate = new RestTemplate();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        reminderExecutor.shutdownNow();
+    }
+
     // ========================================================================
     // BACKWARD COMPATIBLE METHODS (used by OrderService)
     // ========================================================================
@@ -236,6 +263,42 @@ public class EmailService {
         sendEmail(customerEmail, subject, body);
     }
 
+    /**
+     * Remind a customer of a cart left behind
+     */
+    public void sendAbandonedCartReminder(String customerEmail, String customerName, int itemCount,
+                                          BigDecimal totalAmount) {
+        String subject = "You left something in your cart";
+        String body = "Hi " + customerName + "!\n\n" +
+                "You still have " + itemCount + (itemCount == 1 ? " item" : " items") +
+                " in your Perfect8 Shop cart (total " + totalAmount + ").\n\n" +
+                "Your cart is saved - log in to complete your order.\n\n" +
+                "Happy shopping!";
+
+        sendEmail(customerEmail, subject, body);
+    }
+
+    /**
+     * Abandoned cart candidates from AbandonedCartSweeper - opt-in (shop.cart-sweeper.reminder-emails)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAbandonedCarts(AbandonedCartsEvent event) {
+        if (!abandonedCartReminders) {
+            return;
+        }
+        try {
+            reminderExecutor.execute(() -> {
+                for (AbandonedCartsEvent.Candidate candidate : event.getCandidates()) {
+                    sendAbandonedCartReminder(candidate.getEmail(), candidate.getFirstName(),
+                            candidate.getItemCount(), candidate.getTotalAmount());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Reminders are best effort - the carts are not reported again
+            log.warn("Reminder queue full - dropped {} abandoned cart reminders", event.getCandidates().size());
+        }
+    }
+
     /**
      * Send password reset email
      */
@@ -0,0 +1,391 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.dto.ProductFacetsResponse;
+import com.perfect8.shop.dto.ProductFacetsResponse.FacetCount;
+import com.perfect8.shop.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet Index - Version 1.0
+ * Bitmap per facet value for storefront facet counts (GET /api/products/facets).
+ *
+ * Facets: category, price bucket, tag, in stock, featured.
+ * Every active product gets a document number; each facet value owns a BitSet
+ * of the documents having it. A facet request builds one filter bitmap per
+ * active filter, intersects them, and counts each facet value against the
+ * intersection - all in memory, no COUNT queries.
+ *
+ * Fed by CatalogReadModel through CatalogListener (full load + per product patches).
+ */
+@Slf4j
+@Service
+public class FacetIndex implements CatalogListener {
+
+    static final int MAX_TAG_FACETS = 30;
+
+    // Category and tag facets: most products first, then by value
+    static final Comparator<FacetCount> BY_COUNT = Comparator.comparingLong(FacetCount::getCount).reversed()
+            .thenComparing(FacetCount::getValue);
+
+    private final long[] bucketEdgesCents;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> docIdByProductId = new HashMap<>();
+    private long[] priceCentsByDoc = new long[1024];
+    private long[] categoryByDoc = new long[1024];
+    private int[] bucketByDoc = new int[1024];
+    private String[][] tagsByDoc = new String[1024][];
+    private int nextDocId = 0;
+
+    private final BitSet live = new BitSet();
+    private final BitSet featured = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<String, BitSet> byTag = new HashMap<>();
+    private final Map<String, String> tagLabels = new HashMap<>();
+    private BitSet[] byPriceBucket;
+
+    private volatile boolean ready = false;
+
+    public FacetIndex(@Value("${catalog.facets.price-buckets:100,250,500,1000}") String priceBucketEdges) {
+        this.bucketEdgesCents = Arrays.stream(priceBucketEdges.split(","))
+                .map(String::trim)
+                .filter(edge -> !edge.isEmpty())
+                .mapToLong(edge -> toCents(new BigDecimal(edge)))
+                .sorted()
+                .toArray();
+        this.byPriceBucket = newBucketBitmaps();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The configured price buckets with inclusive bounds (to = null for the last one) -
+     * for counting them with repository queries while the index is loading
+     */
+    public List<PriceBucket> getPriceBuckets() {
+        List<PriceBucket> buckets = new ArrayList<>(bucketEdgesCents.length + 1);
+        for (int bucket = 0; bucket <= bucketEdgesCents.length; bucket++) {
+            BigDecimal from = bucket == 0 ? null : BigDecimal.valueOf(bucketEdgesCents[bucket - 1], 2);
+            BigDecimal to = bucket == bucketEdgesCents.length ? null : BigDecimal.valueOf(bucketEdgesCents[bucket] - 1, 2);
+            buckets.add(new PriceBucket(bucketValue(bucket), from, to));
+        }
+        return buckets;
+    }
+
+    // ========== CatalogListener ==========
+
+    @Override
+    public void onCatalogLoaded(Collection<Product> activeProducts) {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            docIdByProductId.clear();
+            int capacity = Math.max(1024, activeProducts.size() + 64);
+            priceCentsByDoc = new long[capacity];
+            categoryByDoc = new long[capacity];
+            bucketByDoc = new int[capacity];
+            tagsByDoc = new String[capacity][];
+            nextDocId = 0;
+            live.clear();
+            featured.clear();
+            inStock.clear();
+            byCategory.clear();
+            categoryNames.clear();
+            byTag.clear();
+            tagLabels.clear();
+            byPriceBucket = newBucketBitmaps();
+
+            for (Product product : activeProducts) {
+                addDocument(product);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Facet index built: {} products, {} categories, {} tags ({} ms)",
+                activeProducts.size(), byCategory.size(), byTag.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void onProductUpdated(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getProductId());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== Facet counts ==========
+
+    /**
+     * Count every facet value under the given filters (null = no restriction).
+     * Each facet ignores its own filter so sibling values stay selectable.
+     */
+    public ProductFacetsResponse computeFacets(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                               Boolean featuredFilter, Boolean inStockFilter, String tag) {
+        lock.readLock().lock();
+        try {
+            BitSet categoryFilter = categoryId != null
+                    ? byCategory.getOrDefault(categoryId, new BitSet()) : null;
+            BitSet priceFilter = minPrice != null || maxPrice != null
+                    ? priceRange(minPrice, maxPrice) : null;
+            BitSet featuredBits = booleanFilter(featured, featuredFilter);
+            BitSet inStockBits = booleanFilter(inStock, inStockFilter);
+            BitSet tagFilter = tag != null && !tag.isBlank()
+                    ? byTag.getOrDefault(normalizeTag(tag), new BitSet()) : null;
+
+            BitSet all = intersect(categoryFilter, priceFilter, featuredBits, inStockBits, tagFilter);
+            BitSet forCategories = intersect(null, priceFilter, featuredBits, inStockBits, tagFilter);
+            BitSet forPrices = intersect(categoryFilter, null, featuredBits, inStockBits, tagFilter);
+            BitSet forTags = intersect(categoryFilter, priceFilter, featuredBits, inStockBits, null);
+            BitSet forFeatured = intersect(categoryFilter, priceFilter, null, inStockBits, tagFilter);
+            BitSet forInStock = intersect(categoryFilter, priceFilter, featuredBits, null, tagFilter);
+
+            List<FacetCount> categories = new ArrayList<>();
+            for (Map.Entry<Long, BitSet> entry : byCategory.entrySet()) {
+                long count = andCardinality(entry.getValue(), forCategories);
+                if (count > 0) {
+                    categories.add(FacetCount.builder()
+                            .value(String.valueOf(entry.getKey()))
+                            .label(categoryNames.get(entry.getKey()))
+                            .count(count)
+                            .build());
+                }
+            }
+            categories.sort(BY_COUNT);
+
+            List<FacetCount> priceBuckets = new ArrayList<>(byPriceBucket.length);
+            for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+                priceBuckets.add(FacetCount.builder()
+                        .value(bucketValue(bucket))
+                        .label(bucketValue(bucket))
+                        .count(andCardinality(byPriceBucket[bucket], forPrices))
+                        .build());
+            }
+
+            List<FacetCount> tags = new ArrayList<>();
+            for (Map.Entry<String, BitSet> entry : byTag.entrySet()) {
+                long count = andCardinality(entry.getValue(), forTags);
+                if (count > 0) {
+                    tags.add(FacetCount.builder()
+                            .value(entry.getKey())
+                            .label(tagLabels.get(entry.getKey()))
+                            .count(count)
+                            .build());
+                }
+            }
+            tags.sort(BY_COUNT);
+            if (tags.size() > MAX_TAG_FACETS) {
+                tags = new ArrayList<>(tags.subList(0, MAX_TAG_FACETS));
+            }
+
+            return ProductFacetsResponse.builder()
+                    .totalMatches(all.cardinality())
+                    .categories(categories)
+                    .priceBuckets(priceBuckets)
+                    .tags(tags)
+                    .featuredCount(andCardinality(featured, forFeatured))
+                    .inStockCount(andCardinality(inStock, forInStock))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Internals (caller holds the lock) ==========
+
+    private BitSet intersect(BitSet... filters) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private BitSet booleanFilter(BitSet bits, Boolean wanted) {
+        if (wanted == null) {
+            return null;
+        }
+        if (wanted) {
+            return bits;
+        }
+        BitSet negated = (BitSet) live.clone();
+        negated.andNot(bits);
+        return negated;
+    }
+
+    private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        long minCents = minPrice != null ? toCents(minPrice.setScale(2, RoundingMode.CEILING)) : Long.MIN_VALUE;
+        long maxCents = maxPrice != null ? toCents(maxPrice.setScale(2, RoundingMode.FLOOR)) : Long.MAX_VALUE;
+        BitSet range = new BitSet(nextDocId);
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            long cents = priceCentsByDoc[doc];
+            if (cents >= minCents && cents <= maxCents) {
+                range.set(doc);
+            }
+        }
+        return range;
+    }
+
+    // Walk the (usually smaller) value bitmap and probe the filter - no allocation
+    private static long andCardinality(BitSet values, BitSet filter) {
+        long count = 0;
+        for (int doc = values.nextSetBit(0); doc >= 0; doc = values.nextSetBit(doc + 1)) {
+            if (filter.get(doc)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void addDocument(Product product) {
+        Integer existing = docIdByProductId.get(product.getProductId());
+        int doc = existing != null ? existing : nextDocId++;
+        ensureCapacity(doc);
+        docIdByProductId.put(product.getProductId(), doc);
+
+        long cents = product.getPrice() != null ? toCents(product.getPrice().setScale(2, RoundingMode.HALF_UP)) : 0L;
+        priceCentsByDoc[doc] = cents;
+        bucketByDoc[doc] = bucketOf(cents);
+        byPriceBucket[bucketByDoc[doc]].set(doc);
+
+        long categoryId = 0L;
+        if (product.getCategory() != null && product.getCategory().getCategoryId() != null) {
+            categoryId = product.getCategory().getCategoryId();
+            byCategory.computeIfAbsent(categoryId, key -> new BitSet()).set(doc);
+            categoryNames.put(categoryId, product.getCategory().getName());
+        }
+        categoryByDoc[doc] = categoryId;
+
+        Set<String> tags = new LinkedHashSet<>();
+        if (product.getTags() != null) {
+            for (String tag : product.getTags()) {
+                if (tag != null && !tag.isBlank()) {
+                    String key = normalizeTag(tag);
+                    tags.add(key);
+                    byTag.computeIfAbsent(key, k -> new BitSet()).set(doc);
+                    tagLabels.putIfAbsent(key, tag.trim());
+                }
+            }
+        }
+        tagsByDoc[doc] = tags.toArray(new String[0]);
+
+        live.set(doc);
+        featured.set(doc, product.isFeatured());
+        inStock.set(doc, product.isInStock());
+    }
+
+    private void removeDocument(Long productId) {
+        Integer doc = docIdByProductId.get(productId);
+        if (doc == null || !live.get(doc)) {
+            return;
+        }
+        live.clear(doc);
+        featured.clear(doc);
+        inStock.clear(doc);
+        byPriceBucket[bucketByDoc[doc]].clear(doc);
+
+        BitSet categoryBits = byCategory.get(categoryByDoc[doc]);
+        if (categoryBits != null) {
+            categoryBits.clear(doc);
+            if (categoryBits.isEmpty()) {
+                byCategory.remove(categoryByDoc[doc]);
+                categoryNames.remove(categoryByDoc[doc]);
+            }
+        }
+        for (String tag : tagsByDoc[doc]) {
+            BitSet tagBits = byTag.get(tag);
+            if (tagBits != null) {
+                tagBits.clear(doc);
+                if (tagBits.isEmpty()) {
+                    byTag.remove(tag);
+                    tagLabels.remove(tag);
+                }
+            }
+        }
+        tagsByDoc[doc] = null;
+    }
+
+    private void ensureCapacity(int doc) {
+        if (doc >= priceCentsByDoc.length) {
+            int newLength = Math.max(doc + 1, priceCentsByDoc.length * 2);
+            priceCentsByDoc = Arrays.copyOf(priceCentsByDoc, newLength);
+            categoryByDoc = Arrays.copyOf(categoryByDoc, newLength);
+            bucketByDoc = Arrays.copyOf(bucketByDoc, newLength);
+            tagsByDoc = Arrays.copyOf(tagsByDoc, newLength);
+        }
+    }
+
+    private BitSet[] newBucketBitmaps() {
+        BitSet[] buckets = new BitSet[bucketEdgesCents.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new BitSet();
+        }
+        return buckets;
+    }
+
+    private int bucketOf(long cents) {
+        int bucket = 0;
+        while (bucket < bucketEdgesCents.length && cents >= bucketEdgesCents[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    // "0-100", "100-250", ..., "1000+"
+    private String bucketValue(int bucket) {
+        String from = bucket == 0 ? "0" : formatEdge(bucketEdgesCents[bucket - 1]);
+        return bucket == bucketEdgesCents.length ? from + "+" : from + "-" + formatEdge(bucketEdgesCents[bucket]);
+    }
+
+    private static String formatEdge(long cents) {
+        return BigDecimal.valueOf(cents, 2).stripTrailingZeros().toPlainString();
+    }
+
+    static String normalizeTag(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    public record PriceBucket(String value, BigDecimal from, BigDecimal to) {
+    }
+}
@@ -0,0 +1,721 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.InventoryTransaction;
+import com.perfect8.shop.event.ProductChangedEvent;
+import com.perfect8.shop.exception.ProductNotFoundException;
+import com.perfect8.shop.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flash Sale Service - Version 1.0
+ * Opt-in flash-sale mode: stock for a few hot products is handed out from
+ * in-memory token counters instead of a conditional UPDATE on the products row.
+ *
+ * - arm: moves N units from products.stock_quantity to flash_sale_allocations.remaining
+ *   (one transaction) and puts N tokens in a striped counter
+ * - checkout (InventoryService.holdStock): a CAS on a stripe decides the reservation;
+ *   a flash_sale_journal row is inserted in the order transaction (a rollback puts
+ *   the tokens back) - the products row is not touched
+ * - reconcile (every shop.flash-sale.reconcile-ms): journal rows are folded in batches -
+ *   products.reserved_quantity += units, allocations.remaining -= units per product
+ * - disarm: drains the tokens and returns them to sellable stock
+ *
+ * Crash safety: committed reservations are always in the journal, so the tokens of an
+ * allocation are exactly remaining - journal. Uncommitted reservations never reach the journal.
+ *
+ * FIXED (2026-10-17): Several shop-service instances - every allocation row has ONE owner:
+ * - owner_id / lease_until name the instance whose pool serves it; the owner renews the
+ *   lease on every reconcile run and stops handing out tokens once half a lease
+ *   (shop.flash-sale.lease-seconds) passed without a renewal
+ * - a row without owner or with an expired lease is claimed by the next reconcile run
+ *   of any instance (startup included) with remaining - journal tokens
+ * - arm on an instance that does not own the allocation is refused; disarm there only
+ *   marks the row disarmed and the owner returns its tokens on its next renewal
+ * - arm and the return of unsold units are audited (FLASH_SALE_ARMED / FLASH_SALE_RETURNED)
+ * - the journal of a product is folded through the database on every instance before
+ *   its holds are settled
+ *
+ * Armed units still count as available - stock levels, the in-stock filter, the catalog
+ * snapshot and the product detail read the armed remaining (ProductRepository).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlashSaleService {
+
+    private static final String INSERT_JOURNAL_SQL =
+            "INSERT INTO flash_sale_journal (product_id, order_id, quantity, created_date) VALUES (?, ?, ?, ?)";
+
+    private static final String SELECT_JOURNAL_SQL = "SELECT journal_id, product_id, quantity FROM flash_sale_journal "
+            + "ORDER BY journal_id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SELECT_PRODUCT_JOURNAL_SQL = "SELECT journal_id, product_id, quantity "
+            + "FROM flash_sale_journal WHERE product_id = ? FOR UPDATE SKIP LOCKED";
+
+    // Consistent (non-locking) read - a fold in progress holds the allocation row, so it is
+    // either committed or still sees its journal rows here
+    private static final String UNFOLDED_JOURNAL_SQL =
+            "SELECT COALESCE(SUM(quantity), 0) FROM flash_sale_journal WHERE product_id = ?";
+
+    private static final String FOLD_PRODUCT_SQL = "UPDATE products SET reserved_quantity = reserved_quantity + ?, "
+            + "updated_date = CURRENT_TIMESTAMP WHERE product_id = ?";
+
+    private static final String FOLD_ALLOCATION_SQL =
+            "UPDATE flash_sale_allocations SET remaining = remaining - ?, updated_date = ? WHERE product_id = ?";
+
+    // Products row first, then the allocation - the lock order of checkouts and folds
+    private static final String LOCK_PRODUCT_SQL = "SELECT product_id FROM products WHERE product_id = ? FOR UPDATE";
+
+    private static final String LOCK_ALLOCATION_SQL = "SELECT remaining, armed, owner_id, "
+            + "(owner_id IS NULL OR lease_until IS NULL OR lease_until < NOW(6)) AS claimable "
+            + "FROM flash_sale_allocations WHERE product_id = ? FOR UPDATE";
+
+    private static final String INSERT_ALLOCATION_SQL = "INSERT INTO flash_sale_allocations "
+            + "(product_id, allocated, remaining, armed, armed_date, updated_date, owner_id, lease_until) "
+            + "VALUES (?, ?, ?, TRUE, ?, ?, ?, NOW(6) + INTERVAL ? SECOND)";
+
+    private static final String ARM_ALLOCATION_SQL = "UPDATE flash_sale_allocations SET allocated = allocated + ?, "
+            + "remaining = remaining + ?, armed = TRUE, updated_date = ?, owner_id = ?, "
+            + "lease_until = NOW(6) + INTERVAL ? SECOND WHERE product_id = ?";
+
+    private static final String CLAIM_ALLOCATION_SQL = "UPDATE flash_sale_allocations SET owner_id = ?, "
+            + "lease_until = NOW(6) + INTERVAL ? SECOND, updated_date = ? WHERE product_id = ?";
+
+    private static final String DISARM_ALLOCATION_SQL =
+            "UPDATE flash_sale_allocations SET armed = FALSE, updated_date = ? WHERE product_id = ? AND armed = TRUE";
+
+    private static final String RENEW_LEASES_SQL =
+            "UPDATE flash_sale_allocations SET lease_until = NOW(6) + INTERVAL ? SECOND WHERE owner_id = ?";
+
+    private static final String SELECT_OWNED_SQL = "SELECT product_id, armed FROM flash_sale_allocations WHERE owner_id = ?";
+
+    private static final String SELECT_CLAIMABLE_SQL = "SELECT product_id FROM flash_sale_allocations "
+            + "WHERE owner_id IS NULL OR owner_id = ? OR lease_until IS NULL OR lease_until < NOW(6)";
+
+    // Upper bound per reconcile run so a large journal cannot keep the scheduler thread busy
+    private static final int MAX_BATCHES_PER_RECONCILE = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductRepository productRepository;
+    private final InventoryAuditLog inventoryAuditLog;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Lease owner name of this process - a restarted instance claims its old rows once their lease expires
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${shop.flash-sale.stripes:4}")
+    private int stripes;
+
+    @Value("${shop.flash-sale.reconcile-batch-size:1000}")
+    private int reconcileBatchSize;
+
+    @Value("${shop.flash-sale.lease-seconds:30}")
+    private int leaseSeconds;
+
+    // Allocations owned by this instance - armed ones, and disarmed ones whose journal is not folded yet
+    private final ConcurrentHashMap<Long, TokenPool> pools = new ConcurrentHashMap<>();
+
+    private final LongAdder journalRowsFolded = new LongAdder();
+    private final LongAdder leasesClaimed = new LongAdder();
+    private final LongAdder leasesLost = new LongAdder();
+    private final AtomicLong lastReconcileMillis = new AtomicLong();
+    private volatile LocalDateTime lastReconcile;
+
+    // ========== Arm / disarm ==========
+
+    /**
+     * Move units from sellable stock into the flash-sale pool (adds to an armed pool).
+     * Refused when another live instance owns the product's allocation.
+     */
+    public synchronized Map<String, Object> arm(Long productId, int tokens) {
+        if (tokens <= 0) {
+            throw new IllegalArgumentException("Tokens must be positive");
+        }
+        long leaseStart = System.currentTimeMillis();
+        // Null: add to the pool this instance already serves; otherwise the tokens of a new pool
+        Integer newPoolTokens = transactionTemplate.execute(status -> {
+            if (productRepository.moveStock(productId, -tokens, 0) == 0) {
+                if (!productRepository.existsById(productId)) {
+                    throw new ProductNotFoundException("Product not found: " + productId);
+                }
+                throw new IllegalArgumentException("Not enough sellable stock to arm " + tokens + " tokens");
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Allocation allocation = lockAllocation(productId);
+            Integer poolTokens;
+            if (allocation == null) {
+                jdbcTemplate.update(INSERT_ALLOCATION_SQL, productId, tokens, tokens, now, now, instanceId, leaseSeconds);
+                poolTokens = tokens;
+            } else if (instanceId.equals(allocation.ownerId()) && pools.containsKey(productId)) {
+                jdbcTemplate.update(ARM_ALLOCATION_SQL, tokens, tokens, now, instanceId, leaseSeconds, productId);
+                poolTokens = null;
+            } else if (allocation.claimable() || instanceId.equals(allocation.ownerId())) {
+                int unsold = allocation.remaining() - unfoldedJournal(productId);
+                jdbcTemplate.update(ARM_ALLOCATION_SQL, tokens, tokens, now, instanceId, leaseSeconds, productId);
+                poolTokens = Math.max(0, unsold) + tokens;
+            } else {
+                throw new IllegalStateException("Flash sale for product " + productId
+                        + " is served by another instance (" + allocation.ownerId() + ")");
+            }
+            int stockAfter = productRepository.findStockQuantity(productId).orElse(0);
+            audit(productId, "FLASH_SALE_ARMED", stockAfter + tokens, stockAfter, -tokens,
+                    "Flash sale armed: " + tokens + " units moved to the token pool");
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
+            return poolTokens;
+        });
+
+        // Committed - hand out the tokens
+        long leaseDeadline = leaseDeadline(leaseStart);
+        TokenPool pool;
+        if (newPoolTokens == null) {
+            pool = pools.get(productId);
+            pool.arm(tokens, leaseDeadline);
+        } else {
+            pool = new TokenPool(stripes);
+            pool.arm(newPoolTokens, leaseDeadline);
+            discard(pools.put(productId, pool));
+        }
+        log.info("Flash sale armed for product {}: +{} tokens ({} available)", productId, tokens, pool.available());
+        return describe(productId, pool);
+    }
+
+    /**
+     * Stop the flash sale and return the unsold tokens to sellable stock. On an instance
+     * that does not serve the product the allocation is only marked disarmed - the owner
+     * returns its tokens on its next lease renewal.
+     */
+    public synchronized Map<String, Object> disarm(Long productId) {
+        TokenPool pool = pools.get(productId);
+        if (pool != null && pool.isArmed()) {
+            int returned = release(productId, pool);
+            log.info("Flash sale disarmed for product {}: {} unsold tokens returned to stock", productId, returned);
+            return describe(productId, pool);
+        }
+
+        if (jdbcTemplate.update(DISARM_ALLOCATION_SQL, Timestamp.valueOf(LocalDateTime.now()), productId) == 0) {
+            throw new IllegalStateException("Flash sale is not armed for product " + productId);
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        log.info("Flash sale disarm requested for product {} - its owner returns the tokens", productId);
+        Map<String, Object> status = new HashMap<>();
+        status.put("productId", productId);
+        status.put("armed", false);
+        status.put("disarmRequested", true);
+        return status;
+    }
+
+    // ========== Checkout ==========
+
+    /**
+     * True when this instance serves an armed pool for the product.
+     */
+    public boolean isArmed(Long productId) {
+        TokenPool pool = pools.get(productId);
+        return pool != null && pool.isArmed();
+    }
+
+    /**
+     * Tokens left in this instance's armed pool (0 otherwise) - on top of sellable stock.
+     */
+    public int availableTokens(Long productId) {
+        TokenPool pool = pools.get(productId);
+        return pool != null && pool.isArmed() ? pool.available() : 0;
+    }
+
+    /**
+     * Take tokens for an order line. Must run inside the order transaction: the journal
+     * row commits with the order, a rollback returns the tokens. False if the product
+     * is not armed here, the lease is due or the pool has too few tokens (caller uses
+     * the normal path).
+     */
+    public boolean tryTake(Long orderId, Long productId, int quantity) {
+        TokenPool pool = pools.get(productId);
+        if (pool == null || !pool.isArmed() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        if (!pool.tryTake(quantity)) {
+            pool.rejected.increment();
+            return false;
+        }
+        pool.taken.add(quantity);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    giveBack(productId, pool, quantity);
+                }
+            }
+        });
+        jdbcTemplate.update(INSERT_JOURNAL_SQL, productId, orderId, quantity, Timestamp.valueOf(LocalDateTime.now()));
+        return true;
+    }
+
+    /**
+     * Fold the product's journal before its holds are settled, so reserved_quantity
+     * covers every flash-sale hold. Runs on every instance (the journal is shared);
+     * rows locked by a running fold are skipped - that fold commits them.
+     */
+    public void foldJournal(Long productId) {
+        foldProduct(productId);
+    }
+
+    // ========== Reconciliation ==========
+
+    @Scheduled(fixedDelayString = "${shop.flash-sale.reconcile-ms:1000}",
+            initialDelayString = "${shop.flash-sale.reconcile-ms:1000}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        try {
+            renewLeases();
+            claimAllocations();
+            for (int batch = 0; batch < MAX_BATCHES_PER_RECONCILE; batch++) {
+                Integer folded = transactionTemplate.execute(status -> foldBatch());
+                if (folded == null || folded < reconcileBatchSize) {
+                    break;
+                }
+            }
+            pools.keySet().forEach(this::dropIfSettled);
+        } catch (Exception e) {
+            log.error("Flash sale reconciliation failed: {}", e.getMessage(), e);
+        }
+        lastReconcileMillis.set((System.nanoTime() - start) / 1_000_000);
+        lastReconcile = LocalDateTime.now();
+    }
+
+    /**
+     * Startup recovery: claim the allocations nobody serves and fold the journal left
+     * by the previous run. Allocations of a live instance stay with it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        reconcile();
+    }
+
+    public Map<String, Object> getMetrics() {
+        List<Map<String, Object>> products = new ArrayList<>();
+        pools.forEach((productId, pool) -> products.add(describe(productId, pool)));
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("instanceId", instanceId);
+        metrics.put("products", products);
+        metrics.put("journalRowsFolded", journalRowsFolded.sum());
+        metrics.put("leasesClaimed", leasesClaimed.sum());
+        metrics.put("leasesLost", leasesLost.sum());
+        metrics.put("lastReconcile", lastReconcile);
+        metrics.put("lastReconcileMillis", lastReconcileMillis.get());
+        return metrics;
+    }
+
+    // ========== Leases ==========
+
+    /**
+     * Renew every lease of this instance, then drop pools that were taken over and
+     * return the tokens of pools disarmed on another instance.
+     */
+    private synchronized void renewLeases() {
+        if (pools.isEmpty()) {
+            return;
+        }
+        long renewedAt = System.currentTimeMillis();
+        jdbcTemplate.update(RENEW_LEASES_SQL, leaseSeconds, instanceId);
+        Map<Long, Boolean> owned = new HashMap<>();
+        jdbcTemplate.query(SELECT_OWNED_SQL, rs -> {
+            owned.put(rs.getLong("product_id"), rs.getBoolean("armed"));
+        }, instanceId);
+
+        long leaseDeadline = leaseDeadline(renewedAt);
+        pools.forEach((productId, pool) -> {
+            Boolean armed = owned.get(productId);
+            if (armed == null) {
+                // Claimed by another instance after our lease ran out - its pool counts our tokens
+                pools.remove(productId, pool);
+                discard(pool);
+                leasesLost.increment();
+                log.warn("Flash sale lease of product {} lost - pool dropped", productId);
+            } else if (!armed && pool.isArmed()) {
+                try {
+                    int returned = release(productId, pool);
+                    log.info("Flash sale of product {} disarmed on another instance: {} unsold tokens returned "
+                            + "to stock", productId, returned);
+                } catch (RuntimeException e) {
+                    log.error("Failed to return the tokens of product {}: {}", productId, e.getMessage(), e);
+                }
+                pool.renew(leaseDeadline);
+            } else {
+                pool.renew(leaseDeadline);
+            }
+        });
+    }
+
+    /**
+     * Claim allocations without a live owner (and rows of this instance without a pool).
+     */
+    private void claimAllocations() {
+        List<Long> candidates = jdbcTemplate.queryForList(SELECT_CLAIMABLE_SQL, Long.class, instanceId);
+        for (Long productId : candidates) {
+            if (!pools.containsKey(productId)) {
+                claim(productId);
+            }
+        }
+    }
+
+    private synchronized void claim(Long productId) {
+        long leaseStart = System.currentTimeMillis();
+        Integer tokens = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList(LOCK_PRODUCT_SQL, productId);
+            Allocation allocation = lockAllocation(productId);
+            if (allocation == null || pools.containsKey(productId)
+                    || !(allocation.claimable() || instanceId.equals(allocation.ownerId()))) {
+                return null;
+            }
+            int unsold = Math.max(0, allocation.remaining() - unfoldedJournal(productId));
+            jdbcTemplate.update(CLAIM_ALLOCATION_SQL, instanceId, leaseSeconds,
+                    Timestamp.valueOf(LocalDateTime.now()), productId);
+            if (allocation.armed()) {
+                return unsold;
+            }
+            // Disarmed and left behind - what was not sold goes back to stock
+            returnToStock(productId, unsold, "Flash sale allocation recovered: unsold units returned");
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
+            return -1;
+        });
+        if (tokens == null) {
+            return;
+        }
+
+        TokenPool pool = new TokenPool(stripes);
+        if (tokens >= 0) {
+            pool.arm(tokens, leaseDeadline(leaseStart));
+            log.info("Flash sale of product {} claimed with {} tokens", productId, tokens);
+        } else {
+            log.info("Disarmed flash sale of product {} claimed for settling", productId);
+        }
+        pools.put(productId, pool);
+        leasesClaimed.increment();
+    }
+
+    private long leaseDeadline(long renewedAtMillis) {
+        // Half a lease: a reservation taken just before the deadline commits long before another
+        // instance may claim the allocation
+        return renewedAtMillis + leaseSeconds * 500L;
+    }
+
+    // ========== Internals ==========
+
+    private Allocation lockAllocation(Long productId) {
+        List<Allocation> rows = jdbcTemplate.query(LOCK_ALLOCATION_SQL, (rs, rowNum) -> new Allocation(
+                rs.getInt("remaining"), rs.getBoolean("armed"), rs.getString("owner_id"),
+                rs.getBoolean("claimable")), productId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private int unfoldedJournal(Long productId) {
+        Integer units = jdbcTemplate.queryForObject(UNFOLDED_JOURNAL_SQL, Integer.class, productId);
+        return units != null ? units : 0;
+    }
+
+    /**
+     * Drain a pool this instance serves and return the tokens to sellable stock -
+     * the tokens go back into the pool if the transaction fails.
+     */
+    private int release(Long productId, TokenPool pool) {
+        long leaseDeadline = pool.leaseDeadlineMillis;
+        int drained = pool.disarm();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.queryForList(LOCK_PRODUCT_SQL, productId);
+                foldProduct(productId);
+                jdbcTemplate.update(DISARM_ALLOCATION_SQL, Timestamp.valueOf(LocalDateTime.now()), productId);
+                returnToStock(productId, drained, "Flash sale disarmed: unsold units returned");
+                eventPublisher.publishEvent(new ProductChangedEvent(productId));
+            });
+        } catch (RuntimeException e) {
+            pool.arm(drained, leaseDeadline);
+            throw e;
+        }
+        dropIfSettled(productId);
+        return drained;
+    }
+
+    private int foldBatch() {
+        return fold(jdbcTemplate.query(SELECT_JOURNAL_SQL, this::mapJournalRow, reconcileBatchSize));
+    }
+
+    private void foldProduct(Long productId) {
+        fold(jdbcTemplate.query(SELECT_PRODUCT_JOURNAL_SQL, this::mapJournalRow, productId));
+    }
+
+    /**
+     * Apply journal rows: one UPDATE per product on products and allocations, then delete them.
+     */
+    private int fold(List<long[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // Product ID order - same lock order as checkouts
+        Map<Long, Integer> unitsByProduct = new TreeMap<>();
+        List<Object> journalIds = new ArrayList<>(rows.size());
+        for (long[] row : rows) {
+            journalIds.add(row[0]);
+            unitsByProduct.merge(row[1], (int) row[2], Integer::sum);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> productUpdates = new ArrayList<>();
+        List<Object[]> allocationUpdates = new ArrayList<>();
+        unitsByProduct.forEach((productId, units) -> {
+            productUpdates.add(new Object[]{units, productId});
+            allocationUpdates.add(new Object[]{units, now, productId});
+        });
+        jdbcTemplate.batchUpdate(FOLD_PRODUCT_SQL, productUpdates);
+        jdbcTemplate.batchUpdate(FOLD_ALLOCATION_SQL, allocationUpdates);
+        jdbcTemplate.update("DELETE FROM flash_sale_journal WHERE journal_id IN ("
+                + String.join(",", Collections.nCopies(journalIds.size(), "?")) + ")", journalIds.toArray());
+
+        unitsByProduct.keySet().forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(productId)));
+        journalRowsFolded.add(rows.size());
+        return rows.size();
+    }
+
+    private long[] mapJournalRow(ResultSet rs, int rowNum) throws SQLException {
+        return new long[]{rs.getLong("journal_id"), rs.getLong("product_id"), rs.getInt("quantity")};
+    }
+
+    /**
+     * Allocation units back to sellable stock, audited (caller's transaction).
+     */
+    private void returnToStock(Long productId, int units, String notes) {
+        if (units <= 0) {
+            return;
+        }
+        productRepository.moveStock(productId, units, 0);
+        jdbcTemplate.update(FOLD_ALLOCATION_SQL, units, Timestamp.valueOf(LocalDateTime.now()), productId);
+        int stockAfter = productRepository.findStockQuantity(productId).orElse(0);
+        audit(productId, "FLASH_SALE_RETURNED", stockAfter - units, stockAfter, units, notes);
+    }
+
+    private void audit(Long productId, String transactionType, int quantityBefore, int quantityAfter,
+                       int quantityChange, String notes) {
+        inventoryAuditLog.record(InventoryTransaction.builder()
+                .product(productRepository.getReferenceById(productId))
+                .transactionType(transactionType)
+                .quantityBefore(quantityBefore)
+                .quantityAfter(quantityAfter)
+                .quantityChange(quantityChange)
+                .transactionDate(LocalDateTime.now())
+                .reason(notes)
+                .userId("SYSTEM")
+                .build());
+    }
+
+    /**
+     * Tokens of a rolled back checkout - back to the pool, or to stock once disarmed.
+     * Nothing to do when the pool was taken over: the new owner already counts them.
+     */
+    private void giveBack(Long productId, TokenPool pool, int quantity) {
+        if (pool.giveBack(quantity)) {
+            pool.taken.add(-quantity);
+            return;
+        }
+        if (pool.lost) {
+            return;
+        }
+        try {
+            // Called from afterCompletion - needs its own transaction
+            TransactionTemplate newTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            newTransaction.executeWithoutResult(status -> {
+                returnToStock(productId, quantity, "Flash sale checkout rolled back after disarm");
+                eventPublisher.publishEvent(new ProductChangedEvent(productId));
+            });
+        } catch (Exception e) {
+            log.error("Failed to return {} flash sale units of product {} to stock: {}",
+                    quantity, productId, e.getMessage(), e);
+        }
+    }
+
+    private void discard(TokenPool pool) {
+        if (pool != null) {
+            pool.discard();
+        }
+    }
+
+    /**
+     * Forget a disarmed product once its allocation is used up and fully folded.
+     */
+    private synchronized void dropIfSettled(Long productId) {
+        TokenPool pool = pools.get(productId);
+        if (pool == null || pool.isArmed()) {
+            return;
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM flash_sale_allocations WHERE product_id = ? "
+                + "AND armed = FALSE AND remaining = 0 AND owner_id = ? "
+                + "AND NOT EXISTS (SELECT 1 FROM flash_sale_journal WHERE product_id = ?)",
+                productId, instanceId, productId);
+        if (deleted > 0) {
+            pools.remove(productId, pool);
+        }
+    }
+
+    private Map<String, Object> describe(Long productId, TokenPool pool) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("productId", productId);
+        status.put("armed", pool.isArmed());
+        status.put("availableTokens", pool.available());
+        status.put("unitsTaken", pool.taken.sum());
+        status.put("rejected", pool.rejected.sum());
+        return status;
+    }
+
+    private record Allocation(int remaining, boolean armed, String ownerId, boolean claimable) {
+    }
+
+    /**
+     * Striped token counter - checkouts CAS on a random stripe, so concurrent
+     * requests for the same product rarely touch the same cache line.
+     *
+     * Everything that moves tokens in bulk (arm, disarm, give back, rebalance) holds the
+     * pool's monitor, so a disarm can not miss tokens a rebalance is putting back.
+     */
+    static final class TokenPool {
+
+        final AtomicInteger[] stripes;
+        final LongAdder taken = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        private volatile boolean armed;
+        // Set when another instance took the allocation over
+        volatile boolean lost;
+        volatile long leaseDeadlineMillis;
+
+        TokenPool(int stripeCount) {
+            stripes = new AtomicInteger[Math.max(1, stripeCount)];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new AtomicInteger();
+            }
+        }
+
+        boolean isArmed() {
+            return armed;
+        }
+
+        boolean tryTake(int quantity) {
+            if (!armed || System.currentTimeMillis() >= leaseDeadlineMillis) {
+                return false;
+            }
+            int first = ThreadLocalRandom.current().nextInt(stripes.length);
+            for (int i = 0; i < stripes.length; i++) {
+                AtomicInteger stripe = stripes[(first + i) % stripes.length];
+                int current = stripe.get();
+                while (current >= quantity) {
+                    if (stripe.compareAndSet(current, current - quantity)) {
+                        return true;
+                    }
+                    current = stripe.get();
+                }
+            }
+            return rebalanceAndTake(quantity);
+        }
+
+        // No single stripe has enough - pool everything, take, spread the rest again
+        private synchronized boolean rebalanceAndTake(int quantity) {
+            if (!armed) {
+                return false;
+            }
+            int total = drain();
+            if (total < quantity) {
+                put(total);
+                return false;
+            }
+            put(total - quantity);
+            return true;
+        }
+
+        synchronized void arm(int tokens, long leaseDeadlineMillis) {
+            put(tokens);
+            this.leaseDeadlineMillis = leaseDeadlineMillis;
+            armed = true;
+        }
+
+        void renew(long leaseDeadlineMillis) {
+            this.leaseDeadlineMillis = leaseDeadlineMillis;
+        }
+
+        /**
+         * Stop handing out tokens - returns the tokens that were left.
+         */
+        synchronized int disarm() {
+            armed = false;
+            return drain();
+        }
+
+        synchronized void discard() {
+            lost = true;
+            disarm();
+        }
+
+        /**
+         * Tokens of a rolled back checkout - false when the pool is no longer armed.
+         */
+        synchronized boolean giveBack(int tokens) {
+            if (!armed) {
+                return false;
+            }
+            put(tokens);
+            return true;
+        }
+
+        int available() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.get();
+            }
+            return total;
+        }
+
+        private void put(int tokens) {
+            int share = tokens / stripes.length;
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i].addAndGet(i == 0 ? tokens - share * (stripes.length - 1) : share);
+            }
+        }
+
+        private int drain() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.getAndSet(0);
+            }
+            return total;
+        }
+    }
+}
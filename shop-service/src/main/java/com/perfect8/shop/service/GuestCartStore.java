@@ -0,0 +1,350 @@
+package com.perfect8.shop.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Guest Cart Store - Version 1.0
+ * Carts of anonymous shoppers, keyed by an opaque token - no Customer or Cart rows.
+ *
+ * - bounded by entries (shop.guest-cart.max-entries) and estimated bytes
+ *   (shop.guest-cart.max-bytes), least recently used carts go first
+ * - idle carts expire after shop.guest-cart.idle-ttl-minutes (swept every sweep-ms)
+ * - only product IDs and quantities are kept - prices and names are read from the
+ *   catalog when the cart is shown
+ * - optional spill file (shop.guest-cart.spill-file): written on shutdown, read and
+ *   deleted on startup, so a restart does not empty every guest cart
+ *
+ * On login CartService merges the cart into the customer's Cart and removes it here
+ * after the merge commits.
+ *
+ * The store is local to one shop-service instance. With more than one instance the
+ * load balancer must route sticky on the X-Guest-Cart-Token header (or the merge
+ * call's session) - a request that lands elsewhere sees an unknown token and the
+ * shopper gets a new, empty guest cart.
+ */
+@Slf4j
+@Component
+public class GuestCartStore {
+
+    public static final int MAX_LINES = 100;
+
+    // Rough heap cost: token, entry, map node and boxed key / value per line
+    private static final int CART_OVERHEAD_BYTES = 200;
+    private static final int LINE_BYTES = 80;
+
+    private static final int SPILL_FORMAT_VERSION = 1;
+
+    @Value("${shop.guest-cart.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${shop.guest-cart.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${shop.guest-cart.idle-ttl-minutes:1440}")
+    private long idleTtlMinutes;
+
+    @Value("${shop.guest-cart.spill-file:}")
+    private String spillFile;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Access order - iteration starts at the least recently used cart
+    private final LinkedHashMap<String, Entry> carts = new LinkedHashMap<>(1024, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder evictedIdle = new LongAdder();
+    private final LongAdder evictedCapacity = new LongAdder();
+
+    public GuestCart create() {
+        byte[] tokenBytes = new byte[18];
+        random.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(now);
+        synchronized (carts) {
+            carts.put(token, entry);
+            bytes += entry.bytes();
+            evictOverCapacity();
+        }
+        created.increment();
+        return entry.toGuestCart(token);
+    }
+
+    /**
+     * The cart of a token, or null when unknown or expired
+     */
+    public GuestCart get(String token) {
+        if (token == null) {
+            return null;
+        }
+        synchronized (carts) {
+            Entry entry = live(token);
+            if (entry == null) {
+                return null;
+            }
+            entry.accessedMillis = System.currentTimeMillis();
+            return entry.toGuestCart(token);
+        }
+    }
+
+    /**
+     * Set the quantity of a line (0 removes it) - null when the token is unknown or expired
+     */
+    public GuestCart setQuantity(String token, Long productId, int quantity) {
+        if (token == null) {
+            return null;
+        }
+        synchronized (carts) {
+            Entry entry = live(token);
+            if (entry == null) {
+                return null;
+            }
+            long before = entry.bytes();
+            if (quantity <= 0) {
+                entry.lines.remove(productId);
+            } else {
+                if (!entry.lines.containsKey(productId) && entry.lines.size() >= MAX_LINES) {
+                    throw new IllegalArgumentException("Guest cart cannot hold more than " + MAX_LINES + " products");
+                }
+                entry.lines.put(productId, quantity);
+            }
+            long now = System.currentTimeMillis();
+            entry.accessedMillis = now;
+            entry.updatedMillis = now;
+            bytes += entry.bytes() - before;
+            evictOverCapacity();
+            return entry.toGuestCart(token);
+        }
+    }
+
+    /**
+     * Drop a merged cart - after the merging transaction commits
+     */
+    public void removeAfterCommit(String token) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            removeMerged(token);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                removeMerged(token);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${shop.guest-cart.sweep-ms:60000}",
+            initialDelayString = "${shop.guest-cart.sweep-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTtlMillis();
+        int evicted = 0;
+        synchronized (carts) {
+            Iterator<Entry> iterator = carts.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.accessedMillis < cutoff) {
+                    bytes -= entry.bytes();
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            evictedIdle.add(evicted);
+            log.debug("Evicted {} idle guest carts", evicted);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        synchronized (carts) {
+            metrics.put("entries", carts.size());
+            metrics.put("estimatedBytes", bytes);
+        }
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("maxBytes", maxBytes);
+        metrics.put("created", created.sum());
+        metrics.put("merged", merged.sum());
+        metrics.put("evictedIdle", evictedIdle.sum());
+        metrics.put("evictedCapacity", evictedCapacity.sum());
+        return metrics;
+    }
+
+    // ========== Spill file ==========
+
+    @PostConstruct
+    public void restore() {
+        if (spillFile == null || spillFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(spillFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - idleTtlMillis();
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SPILL_FORMAT_VERSION) {
+                log.warn("Ignoring guest cart spill file {} - unknown format", path);
+                return;
+            }
+            int count = in.readInt();
+            synchronized (carts) {
+                for (int i = 0; i < count; i++) {
+                    String token = in.readUTF();
+                    Entry entry = new Entry(in.readLong());
+                    entry.updatedMillis = in.readLong();
+                    entry.accessedMillis = in.readLong();
+                    int lineCount = in.readInt();
+                    for (int line = 0; line < lineCount; line++) {
+                        entry.lines.put(in.readLong(), in.readInt());
+                    }
+                    if (entry.accessedMillis >= cutoff) {
+                        carts.put(token, entry);
+                        bytes += entry.bytes();
+                        restored++;
+                    }
+                }
+                evictOverCapacity();
+            }
+            log.info("Restored {} guest carts from {}", restored, path);
+        } catch (IOException e) {
+            log.warn("Could not read guest cart spill file {}: {}", path, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Could not delete guest cart spill file {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void spill() {
+        if (spillFile == null || spillFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(spillFile);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int written;
+        synchronized (carts) {
+            written = carts.size();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SPILL_FORMAT_VERSION);
+                out.writeInt(carts.size());
+                for (Map.Entry<String, Entry> cart : carts.entrySet()) {
+                    Entry entry = cart.getValue();
+                    out.writeUTF(cart.getKey());
+                    out.writeLong(entry.createdMillis);
+                    out.writeLong(entry.updatedMillis);
+                    out.writeLong(entry.accessedMillis);
+                    out.writeInt(entry.lines.size());
+                    for (Map.Entry<Long, Integer> line : entry.lines.entrySet()) {
+                        out.writeLong(line.getKey());
+                        out.writeInt(line.getValue());
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Could not write guest cart spill file {}: {}", temp, e.getMessage());
+                return;
+            }
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Spilled {} guest carts to {}", written, path);
+        } catch (IOException e) {
+            log.warn("Could not move guest cart spill file to {}: {}", path, e.getMessage());
+        }
+    }
+
+    // ========== Internals (callers hold the carts lock) ==========
+
+    private Entry live(String token) {
+        Entry entry = carts.get(token);
+        if (entry != null && entry.accessedMillis < System.currentTimeMillis() - idleTtlMillis()) {
+            bytes -= entry.bytes();
+            carts.remove(token);
+            evictedIdle.increment();
+            return null;
+        }
+        return entry;
+    }
+
+    private void evictOverCapacity() {
+        Iterator<Entry> iterator = carts.values().iterator();
+        while ((carts.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            bytes -= iterator.next().bytes();
+            iterator.remove();
+            evictedCapacity.increment();
+        }
+    }
+
+    private void removeMerged(String token) {
+        synchronized (carts) {
+            Entry entry = carts.remove(token);
+            if (entry == null) {
+                return;
+            }
+            bytes -= entry.bytes();
+        }
+        merged.increment();
+    }
+
+    private long idleTtlMillis() {
+        return idleTtlMinutes * 60_000;
+    }
+
+    private static final class Entry {
+        final long createdMillis;
+        long updatedMillis;
+        long accessedMillis;
+        final LinkedHashMap<Long, Integer> lines = new LinkedHashMap<>();
+
+        Entry(long createdMillis) {
+            this.createdMillis = createdMillis;
+            this.updatedMillis = createdMillis;
+            this.accessedMillis = createdMillis;
+        }
+
+        long bytes() {
+            return CART_OVERHEAD_BYTES + (long) LINE_BYTES * lines.size();
+        }
+
+        GuestCart toGuestCart(String token) {
+            return new GuestCart(token, Collections.unmodifiableMap(new LinkedHashMap<>(lines)),
+                    createdMillis, updatedMillis);
+        }
+    }
+
+    /**
+     * Immutable copy of a guest cart - quantities by product ID, in the order added
+     */
+    public record GuestCart(String token, Map<Long, Integer> lines, long createdMillis, long updatedMillis) {
+    }
+}
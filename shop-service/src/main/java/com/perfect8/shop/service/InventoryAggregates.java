@@ -0,0 +1,213 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inventory Aggregates - Version 1.0
+ * Running inventory totals for the admin metrics and low stock alerts.
+ *
+ * - total stock value (on hand x price) and out of stock count, kept as running sums
+ * - every active product in two sorted sets: by sellable stock (threshold queries) and
+ *   by stock relative to its reorder point (reorder alerts)
+ *
+ * Fed by CatalogReadModel through CatalogListener: seeded by its full load, then each
+ * committed stock change replaces one entry - O(log n). Reads walk the head of a set
+ * and stop at the first product above the limit, so they cost O(log n + k).
+ */
+@Slf4j
+@Service
+public class InventoryAggregates implements CatalogListener {
+
+    // Same default as InventoryService.isLowStock when a product has no reorder point
+    private static final int DEFAULT_REORDER_POINT = 10;
+
+    private static final Comparator<StockEntry> BY_STOCK = Comparator
+            .comparingInt(StockEntry::stock)
+            .thenComparingLong(StockEntry::productId);
+
+    private static final Comparator<StockEntry> BY_REORDER_GAP = Comparator
+            .comparingInt(StockEntry::reorderGap)
+            .thenComparingLong(StockEntry::productId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, StockEntry> entries = new HashMap<>();
+    private final TreeSet<StockEntry> byStock = new TreeSet<>(BY_STOCK);
+    private final TreeSet<StockEntry> byReorderGap = new TreeSet<>(BY_REORDER_GAP);
+    private long totalValueCents = 0;
+    private int outOfStockCount = 0;
+    private int belowReorderPointCount = 0;
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ========== CatalogListener ==========
+
+    @Override
+    public void onCatalogLoaded(Collection<Product> activeProducts) {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            byStock.clear();
+            byReorderGap.clear();
+            totalValueCents = 0;
+            outOfStockCount = 0;
+            belowReorderPointCount = 0;
+
+            for (Product product : activeProducts) {
+                add(StockEntry.of(product));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Inventory aggregates built: {} products, {} out of stock, {} below reorder point ({} ms)",
+                activeProducts.size(), outOfStockCount, belowReorderPointCount, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void onProductUpdated(Product product) {
+        lock.writeLock().lock();
+        try {
+            remove(product.getProductId());
+            add(StockEntry.of(product));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== Queries ==========
+
+    /**
+     * Products with sellable stock <= threshold, lowest stock first
+     */
+    public List<Product> findAtOrBelowStock(int threshold, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<StockEntry> head = byStock.headSet(StockEntry.probe(threshold), true);
+            return collect(head, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products at or below their reorder point, furthest below first
+     */
+    public List<Product> findAtOrBelowReorderPoint(int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<StockEntry> head = byReorderGap.headSet(StockEntry.probe(0), true);
+            return collect(head, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("totalProducts", entries.size());
+            metrics.put("totalValue", BigDecimal.valueOf(totalValueCents, 2));
+            metrics.put("outOfStockItems", outOfStockCount);
+            metrics.put("lowStockItems", belowReorderPointCount);
+            return metrics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Internals (write lock held) ==========
+
+    private void add(StockEntry entry) {
+        entries.put(entry.productId(), entry);
+        byStock.add(entry);
+        byReorderGap.add(entry);
+        totalValueCents += entry.valueCents();
+        if (entry.stock() <= 0) {
+            outOfStockCount++;
+        }
+        if (entry.reorderGap() <= 0) {
+            belowReorderPointCount++;
+        }
+    }
+
+    private void remove(Long productId) {
+        StockEntry entry = entries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        byStock.remove(entry);
+        byReorderGap.remove(entry);
+        totalValueCents -= entry.valueCents();
+        if (entry.stock() <= 0) {
+            outOfStockCount--;
+        }
+        if (entry.reorderGap() <= 0) {
+            belowReorderPointCount--;
+        }
+    }
+
+    private static List<Product> collect(NavigableSet<StockEntry> head, int limit) {
+        // No head.size() - it would walk the whole view
+        List<Product> result = new ArrayList<>();
+        for (StockEntry entry : head) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry.product());
+        }
+        return result;
+    }
+
+    /**
+     * One product's stock figures. probe() only bounds headSet() - with the highest
+     * product ID the inclusive bound takes every product at that stock / gap.
+     */
+    private record StockEntry(long productId, int stock, int reorderGap, long valueCents, Product product) {
+
+        static StockEntry of(Product product) {
+            int stock = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+            int reserved = product.getReservedQuantity() != null ? product.getReservedQuantity() : 0;
+            int reorderPoint = product.getReorderPoint() != null && product.getReorderPoint() > 0
+                    ? product.getReorderPoint() : DEFAULT_REORDER_POINT;
+            long priceCents = product.getPrice() != null
+                    ? product.getPrice().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue() : 0;
+            return new StockEntry(product.getProductId(), stock, stock - reorderPoint,
+                    priceCents * (stock + reserved), product);
+        }
+
+        static StockEntry probe(int key) {
+            return new StockEntry(Long.MAX_VALUE, key, key, 0, null);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.InventoryTransaction;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Inventory Audit Log - Version 1.0
+ * Write-behind audit trail for stock movements (inventory_transactions).
+ *
+ * - record() only buffers the row in the current transaction (bounded by batch-size)
+ * - just before commit the buffer goes to inventory_audit_outbox as ONE JDBC batch
+ *   (multi-row INSERT with rewriteBatchedStatements) - same transaction as the stock
+ *   change, so a committed movement always has its audit row, a rolled back one never
+ * - every shop.inventory-audit.flush-ms the outbox is moved to inventory_transactions
+ *   with INSERT ... SELECT + DELETE per batch (FOR UPDATE SKIP LOCKED, so several
+ *   instances can relay without copying a row twice)
+ *
+ * History reads both tables in one statement, so rows not yet relayed are included.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryAuditLog {
+
+    private static final String COLUMNS = "product_id, transaction_type, transaction_date, quantity_before, "
+            + "quantity_after, quantity_change, reason, reference_id, user_id, batch_number, expiry_date, "
+            + "cost_per_unit, total_cost, notes";
+
+    private static final String INSERT_OUTBOX_SQL = "INSERT INTO inventory_audit_outbox (" + COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_BATCH_SQL = "SELECT outbox_id FROM inventory_audit_outbox "
+            + "ORDER BY outbox_id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String HISTORY_SQL =
+            "SELECT inventory_transaction_id, transaction_type, transaction_date, quantity_before, quantity_after, "
+            + "quantity_change, reason, reference_id, user_id, FALSE AS pending "
+            + "FROM inventory_transactions WHERE product_id = ? "
+            + "UNION ALL "
+            + "SELECT NULL, transaction_type, transaction_date, quantity_before, quantity_after, "
+            + "quantity_change, reason, reference_id, user_id, TRUE AS pending "
+            + "FROM inventory_audit_outbox WHERE product_id = ? "
+            + "ORDER BY transaction_date DESC LIMIT ?";
+
+    // Upper bound per flush so a large backlog cannot keep the scheduler thread busy
+    private static final int MAX_BATCHES_PER_FLUSH = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${shop.inventory-audit.batch-size:500}")
+    private int batchSize;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder relayed = new LongAdder();
+    private final LongAdder relayBatches = new LongAdder();
+    private final LongAdder relayFailures = new LongAdder();
+    private final AtomicLong lastRelayMillis = new AtomicLong();
+    private volatile LocalDateTime lastRelay;
+
+    /**
+     * Add a movement to the audit trail. Inside a transaction the row is written when
+     * the transaction commits; without one it is written to the outbox right away.
+     */
+    public void record(InventoryTransaction transaction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeOutbox(List.of(transaction));
+            return;
+        }
+
+        PendingAudit pending = (PendingAudit) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingAudit();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(transaction);
+    }
+
+    /**
+     * Newest movements of a product first - relayed and still pending rows
+     */
+    public List<Map<String, Object>> getHistory(Long productId, int limit) {
+        return jdbcTemplate.query(HISTORY_SQL, (rs, rowNum) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("inventoryTransactionId", rs.getObject("inventory_transaction_id", Long.class));
+            row.put("transactionType", rs.getString("transaction_type"));
+            row.put("transactionDate", rs.getObject("transaction_date", LocalDateTime.class));
+            row.put("quantityBefore", rs.getInt("quantity_before"));
+            row.put("quantityAfter", rs.getInt("quantity_after"));
+            row.put("quantityChange", rs.getInt("quantity_change"));
+            row.put("reason", rs.getString("reason"));
+            row.put("referenceId", rs.getString("reference_id"));
+            row.put("userId", rs.getString("user_id"));
+            row.put("pending", rs.getBoolean("pending"));
+            return row;
+        }, productId, productId, limit);
+    }
+
+    @Scheduled(fixedDelayString = "${shop.inventory-audit.flush-ms:2000}",
+            initialDelayString = "${shop.inventory-audit.flush-ms:2000}")
+    public void flush() {
+        try {
+            for (int batch = 0; batch < MAX_BATCHES_PER_FLUSH; batch++) {
+                Integer moved = transactionTemplate.execute(status -> relayBatch());
+                if (moved == null || moved < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            relayFailures.increment();
+            log.error("Inventory audit relay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Relaying inventory audit outbox before shutdown");
+        flush();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("recorded", recorded.sum());
+        metrics.put("relayed", relayed.sum());
+        metrics.put("relayBatches", relayBatches.sum());
+        metrics.put("relayFailures", relayFailures.sum());
+        metrics.put("lastRelay", lastRelay);
+        metrics.put("lastRelayMillis", lastRelayMillis.get());
+        metrics.put("backlog", jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inventory_audit_outbox", Long.class));
+        metrics.put("oldestPending", jdbcTemplate.queryForObject(
+                "SELECT MIN(transaction_date) FROM inventory_audit_outbox", LocalDateTime.class));
+        return metrics;
+    }
+
+    private int relayBatch() {
+        long start = System.nanoTime();
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH_SQL, Long.class, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] args = ids.toArray();
+        jdbcTemplate.update("INSERT INTO inventory_transactions (" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM inventory_audit_outbox WHERE outbox_id IN (" + placeholders + ") ORDER BY outbox_id", args);
+        jdbcTemplate.update("DELETE FROM inventory_audit_outbox WHERE outbox_id IN (" + placeholders + ")", args);
+
+        relayed.add(ids.size());
+        relayBatches.increment();
+        lastRelayMillis.set((System.nanoTime() - start) / 1_000_000);
+        lastRelay = LocalDateTime.now();
+        return ids.size();
+    }
+
+    private void writeOutbox(List<InventoryTransaction> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, rows, rows.size(), (ps, row) -> {
+            LocalDateTime date = row.getTransactionDate() != null ? row.getTransactionDate() : LocalDateTime.now();
+            BigDecimal totalCost = row.getTotalCost();
+            if (row.getCostPerUnit() != null && row.getQuantityChange() != null) {
+                totalCost = row.getCostPerUnit().multiply(BigDecimal.valueOf(Math.abs(row.getQuantityChange())));
+            }
+            ps.setLong(1, row.getProduct().getProductId());
+            ps.setString(2, row.getTransactionType());
+            ps.setTimestamp(3, Timestamp.valueOf(date));
+            ps.setInt(4, row.getQuantityBefore());
+            ps.setInt(5, row.getQuantityAfter());
+            ps.setInt(6, row.getQuantityChange());
+            ps.setString(7, row.getReason());
+            ps.setString(8, row.getReferenceId());
+            ps.setString(9, row.getUserId());
+            ps.setString(10, row.getBatchNumber());
+            ps.setTimestamp(11, row.getExpiryDate() != null ? Timestamp.valueOf(row.getExpiryDate()) : null);
+            ps.setBigDecimal(12, row.getCostPerUnit());
+            ps.setBigDecimal(13, totalCost);
+            ps.setString(14, row.getNotes());
+        });
+        recorded.add(rows.size());
+    }
+
+    /**
+     * Rows recorded in one transaction - written to the outbox before it commits
+     */
+    private final class PendingAudit implements TransactionSynchronization {
+
+        private final List<InventoryTransaction> rows = new ArrayList<>();
+
+        void add(InventoryTransaction transaction) {
+            rows.add(transaction);
+            if (rows.size() >= batchSize) {
+                writeOutbox(rows);
+                rows.clear();
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            writeOutbox(rows);
+            rows.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InventoryAuditLog.this);
+        }
+    }
+}
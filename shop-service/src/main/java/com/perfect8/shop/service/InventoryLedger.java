@@ -0,0 +1,384 @@
+package com.perfect8.shop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Inventory Ledger - Version 1.0
+ * Point-in-time stock and period reports without scanning inventory_transactions.
+ *
+ * - inventory_stock_snapshots: stock_quantity of every product at the start of a day
+ *   (checkpoint), taken nightly from the live stock minus the movements since midnight
+ * - inventory_daily_movements: movements rolled up per product, day and type
+ * - compaction: movements older than shop.inventory-ledger.retention-days are deleted
+ *   once their day is rolled up; older checkpoints are thinned to the 1st of each month
+ *
+ * Stock at T = latest checkpoint <= T + daily summaries up to T's day + T's own movements.
+ * Every day before the newest checkpoint date has its summaries (the nightly run rolls up
+ * all days before it writes the checkpoint), later days are read from the raw movements.
+ * Reports read summaries per day in the window, so their cost follows the window size.
+ *
+ * Replay only sees movements in the audit trail. FIXED (2026-10-17): every stock_quantity
+ * write is audited - InventoryService (also behind ProductService.updateStock/updateProduct),
+ * flash-sale arm and returns, and the initial stock of created and imported products.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryLedger {
+
+    private static final Map<String, Integer> PERIOD_DAYS = Map.of(
+            "day", 1, "week", 7, "month", 30, "quarter", 90, "year", 365);
+
+    // Raw movements - relayed rows and rows still in the audit outbox
+    private static final String RAW_MOVEMENTS = "(SELECT product_id, transaction_type, transaction_date, quantity_change "
+            + "FROM inventory_transactions WHERE transaction_date >= ? AND transaction_date < ? "
+            + "UNION ALL SELECT product_id, transaction_type, transaction_date, quantity_change "
+            + "FROM inventory_audit_outbox WHERE transaction_date >= ? AND transaction_date < ?) raw";
+
+    private static final String ROLLUP_DAY_SQL = "INSERT INTO inventory_daily_movements "
+            + "(product_id, movement_date, transaction_type, transaction_count, quantity_in, quantity_out, net_change) "
+            + "SELECT product_id, ?, transaction_type, COUNT(*), SUM(GREATEST(quantity_change, 0)), "
+            + "SUM(GREATEST(-quantity_change, 0)), SUM(quantity_change) FROM " + RAW_MOVEMENTS + " "
+            + "GROUP BY product_id, transaction_type "
+            + "ON DUPLICATE KEY UPDATE transaction_count = VALUES(transaction_count), "
+            + "quantity_in = VALUES(quantity_in), quantity_out = VALUES(quantity_out), net_change = VALUES(net_change)";
+
+    private static final String SNAPSHOT_SQL = "INSERT INTO inventory_stock_snapshots "
+            + "(product_id, snapshot_date, stock_quantity, created_date) "
+            + "SELECT p.product_id, ?, COALESCE(p.stock_quantity, 0) - COALESCE(m.since_midnight, 0), NOW(6) "
+            + "FROM products p LEFT JOIN (SELECT product_id, SUM(quantity_change) AS since_midnight FROM "
+            + RAW_MOVEMENTS + " GROUP BY product_id) m ON m.product_id = p.product_id "
+            + "ON DUPLICATE KEY UPDATE stock_quantity = VALUES(stock_quantity), created_date = VALUES(created_date)";
+
+    private static final String NEXT_RAW_DAY_SQL = "SELECT MIN(d) FROM ("
+            + "SELECT MIN(transaction_date) AS d FROM inventory_transactions WHERE transaction_date >= ? "
+            + "UNION ALL SELECT MIN(transaction_date) FROM inventory_audit_outbox WHERE transaction_date >= ?) t";
+
+    private static final String CHECKPOINT_SQL = "SELECT snapshot_date, stock_quantity FROM inventory_stock_snapshots "
+            + "WHERE product_id = ? AND snapshot_date <= ? ORDER BY snapshot_date DESC LIMIT 1";
+
+    private static final String PRODUCT_SUMMARY_SQL = "SELECT COALESCE(SUM(net_change), 0), "
+            + "COALESCE(SUM(transaction_count), 0) FROM inventory_daily_movements "
+            + "WHERE product_id = ? AND movement_date >= ? AND movement_date < ?";
+
+    private static final String PRODUCT_RAW_SQL = "SELECT COALESCE(SUM(quantity_change), 0), COUNT(*) FROM ("
+            + "SELECT quantity_change FROM inventory_transactions "
+            + "WHERE product_id = ? AND transaction_date >= ? AND transaction_date < ? "
+            + "UNION ALL SELECT quantity_change FROM inventory_audit_outbox "
+            + "WHERE product_id = ? AND transaction_date >= ? AND transaction_date < ?) raw";
+
+    private static final String REPORT_BY_TYPE_SQL = "SELECT transaction_type, SUM(cnt), SUM(qty_in), SUM(qty_out), "
+            + "SUM(net) FROM (SELECT transaction_type, transaction_count AS cnt, quantity_in AS qty_in, "
+            + "quantity_out AS qty_out, net_change AS net FROM inventory_daily_movements "
+            + "WHERE movement_date >= ? AND movement_date < ? "
+            + "UNION ALL SELECT transaction_type, 1, GREATEST(quantity_change, 0), GREATEST(-quantity_change, 0), "
+            + "quantity_change FROM " + RAW_MOVEMENTS + ") t GROUP BY transaction_type ORDER BY transaction_type";
+
+    private static final String REPORT_TOP_MOVERS_SQL = "SELECT product_id, SUM(qty_out) AS units_out, SUM(net) "
+            + "FROM (SELECT product_id, quantity_out AS qty_out, net_change AS net FROM inventory_daily_movements "
+            + "WHERE movement_date >= ? AND movement_date < ? "
+            + "UNION ALL SELECT product_id, GREATEST(-quantity_change, 0), quantity_change FROM " + RAW_MOVEMENTS + ") t "
+            + "GROUP BY product_id ORDER BY units_out DESC LIMIT ?";
+
+    // Upper bounds per nightly run so a large backlog cannot keep the scheduler thread busy
+    private static final int MAX_DAYS_PER_RUN = 366;
+    private static final int MAX_BATCHES_PER_RUN = 200;
+    private static final int TOP_MOVERS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${shop.inventory-ledger.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${shop.inventory-ledger.batch-size:5000}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile LocalDateTime lastRun;
+    private volatile long lastRunMillis;
+    private volatile int lastDaysRolledUp;
+    private volatile int lastSnapshotRows;
+    private volatile long lastCompactedTransactions;
+    private volatile long lastCompactedSnapshots;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpOnStartup() {
+        try {
+            LocalDate watermark = getWatermark();
+            if (watermark == null || watermark.isBefore(LocalDate.now())) {
+                run();
+            }
+        } catch (Exception e) {
+            log.error("Inventory ledger catch-up failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${shop.inventory-ledger.cron:0 15 1 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /**
+     * Roll up every finished day, checkpoint today and compact what fell out of retention.
+     * Idempotent - summaries and checkpoints are upserts, so several instances may run it.
+     */
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            LocalDate today = LocalDate.now();
+            int daysRolledUp = 0;
+            LocalDate day = firstDayToRollUp();
+            while (day != null && day.isBefore(today) && daysRolledUp < MAX_DAYS_PER_RUN) {
+                rollUpDay(day);
+                daysRolledUp++;
+                day = nextRawDay(day.plusDays(1));
+            }
+            lastDaysRolledUp = daysRolledUp;
+
+            if (day != null && day.isBefore(today)) {
+                // Checkpoint only when every earlier day has its summaries
+                log.warn("Inventory ledger rolled up {} days and is not caught up (next day {}) - "
+                        + "checkpoint of {} skipped", daysRolledUp, day, today);
+            } else {
+                lastSnapshotRows = writeCheckpoint(today);
+                compact(today);
+            }
+
+            lastRun = LocalDateTime.now();
+            lastRunMillis = System.currentTimeMillis() - start;
+            log.info("Inventory ledger run: {} days rolled up, {} checkpoints, {} movements and {} checkpoints "
+                    + "compacted ({} ms)", daysRolledUp, lastSnapshotRows, lastCompactedTransactions,
+                    lastCompactedSnapshots, lastRunMillis);
+        } catch (Exception e) {
+            log.error("Inventory ledger run failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Stock quantity of a product at a point in time - checkpoint plus replay
+     */
+    public Map<String, Object> getStockAt(Long productId, LocalDateTime at) {
+        LocalDate atDate = at.toLocalDate();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("productId", productId);
+        result.put("at", at);
+
+        List<Map<String, Object>> checkpoints = jdbcTemplate.queryForList(CHECKPOINT_SQL,
+                productId, Date.valueOf(atDate));
+        if (checkpoints.isEmpty()) {
+            // No checkpoint yet (new product or ledger not run) - walk back from live stock
+            Integer live = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(stock_quantity, 0) FROM products WHERE product_id = ?", Integer.class, productId);
+            long[] raw = sumRaw(productId, at, LocalDateTime.now().plusDays(1));
+            result.put("stockQuantity", live - raw[0]);
+            result.put("checkpointDate", null);
+            result.put("replayedMovements", raw[1]);
+            result.put("resolution", "REPLAY_FROM_LIVE");
+            return result;
+        }
+
+        LocalDate checkpointDate = ((Date) checkpoints.get(0).get("snapshot_date")).toLocalDate();
+        int checkpointStock = ((Number) checkpoints.get(0).get("stock_quantity")).intValue();
+        LocalDate watermark = getWatermark();
+        LocalDate summaryTo = watermark != null && watermark.isBefore(atDate) ? watermark : atDate;
+
+        long[] summaries = jdbcTemplate.queryForObject(PRODUCT_SUMMARY_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                productId, Date.valueOf(checkpointDate), Date.valueOf(summaryTo));
+        long[] raw = sumRaw(productId, summaryTo.atStartOfDay(), at);
+
+        result.put("stockQuantity", checkpointStock + summaries[0] + raw[0]);
+        result.put("checkpointDate", checkpointDate);
+        result.put("checkpointStock", checkpointStock);
+        result.put("replayedMovements", summaries[1] + raw[1]);
+        // Movements within a compacted day are gone - the value is the stock at the start of that day
+        result.put("resolution", atDate.isBefore(LocalDate.now().minusDays(retentionDays)) ? "DAY" : "EXACT");
+        return result;
+    }
+
+    /**
+     * Movement report for day / week / month / quarter / year (rolling windows ending now)
+     */
+    public Map<String, Object> getReport(String period) {
+        String key = period != null ? period.toLowerCase() : "month";
+        Integer days = PERIOD_DAYS.get(key);
+        if (days == null) {
+            throw new IllegalArgumentException("Unknown report period: " + period
+                    + " (day, week, month, quarter, year)");
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate fromDate = today.minusDays(days - 1);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate watermark = getWatermark();
+        // Summaries for days before the newest checkpoint, raw movements after it
+        LocalDate summaryTo = watermark == null || watermark.isBefore(fromDate) ? fromDate : watermark;
+        Timestamp rawFrom = Timestamp.valueOf(summaryTo.atStartOfDay());
+        Timestamp rawTo = Timestamp.valueOf(now.plusSeconds(1));
+
+        List<Map<String, Object>> byType = new ArrayList<>();
+        long[] totals = new long[4];
+        jdbcTemplate.query(REPORT_BY_TYPE_SQL, rs -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("transactionType", rs.getString(1));
+            row.put("transactions", rs.getLong(2));
+            row.put("quantityIn", rs.getLong(3));
+            row.put("quantityOut", rs.getLong(4));
+            row.put("netChange", rs.getLong(5));
+            byType.add(row);
+            for (int i = 0; i < 4; i++) {
+                totals[i] += rs.getLong(i + 2);
+            }
+        }, Date.valueOf(fromDate), Date.valueOf(summaryTo), rawFrom, rawTo, rawFrom, rawTo);
+
+        List<Map<String, Object>> topMovers = jdbcTemplate.query(REPORT_TOP_MOVERS_SQL, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("productId", rs.getLong(1));
+            row.put("unitsOut", rs.getLong(2));
+            row.put("netChange", rs.getLong(3));
+            return row;
+        }, Date.valueOf(fromDate), Date.valueOf(summaryTo), rawFrom, rawTo, rawFrom, rawTo, TOP_MOVERS);
+
+        Long closingStock = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(stock_quantity), 0) FROM products", Long.class);
+        Long openingStock = jdbcTemplate.queryForObject(
+                "SELECT SUM(stock_quantity) FROM inventory_stock_snapshots WHERE snapshot_date = ?",
+                Long.class, Date.valueOf(fromDate));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("period", key);
+        report.put("from", fromDate.atStartOfDay());
+        report.put("to", now);
+        report.put("openingStock", openingStock != null ? openingStock : closingStock - totals[3]);
+        report.put("openingSource", openingStock != null ? "CHECKPOINT" : "REPLAY");
+        report.put("closingStock", closingStock);
+        report.put("transactions", totals[0]);
+        report.put("stockIn", totals[1]);
+        report.put("stockOut", totals[2]);
+        report.put("netChange", totals[3]);
+        report.put("byType", byType);
+        report.put("topMovers", topMovers);
+        report.put("summarizedThrough", summaryTo.minusDays(1));
+        report.put("generatedDate", now);
+        report.put("queryMillis", System.currentTimeMillis() - start);
+        return report;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("watermark", getWatermark());
+        metrics.put("retentionDays", retentionDays);
+        metrics.put("lastRun", lastRun);
+        metrics.put("lastRunMillis", lastRunMillis);
+        metrics.put("lastDaysRolledUp", lastDaysRolledUp);
+        metrics.put("lastCheckpointRows", lastSnapshotRows);
+        metrics.put("lastCompactedTransactions", lastCompactedTransactions);
+        metrics.put("lastCompactedCheckpoints", lastCompactedSnapshots);
+        return metrics;
+    }
+
+    // ========== Internals ==========
+
+    private LocalDate getWatermark() {
+        Date watermark = jdbcTemplate.queryForObject(
+                "SELECT MAX(snapshot_date) FROM inventory_stock_snapshots", Date.class);
+        return watermark != null ? watermark.toLocalDate() : null;
+    }
+
+    /**
+     * Day after the newest checkpoint or summary - on the first run the oldest movement
+     */
+    private LocalDate firstDayToRollUp() {
+        LocalDate watermark = getWatermark();
+        Date lastSummary = jdbcTemplate.queryForObject(
+                "SELECT MAX(movement_date) FROM inventory_daily_movements", Date.class);
+        LocalDate from = watermark;
+        if (lastSummary != null && (from == null || !lastSummary.toLocalDate().isBefore(from))) {
+            from = lastSummary.toLocalDate().plusDays(1);
+        }
+        return nextRawDay(from != null ? from : LocalDate.of(1970, 1, 1));
+    }
+
+    private LocalDate nextRawDay(LocalDate from) {
+        Timestamp since = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp next = jdbcTemplate.queryForObject(NEXT_RAW_DAY_SQL, Timestamp.class, since, since);
+        return next != null ? next.toLocalDateTime().toLocalDate() : null;
+    }
+
+    private void rollUpDay(LocalDate day) {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        jdbcTemplate.update(ROLLUP_DAY_SQL, Date.valueOf(day), from, to, from, to);
+    }
+
+    private int writeCheckpoint(LocalDate day) {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(LocalDateTime.now().plusDays(1));
+        // READ COMMITTED: one consistent non-locking read of products and movements,
+        // stock writes are not blocked while the checkpoint is taken
+        TransactionTemplate readCommitted = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readCommitted.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        Integer rows = readCommitted.execute(status ->
+                jdbcTemplate.update(SNAPSHOT_SQL, Date.valueOf(day), from, to, from, to));
+        return rows != null ? rows : 0;
+    }
+
+    private void compact(LocalDate today) {
+        LocalDate cutoff = today.minusDays(retentionDays);
+        Date cutoffDate = Date.valueOf(cutoff);
+        lastCompactedTransactions = deleteInBatches(
+                "DELETE FROM inventory_transactions WHERE transaction_date < ? LIMIT ?",
+                Timestamp.valueOf(cutoff.atStartOfDay()));
+        lastCompactedSnapshots = deleteInBatches(
+                "DELETE FROM inventory_stock_snapshots WHERE snapshot_date < ? AND DAYOFMONTH(snapshot_date) <> 1 LIMIT ?",
+                cutoffDate);
+    }
+
+    private long deleteInBatches(String sql, Object cutoff) {
+        long deleted = 0;
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            int rows = jdbcTemplate.update(sql, cutoff, batchSize);
+            deleted += rows;
+            if (rows < batchSize) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    private long[] sumRaw(Long productId, LocalDateTime from, LocalDateTime to) {
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+        return jdbcTemplate.queryForObject(PRODUCT_RAW_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                productId, fromTs, toTs, productId, fromTs, toTs);
+    }
+}
@@ -2,26 +2,55 @@ package com.perfect8.shop.service;
 
 import com.perfect8.shop.entity.Product;
 import com.perfect8.shop.entity.InventoryTransaction;
+import com.perfect8.shop.entity.StockHold;
+import com.perfect8.shop.event.ProductChangedEvent;
+import com.perfect8.shop.exception.InsufficientStockException;
+import com.perfect8.shop.exception.ProductNotFoundException;
 import com.perfect8.shop.repository.ProductRepository;
-import com.perfect8.shop.repository.InventoryTransactionRepository;
+import com.perfect8.shop.repository.StockHoldRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 /**
  * Inventory Service - Version 1.0
  * Core inventory functionality for order processing
  *
  * CRITICAL: Stock accuracy is essential for customer satisfaction!
+ *
+ * FIXED (2026-10-16): All stock changes are single conditional UPDATEs
+ * (ProductRepository.moveStock) - no read-modify-write, no lost updates
+ *
+ * ADDED (2026-10-16): Time-boxed stock holds. Order lines are held (sellable -> reserved)
+ * with a StockHold row per product that expires after shop.stock-holds.ttl-minutes.
+ * Payment confirms the holds, cancellation releases them and StockHoldSweeper
+ * returns expired holds to sellable stock.
+ *
+ * ADDED (2026-10-16): Flash sale - armed products are held from FlashSaleService tokens
+ * (no products row update per checkout); their journal is folded before holds are settled.
+ *
+ * ADDED (2026-10-16): Audit rows go through InventoryAuditLog - one batched outbox
+ * insert per transaction instead of an IDENTITY insert per movement.
+ *
+ * FIXED (2026-10-16): Soft checks (checkAvailability, getStockLevel, isLowStock) read
+ * StockAvailabilityCache instead of loading the product - holdStock stays authoritative.
  */
 @Slf4j
 @Service
@@ -30,7 +59,28 @@ import java.util.stream.Collectors;
 public class InventoryService {
 
     private final ProductRepository productRepository;
-    private final InventoryTransactionRepository inventoryTransactionRepository;
+    private final InventoryAuditLog inventoryAuditLog;
+    private final InventoryLedger inventoryLedger;
+    private final InventoryAggregates inventoryAggregates;
+    private final ReorderEngine reorderEngine;
+    private final FlashSaleService flashSaleService;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockReservationMetrics reservationMetrics;
+    private final StockHoldRepository stockHoldRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int STOCK_HISTORY_LIMIT = 100;
+    private static final int REORDER_SUGGESTION_LIMIT = 100;
+
+    private static final String LOCK_STOCK_SQL =
+            "SELECT stock_quantity FROM products WHERE product_id = ? FOR UPDATE";
+
+    @Value("${shop.stock-holds.ttl-minutes:30}")
+    private long holdTtlMinutes;
+
+    @Value("${shop.stock-holds.retry-minutes:5}")
+    private long holdRetryMinutes;
 
     /**
      * Check if product is available for order
@@ -38,16 +88,17 @@ public class InventoryService {
      */
     public boolean checkAvailability(Long productId, Integer quantity) {
         try {
-            Product product = productRepository.findById(productId).orElse(null);
-            if (product == null) {
+            StockAvailabilityCache.StockLevel stockLevel =
+                    stockAvailabilityCache.getLevels(List.of(productId)).get(productId);
+            if (stockLevel == null) {
                 log.warn("Product {} not found when checking availability", productId);
                 return false;
             }
 
-            boolean available = product.getStockQuantity() >= quantity;
+            boolean available = stockLevel.available() >= quantity;
             if (!available) {
                 log.info("Product {} insufficient stock: requested {}, available {}",
-                        productId, quantity, product.getStockQuantity());
+                        productId, quantity, stockLevel.available());
             }
             return available;
         } catch (Exception e) {
@@ -68,8 +119,7 @@ public class InventoryService {
      */
     public Integer getStockLevel(Long productId) {
         try {
-            Product product = productRepository.findById(productId).orElse(null);
-            return product != null ? product.getStockQuantity() : 0;
+            return stockAvailabilityCache.getAvailable(productId);
         } catch (Exception e) {
             log.error("Error getting stock level for product {}: {}", productId, e.getMessage());
             return 0;
@@ -79,38 +129,271 @@ public class InventoryService {
     /**
      * Reserve stock for pending order
      * Used when order is created but payment not yet confirmed
+     * FIXED (2026-10-16): One conditional UPDATE (stock_quantity >= quantity checked by MySQL)
+     * instead of findById + compare + save - concurrent checkouts can no longer oversell
      */
     @Transactional
     public boolean reserveStock(Long productId, Integer quantity) {
+        if (productId == null || quantity == null || quantity <= 0) {
+            return false;
+        }
         try {
-            Product product = productRepository.findById(productId).orElse(null);
-            if (product == null) {
-                log.error("Product {} not found for stock reservation", productId);
-                return false;
+            return tryReserve(productId, quantity, false);
+        } catch (Exception e) {
+            log.error("Error reserving stock for product {}: {}", productId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Hold stock for all lines of a pending order - all or nothing
+     * ADDED (2026-10-16): Lines for the same product are merged and held in ascending
+     * product ID order, so concurrent multi-line checkouts lock rows in the same order
+     * (no deadlocks). Each product gets one StockHold row expiring after the hold TTL.
+     * Throws InsufficientStockException / ProductNotFoundException, which rolls back
+     * the caller's transaction including lines already held.
+     * FIXED (2026-10-16): All non flash-sale lines are held with ONE locking SELECT and ONE
+     * multi-row UPDATE and the holds inserted as one JDBC batch - a constant number of round
+     * trips instead of an UPDATE + SELECT + INSERT per line
+     */
+    @Transactional
+    public void holdStock(Long orderId, Map<Long, Integer> quantitiesByProductId) {
+        LocalDateTime expiryDate = LocalDateTime.now().plusMinutes(holdTtlMinutes);
+        Map<Long, Integer> toReserve = new TreeMap<>();
+        List<StockHold> holds = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantitiesByProductId).entrySet()) {
+            Long productId = line.getKey();
+            int quantity = line.getValue();
+            if (quantity <= 0) {
+                continue;
+            }
+            // Armed flash-sale products are decided by an in-memory token, the rest by the conditional UPDATE
+            if (!flashSaleService.tryTake(orderId, productId, quantity)) {
+                toReserve.put(productId, quantity);
             }
+            holds.add(StockHold.builder()
+                    .orderId(orderId)
+                    .productId(productId)
+                    .quantity(quantity)
+                    .expiryDate(expiryDate)
+                    .build());
+        }
+        if (!toReserve.isEmpty()) {
+            reserveAll(toReserve);
+        }
+        insertHolds(holds);
+    }
 
-            if (product.getStockQuantity() < quantity) {
-                log.warn("Insufficient stock for product {}: requested {}, available {}",
-                        productId, quantity, product.getStockQuantity());
-                return false;
+    /**
+     * Hold every line with one UPDATE. FIXED (2026-10-17): the rows are first locked with
+     * SELECT ... FOR UPDATE (primary key order, the same order as single-line holds), so
+     * the shortfall is decided from the locked stock before anything is written - a
+     * missing product or too little stock throws and the transaction rolls back.
+     */
+    private void reserveAll(Map<Long, Integer> quantitiesByProductId) {
+        String ids = String.join(",", Collections.nCopies(quantitiesByProductId.size(), "?"));
+
+        long start = System.nanoTime();
+        Map<Long, Integer> lockedStock = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, stock_quantity FROM products WHERE product_id IN (" + ids + ") "
+                + "ORDER BY product_id FOR UPDATE", rs -> {
+            lockedStock.put(rs.getLong(1), rs.getInt(2));
+        }, quantitiesByProductId.keySet().toArray());
+
+        for (Map.Entry<Long, Integer> line : quantitiesByProductId.entrySet()) {
+            Long productId = line.getKey();
+            Integer stock = lockedStock.get(productId);
+            if (stock == null) {
+                throw new ProductNotFoundException("Product not found: " + productId);
             }
+            if (stock < line.getValue()) {
+                long elapsed = System.nanoTime() - start;
+                reservationMetrics.recordReservation(productId, line.getValue(), false, elapsed);
+                log.warn("Insufficient stock for product {}: requested {}", productId, line.getValue());
+                Product product = productRepository.findById(productId)
+                        .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+                throw InsufficientStockException.forProductSku(productId, product.getName(), product.getSku(),
+                        line.getValue(), stock);
+            }
+        }
 
-            // Decrease stock
-            Integer oldQuantity = product.getStockQuantity();
-            product.setStockQuantity(product.getStockQuantity() - quantity);
-            productRepository.save(product);
+        StringBuilder cases = new StringBuilder("CASE product_id");
+        List<Object> caseArgs = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : quantitiesByProductId.entrySet()) {
+            cases.append(" WHEN ? THEN ?");
+            caseArgs.add(line.getKey());
+            caseArgs.add(line.getValue());
+        }
+        cases.append(" END");
+
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.addAll(caseArgs);
+        args.addAll(caseArgs);
+        args.addAll(quantitiesByProductId.keySet());
+
+        // Rows are locked and checked - every one of them must be updated
+        int updated = jdbcTemplate.update("UPDATE products SET updated_date = ?, stock_quantity = stock_quantity - "
+                + cases + ", reserved_quantity = reserved_quantity + " + cases + " "
+                + "WHERE product_id IN (" + ids + ")", args.toArray());
+        long elapsedPerLine = (System.nanoTime() - start) / quantitiesByProductId.size();
+        if (updated != quantitiesByProductId.size()) {
+            throw new IllegalStateException("Stock hold updated " + updated + " of "
+                    + quantitiesByProductId.size() + " locked products");
+        }
 
-            // Log transaction
-            logInventoryTransaction(product, "RESERVED", oldQuantity,
-                    product.getStockQuantity(), -quantity, "Stock reserved for order");
+        Map<Long, Integer> stockAfter = new HashMap<>();
+        quantitiesByProductId.forEach((productId, quantity) ->
+                stockAfter.put(productId, lockedStock.get(productId) - quantity));
+
+        for (Map.Entry<Long, Integer> line : quantitiesByProductId.entrySet()) {
+            Long productId = line.getKey();
+            int quantity = line.getValue();
+            int newQuantity = stockAfter.getOrDefault(productId, 0);
+            reservationMetrics.recordReservation(productId, quantity, true, elapsedPerLine);
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
+            logInventoryTransaction(productRepository.getReferenceById(productId), "RESERVED",
+                    newQuantity + quantity, newQuantity, -quantity, "Stock held for order");
+        }
+        log.info("Held stock for {} products with one update", quantitiesByProductId.size());
+    }
 
-            log.info("Reserved {} units of product {}", quantity, productId);
-            return true;
+    private void insertHolds(List<StockHold> holds) {
+        if (holds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO stock_holds (order_id, product_id, quantity, expiry_date, created_date) "
+                + "VALUES (?, ?, ?, ?, ?)", holds, holds.size(), (ps, hold) -> {
+            ps.setLong(1, hold.getOrderId());
+            ps.setLong(2, hold.getProductId());
+            ps.setInt(3, hold.getQuantity());
+            ps.setTimestamp(4, Timestamp.valueOf(hold.getExpiryDate()));
+            ps.setTimestamp(5, now);
+        });
+    }
 
-        } catch (Exception e) {
-            log.error("Error reserving stock for product {}: {}", productId, e.getMessage(), e);
+    /**
+     * Conditional decrement - false if the product is missing or has too little stock.
+     * With hold=true the units move to Product.reservedQuantity instead of leaving the books.
+     */
+    private boolean tryReserve(Long productId, int quantity, boolean hold) {
+        long start = System.nanoTime();
+        int updated = productRepository.moveStock(productId, -quantity, hold ? quantity : 0);
+        reservationMetrics.recordReservation(productId, quantity, updated == 1, System.nanoTime() - start);
+
+        if (updated == 0) {
+            log.warn("Insufficient stock for product {}: requested {}", productId, quantity);
+            return false;
+        }
+
+        int newQuantity = productRepository.findStockQuantity(productId).orElse(0);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+
+        // Log transaction
+        logInventoryTransaction(productRepository.getReferenceById(productId), "RESERVED",
+                newQuantity + quantity, newQuantity, -quantity,
+                hold ? "Stock held for order" : "Stock reserved for order");
+
+        log.info("Reserved {} units of product {}", quantity, productId);
+        return true;
+    }
+
+    /**
+     * Release the active holds of an order (cancelled before payment)
+     * ADDED (2026-10-16): Only units still held go back - holds that already expired
+     * were returned by the sweeper. Returns the number of units released.
+     */
+    @Transactional
+    public int releaseHolds(Long orderId) {
+        List<StockHold> holds = stockHoldRepository.findByOrderIdForUpdate(orderId);
+        List<StockHold> settled = new ArrayList<>(holds.size());
+        int released = 0;
+        for (StockHold hold : holds) {
+            if (settleHold(hold, hold.getQuantity(), "RELEASED", "Stock hold released (order cancelled)")) {
+                settled.add(hold);
+                released += hold.getQuantity();
+            } else {
+                retryLater(hold);
+            }
+        }
+        stockHoldRepository.deleteAllInBatch(settled);
+        log.info("Released {} held units for order {}", released, orderId);
+        return released;
+    }
+
+    /**
+     * Return expired holds to sellable stock - one batch, oldest first
+     * ADDED (2026-10-16): Called by StockHoldSweeper. Locked rows (being confirmed or
+     * swept elsewhere) are skipped. Returns the number of holds expired.
+     */
+    @Transactional
+    public int expireHolds(int batchSize) {
+        List<StockHold> expired = stockHoldRepository.findExpiredForUpdate(
+                LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        // Settle in product ID order - same lock order as checkouts
+        expired.sort(Comparator.comparing(StockHold::getProductId));
+        List<StockHold> settled = new ArrayList<>(expired.size());
+        for (StockHold hold : expired) {
+            if (settleHold(hold, hold.getQuantity(), "RELEASED",
+                    "Stock hold expired (order " + hold.getOrderId() + ")")) {
+                settled.add(hold);
+            } else {
+                retryLater(hold);
+            }
+        }
+        stockHoldRepository.deleteAllInBatch(settled);
+        return settled.size();
+    }
+
+    /**
+     * Keep a hold whose units could not be moved - deleting it would lose them for good.
+     * FIXED (2026-10-17): The hold is pushed shop.stock-holds.retry-minutes into the future,
+     * so StockHoldSweeper retries it without it blocking the head of every sweep batch.
+     */
+    private void retryLater(StockHold hold) {
+        LocalDateTime retryAt = LocalDateTime.now().plusMinutes(holdRetryMinutes);
+        hold.setExpiryDate(retryAt);
+        log.error("Stock hold {} (order {}, product {}, {} units) could not be settled - kept, retry at {}",
+                hold.getStockHoldId(), hold.getOrderId(), hold.getProductId(), hold.getQuantity(), retryAt);
+    }
+
+    /**
+     * Move a hold's units back to sellable stock (RELEASED) or out of the books (STOCK_OUT)
+     */
+    private boolean settleHold(StockHold hold, int stockDelta, String transactionType, String notes) {
+        Long productId = hold.getProductId();
+        int quantity = hold.getQuantity();
+        // Flash-sale holds are only in reserved_quantity once the journal is folded
+        flashSaleService.foldJournal(productId);
+        if (productRepository.moveStock(productId, stockDelta, -quantity) == 0) {
+            log.error("Reserved quantity of product {} is lower than hold {} ({} units)",
+                    productId, hold.getStockHoldId(), quantity);
             return false;
         }
+        if (stockDelta > 0) {
+            reservationMetrics.recordRelease(productId, stockDelta);
+        }
+
+        int newQuantity = productRepository.findStockQuantity(productId).orElse(0);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        logInventoryTransaction(productRepository.getReferenceById(productId), transactionType,
+                newQuantity - stockDelta, newQuantity, stockDelta, notes);
+        return true;
+    }
+
+    /**
+     * Audit the stock a new product starts with - replay and checkpoints only see audited movements
+     */
+    public void recordInitialStock(Product product) {
+        int quantity = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+        if (quantity > 0) {
+            logInventoryTransaction(product, "STOCK_IN", 0, quantity, quantity, "Initial stock");
+        }
     }
 
     /**
@@ -120,20 +403,18 @@ public class InventoryService {
     @Transactional
     public boolean releaseReservedStock(Long productId, Integer quantity) {
         try {
-            Product product = productRepository.findById(productId).orElse(null);
-            if (product == null) {
+            if (productRepository.moveStock(productId, quantity, 0) == 0) {
                 log.error("Product {} not found for stock release", productId);
                 return false;
             }
+            reservationMetrics.recordRelease(productId, quantity);
 
-            // Increase stock back
-            Integer oldQuantity = product.getStockQuantity();
-            product.setStockQuantity(product.getStockQuantity() + quantity);
-            productRepository.save(product);
+            int newQuantity = productRepository.findStockQuantity(productId).orElse(0);
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
 
             // Log transaction
-            logInventoryTransaction(product, "RELEASED", oldQuantity,
-                    product.getStockQuantity(), quantity, "Reserved stock released");
+            logInventoryTransaction(productRepository.getReferenceById(productId), "RELEASED",
+                    newQuantity - quantity, newQuantity, quantity, "Reserved stock released");
 
             log.info("Released {} reserved units of product {}", quantity, productId);
             return true;
@@ -171,6 +452,44 @@ public class InventoryService {
         }
     }
 
+    /**
+     * Confirm the stock of a paid order - converts its holds into stock-outs
+     * ADDED (2026-10-16): Held units leave Product.reservedQuantity. Lines whose hold
+     * already expired are taken from sellable stock again; if that stock is gone the
+     * shortfall is logged (the order is paid - it is not rejected here).
+     * FIXED (2026-10-17): A hold that could not be settled is kept (retryLater) like in
+     * releaseHolds and expireHolds - its units are still booked in reserved_quantity.
+     */
+    @Transactional
+    public void confirmStock(Long orderId, Map<Long, Integer> quantitiesByProductId) {
+        Map<Long, Integer> held = new HashMap<>();
+        List<StockHold> holds = stockHoldRepository.findByOrderIdForUpdate(orderId);
+        List<StockHold> settled = new ArrayList<>(holds.size());
+        for (StockHold hold : holds) {
+            if (settleHold(hold, 0, "STOCK_OUT", "Held stock confirmed after payment (order " + orderId + ")")) {
+                settled.add(hold);
+                held.merge(hold.getProductId(), hold.getQuantity(), Integer::sum);
+            } else {
+                retryLater(hold);
+            }
+        }
+        stockHoldRepository.deleteAllInBatch(settled);
+
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantitiesByProductId).entrySet()) {
+            int missing = line.getValue() - held.getOrDefault(line.getKey(), 0);
+            if (missing <= 0) {
+                continue;
+            }
+            if (tryReserve(line.getKey(), missing, false)) {
+                log.info("Order {}: hold for product {} had expired, took {} units from stock again",
+                        orderId, line.getKey(), missing);
+            } else {
+                log.error("Order {} is paid but product {} is short by {} units (hold expired, stock sold)",
+                        orderId, line.getKey(), missing);
+            }
+        }
+    }
+
     /**
      * Release stock (generic method for backwards compatibility)
      */
@@ -185,20 +504,17 @@ public class InventoryService {
     @Transactional
     public boolean returnToStock(Long productId, Integer quantity) {
         try {
-            Product product = productRepository.findById(productId).orElse(null);
-            if (product == null) {
+            if (productRepository.moveStock(productId, quantity, 0) == 0) {
                 log.error("Product {} not found for return to stock", productId);
                 return false;
             }
 
-            // Increase stock for returned items
-            Integer oldQuantity = product.getStockQuantity();
-            product.setStockQuantity(product.getStockQuantity() + quantity);
-            productRepository.save(product);
+            int newQuantity = productRepository.findStockQuantity(productId).orElse(0);
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
 
             // Log transaction
-            logInventoryTransaction(product, "STOCK_IN", oldQuantity,
-                    product.getStockQuantity(), quantity, "Items returned to stock");
+            logInventoryTransaction(productRepository.getReferenceById(productId), "STOCK_IN",
+                    newQuantity - quantity, newQuantity, quantity, "Items returned to stock");
 
             log.info("Returned {} units to stock for product {}", quantity, productId);
             return true;
@@ -211,30 +527,23 @@ public class InventoryService {
 
     /**
      * Adjust stock with reason
+     * FIXED (2026-10-16): Atomic - the database refuses adjustments below 0
      */
     @Transactional
     public boolean adjustStock(Long productId, Integer adjustment, String reason) {
         try {
-            Product product = productRepository.findById(productId).orElse(null);
-            if (product == null) {
-                log.error("Product {} not found for stock adjustment", productId);
+            if (productRepository.moveStock(productId, adjustment, 0) == 0) {
+                log.warn("Cannot adjust stock for product {} by {} (missing product or stock below 0)",
+                        productId, adjustment);
                 return false;
             }
 
-            Integer oldQuantity = product.getStockQuantity();
-            int newStock = product.getStockQuantity() + adjustment;
-            if (newStock < 0) {
-                log.warn("Cannot adjust stock below 0 for product {}", productId);
-                return false;
-            }
-
-            product.setStockQuantity(newStock);
-            productRepository.save(product);
+            int newStock = productRepository.findStockQuantity(productId).orElse(0);
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
 
             // Log transaction
-            String type = adjustment > 0 ? "ADJUSTMENT" : "ADJUSTMENT";
-            logInventoryTransaction(product, type, oldQuantity,
-                    newStock, adjustment, reason);
+            logInventoryTransaction(productRepository.getReferenceById(productId), "ADJUSTMENT",
+                    newStock - adjustment, newStock, adjustment, reason);
 
             log.info("Adjusted stock for product {} by {} units. Reason: {}",
                     productId, adjustment, reason);
@@ -246,6 +555,33 @@ public class InventoryService {
         }
     }
 
+    /**
+     * Set sellable stock to an absolute quantity (stock count, admin product edit)
+     * ADDED (2026-10-17): The row is locked before the delta is computed, so the
+     * adjustment - and its audit row - is exact even while checkouts are running.
+     */
+    @Transactional
+    public boolean setStock(Long productId, Integer quantity, String reason) {
+        if (quantity == null || quantity < 0) {
+            log.warn("Cannot set stock for product {} to {}", productId, quantity);
+            return false;
+        }
+        List<Integer> current = jdbcTemplate.queryForList(LOCK_STOCK_SQL, Integer.class, productId);
+        if (current.isEmpty()) {
+            log.warn("Product {} not found for stock update", productId);
+            return false;
+        }
+        int adjustment = quantity - current.get(0);
+        return adjustment == 0 || adjustStock(productId, adjustment, reason);
+    }
+
+    /**
+     * Reservation contention per product (for /health/status)
+     */
+    public Map<String, Object> getReservationMetrics(int limit) {
+        return reservationMetrics.getMetrics(limit);
+    }
+
     /**
      * Log inventory transaction for audit trail
      */
@@ -264,7 +600,7 @@ public class InventoryService {
                     .userId("SYSTEM") // In v2.0, get from security context
                     .build();
 
-            inventoryTransactionRepository.save(transaction);
+            inventoryAuditLog.record(transaction);
 
         } catch (Exception e) {
             log.error("Failed to log inventory transaction: {}", e.getMessage());
@@ -277,18 +613,19 @@ public class InventoryService {
      */
     public boolean isLowStock(Long productId) {
         try {
-            Product product = productRepository.findById(productId).orElse(null);
-            if (product == null) {
+            StockAvailabilityCache.StockLevel stockLevel =
+                    stockAvailabilityCache.getLevels(List.of(productId)).get(productId);
+            if (stockLevel == null) {
                 return false;
             }
 
             // Check against reorder point if set
-            if (product.getReorderPoint() != null && product.getReorderPoint() > 0) {
-                return product.getStockQuantity() <= product.getReorderPoint();
+            if (stockLevel.reorderPoint() != null && stockLevel.reorderPoint() > 0) {
+                return stockLevel.available() <= stockLevel.reorderPoint();
             }
 
             // Default low stock threshold
-            return product.getStockQuantity() <= 10;
+            return stockLevel.available() <= 10;
 
         } catch (Exception e) {
             log.error("Error checking low stock for product {}: {}", productId, e.getMessage());
@@ -298,18 +635,20 @@ public class InventoryService {
 
     /**
      * Get products that are low on stock
+     * FIXED (2026-10-16): Served by InventoryAggregates (lowest stock first) instead of
+     * filtering findAll() - the repository query is only used until the aggregates are loaded
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Product> getLowStockProducts(Integer threshold) {
         try {
             if (threshold == null) {
                 threshold = 10;
             }
 
-            // Simple implementation for v1.0
-            final Integer finalThreshold = threshold;
-            return productRepository.findAll().stream()
-                    .filter(p -> p.getStockQuantity() <= finalThreshold)
-                    .collect(Collectors.toList());
+            if (inventoryAggregates.isReady()) {
+                return inventoryAggregates.findAtOrBelowStock(threshold, Integer.MAX_VALUE);
+            }
+            return productRepository.findByStockQuantityLessThanAndActiveTrue(threshold + 1);
 
         } catch (Exception e) {
             log.error("Error getting low stock products: {}", e.getMessage());
@@ -335,53 +674,67 @@ public class InventoryService {
     // These return minimal data for v2.0 features
 
     /**
-     * V1.0 STUB - Returns basic inventory metrics
+     * Basic inventory metrics (active products)
+     * FIXED (2026-10-16): Read from the running totals in InventoryAggregates - no catalog scan.
+     * lowStockItems = products at or below their reorder point, totalValue = on hand x price.
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Map<String, Object> getInventoryMetrics() {
-        log.debug("InventoryService.getInventoryMetrics() - minimal v1.0 implementation");
+        if (inventoryAggregates.isReady()) {
+            Map<String, Object> metrics = inventoryAggregates.getMetrics();
+            metrics.put("version", "1.0-basic");
+            return metrics;
+        }
 
+        // Aggregates not loaded yet (startup) - counts only
         Map<String, Object> basicMetrics = new HashMap<>();
-        basicMetrics.put("totalProducts", productRepository.count());
+        basicMetrics.put("totalProducts", productRepository.countByActiveTrue());
         basicMetrics.put("totalValue", BigDecimal.ZERO);
-        basicMetrics.put("lowStockItems", getLowStockProducts(10).size());
-
-        // Count out of stock items manually for v1.0
-        long outOfStock = productRepository.findAll().stream()
-                .filter(p -> p.getStockQuantity() <= 0)
-                .count();
-        basicMetrics.put("outOfStockItems", outOfStock);
+        basicMetrics.put("lowStockItems", productRepository.countByStockQuantityLessThanEqualAndActiveTrue(10));
+        basicMetrics.put("outOfStockItems", productRepository.countByStockQuantityLessThanEqualAndActiveTrue(0));
         basicMetrics.put("version", "1.0-basic");
 
         return basicMetrics;
     }
 
     /**
-     * V1.0 STUB - Returns empty inventory report
+     * Stock movement report for a period (day, week, month, quarter, year)
+     * ADDED (2026-10-16): Served by InventoryLedger - daily summaries plus today's movements,
+     * so the cost follows the period and not the size of inventory_transactions
      */
     public Map<String, Object> getInventoryReport(String period) {
-        log.debug("InventoryService.getInventoryReport() - not implemented in v1.0");
-
-        Map<String, Object> emptyData = new HashMap<>();
-        emptyData.put("period", period);
-        emptyData.put("message", "Detailed reports available in v2.0");
+        return inventoryLedger.getReport(period);
+    }
 
-        return emptyData;
+    /**
+     * Stock quantity of a product at a point in time (checkpoint plus replayed movements)
+     */
+    public Map<String, Object> getStockAt(Long productId, LocalDateTime at) {
+        if (!productRepository.existsById(productId)) {
+            throw new ProductNotFoundException("Product not found: " + productId);
+        }
+        return inventoryLedger.getStockAt(productId, at);
     }
 
     /**
-     * V1.0 STUB - Returns empty low stock alerts
+     * Low stock alerts - products at or below the threshold, or at or below their
+     * own reorder point when no threshold is given (furthest below first)
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getLowStockAlerts(Integer threshold) {
-        log.debug("InventoryService.getLowStockAlerts() - simplified v1.0 implementation");
-
         List<Map<String, Object>> alerts = new ArrayList<>();
-        List<Product> lowStock = getLowStockProducts(threshold);
+        List<Product> lowStock = threshold == null && inventoryAggregates.isReady()
+                ? inventoryAggregates.findAtOrBelowReorderPoint(Integer.MAX_VALUE)
+                : getLowStockProducts(threshold);
 
         for (Product product : lowStock) {
             Map<String, Object> alert = new HashMap<>();
             alert.put("productId", product.getProductId());
             alert.put("productName", product.getName());
+            alert.put("sku", product.getSku());
             alert.put("currentStock", product.getStockQuantity());
+            alert.put("reorderPoint", product.getReorderPoint());
+            alert.put("reorderQuantity", product.getReorderQuantity());
             alerts.add(alert);
         }
 
@@ -389,21 +742,19 @@ public class InventoryService {
     }
 
     /**
-     * V1.0 STUB - Returns basic stock adjustment history
+     * Stock movement history of a product, newest first
+     * ADDED (2026-10-16): Served by InventoryAuditLog - includes movements still in the outbox
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Map<String, Object>> getStockAdjustmentHistory(Long productId) {
-        log.debug("InventoryService.getStockAdjustmentHistory() - minimal v1.0 implementation");
-
-        // Simplified for v1.0 - return empty list
-        // Full transaction history will be implemented in v2.0
-        return new ArrayList<>();
+        return inventoryAuditLog.getHistory(productId, STOCK_HISTORY_LIMIT);
     }
 
     /**
-     * V1.0 STUB - Returns empty reorder suggestions
+     * Reorder suggestions - most urgent (lowest days of cover) first
+     * ADDED (2026-10-16): Served by ReorderEngine from decayed sales velocity
      */
     public List<Map<String, Object>> getReorderSuggestions() {
-        log.debug("InventoryService.getReorderSuggestions() - not implemented in v1.0");
-        return new ArrayList<>();
+        return reorderEngine.getSuggestions(REORDER_SUGGESTION_LIMIT);
     }
 }
\ No newline at end of file
@@ -3,16 +3,24 @@ package com.perfect8.shop.service;
 import com.perfect8.shop.dto.*;
 import com.perfect8.shop.entity.*;
 import com.perfect8.common.enums.OrderStatus;
+import com.perfect8.common.money.Money;
+import com.perfect8.shop.event.OrderPaidEvent;
 import com.perfect8.shop.exception.*;
 import com.perfect8.shop.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,6 +34,15 @@ import java.util.stream.Collectors;
  * - cancelOrder(Long, String) overload added for OrderController
  * - processReturn(Long, String) added for OrderController
  * - setAddressesFromRequest reads individual fields first (address-parsing fix)
+ *
+ * FIXED 2026-10-16:
+ * - createOrder holds stock for all lines with one InventoryService.holdStock call
+ *   (atomic conditional decrements in product ID order) instead of check + reserve per line
+ * - Holds expire (StockHoldSweeper) if the order is not paid in time; payment confirms
+ *   them, cancelling a pending order releases them
+ * - createOrder loads all products with one IN query and inserts the order lines as one
+ *   JDBC batch - the round trips per order no longer grow with the number of lines
+ * - Order totals are summed as long minor units (common Money)
  */
 @Service
 @RequiredArgsConstructor
@@ -41,12 +58,21 @@ public class OrderService {
     private final PaymentService paymentService;
     private final ShippingService shippingService;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final CheckoutMetrics checkoutMetrics;
+
+    private static final String INSERT_ORDER_ITEM_SQL = "INSERT INTO order_items (order_id, product_id, "
+            + "product_sku, product_name, quantity, unit_price, discount_amount, tax_amount, price, item_status, "
+            + "product_description, shipped_quantity, returned_quantity, refunded_quantity, created_date, updated_date) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     // ========== CREATE ==========
 
     @Transactional
     public Order createOrder(CreateOrderRequest request) {
         log.info("Creating order for customer ID: {}", request.getCustomerId());
+        long start = System.nanoTime();
 
         Customer customer = customerRepository.findById(request.getCustomerId())
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found: " + request.getCustomerId()));
@@ -72,12 +98,23 @@ public class OrderService {
             order.setOrderItems(new ArrayList<>());
         }
 
+        Map<Long, Integer> quantities = new HashMap<>();
         for (CreateOrderRequest.OrderItemRequest itemRequest : request.getOrderItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ProductNotFoundException("Product not found: " + itemRequest.getProductId()));
+            quantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
+        }
 
-            inventoryService.checkAvailability(product.getProductId(), itemRequest.getQuantity());
-            inventoryService.reserveStock(product.getProductId(), itemRequest.getQuantity());
+        // All products of the order in one IN query
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getProductId(), product);
+        }
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (CreateOrderRequest.OrderItemRequest itemRequest : request.getOrderItems()) {
+            Product product = products.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new ProductNotFoundException("Product not found: " + itemRequest.getProductId());
+            }
 
             OrderItem orderItem = OrderItem.builder()
                     .order(order)
@@ -89,16 +126,22 @@ public class OrderService {
                     .productDescription(product.getDescription())
                     .build();
 
-            orderItem.setPrice(
-                    orderItem.getUnitPrice().multiply(BigDecimal.valueOf(orderItem.getQuantity()))
-            );
+            orderItem.calculatePrice();
 
-            order.getOrderItems().add(orderItem);
+            orderItems.add(orderItem);
         }
 
-        calculateOrderTotals(order);
+        calculateOrderTotals(order, orderItems);
 
         Order savedOrder = orderRepository.save(order);
+        insertOrderItems(savedOrder, orderItems);
+
+        // All lines held, all or nothing (rolls back the order on insufficient stock)
+        inventoryService.holdStock(savedOrder.getOrderId(), quantities);
+
+        // Managed rows with their generated IDs - one select
+        savedOrder.getOrderItems().addAll(orderItemRepository.findByOrderId(savedOrder.getOrderId()));
+        checkoutMetrics.record(request.getOrderItems().size(), System.nanoTime() - start);
 
         emailService.sendEmail(
                 savedOrder.getShippingEmail(),
@@ -129,6 +172,17 @@ public class OrderService {
         return orderRepository.findAll(pageable).map(this::convertToDTO);
     }
 
+    /**
+     * Keyset (cursor) listing of all orders - constant cost per page, no COUNT(*).
+     * includeTotal adds an estimate from InnoDB table statistics.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> scrollAllOrders(String cursor, int size, Sort sort, boolean includeTotal) {
+        Window<Order> window = orderRepository.findAllBy(PageCursor.decode(cursor, sort), sort, PageCursor.limitOf(size));
+        return PageCursor.toPage(window, sort, this::convertToDTO,
+                includeTotal ? orderRepository.estimateRowCount() : null);
+    }
+
     @Transactional(readOnly = true)
     public Page<OrderDTO> getOrdersByCustomerId(Long customerId, Pageable pageable) {
         return orderRepository.findByCustomerCustomerId(customerId, pageable)
@@ -183,8 +237,9 @@ public class OrderService {
     @Transactional
     public Order cancelOrder(Long orderId, String reason) {
         Order order = getOrderById(orderId);
+        OrderStatus previousStatus = order.getOrderStatus();
 
-        if (!canBeCancelled(order.getOrderStatus())) {
+        if (!canBeCancelled(previousStatus)) {
             throw new IllegalStateException("Order cannot be cancelled in status: " + order.getOrderStatus());
         }
 
@@ -192,7 +247,7 @@ public class OrderService {
         if (reason != null) {
             order.setInternalNotes(reason);
         }
-        handleOrderCancelled(order);
+        handleOrderCancelled(order, previousStatus);
         return orderRepository.save(order);
     }
 
@@ -376,18 +431,44 @@ public class OrderService {
 
     // ========== PRIVATE HELPERS ==========
 
-    private void calculateOrderTotals(Order order) {
-        BigDecimal subtotal = BigDecimal.ZERO;
-        for (OrderItem item : order.getOrderItems()) {
-            subtotal = subtotal.add(item.getPrice());
+    /**
+     * Order lines as one JDBC batch (multi-row INSERT with rewriteBatchedStatements) -
+     * the IDENTITY key makes Hibernate insert cascaded lines one statement at a time
+     */
+    private void insertOrderItems(Order order, List<OrderItem> orderItems) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, orderItems, orderItems.size(), (ps, item) -> {
+            ps.setLong(1, order.getOrderId());
+            ps.setLong(2, item.getProduct().getProductId());
+            ps.setString(3, item.getProductSku());
+            ps.setString(4, item.getProductName());
+            ps.setInt(5, item.getQuantity());
+            ps.setBigDecimal(6, item.getUnitPrice());
+            ps.setBigDecimal(7, item.getDiscountAmount());
+            ps.setBigDecimal(8, item.getTaxAmount());
+            ps.setBigDecimal(9, item.getPrice());
+            ps.setString(10, item.getItemStatus().name());
+            ps.setString(11, item.getProductDescription());
+            ps.setInt(12, item.getShippedQuantity());
+            ps.setInt(13, item.getReturnedQuantity());
+            ps.setInt(14, item.getRefundedQuantity());
+            ps.setTimestamp(15, now);
+            ps.setTimestamp(16, now);
+        });
+    }
+
+    private void calculateOrderTotals(Order order, List<OrderItem> orderItems) {
+        long subtotalMinor = 0;
+        for (OrderItem item : orderItems) {
+            subtotalMinor = Math.addExact(subtotalMinor, Money.toMinor(item.getPrice()));
         }
-        order.setSubtotal(subtotal);
+        order.setSubtotal(Money.toBigDecimal(subtotalMinor));
 
         if (order.getTotalAmount() == null || order.getTotalAmount().compareTo(BigDecimal.ZERO) == 0) {
-            BigDecimal total = subtotal
-                    .add(order.getTaxAmount() != null ? order.getTaxAmount() : BigDecimal.ZERO)
-                    .add(order.getShippingAmount() != null ? order.getShippingAmount() : BigDecimal.ZERO);
-            order.setTotalAmount(total);
+            long totalMinor = subtotalMinor
+                    + Money.toMinor(order.getTaxAmount())
+                    + Money.toMinor(order.getShippingAmount());
+            order.setTotalAmount(Money.toBigDecimal(totalMinor));
         }
     }
 
@@ -446,17 +527,25 @@ public class OrderService {
     }
 
     private void handleOrderPaid(Order order) {
+        Map<Long, Integer> quantities = new HashMap<>();
         for (OrderItem item : order.getOrderItems()) {
-            inventoryService.confirmStock(item.getProduct().getProductId(), item.getQuantity());
+            quantities.merge(item.getProduct().getProductId(), item.getQuantity(), Integer::sum);
         }
+        inventoryService.confirmStock(order.getOrderId(), quantities);
+        eventPublisher.publishEvent(new OrderPaidEvent(order.getOrderId(), quantities, LocalDateTime.now()));
         emailService.sendEmail(order.getShippingEmail(),
                 "Payment Confirmed - " + order.getOrderNumber(),
                 "Payment of " + order.getTotalAmount() + " " + order.getCurrency() + " has been received.");
     }
 
-    private void handleOrderCancelled(Order order) {
-        for (OrderItem item : order.getOrderItems()) {
-            inventoryService.releaseReservedStock(item.getProduct().getProductId(), item.getQuantity());
+    private void handleOrderCancelled(Order order, OrderStatus previousStatus) {
+        if (previousStatus == OrderStatus.PENDING || previousStatus == OrderStatus.PAYMENT_FAILED) {
+            // Unpaid - only what is still held goes back (expired holds were already returned)
+            inventoryService.releaseHolds(order.getOrderId());
+        } else {
+            for (OrderItem item : order.getOrderItems()) {
+                inventoryService.releaseReservedStock(item.getProduct().getProductId(), item.getQuantity());
+            }
         }
         if (isOrderPaid(order)) {
             paymentService.processRefund(order.getPayment().getPaymentId(), order.getTotalAmount());
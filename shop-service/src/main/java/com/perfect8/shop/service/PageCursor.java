@@ -0,0 +1,172 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.dto.CursorPage;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Page Cursor - Version 1.0
+ * Opaque continuation tokens for keyset (seek) pagination.
+ *
+ * A token carries the sort it was issued for plus the sort key values and id
+ * of the last row returned. The repositories turn it into a seek predicate
+ * (Spring Data Window/ScrollPosition), e.g. for createdDate DESC:
+ *   WHERE created_date < ? OR (created_date = ? AND order_id < ?)
+ * so page 1000 costs the same index range scan as page 1 and no COUNT(*) is run.
+ *
+ * Format (base64url, not meant to be parsed by clients):
+ *   v1|<sort>|<property>=<type>:<value>;...
+ */
+public final class PageCursor {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String VERSION = "v1";
+
+    private PageCursor() {
+    }
+
+    /**
+     * Build a sort from request parameters, rejecting properties that cannot be seeked on.
+     */
+    public static Sort sortOf(String sortBy, String sortDir, Set<String> allowedProperties) {
+        if (!allowedProperties.contains(sortBy)) {
+            throw new IllegalArgumentException("Cursor pagination cannot sort by '" + sortBy
+                    + "', allowed: " + allowedProperties);
+        }
+        return "desc".equalsIgnoreCase(sortDir) ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+    }
+
+    /**
+     * Page size bounded to 1..MAX_PAGE_SIZE.
+     */
+    public static Limit limitOf(int size) {
+        return Limit.of(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Decode a continuation token. Null/blank means "first page".
+     */
+    public static ScrollPosition decode(String token, Sort sort) {
+        if (token == null || token.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        String[] parts = decoded.split("\\|", 3);
+        if (parts.length != 3 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!parts[1].equals(sortSignature(sort))) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (String entry : parts[2].split(";")) {
+            int equals = entry.indexOf('=');
+            int colon = entry.indexOf(':', equals + 1);
+            if (equals <= 0 || colon < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            keys.put(entry.substring(0, equals), parseValue(entry.substring(equals + 1, colon), entry.substring(colon + 1)));
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Encode the position after the last element of a window.
+     */
+    public static String encode(ScrollPosition position, Sort sort) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalStateException("Only keyset positions can be encoded");
+        }
+        StringBuilder token = new StringBuilder(VERSION).append('|').append(sortSignature(sort)).append('|');
+        boolean first = true;
+        for (Map.Entry<String, Object> key : keyset.getKeys().entrySet()) {
+            if (!first) {
+                token.append(';');
+            }
+            first = false;
+            token.append(key.getKey()).append('=').append(formatValue(key.getValue()));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Map a repository window to the API page, including the continuation token.
+     */
+    public static <T, R> CursorPage<R> toPage(Window<T> window, Sort sort, Function<T, R> mapper, Long approximateTotal) {
+        List<R> content = window.getContent().stream().map(mapper).toList();
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? encode(window.positionAt(window.size() - 1), sort)
+                : null;
+        return CursorPage.<R>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(nextCursor != null)
+                .nextCursor(nextCursor)
+                .approximateTotal(approximateTotal)
+                .build();
+    }
+
+    private static String sortSignature(Sort sort) {
+        StringBuilder signature = new StringBuilder();
+        for (Sort.Order order : sort) {
+            signature.append(order.getProperty()).append(order.isAscending() ? "+" : "-");
+        }
+        return signature.toString();
+    }
+
+    // Strings are base64url encoded so no value can contain the '|', ';' or '=' separators
+    private static String formatValue(Object value) {
+        if (value == null) {
+            return "N:";
+        } else if (value instanceof Long) {
+            return "L:" + value;
+        } else if (value instanceof Integer) {
+            return "I:" + value;
+        } else if (value instanceof BigDecimal decimal) {
+            return "D:" + decimal.toPlainString();
+        } else if (value instanceof LocalDateTime dateTime) {
+            return "T:" + dateTime;
+        } else {
+            return "S:" + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Object parseValue(String type, String value) {
+        try {
+            return switch (type) {
+                case "N" -> null;
+                case "L" -> Long.valueOf(value);
+                case "I" -> Integer.valueOf(value);
+                case "D" -> new BigDecimal(value);
+                case "T" -> LocalDateTime.parse(value);
+                case "S" -> new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                default -> throw new IllegalArgumentException("Invalid cursor");
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
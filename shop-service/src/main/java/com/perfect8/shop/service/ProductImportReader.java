@@ -0,0 +1,198 @@
+package com.perfect8.shop.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+/**
+ * Product Import Reader - Version 1.0
+ * Streams import records one at a time - the file is never held in memory.
+ *
+ * - CSV: first record is the header, RFC 4180 quoting (quoted commas, newlines and "")
+ * - NDJSON: one JSON object per line; array values (tags, additionalImages) are joined with '|'
+ *
+ * Keys are normalized (lower case, no '_', '-' or spaces), so "stock_quantity",
+ * "Stock Quantity" and "stockQuantity" all become "stockquantity".
+ * A malformed record ends the stream with an UncheckedIOException.
+ */
+abstract class ProductImportReader implements Closeable {
+
+    static final String FORMAT_CSV = "CSV";
+    static final String FORMAT_NDJSON = "NDJSON";
+
+    private Map<String, String> lookahead;
+
+    static ProductImportReader open(String format, Reader reader, ObjectMapper objectMapper) throws IOException {
+        if (FORMAT_NDJSON.equals(format)) {
+            return new NdjsonReader(reader, objectMapper);
+        }
+        return new CsvReader(reader);
+    }
+
+    static String normalizeKey(String key) {
+        return key.replace("\uFEFF", "").replaceAll("[_\\-\\s]", "").toLowerCase(Locale.ROOT);
+    }
+
+    boolean hasNext() {
+        if (lookahead == null) {
+            try {
+                lookahead = readRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return lookahead != null;
+    }
+
+    Map<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Map<String, String> record = lookahead;
+        lookahead = null;
+        return record;
+    }
+
+    /**
+     * Next record, or null at end of input.
+     */
+    protected abstract Map<String, String> readRecord() throws IOException;
+
+    // ========== CSV ==========
+
+    private static final class CsvReader extends ProductImportReader {
+
+        private final BufferedReader in;
+        private final List<String> header;
+
+        CsvReader(Reader reader) throws IOException {
+            this.in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+            List<String> headerFields = readFields();
+            if (headerFields == null) {
+                throw new IOException("CSV input is empty - expected a header row");
+            }
+            this.header = headerFields.stream().map(ProductImportReader::normalizeKey).toList();
+        }
+
+        @Override
+        protected Map<String, String> readRecord() throws IOException {
+            List<String> fields;
+            do {
+                fields = readFields();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            Map<String, String> record = new HashMap<>(header.size() * 2);
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                record.put(header.get(i), fields.get(i));
+            }
+            return record;
+        }
+
+        private List<String> readFields() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean anyInput = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                anyInput = true;
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        in.mark(1);
+                        int next = in.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                in.reset();
+                            }
+                        }
+                    } else {
+                        field.append(ch);
+                    }
+                } else if (ch == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (ch != '\r') {
+                    field.append(ch);
+                }
+            }
+            if (quoted) {
+                throw new IOException("Unterminated quoted field at end of CSV input");
+            }
+            if (!anyInput) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // ========== NDJSON ==========
+
+    private static final class NdjsonReader extends ProductImportReader {
+
+        private final MappingIterator<Map<String, Object>> objects;
+
+        NdjsonReader(Reader reader, ObjectMapper objectMapper) throws IOException {
+            this.objects = objectMapper.readerForMapOf(Object.class).readValues(reader);
+        }
+
+        @Override
+        protected Map<String, String> readRecord() throws IOException {
+            try {
+                if (!objects.hasNextValue()) {
+                    return null;
+                }
+                Map<String, Object> object = objects.nextValue();
+                Map<String, String> record = new HashMap<>(object.size() * 2);
+                object.forEach((key, value) -> record.put(normalizeKey(key), toText(value)));
+                return record;
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed NDJSON record: " + e.getMessage(), e);
+            }
+        }
+
+        private static String toText(Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof List<?> list) {
+                return list.stream().map(String::valueOf).collect(Collectors.joining("|"));
+            }
+            return String.valueOf(value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            objects.close();
+        }
+    }
+}
@@ -0,0 +1,662 @@
+package com.perfect8.shop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfect8.shop.dto.ProductImportResponse;
+import com.perfect8.shop.entity.Category;
+import com.perfect8.shop.entity.InventoryTransaction;
+import com.perfect8.shop.entity.ProductImportJob;
+import com.perfect8.shop.event.ProductChangedEvent;
+import com.perfect8.shop.repository.CategoryRepository;
+import com.perfect8.shop.repository.ProductImportJobRepository;
+import com.perfect8.shop.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product Import Service - Version 1.0
+ * Bulk import of supplier catalogs (CSV or NDJSON) without ProductService.createProduct per row.
+ *
+ * - The input is streamed record by record (ProductImportReader), never loaded into memory
+ * - Existing SKUs are loaded once into a hash set (case-insensitive, like the column collation);
+ *   rows whose SKU already exists - or appeared earlier in the file - are skipped
+ * - Categories are resolved from a map loaded once (by ID, slug or name)
+ * - Rows are inserted with JDBC batches (products, then tags and images) of shop.import.batch-size
+ * - Each batch commits together with the job's progress row (lastCommittedRow), so an
+ *   interrupted import is resumed by sending the same file again with the job ID
+ * - If a batch fails, its rows are retried one by one so only the bad rows are reported
+ * - FIXED (2026-10-17): the initial stock of every imported product is audited (STOCK_IN)
+ *   in the batch transaction, so ledger replay and checkpoints include it
+ *
+ * The catalog read model is reloaded once at the end instead of once per product.
+ * Imports run on a single background thread; the request only spools the upload and
+ * returns the job ID.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 500;
+    private static final int MAX_QUEUED_IMPORTS = 4;
+    private static final int MAX_REMEMBERED_JOBS = 20;
+
+    private static final String INSERT_PRODUCT_SQL = "INSERT INTO products (sku, name, description, price, " +
+            "discount_price, stock_quantity, reorder_point, reorder_quantity, category_id, image_url, featured, " +
+            "active, weight, dimensions, views, sales_count, rating, review_count, created_date, updated_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 10, 50, ?, ?, ?, ?, ?, ?, 0, 0, 0.00, 0, ?, ?)";
+    private static final String INSERT_TAG_SQL = "INSERT INTO product_tags (product_id, tag) VALUES (?, ?)";
+    private static final String INSERT_IMAGE_SQL = "INSERT INTO product_images (product_id, image_url) VALUES (?, ?)";
+    private static final String UPDATE_PROGRESS_SQL = "UPDATE product_import_jobs SET rows_read = ?, " +
+            "rows_imported = ?, rows_skipped = ?, rows_failed = ?, last_committed_row = ?, updated_date = ? " +
+            "WHERE product_import_job_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ProductImportJobRepository importJobRepository;
+    private final ProductRepository productRepository;
+    private final InventoryAuditLog inventoryAuditLog;
+    private final CatalogReadModel catalogReadModel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${shop.import.batch-size:500}")
+    private int batchSize;
+
+    // Jobs queued or running in this instance - a job can not be resumed twice at once
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+
+    // One import at a time (they compete for the same rows and the read model reload)
+    private final ThreadPoolExecutor importExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_IMPORTS), runnable -> {
+                Thread thread = new Thread(runnable, "product-import");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // Row errors of the last finished runs, returned by getJob
+    private final Map<Long, List<ProductImportResponse.RowError>> recentErrors = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<ProductImportResponse.RowError>> eldest) {
+            return size() > MAX_REMEMBERED_JOBS;
+        }
+    };
+
+    /**
+     * Start importing products from a CSV or NDJSON stream and return the job right away.
+     * Pass resumeJobId to continue an earlier job after its last committed row.
+     *
+     * FIXED (2026-10-17): The upload is spooled to a temp file on the request thread
+     * (streamed, never held in memory) and imported on the single import thread - the
+     * caller polls GET /api/products/import/{jobId} for progress and the row errors.
+     */
+    public ProductImportResponse startImport(InputStream input, String format, String fileName, Long resumeJobId)
+            throws IOException {
+        Path upload = Files.createTempFile("product-import-", "." + format);
+        try {
+            Files.copy(input, upload, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+
+        ProductImportJob job;
+        try {
+            job = resumeJobId != null ? resumeJob(resumeJobId) : startJob(format, fileName);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+        if (!activeJobs.add(job.getProductImportJobId())) {
+            Files.deleteIfExists(upload);
+            throw new IllegalStateException("Import job " + job.getProductImportJobId() + " is already running");
+        }
+
+        try {
+            importExecutor.execute(() -> runJob(job, upload));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getProductImportJobId());
+            Files.deleteIfExists(upload);
+            job.setStatus(ProductImportJob.STATUS_FAILED);
+            job.setErrorMessage("Import queue is full - send the file again with jobId=" + job.getProductImportJobId());
+            job.setFinishedDate(LocalDateTime.now());
+            importJobRepository.save(job);
+            throw new IllegalStateException(job.getErrorMessage());
+        }
+        return toResponse(job, List.of());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running imports stop at their last committed batch and are resumed with the job ID
+        importExecutor.shutdownNow();
+    }
+
+    private void runJob(ProductImportJob job, Path upload) {
+        ImportRun run = new ImportRun(job);
+        try {
+            log.info("Product import {} started ({}, resuming after row {})",
+                    job.getProductImportJobId(), job.getFormat(), run.lastCommittedRow);
+            try (InputStream input = Files.newInputStream(upload)) {
+                runImport(input, run);
+            }
+            job.setStatus(ProductImportJob.STATUS_COMPLETED);
+            job.setErrorMessage(null);
+            log.info("Product import {} completed: {} imported, {} skipped, {} failed",
+                    job.getProductImportJobId(), run.rowsImported, run.rowsSkipped, run.rowsFailed);
+        } catch (Exception e) {
+            job.setStatus(ProductImportJob.STATUS_FAILED);
+            job.setErrorMessage(truncate("Stopped after row " + run.lastCommittedRow + ": " + e.getMessage(), 1000));
+            log.error("Product import {} failed after row {}: {}",
+                    job.getProductImportJobId(), run.lastCommittedRow, e.getMessage());
+        } finally {
+            deleteUpload(upload);
+        }
+
+        try {
+            run.copyCommittedTo(job);
+            job.setFinishedDate(LocalDateTime.now());
+            importJobRepository.save(job);
+            rememberErrors(job.getProductImportJobId(), run.errors);
+        } finally {
+            // Only now may the job be resumed - its final state is written
+            activeJobs.remove(job.getProductImportJobId());
+        }
+
+        if (run.importedThisRun > 0) {
+            catalogReadModel.reload();
+            eventPublisher.publishEvent(new ProductChangedEvent(null));
+        }
+    }
+
+    /**
+     * Progress of a running or finished import (updated after every committed batch).
+     */
+    public ProductImportResponse getJob(Long jobId) {
+        ProductImportJob job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Import job not found with ID: " + jobId));
+        List<ProductImportResponse.RowError> errors;
+        synchronized (recentErrors) {
+            errors = recentErrors.getOrDefault(jobId, List.of());
+        }
+        return toResponse(job, errors);
+    }
+
+    /**
+     * Format from an explicit parameter or the request content type (default CSV).
+     */
+    public static String resolveFormat(String format, String contentType) {
+        String hint = format != null ? format : contentType;
+        if (hint != null && hint.toLowerCase(Locale.ROOT).contains("json")) {
+            return ProductImportReader.FORMAT_NDJSON;
+        }
+        return ProductImportReader.FORMAT_CSV;
+    }
+
+    // ========== Import loop ==========
+
+    private void runImport(InputStream input, ImportRun run) throws Exception {
+        Set<String> knownSkus = loadExistingSkus();
+        Map<String, Long> categoryIds = loadCategoryKeys();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        long resumeAfterRow = run.lastCommittedRow;
+        long rowNumber = 0;
+
+        try (ProductImportReader reader = ProductImportReader.open(run.job.getFormat(),
+                new InputStreamReader(input, StandardCharsets.UTF_8), objectMapper)) {
+            while (reader.hasNext()) {
+                Map<String, String> record = reader.next();
+                rowNumber++;
+                if (rowNumber <= resumeAfterRow) {
+                    continue;
+                }
+
+                run.rowsRead++;
+                String sku = trimToNull(record.get("sku"));
+                try {
+                    ImportRow row = toRow(rowNumber, record, categoryIds);
+                    if (!knownSkus.add(skuKey(row.sku))) {
+                        run.rowsSkipped++;
+                    } else {
+                        batch.add(row);
+                    }
+                } catch (IllegalArgumentException e) {
+                    run.fail(rowNumber, sku, e.getMessage());
+                }
+
+                if (batch.size() >= batchSize) {
+                    commitBatch(run, batch, rowNumber, knownSkus);
+                    batch.clear();
+                }
+            }
+        }
+        commitBatch(run, batch, rowNumber, knownSkus);
+    }
+
+    /**
+     * Insert one batch and record progress up to lastRow - all in one transaction.
+     * On failure the rows are inserted one by one so only the offending rows fail.
+     */
+    private void commitBatch(ImportRun run, List<ImportRow> batch, long lastRow, Set<String> knownSkus) {
+        if (lastRow <= run.lastCommittedRow) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insertRows(batch);
+                saveProgress(run, batch.size(), lastRow);
+            });
+            run.committed(batch.size(), lastRow);
+            log.debug("Product import {}: committed up to row {}", run.job.getProductImportJobId(), lastRow);
+            return;
+        } catch (Exception e) {
+            log.warn("Product import {}: batch ending at row {} failed ({}), retrying row by row",
+                    run.job.getProductImportJobId(), lastRow, e.getMessage());
+        }
+
+        int inserted = 0;
+        for (ImportRow row : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertRows(List.of(row)));
+                inserted++;
+            } catch (Exception e) {
+                knownSkus.remove(skuKey(row.sku));
+                run.fail(row.rowNumber, row.sku, rootMessage(e));
+            }
+        }
+        int insertedRows = inserted;
+        transactionTemplate.executeWithoutResult(status -> saveProgress(run, insertedRows, lastRow));
+        run.committed(insertedRows, lastRow);
+    }
+
+    private void insertRows(List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.sku);
+            ps.setString(2, row.name);
+            ps.setString(3, row.description);
+            ps.setBigDecimal(4, row.price);
+            ps.setBigDecimal(5, row.discountPrice);
+            ps.setInt(6, row.stockQuantity);
+            if (row.categoryId != null) {
+                ps.setLong(7, row.categoryId);
+            } else {
+                ps.setNull(7, Types.BIGINT);
+            }
+            ps.setString(8, row.imageUrl);
+            ps.setBoolean(9, row.featured);
+            ps.setBoolean(10, row.active);
+            ps.setBigDecimal(11, row.weight);
+            ps.setString(12, row.dimensions);
+            ps.setTimestamp(13, now);
+            ps.setTimestamp(14, now);
+        });
+
+        Map<String, Long> productIds = findProductIds(rows);
+        List<Object[]> tags = new ArrayList<>();
+        List<Object[]> images = new ArrayList<>();
+        for (ImportRow row : rows) {
+            Long productId = productIds.get(skuKey(row.sku));
+            row.tags.forEach(tag -> tags.add(new Object[]{productId, tag}));
+            row.additionalImages.forEach(image -> images.add(new Object[]{productId, image}));
+            if (row.stockQuantity > 0) {
+                inventoryAuditLog.record(InventoryTransaction.builder()
+                        .product(productRepository.getReferenceById(productId))
+                        .transactionType("STOCK_IN")
+                        .quantityBefore(0)
+                        .quantityAfter(row.stockQuantity)
+                        .quantityChange(row.stockQuantity)
+                        .transactionDate(LocalDateTime.now())
+                        .reason("Initial stock (product import)")
+                        .userId("SYSTEM")
+                        .build());
+            }
+        }
+        if (!tags.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TAG_SQL, tags);
+        }
+        if (!images.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE_SQL, images);
+        }
+    }
+
+    // One IN query for the generated IDs of the whole batch
+    private Map<String, Long> findProductIds(List<ImportRow> rows) {
+        String placeholders = String.join(", ", Collections.nCopies(rows.size(), "?"));
+        Object[] skus = rows.stream().map(row -> row.sku).toArray();
+        Map<String, Long> ids = new HashMap<>(rows.size() * 2);
+        jdbcTemplate.query("SELECT product_id, sku FROM products WHERE sku IN (" + placeholders + ")",
+                rs -> {
+                    ids.put(skuKey(rs.getString("sku")), rs.getLong("product_id"));
+                }, skus);
+        return ids;
+    }
+
+    private void saveProgress(ImportRun run, int importedInBatch, long lastRow) {
+        jdbcTemplate.update(UPDATE_PROGRESS_SQL,
+                run.rowsRead, run.committedImported + importedInBatch, run.rowsSkipped, run.rowsFailed,
+                lastRow, Timestamp.valueOf(LocalDateTime.now()), run.job.getProductImportJobId());
+    }
+
+    // ========== Row parsing ==========
+
+    private ImportRow toRow(long rowNumber, Map<String, String> record, Map<String, Long> categoryIds) {
+        ImportRow row = new ImportRow();
+        row.rowNumber = rowNumber;
+        row.sku = required(record, "sku", 100);
+        row.name = required(record, "name", 200);
+        row.description = trimToNull(record.get("description"));
+        row.price = decimal(record, "price");
+        if (row.price == null || row.price.signum() <= 0) {
+            throw new IllegalArgumentException("price must be greater than 0");
+        }
+        row.discountPrice = decimal(record, "discountprice");
+        if (row.discountPrice != null && row.discountPrice.signum() < 0) {
+            throw new IllegalArgumentException("discountPrice cannot be negative");
+        }
+        String stock = trimToNull(record.get("stockquantity"));
+        try {
+            row.stockQuantity = stock != null ? Integer.parseInt(stock) : 0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("stockQuantity is not a number: " + stock);
+        }
+        if (row.stockQuantity < 0) {
+            throw new IllegalArgumentException("stockQuantity cannot be negative");
+        }
+        row.categoryId = resolveCategory(record, categoryIds);
+        row.imageUrl = optional(record, "imageurl", 500);
+        row.featured = bool(record, "featured", false);
+        row.active = bool(record, "active", true);
+        row.weight = decimal(record, "weight");
+        row.dimensions = optional(record, "dimensions", 100);
+        row.tags = list(record, "tags", 50);
+        row.additionalImages = list(record, "additionalimages", 500);
+        return row;
+    }
+
+    private Long resolveCategory(Map<String, String> record, Map<String, Long> categoryIds) {
+        String id = trimToNull(record.get("categoryid"));
+        String name = trimToNull(record.get("category"));
+        if (id == null && name == null) {
+            return null;
+        }
+        Long categoryId = categoryIds.get(id != null ? "#" + id : name.toLowerCase(Locale.ROOT));
+        if (categoryId == null) {
+            throw new IllegalArgumentException("Unknown category: " + (id != null ? id : name));
+        }
+        return categoryId;
+    }
+
+    private static String required(Map<String, String> record, String key, int maxLength) {
+        String value = optional(record, key, maxLength);
+        if (value == null) {
+            throw new IllegalArgumentException(key + " is required");
+        }
+        return value;
+    }
+
+    private static String optional(Map<String, String> record, String key, int maxLength) {
+        String value = trimToNull(record.get(key));
+        if (value != null && value.length() > maxLength) {
+            throw new IllegalArgumentException(key + " must not exceed " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static BigDecimal decimal(Map<String, String> record, String key) {
+        String value = trimToNull(record.get(key));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a number: " + value);
+        }
+    }
+
+    private static boolean bool(Map<String, String> record, String key, boolean defaultValue) {
+        String value = trimToNull(record.get(key));
+        if (value == null) {
+            return defaultValue;
+        }
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes", "y" -> true;
+            case "false", "0", "no", "n" -> false;
+            default -> throw new IllegalArgumentException(key + " is not a boolean: " + value);
+        };
+    }
+
+    // '|' separated values
+    private static List<String> list(Map<String, String> record, String key, int maxLength) {
+        String value = trimToNull(record.get(key));
+        if (value == null) {
+            return List.of();
+        }
+        List<String> values = Arrays.stream(value.split("\\|"))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .distinct()
+                .toList();
+        for (String item : values) {
+            if (item.length() > maxLength) {
+                throw new IllegalArgumentException(key + " entries must not exceed " + maxLength + " characters");
+            }
+        }
+        return values;
+    }
+
+    // ========== Lookups and job bookkeeping ==========
+
+    private Set<String> loadExistingSkus() {
+        Set<String> skus = new HashSet<>();
+        jdbcTemplate.query("SELECT sku FROM products", rs -> {
+            skus.add(skuKey(rs.getString(1)));
+        });
+        return skus;
+    }
+
+    // "#<id>" -> id, slug -> id, lower-case name -> id
+    private Map<String, Long> loadCategoryKeys() {
+        Map<String, Long> keys = new HashMap<>();
+        for (Category category : categoryRepository.findAllWithParent()) {
+            keys.put("#" + category.getCategoryId(), category.getCategoryId());
+            if (category.getName() != null) {
+                keys.putIfAbsent(category.getName().trim().toLowerCase(Locale.ROOT), category.getCategoryId());
+            }
+            if (category.getSlug() != null) {
+                keys.put(category.getSlug().trim().toLowerCase(Locale.ROOT), category.getCategoryId());
+            }
+        }
+        return keys;
+    }
+
+    private ProductImportJob startJob(String format, String fileName) {
+        return importJobRepository.save(ProductImportJob.builder()
+                .fileName(truncate(fileName, 255))
+                .format(format)
+                .status(ProductImportJob.STATUS_RUNNING)
+                .build());
+    }
+
+    private ProductImportJob resumeJob(Long jobId) {
+        ProductImportJob job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Import job not found with ID: " + jobId));
+        if (ProductImportJob.STATUS_COMPLETED.equals(job.getStatus())) {
+            throw new IllegalStateException("Import job " + jobId + " is already completed");
+        }
+        job.setStatus(ProductImportJob.STATUS_RUNNING);
+        job.setFinishedDate(null);
+        return importJobRepository.save(job);
+    }
+
+    private void rememberErrors(Long jobId, List<ProductImportResponse.RowError> errors) {
+        synchronized (recentErrors) {
+            recentErrors.put(jobId, List.copyOf(errors));
+        }
+    }
+
+    private static void deleteUpload(Path upload) {
+        try {
+            Files.deleteIfExists(upload);
+        } catch (IOException e) {
+            log.warn("Could not delete import upload {}: {}", upload, e.getMessage());
+        }
+    }
+
+    private static ProductImportResponse toResponse(ProductImportJob job, List<ProductImportResponse.RowError> errors) {
+        return ProductImportResponse.builder()
+                .jobId(job.getProductImportJobId())
+                .fileName(job.getFileName())
+                .format(job.getFormat())
+                .status(job.getStatus())
+                .rowsRead(job.getRowsRead())
+                .rowsImported(job.getRowsImported())
+                .rowsSkipped(job.getRowsSkipped())
+                .rowsFailed(job.getRowsFailed())
+                .lastCommittedRow(job.getLastCommittedRow())
+                .errorMessage(job.getErrorMessage())
+                .createdDate(job.getCreatedDate())
+                .updatedDate(job.getUpdatedDate())
+                .finishedDate(job.getFinishedDate())
+                .errors(errors)
+                .build();
+    }
+
+    private static String skuKey(String sku) {
+        return sku.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    /**
+     * Counters of one run. Everything up to lastCommittedRow is in the database;
+     * the counters written with a batch are cumulative over all runs of the job.
+     */
+    private static final class ImportRun {
+        final ProductImportJob job;
+        final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+        long rowsRead;
+        long rowsSkipped;
+        long rowsFailed;
+        long rowsImported;
+        long committedImported;
+        long lastCommittedRow;
+        long importedThisRun;
+
+        // Committed state, restored on failure so counters never include uncommitted rows
+        long committedRead;
+        long committedSkipped;
+        long committedFailed;
+
+        ImportRun(ProductImportJob job) {
+            this.job = job;
+            this.rowsRead = job.getRowsRead();
+            this.rowsSkipped = job.getRowsSkipped();
+            this.rowsFailed = job.getRowsFailed();
+            this.rowsImported = job.getRowsImported();
+            this.committedImported = job.getRowsImported();
+            this.lastCommittedRow = job.getLastCommittedRow();
+            this.committedRead = rowsRead;
+            this.committedSkipped = rowsSkipped;
+            this.committedFailed = rowsFailed;
+        }
+
+        void fail(long row, String sku, String message) {
+            rowsFailed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ProductImportResponse.RowError.builder().row(row).sku(sku).message(message).build());
+            }
+        }
+
+        void committed(int imported, long lastRow) {
+            committedImported += imported;
+            rowsImported = committedImported;
+            importedThisRun += imported;
+            lastCommittedRow = lastRow;
+            committedRead = rowsRead;
+            committedSkipped = rowsSkipped;
+            committedFailed = rowsFailed;
+        }
+
+        void copyCommittedTo(ProductImportJob target) {
+            target.setRowsRead(committedRead);
+            target.setRowsImported(committedImported);
+            target.setRowsSkipped(committedSkipped);
+            target.setRowsFailed(committedFailed);
+            target.setLastCommittedRow(lastCommittedRow);
+        }
+    }
+
+    private static final class ImportRow {
+        long rowNumber;
+        String sku;
+        String name;
+        String description;
+        BigDecimal price;
+        BigDecimal discountPrice;
+        int stockQuantity;
+        Long categoryId;
+        String imageUrl;
+        boolean featured;
+        boolean active;
+        BigDecimal weight;
+        String dimensions;
+        List<String> tags;
+        List<String> additionalImages;
+    }
+}
@@ -0,0 +1,363 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Product;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Product Search Index - Version 1.0
+ * In-memory inverted index replacing LIKE '%query%' product search.
+ *
+ * - Fields: name (x3), tags (x2), SKU (x2), description (x1)
+ * - Text analysis: SearchTokenizer (Swedish folding + light stemming)
+ * - Ranking: BM25 (k1 = 1.2, b = 0.75) over field-weighted term frequencies
+ * - Query semantics: every query word must match (AND); the last word also
+ *   matches as a prefix so results update while the user is typing
+ *
+ * Fed by CatalogReadModel through CatalogListener, so it is updated
+ * incrementally after each committed product write.
+ * Lookups cost O(postings of the query terms), not O(catalog size).
+ */
+@Slf4j
+@Service
+public class ProductSearchIndex implements CatalogListener {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float TAG_WEIGHT = 2.0f;
+    private static final float SKU_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    private final Map<Long, Integer> docIdByProductId = new HashMap<>();
+    private final Map<Integer, String[]> termsByDocId = new HashMap<>();
+    private long[] productIdByDocId = new long[1024];
+    private float[] lengthByDocId = new float[1024];
+    private int nextDocId = 0;
+    private int liveDocuments = 0;
+    private double totalLength = 0;
+
+    private volatile boolean ready = false;
+
+    /**
+     * True once the first full catalog load has been indexed.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ========== CatalogListener ==========
+
+    @Override
+    public void onCatalogLoaded(Collection<Product> activeProducts) {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            dictionary.clear();
+            docIdByProductId.clear();
+            termsByDocId.clear();
+            productIdByDocId = new long[Math.max(1024, activeProducts.size() + 64)];
+            lengthByDocId = new float[productIdByDocId.length];
+            nextDocId = 0;
+            liveDocuments = 0;
+            totalLength = 0;
+            for (Product product : activeProducts) {
+                addDocument(product);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products, {} terms ({} ms)",
+                activeProducts.size(), dictionary.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void onProductUpdated(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getProductId());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== Search ==========
+
+    /**
+     * Ranked search. Returns the requested page of product IDs plus the total hit count.
+     */
+    public SearchResult search(String query, long offset, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.analyze(query)));
+        if (queryTerms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+        List<String> unstemmed = SearchTokenizer.analyzeWithoutStemming(query);
+        String lastWordPrefix = unstemmed.isEmpty() ? null : unstemmed.get(unstemmed.size() - 1);
+
+        lock.readLock().lock();
+        try {
+            double averageLength = liveDocuments > 0 ? totalLength / liveDocuments : 1.0;
+
+            List<Map<Integer, Float>> scoresPerTerm = new ArrayList<>(queryTerms.size());
+            for (int i = 0; i < queryTerms.size(); i++) {
+                boolean isLast = i == queryTerms.size() - 1;
+                Map<Integer, Float> termScores = scoreTerm(queryTerms.get(i),
+                        isLast ? lastWordPrefix : null, averageLength);
+                if (termScores.isEmpty()) {
+                    return new SearchResult(List.of(), 0);
+                }
+                scoresPerTerm.add(termScores);
+            }
+
+            // AND: walk the smallest map and probe the others
+            scoresPerTerm.sort(Comparator.comparingInt(Map::size));
+            Map<Integer, Float> smallest = scoresPerTerm.get(0);
+            int[] hitDocIds = new int[smallest.size()];
+            float[] hitScores = new float[smallest.size()];
+            int hits = 0;
+            for (Map.Entry<Integer, Float> entry : smallest.entrySet()) {
+                float score = entry.getValue();
+                boolean matchesAll = true;
+                for (int t = 1; t < scoresPerTerm.size() && matchesAll; t++) {
+                    Float other = scoresPerTerm.get(t).get(entry.getKey());
+                    if (other == null) {
+                        matchesAll = false;
+                    } else {
+                        score += other;
+                    }
+                }
+                if (matchesAll) {
+                    hitDocIds[hits] = entry.getKey();
+                    hitScores[hits] = score;
+                    hits++;
+                }
+            }
+
+            Integer[] order = new Integer[hits];
+            for (int i = 0; i < hits; i++) {
+                order[i] = i;
+            }
+            long[] productIds = productIdByDocId;
+            Arrays.sort(order, (left, right) -> {
+                int byScore = Float.compare(hitScores[right], hitScores[left]);
+                return byScore != 0 ? byScore
+                        : Long.compare(productIds[hitDocIds[left]], productIds[hitDocIds[right]]);
+            });
+
+            List<Long> page = new ArrayList<>(Math.min(limit, hits));
+            for (long i = offset; i < hits && page.size() < limit; i++) {
+                page.add(productIds[hitDocIds[order[(int) i]]]);
+            }
+            return new SearchResult(page, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index statistics (for health/admin views).
+     */
+    public Map<String, Object> getStatistics() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> statistics = new HashMap<>();
+            statistics.put("ready", ready);
+            statistics.put("documents", liveDocuments);
+            statistics.put("terms", dictionary.size());
+            statistics.put("averageDocumentLength", liveDocuments > 0 ? totalLength / liveDocuments : 0);
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Internals (caller holds the lock) ==========
+
+    private Map<Integer, Float> scoreTerm(String term, String prefix, double averageLength) {
+        Map<Integer, Float> scores = new HashMap<>();
+        addTermScores(scores, term, dictionary.get(term), 1.0f, averageLength);
+
+        if (prefix != null && prefix.length() >= MIN_PREFIX_LENGTH) {
+            SortedMap<String, Postings> expansions = dictionary.subMap(prefix, prefix + Character.MAX_VALUE);
+            int expanded = 0;
+            for (Map.Entry<String, Postings> expansion : expansions.entrySet()) {
+                if (expanded++ >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                if (!expansion.getKey().equals(term)) {
+                    addTermScores(scores, expansion.getKey(), expansion.getValue(), PREFIX_MATCH_FACTOR, averageLength);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void addTermScores(Map<Integer, Float> scores, String term, Postings postings,
+                               float factor, double averageLength) {
+        if (postings == null || postings.size == 0) {
+            return;
+        }
+        double documentFrequency = postings.size;
+        double idf = Math.log(1.0 + (liveDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        for (int i = 0; i < postings.size; i++) {
+            int docId = postings.docIds[i];
+            float tf = postings.weights[i];
+            double norm = K1 * (1 - B + B * lengthByDocId[docId] / averageLength);
+            float score = (float) (factor * idf * (tf * (K1 + 1)) / (tf + norm));
+            scores.merge(docId, score, Float::sum);
+        }
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Float> weightedTerms = new HashMap<>();
+        addField(weightedTerms, product.getName(), NAME_WEIGHT);
+        addField(weightedTerms, product.getSku(), SKU_WEIGHT);
+        addField(weightedTerms, product.getDescription(), DESCRIPTION_WEIGHT);
+        if (product.getTags() != null) {
+            for (String tag : product.getTags()) {
+                addField(weightedTerms, tag, TAG_WEIGHT);
+            }
+        }
+
+        Integer existing = docIdByProductId.get(product.getProductId());
+        int docId = existing != null ? existing : nextDocId++;
+        ensureCapacity(docId);
+
+        float length = 0;
+        for (Map.Entry<String, Float> entry : weightedTerms.entrySet()) {
+            dictionary.computeIfAbsent(entry.getKey(), key -> new Postings()).add(docId, entry.getValue());
+            length += entry.getValue();
+        }
+
+        docIdByProductId.put(product.getProductId(), docId);
+        termsByDocId.put(docId, weightedTerms.keySet().toArray(new String[0]));
+        productIdByDocId[docId] = product.getProductId();
+        lengthByDocId[docId] = length;
+        liveDocuments++;
+        totalLength += length;
+    }
+
+    private void removeDocument(Long productId) {
+        Integer docId = docIdByProductId.get(productId);
+        if (docId == null) {
+            return;
+        }
+        String[] terms = termsByDocId.remove(docId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings postings = dictionary.get(term);
+            if (postings != null) {
+                postings.remove(docId);
+                if (postings.size == 0) {
+                    dictionary.remove(term);
+                }
+            }
+        }
+        liveDocuments--;
+        totalLength -= lengthByDocId[docId];
+        lengthByDocId[docId] = 0;
+    }
+
+    private static void addField(Map<String, Float> weightedTerms, String text, float weight) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        for (String term : SearchTokenizer.analyze(text)) {
+            weightedTerms.merge(term, weight, Float::sum);
+        }
+    }
+
+    private void ensureCapacity(int docId) {
+        if (docId >= productIdByDocId.length) {
+            int newLength = Math.max(docId + 1, productIdByDocId.length * 2);
+            productIdByDocId = Arrays.copyOf(productIdByDocId, newLength);
+            lengthByDocId = Arrays.copyOf(lengthByDocId, newLength);
+        }
+    }
+
+    /**
+     * Posting list - doc IDs kept sorted so add/remove are binary searches.
+     */
+    private static final class Postings {
+        private int[] docIds = new int[4];
+        private float[] weights = new float[4];
+        private int size = 0;
+
+        void add(int docId, float weight) {
+            int index = Arrays.binarySearch(docIds, 0, size, docId);
+            if (index >= 0) {
+                weights[index] = weight;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(docIds, insertAt, docIds, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            docIds[insertAt] = docId;
+            weights[insertAt] = weight;
+            size++;
+        }
+
+        void remove(int docId) {
+            int index = Arrays.binarySearch(docIds, 0, size, docId);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(docIds, index + 1, docIds, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+        }
+    }
+
+    /**
+     * One page of ranked product IDs plus total number of hits.
+     */
+    @Getter
+    public static class SearchResult {
+        private final List<Long> productIds;
+        private final long totalHits;
+
+        public SearchResult(List<Long> productIds, long totalHits) {
+            this.productIds = productIds;
+            this.totalHits = totalHits;
+        }
+    }
+}
@@ -2,22 +2,40 @@ package com.perfect8.shop.service;
 
 import com.perfect8.shop.entity.Product;
 import com.perfect8.shop.entity.Category;
+import com.perfect8.shop.dto.CursorPage;
 import com.perfect8.shop.dto.ProductDTO;
+import com.perfect8.shop.dto.ProductFacetsResponse;
+import com.perfect8.shop.dto.ProductFacetsResponse.FacetCount;
+import com.perfect8.shop.dto.ProductSummaryResponse;
+import com.perfect8.shop.event.ProductChangedEvent;
 import com.perfect8.shop.repository.ProductRepository;
 import com.perfect8.shop.repository.CategoryRepository;
+import com.perfect8.shop.repository.ProductIdView;
+import com.perfect8.shop.repository.ProductSummaryView;
 import com.perfect8.shop.exception.ProductNotFoundException;
 import com.perfect8.shop.exception.DuplicateSkuException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,6 +46,12 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final CatalogReadModel catalogReadModel;
+    private final ProductSearchIndex productSearchIndex;
+    private final TypeaheadIndex typeaheadIndex;
+    private final FacetIndex facetIndex;
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Find product by ID
@@ -40,52 +64,226 @@ public class ProductService {
     }
 
     /**
-     * Find products with filters
+     * Product for the detail page and availability checks - with its armed flash-sale units
      */
     @Transactional(readOnly = true)
-    public Page<Product> findProducts(Pageable pageable, Long categoryId,
-                                      BigDecimal minPrice, BigDecimal maxPrice,
-                                      Boolean featured, Boolean inStock) {
-
-        // If no filters, return all active products
-        if (categoryId == null && minPrice == null && maxPrice == null &&
-                featured == null && inStock == null) {
-            return productRepository.findByActiveTrue(pageable);
+    public Product findByIdWithAvailability(Long productId) {
+        Product product = findById(productId);
+        loadFlashSaleUnits(List.of(product));
+        return product;
+    }
+
+    /**
+     * Set Product.flashSaleQuantity (not loaded with the entity) - one IN query for the list
+     */
+    public void loadFlashSaleUnits(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> unitsById = new HashMap<>();
+        for (Object[] row : productRepository.findArmedFlashSaleUnits(
+                products.stream().map(Product::getProductId).toList())) {
+            unitsById.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        for (Product product : products) {
+            product.setFlashSaleQuantity(unitsById.getOrDefault(product.getProductId(), 0));
+        }
+    }
+
+    /**
+     * Find products with filters
+     * Served from the in-memory CatalogReadModel when loaded (no transaction, no DB round trip),
+     * otherwise falls back to the repository queries.
+     * FIXED (2026-10-16): Returns listing summaries - the DB fallback selects only the card columns
+     * and loads tags/images for the whole page with two IN queries instead of per-product selects.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductSummaryResponse> findProducts(Pageable pageable, Long categoryId,
+                                                     BigDecimal minPrice, BigDecimal maxPrice,
+                                                     Boolean featured, Boolean inStock) {
+
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        if (snapshot != null && CatalogSnapshot.supportsSort(pageable.getSort())) {
+            return snapshot.find(CatalogSnapshot.Filter.builder()
+                    .categoryId(categoryId)
+                    .minPrice(minPrice)
+                    .maxPrice(maxPrice)
+                    .featured(featured)
+                    .inStock(inStock)
+                    .build(), pageable).map(this::toSummary);
         }
 
-        // Build query based on filters
-        return productRepository.findProductsWithFilters(
+        return toSummaries(productRepository.findSummariesWithFilters(
                 categoryId, minPrice, maxPrice, featured, inStock, pageable
-        );
+        ));
     }
 
     /**
-     * Search products by name or description
+     * Keyset (cursor) listing of active products, optionally within a category
+     * ADDED (2026-10-16): Seek predicate instead of OFFSET + COUNT(*), so every page costs the same.
+     * The total is only attached on request and comes from the catalog read model.
+     * FIXED (2026-10-17): The window selects ids only; the page is loaded as summary rows
+     * (one IN query) and built by toSummaries like the other listings - no full entities.
      */
     @Transactional(readOnly = true)
-    public Page<Product> searchProducts(String query, Pageable pageable) {
+    public CursorPage<ProductSummaryResponse> scrollProducts(String cursor, int size, Sort sort, Long categoryId, boolean includeTotal) {
+        ScrollPosition position = PageCursor.decode(cursor, sort);
+        Window<ProductIdView> window = categoryId != null
+                ? productRepository.findIdsByCategoryCategoryIdAndActiveTrue(categoryId, position, sort, PageCursor.limitOf(size))
+                : productRepository.findIdsByActiveTrue(position, sort, PageCursor.limitOf(size));
+
+        List<Long> productIds = window.getContent().stream().map(ProductIdView::getProductId).toList();
+        Map<Long, ProductSummaryResponse> summariesById = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (ProductSummaryResponse summary : toSummaries(productRepository.findSummariesByIds(productIds))) {
+                summariesById.put(summary.getProductId(), summary);
+            }
+        }
+
+        Long approximateTotal = null;
+        if (includeTotal) {
+            CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+            approximateTotal = snapshot == null ? null : categoryId == null
+                    ? (long) snapshot.size()
+                    : snapshot.find(CatalogSnapshot.Filter.builder().categoryId(categoryId).build(),
+                            PageRequest.of(0, 1)).getTotalElements();
+        }
+        return PageCursor.toPage(window, sort, row -> summariesById.get(row.getProductId()), approximateTotal);
+    }
+
+    /**
+     * Search products by name, description, SKU and tags
+     * ADDED (2026-10-16): Ranked (BM25) lookup in the in-memory ProductSearchIndex instead of
+     * LIKE '%query%' table scans. Falls back to the LIKE query until the index is loaded.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductSummaryResponse> searchProducts(String query, Pageable pageable) {
         if (query == null || query.trim().isEmpty()) {
-            return productRepository.findByActiveTrue(pageable);
+            return findProducts(pageable, null, null, null, null, null);
+        }
+
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        if (snapshot != null && productSearchIndex.isReady()) {
+            ProductSearchIndex.SearchResult result =
+                    productSearchIndex.search(query, pageable.getOffset(), pageable.getPageSize());
+            List<ProductSummaryResponse> products = new ArrayList<>(result.getProductIds().size());
+            for (Long productId : result.getProductIds()) {
+                Product product = snapshot.getProduct(productId);
+                if (product != null) {
+                    products.add(toSummary(product));
+                }
+            }
+            return new PageImpl<>(products, pageable, result.getTotalHits());
         }
 
-        return productRepository.searchByNameOrDescription(query, pageable);
+        return toSummaries(productRepository.searchSummaries(query, pageable));
+    }
+
+    /**
+     * Autocomplete suggestions (product names, SKUs, category names) for a typed prefix
+     * ADDED (2026-10-16): Served from the in-memory TypeaheadIndex. Until it is loaded,
+     * falls back to a small LIKE search so the endpoint still answers.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<TypeaheadIndex.Suggestion> autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        if (typeaheadIndex.isReady()) {
+            return typeaheadIndex.suggest(prefix, limit);
+        }
+        return productRepository.searchByNameOrDescription(prefix, PageRequest.of(0, limit)).getContent().stream()
+                .map(product -> new TypeaheadIndex.Suggestion(TypeaheadIndex.SuggestionType.PRODUCT,
+                        product.getProductId(), product.getName(), product.getImageUrl(), 0L))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Facet counts (category, price bucket, tag, in stock, featured) for the given filters
+     * ADDED (2026-10-16): Computed from the in-memory FacetIndex bitmaps - no COUNT queries.
+     * FIXED (2026-10-17): Until the index is loaded (cold start) the counts come from
+     * COUNT / GROUP BY queries instead of failing with a 500.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductFacetsResponse getFacets(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                           Boolean featured, Boolean inStock, String tag) {
+        if (facetIndex.isReady()) {
+            return facetIndex.computeFacets(categoryId, minPrice, maxPrice, featured, inStock, tag);
+        }
+
+        // Same rules as the index: each facet ignores its own filter
+        String tagKey = tag != null && !tag.isBlank() ? FacetIndex.normalizeTag(tag) : null;
+
+        List<FacetCount> categories = productRepository.countCategoriesForFacets(
+                        null, minPrice, maxPrice, featured, inStock, tagKey).stream()
+                .map(row -> FacetCount.builder()
+                        .value(String.valueOf(row[0]))
+                        .label((String) row[1])
+                        .count(((Number) row[2]).longValue())
+                        .build())
+                .sorted(FacetIndex.BY_COUNT)
+                .collect(Collectors.toList());
+
+        List<FacetCount> priceBuckets = facetIndex.getPriceBuckets().stream()
+                .map(bucket -> FacetCount.builder()
+                        .value(bucket.value())
+                        .label(bucket.value())
+                        .count(productRepository.countForFacets(
+                                categoryId, bucket.from(), bucket.to(), featured, inStock, tagKey))
+                        .build())
+                .collect(Collectors.toList());
+
+        List<FacetCount> tags = productRepository.countTagsForFacets(
+                        categoryId, minPrice, maxPrice, featured, inStock, null).stream()
+                .map(row -> FacetCount.builder()
+                        .value((String) row[0])
+                        .label((String) row[1])
+                        .count(((Number) row[2]).longValue())
+                        .build())
+                .sorted(FacetIndex.BY_COUNT)
+                .limit(FacetIndex.MAX_TAG_FACETS)
+                .collect(Collectors.toList());
+
+        return ProductFacetsResponse.builder()
+                .totalMatches(productRepository.countForFacets(
+                        categoryId, minPrice, maxPrice, featured, inStock, tagKey))
+                .categories(categories)
+                .priceBuckets(priceBuckets)
+                .tags(tags)
+                .featuredCount(productRepository.countForFacets(
+                        categoryId, minPrice, maxPrice, true, inStock, tagKey))
+                .inStockCount(productRepository.countForFacets(
+                        categoryId, minPrice, maxPrice, featured, true, tagKey))
+                .build();
     }
 
     /**
      * Find products by category
      */
-    @Transactional(readOnly = true)
-    public Page<Product> findByCategory(Long categoryId, Pageable pageable) {
-        return productRepository.findByCategoryIdAndActiveTrue(categoryId, pageable);
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductSummaryResponse> findByCategory(Long categoryId, Pageable pageable) {
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        if (snapshot != null && CatalogSnapshot.supportsSort(pageable.getSort())) {
+            return snapshot.find(CatalogSnapshot.Filter.builder().categoryId(categoryId).build(), pageable)
+                    .map(this::toSummary);
+        }
+        return toSummaries(productRepository.findSummariesWithFilters(
+                categoryId, null, null, null, null, pageable));
     }
 
     /**
      * Find featured products
      */
-    @Transactional(readOnly = true)
-    public List<Product> findFeaturedProducts(int limit) {
-        PageRequest pageRequest = PageRequest.of(0, limit);
-        return productRepository.findByFeaturedTrueAndActiveTrue(pageRequest).getContent();
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductSummaryResponse> findFeaturedProducts(int limit) {
+        PageRequest pageRequest = PageRequest.of(0, limit, Sort.by("productId"));
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        if (snapshot != null) {
+            return snapshot.find(CatalogSnapshot.Filter.builder().featured(true).build(), pageRequest)
+                    .map(this::toSummary).getContent();
+        }
+        return toSummaries(productRepository.findSummariesWithFilters(
+                null, null, null, true, null, pageRequest)).getContent();
     }
 
     /**
@@ -160,6 +358,8 @@ public class ProductService {
                 .build();
 
         Product savedProduct = productRepository.save(product);
+        inventoryService.recordInitialStock(savedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getProductId()));
         log.info("Product created with ID: {}", savedProduct.getProductId());
 
         return savedProduct;
@@ -194,7 +394,6 @@ public class ProductService {
         product.setPrice(productDTO.getPrice());
         product.setDiscountPrice(productDTO.getDiscountPrice());
         product.setSku(productDTO.getSku());
-        product.setStockQuantity(productDTO.getStockQuantity());
         product.setImageUrl(productDTO.getImageUrl());
         product.setFeatured(productDTO.isFeatured());
         product.setActive(productDTO.isActive());
@@ -203,6 +402,17 @@ public class ProductService {
         product.setTags(productDTO.getTags());
 
         Product updatedProduct = productRepository.save(product);
+
+        // Stock is not written with the entity - a changed quantity goes through the audited path
+        if (productDTO.getStockQuantity() != null
+                && !productDTO.getStockQuantity().equals(product.getStockQuantity())) {
+            if (!inventoryService.setStock(product.getProductId(), productDTO.getStockQuantity(), "Product updated")) {
+                throw new RuntimeException("Stock quantity cannot be negative");
+            }
+            refreshStock(updatedProduct);
+        }
+
+        eventPublisher.publishEvent(new ProductChangedEvent(updatedProduct.getProductId()));
         log.info("Product updated successfully");
 
         return updatedProduct;
@@ -217,6 +427,7 @@ public class ProductService {
         Product product = findById(productId);
         product.setActive(false);
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
 
         log.info("Product deleted (soft delete) successfully");
     }
@@ -231,6 +442,7 @@ public class ProductService {
         product.setActive(!product.isActive());
 
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
         log.info("Product active status toggled to: {}", updatedProduct.isActive());
 
         return updatedProduct;
@@ -238,38 +450,41 @@ public class ProductService {
 
     /**
      * Update stock quantity
+     * FIXED (2026-10-17): Through InventoryService (row lock, audit row) - not an entity save
      */
     public Product updateStock(Long productId, Integer quantity) {
         log.info("Updating stock for product ID: {} to quantity: {}", productId, quantity);
 
         Product product = findById(productId);
-        product.setStockQuantity(quantity);
-
-        Product updatedProduct = productRepository.save(product);
+        if (!inventoryService.setStock(productId, quantity, "Stock updated")) {
+            throw new RuntimeException("Stock quantity cannot be negative");
+        }
+        refreshStock(product);
         log.info("Stock updated successfully");
 
-        return updatedProduct;
+        return product;
     }
 
     /**
      * Adjust stock quantity (increase or decrease)
+     * FIXED (2026-10-17): One conditional UPDATE in InventoryService - no read-modify-write
      */
     public Product adjustStock(Long productId, Integer adjustment) {
         log.info("Adjusting stock for product ID: {} by: {}", productId, adjustment);
 
         Product product = findById(productId);
-        int newQuantity = product.getStockQuantity() + adjustment;
-
-        if (newQuantity < 0) {
+        if (!inventoryService.adjustStock(productId, adjustment, "Stock adjusted")) {
             throw new RuntimeException("Stock quantity cannot be negative");
         }
+        refreshStock(product);
+        log.info("Stock adjusted successfully. New quantity: {}", product.getStockQuantity());
 
-        product.setStockQuantity(newQuantity);
-
-        Product updatedProduct = productRepository.save(product);
-        log.info("Stock adjusted successfully. New quantity: {}", newQuantity);
+        return product;
+    }
 
-        return updatedProduct;
+    // The managed entity still holds the stock it was loaded with (the column is not updatable)
+    private void refreshStock(Product product) {
+        productRepository.findStockQuantity(product.getProductId()).ifPresent(product::setStockQuantity);
     }
 
     /**
@@ -277,8 +492,8 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public boolean isInStock(Long productId) {
-        Product product = findById(productId);
-        return product.getStockQuantity() > 0;
+        Product product = findByIdWithAvailability(productId);
+        return product.isInStock();
     }
 
     /**
@@ -286,8 +501,8 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public boolean hasStock(Long productId, Integer requiredQuantity) {
-        Product product = findById(productId);
-        return product.getStockQuantity() >= requiredQuantity;
+        Product product = findByIdWithAvailability(productId);
+        return product.hasEnoughStock(requiredQuantity);
     }
 
     /**
@@ -309,4 +524,72 @@ public class ProductService {
         }
         return List.of(dimensions.split(" x "));
     }
+
+    /**
+     * Listing card from a (snapshot or fully loaded) product
+     */
+    private ProductSummaryResponse toSummary(Product product) {
+        return ProductSummaryResponse.builder()
+                .productId(product.getProductId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .discountPrice(product.getDiscountPrice())
+                .imageUrl(product.getImageUrl())
+                .category(product.getCategory() != null ? product.getCategory().getName() : null)
+                .categoryId(product.getCategory() != null ? product.getCategory().getCategoryId() : null)
+                .inStock(product.isInStock())
+                .featured(product.isFeatured())
+                .tags(product.getTags() != null ? List.copyOf(product.getTags()) : List.of())
+                .additionalImages(product.getAdditionalImages() != null ? List.copyOf(product.getAdditionalImages()) : List.of())
+                .build();
+    }
+
+    /**
+     * Listing cards from projection rows - tags and additional images for the whole page
+     * are fetched with one IN query each. Armed flash-sale units are only looked up for
+     * rows without sellable stock (usually none).
+     */
+    private Page<ProductSummaryResponse> toSummaries(Page<ProductSummaryView> rows) {
+        return new PageImpl<>(toSummaries(rows.getContent()), rows.getPageable(), rows.getTotalElements());
+    }
+
+    private List<ProductSummaryResponse> toSummaries(List<ProductSummaryView> rows) {
+        List<Long> productIds = rows.stream().map(ProductSummaryView::getProductId).toList();
+        Map<Long, List<String>> tagsById = productIds.isEmpty() ? Map.of()
+                : groupByProductId(productRepository.findTagsByProductIds(productIds));
+        Map<Long, List<String>> imagesById = productIds.isEmpty() ? Map.of()
+                : groupByProductId(productRepository.findAdditionalImagesByProductIds(productIds));
+        List<Long> soldOutIds = rows.stream()
+                .filter(row -> row.getStockQuantity() == null || row.getStockQuantity() <= 0)
+                .map(ProductSummaryView::getProductId)
+                .toList();
+        Set<Long> flashSaleIds = new HashSet<>();
+        if (!soldOutIds.isEmpty()) {
+            productRepository.findArmedFlashSaleUnits(soldOutIds).forEach(row -> flashSaleIds.add((Long) row[0]));
+        }
+
+        return rows.stream().map(row -> ProductSummaryResponse.builder()
+                .productId(row.getProductId())
+                .name(row.getName())
+                .price(row.getPrice())
+                .discountPrice(row.getDiscountPrice())
+                .imageUrl(row.getImageUrl())
+                .category(row.getCategoryName())
+                .categoryId(row.getCategoryId())
+                .inStock((row.getStockQuantity() != null && row.getStockQuantity() > 0)
+                        || flashSaleIds.contains(row.getProductId()))
+                .featured(Boolean.TRUE.equals(row.getFeatured()))
+                .tags(tagsById.getOrDefault(row.getProductId(), List.of()))
+                .additionalImages(imagesById.getOrDefault(row.getProductId(), List.of()))
+                .build())
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, List<String>> groupByProductId(List<Object[]> rows) {
+        Map<Long, List<String>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return grouped;
+    }
 }
@@ -0,0 +1,330 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Product;
+import com.perfect8.shop.event.OrderPaidEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Reorder Engine - Version 1.0
+ * Reorder suggestions from exponentially decayed sales velocity per product.
+ *
+ * Each product has one slot in primitive arrays holding its decayed unit count
+ * relative to a common epoch: a sale of q units at time t adds q * 2^((t - epoch) / halfLife).
+ * Velocity (units/day) at any time is ln2 / halfLife * count * 2^(-(now - epoch) / halfLife),
+ * so sales never need per-product timestamps and nothing decays in the background.
+ *
+ * - nightly full recompute: streams the paid order lines of the last history-days
+ *   (no GROUP BY, MySQL row streaming) into fresh arrays and swaps them in
+ * - intraday: every committed OrderPaidEvent adds its lines to the current arrays
+ *
+ * Suggestions scan the arrays once (plus the products already at their reorder point
+ * from InventoryAggregates) and keep the lowest days-of-cover in a bounded heap.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReorderEngine {
+
+    private static final String STREAM_SQL = "SELECT oi.product_id, oi.quantity, o.order_id, o.order_date "
+            + "FROM order_items oi JOIN orders o ON o.order_id = oi.order_id "
+            + "WHERE o.order_date >= ? "
+            + "AND o.order_status IN ('PAID', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'COMPLETED')";
+
+    private static final double LN2 = Math.log(2);
+    private static final double MILLIS_PER_DAY = 86_400_000d;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogReadModel catalogReadModel;
+    private final InventoryAggregates inventoryAggregates;
+
+    @Value("${shop.reorder.half-life-days:14}")
+    private double halfLifeDays;
+
+    @Value("${shop.reorder.history-days:90}")
+    private int historyDays;
+
+    @Value("${shop.reorder.lead-time-days:7}")
+    private int leadTimeDays;
+
+    @Value("${shop.reorder.cover-days:30}")
+    private int coverDays;
+
+    private VelocityTable table;
+
+    // Sales committed while a recompute streams - re-applied unless the stream saw the order
+    private List<OrderPaidEvent> paidDuringRecompute;
+    private final Set<Long> pendingOrderIds = new HashSet<>();
+
+    private volatile LocalDateTime lastRecompute;
+    private volatile long lastRecomputeMillis;
+    private volatile long lastRecomputeRows;
+    private long incrementalSales;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeOnStartup() {
+        recompute();
+    }
+
+    @Scheduled(cron = "${shop.reorder.recompute-cron:0 30 2 * * *}")
+    public void scheduledRecompute() {
+        recompute();
+    }
+
+    /**
+     * Rebuild the velocity arrays from the paid order lines of the last history-days.
+     */
+    public void recompute() {
+        synchronized (this) {
+            if (paidDuringRecompute != null) {
+                return;
+            }
+            paidDuringRecompute = new ArrayList<>();
+            pendingOrderIds.clear();
+        }
+
+        long start = System.currentTimeMillis();
+        VelocityTable rebuilt;
+        synchronized (this) {
+            rebuilt = new VelocityTable(start, Math.max(1024, table != null ? table.size : 0));
+        }
+        Set<Long> streamedPendingOrders = new HashSet<>();
+        long[] rows = {0};
+        try {
+            LocalDateTime since = LocalDateTime.now().minusDays(historyDays);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(STREAM_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(Integer.MIN_VALUE); // MySQL: stream rows instead of buffering the result
+                ps.setTimestamp(1, Timestamp.valueOf(since));
+                return ps;
+            }, rs -> {
+                long orderId = rs.getLong(3);
+                synchronized (this) {
+                    if (pendingOrderIds.contains(orderId)) {
+                        streamedPendingOrders.add(orderId);
+                    }
+                }
+                rebuilt.add(rs.getLong(1), rs.getInt(2), rs.getTimestamp(4).getTime(), halfLifeDays);
+                rows[0]++;
+            });
+
+            synchronized (this) {
+                for (OrderPaidEvent event : paidDuringRecompute) {
+                    if (!streamedPendingOrders.contains(event.getOrderId())) {
+                        addSale(rebuilt, event);
+                    }
+                }
+                table = rebuilt;
+                paidDuringRecompute = null;
+                pendingOrderIds.clear();
+            }
+
+            lastRecompute = LocalDateTime.now();
+            lastRecomputeMillis = System.currentTimeMillis() - start;
+            lastRecomputeRows = rows[0];
+            log.info("Reorder engine recomputed: {} order lines, {} products ({} ms)",
+                    rows[0], rebuilt.size, lastRecomputeMillis);
+        } catch (Exception e) {
+            synchronized (this) {
+                // Keep the current arrays and the sales they have not seen yet
+                if (table != null) {
+                    paidDuringRecompute.forEach(event -> addSale(table, event));
+                }
+                paidDuringRecompute = null;
+                pendingOrderIds.clear();
+            }
+            log.error("Reorder engine recompute failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Intraday update - add a paid order's lines to the velocity.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderPaid(OrderPaidEvent event) {
+        synchronized (this) {
+            if (paidDuringRecompute != null) {
+                paidDuringRecompute.add(event);
+                pendingOrderIds.add(event.getOrderId());
+                return;
+            }
+            if (table != null) {
+                addSale(table, event);
+            }
+            incrementalSales++;
+        }
+    }
+
+    /**
+     * Products that run out within lead-time-days at current velocity, or are at their
+     * reorder point - lowest days of cover first.
+     */
+    public List<Map<String, Object>> getSuggestions(int limit) {
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        if (snapshot == null) {
+            return new ArrayList<>();
+        }
+
+        long now = System.currentTimeMillis();
+        Comparator<Suggestion> mostUrgentLast = Comparator
+                .comparingDouble((Suggestion suggestion) -> suggestion.daysOfCover).reversed()
+                .thenComparing(suggestion -> suggestion.product.getProductId());
+        // Heap head = least urgent, dropped when over the limit
+        PriorityQueue<Suggestion> heap = new PriorityQueue<>(limit + 1, mostUrgentLast);
+        Set<Long> seen = new HashSet<>();
+
+        synchronized (this) {
+            if (table != null) {
+                double decay = Math.pow(2, -(now - table.epochMillis) / MILLIS_PER_DAY / halfLifeDays);
+                for (int slot = 0; slot < table.size; slot++) {
+                    double velocity = LN2 / halfLifeDays * table.decayedUnits[slot] * decay;
+                    Product product = snapshot.getProduct(table.productIds[slot]);
+                    if (product == null || velocity <= 0) {
+                        continue;
+                    }
+                    int stock = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+                    double daysOfCover = stock / velocity;
+                    if (daysOfCover < leadTimeDays || isAtReorderPoint(product)) {
+                        offer(heap, new Suggestion(product, velocity, daysOfCover), limit);
+                        seen.add(product.getProductId());
+                    }
+                }
+            }
+        }
+
+        // At the reorder point without recent sales
+        if (inventoryAggregates.isReady()) {
+            for (Product product : inventoryAggregates.findAtOrBelowReorderPoint(Integer.MAX_VALUE)) {
+                if (!seen.contains(product.getProductId())) {
+                    offer(heap, new Suggestion(product, 0, Double.POSITIVE_INFINITY), limit);
+                }
+            }
+        }
+
+        List<Suggestion> ordered = new ArrayList<>(heap);
+        ordered.sort(mostUrgentLast.reversed());
+        List<Map<String, Object>> suggestions = new ArrayList<>(ordered.size());
+        for (Suggestion suggestion : ordered) {
+            suggestions.add(toMap(suggestion));
+        }
+        return suggestions;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        synchronized (this) {
+            metrics.put("trackedProducts", table != null ? table.size : 0);
+            metrics.put("recomputing", paidDuringRecompute != null);
+            metrics.put("incrementalSales", incrementalSales);
+        }
+        metrics.put("lastRecompute", lastRecompute);
+        metrics.put("lastRecomputeMillis", lastRecomputeMillis);
+        metrics.put("lastRecomputeRows", lastRecomputeRows);
+
+        return metrics;
+    }
+
+    // ========== Helpers ==========
+
+    private void addSale(VelocityTable target, OrderPaidEvent event) {
+        long saleMillis = event.getPaidDate() != null
+                ? event.getPaidDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        event.getQuantitiesByProductId().forEach((productId, quantity) ->
+                target.add(productId, quantity, saleMillis, halfLifeDays));
+    }
+
+    private static void offer(PriorityQueue<Suggestion> heap, Suggestion suggestion, int limit) {
+        heap.offer(suggestion);
+        if (heap.size() > limit) {
+            heap.poll();
+        }
+    }
+
+    private boolean isAtReorderPoint(Product product) {
+        return product.getReorderPoint() != null && product.getStockQuantity() != null
+                && product.getStockQuantity() <= product.getReorderPoint();
+    }
+
+    private Map<String, Object> toMap(Suggestion suggestion) {
+        Product product = suggestion.product;
+        int stock = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+        int reorderQuantity = product.getReorderQuantity() != null ? product.getReorderQuantity() : 0;
+        // Enough for the lead time plus cover-days of sales, at least one reorder quantity
+        int needed = (int) Math.ceil(suggestion.velocity * (leadTimeDays + coverDays)) - stock;
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("productId", product.getProductId());
+        map.put("sku", product.getSku());
+        map.put("productName", product.getName());
+        map.put("currentStock", stock);
+        map.put("reorderPoint", product.getReorderPoint());
+        map.put("reorderQuantity", product.getReorderQuantity());
+        map.put("dailyVelocity", Math.round(suggestion.velocity * 100) / 100.0);
+        map.put("daysOfCover", Double.isInfinite(suggestion.daysOfCover)
+                ? null : Math.round(suggestion.daysOfCover * 10) / 10.0);
+        map.put("suggestedQuantity", Math.max(reorderQuantity, needed));
+        map.put("reason", suggestion.daysOfCover < leadTimeDays ? "LOW_COVER" : "BELOW_REORDER_POINT");
+        return map;
+    }
+
+    private record Suggestion(Product product, double velocity, double daysOfCover) {
+    }
+
+    /**
+     * Dense slot per product - decayed unit counts relative to epochMillis.
+     * Guarded by the ReorderEngine monitor once published.
+     */
+    private static final class VelocityTable {
+
+        final long epochMillis;
+        final Map<Long, Integer> slotByProductId = new HashMap<>();
+        long[] productIds;
+        double[] decayedUnits;
+        int size = 0;
+
+        VelocityTable(long epochMillis, int capacity) {
+            this.epochMillis = epochMillis;
+            this.productIds = new long[capacity];
+            this.decayedUnits = new double[capacity];
+        }
+
+        void add(long productId, int quantity, long saleMillis, double halfLifeDays) {
+            Integer slot = slotByProductId.get(productId);
+            if (slot == null) {
+                if (size == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, size * 2);
+                    decayedUnits = Arrays.copyOf(decayedUnits, size * 2);
+                }
+                slot = size++;
+                productIds[slot] = productId;
+                slotByProductId.put(productId, slot);
+            }
+            decayedUnits[slot] += quantity * Math.pow(2, (saleMillis - epochMillis) / MILLIS_PER_DAY / halfLifeDays);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.perfect8.shop.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Search Tokenizer - Version 1.0
+ * Shared text analysis for ProductSearchIndex (and typeahead).
+ *
+ * Steps per token:
+ * 1. Lowercase + accent folding (å/ä -> a, ö -> o, é -> e, æ -> ae, ø -> o)
+ * 2. Split on anything that is not a letter or digit
+ * 3. Light Swedish stemming - strip common inflection suffixes
+ *    (skjortorna -> skjort, byxor -> byx, jackor -> jack)
+ *
+ * Index and query text MUST go through the same analyze() call.
+ */
+public final class SearchTokenizer {
+
+    // Longest first - first match wins. Kept short on purpose ("light" stemming).
+    private static final String[] SWEDISH_SUFFIXES = {
+            "heterna", "arnas", "ernas", "ornas", "heten", "arna", "erna", "orna",
+            "ande", "ende", "aste", "are", "ast", "het", "ens",
+            "ar", "er", "or", "en", "et", "na", "ad", "as", "es",
+            "a", "e", "s"
+    };
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Full analysis: fold, split and stem.
+     */
+    public static List<String> analyze(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : split(fold(text))) {
+            tokens.add(stem(token));
+        }
+        return tokens;
+    }
+
+    /**
+     * Fold and split without stemming - used for prefix matching of partially typed words.
+     */
+    public static List<String> analyzeWithoutStemming(String text) {
+        return split(fold(text));
+    }
+
+    /**
+     * Lowercase and strip accents. Keeps letters, digits and separators.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT)
+                .replace("æ", "ae")
+                .replace("ø", "o")
+                .replace("ß", "ss");
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Strip one Swedish inflection suffix, never leaving less than MIN_STEM_LENGTH characters.
+     * Tokens containing digits (SKUs, sizes) are left untouched.
+     */
+    public static String stem(String token) {
+        if (token.length() <= MIN_STEM_LENGTH || containsDigit(token)) {
+            return token;
+        }
+        for (String suffix : SWEDISH_SUFFIXES) {
+            if (token.endsWith(suffix) && token.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                return token.substring(0, token.length() - suffix.length());
+            }
+        }
+        return token;
+    }
+
+    private static List<String> split(String folded) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean containsDigit(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isDigit(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
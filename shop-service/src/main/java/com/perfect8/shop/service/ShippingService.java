@@ -1,5 +1,6 @@
 package com.perfect8.shop.service;
 
+import com.perfect8.common.money.Money;
 import com.perfect8.shop.dto.*;
 import com.perfect8.shop.entity.Order;
 import com.perfect8.shop.entity.Shipment;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -23,6 +25,7 @@ public class ShippingService {
 
     private final ShipmentRepository shipmentRepository;
     private static final BigDecimal FREE_SHIPPING_THRESHOLD = new BigDecimal("500.00");
+    private static final long SWEDISH_VAT_BASIS_POINTS = 2500;
 
     // Version 1.0 - Enkel implementation
     public List<ShippingOptionDTO> calculateShippingOptions(ShippingCalculationRequest request) {
@@ -91,9 +94,10 @@ public class ShippingService {
     public TaxCalculationResponse calculateTax(TaxCalculationRequest request) {
         log.info("Calculating tax for order amount: {}", request.getOrderAmount());
         
-        // V1.0: Simple percentage-based tax
+        // V1.0: Simple percentage-based tax, rounded to whole öre
         BigDecimal taxRate = new BigDecimal("0.25"); // 25% moms för Sverige
-        BigDecimal taxAmount = request.getOrderAmount().multiply(taxRate);
+        BigDecimal taxAmount = Money.toBigDecimal(
+                Money.percentOf(Money.toMinor(request.getOrderAmount()), SWEDISH_VAT_BASIS_POINTS, RoundingMode.HALF_UP));
         
         return TaxCalculationResponse.builder()
             .taxAmount(taxAmount)
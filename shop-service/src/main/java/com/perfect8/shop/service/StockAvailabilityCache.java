@@ -0,0 +1,190 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.event.ProductChangedEvent;
+import com.perfect8.shop.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stock Availability Cache - Version 1.0
+ * Short-TTL stock levels for soft availability checks (cart badge, add to cart,
+ * checkout validation) so the cart path does not re-read products per request.
+ *
+ * - entries live shop.stock-cache.ttl-ms; misses are loaded with ONE IN query
+ * - every committed stock write publishes ProductChangedEvent - the entry is
+ *   dropped AFTER_COMMIT (a load racing with the drop of the same product is not cached;
+ *   invalidation counters are striped by product ID, so other loads still cache)
+ * - armed flash-sale units are loaded with the stock (subquery in findStockLevels); on the
+ *   instance that serves the flash sale its live token count replaces them at read time
+ *
+ * Never used to decide a reservation - InventoryService.holdStock still runs the
+ * conditional decrement at order time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockAvailabilityCache {
+
+    // Power of two - invalidation counter stripes
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final ProductRepository productRepository;
+    private final FlashSaleService flashSaleService;
+
+    @Value("${shop.stock-cache.ttl-ms:2000}")
+    private long ttlMillis;
+
+    @Value("${shop.stock-cache.max-entries:100000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<Long, StockLevel> entries = new ConcurrentHashMap<>();
+
+    // Bumped when a product of the stripe is invalidated - a load does not cache a product
+    // whose stripe changed while it ran
+    private final AtomicLongArray invalidationSequences = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    // Bumped when every entry is dropped
+    private final AtomicLong clearSequence = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loadQueries = new LongAdder();
+    private final LongAdder servedAgeMillis = new LongAdder();
+    private final AtomicLong maxServedAgeMillis = new AtomicLong();
+
+    /**
+     * Available units (sellable stock + flash-sale tokens), 0 for unknown products.
+     */
+    public int getAvailable(Long productId) {
+        StockLevel level = getLevels(List.of(productId)).get(productId);
+        return level != null ? level.available() : 0;
+    }
+
+    /**
+     * Stock levels for several products - one query for all misses. Unknown products are absent.
+     */
+    public Map<Long, StockLevel> getLevels(Collection<Long> productIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, StockLevel> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (Long productId : productIds) {
+            StockLevel cached = entries.get(productId);
+            if (cached != null && now - cached.loadedMillis() < ttlMillis) {
+                long age = now - cached.loadedMillis();
+                hits.increment();
+                servedAgeMillis.add(age);
+                maxServedAgeMillis.accumulateAndGet(age, Math::max);
+                result.put(productId, withTokens(productId, cached));
+            } else {
+                if (cached != null) {
+                    expired.increment();
+                }
+                misses.increment();
+                missing.add(productId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long clears = clearSequence.get();
+            Map<Long, Long> sequences = new HashMap<>();
+            for (Long productId : missing) {
+                sequences.put(productId, invalidationSequences.get(stripe(productId)));
+            }
+            loadQueries.increment();
+            List<Object[]> rows = productRepository.findStockLevels(missing);
+            boolean cleared = clears != clearSequence.get();
+            if (!cleared && entries.size() + rows.size() > maxEntries) {
+                entries.clear();
+            }
+            for (Object[] row : rows) {
+                Long productId = (Long) row[0];
+                boolean cacheable = !cleared
+                        && sequences.get(productId) == invalidationSequences.get(stripe(productId));
+                int stock = row[1] != null ? (Integer) row[1] : 0;
+                Integer reorderPoint = (Integer) row[2];
+                int flashUnits = row[3] != null ? ((Number) row[3]).intValue() : 0;
+                StockLevel level = new StockLevel(stock, flashUnits, reorderPoint, now);
+                if (cacheable) {
+                    entries.put(productId, level);
+                }
+                result.put(productId, withTokens(productId, level));
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(Long productId) {
+        invalidationSequences.incrementAndGet(stripe(productId));
+        invalidations.increment();
+        entries.remove(productId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            clearSequence.incrementAndGet();
+            invalidations.increment();
+            entries.clear();
+            return;
+        }
+        invalidate(event.getProductId());
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("entries", entries.size());
+        metrics.put("ttlMillis", ttlMillis);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", misses.sum());
+        metrics.put("hitRate", lookups == 0 ? 0.0 : Math.round(hitCount * 1000.0 / lookups) / 1000.0);
+        metrics.put("expired", expired.sum());
+        metrics.put("invalidations", invalidations.sum());
+        metrics.put("loadQueries", loadQueries.sum());
+        // Staleness: age of the cached value when it was served (upper bound is the TTL)
+        metrics.put("avgServedAgeMillis", hitCount == 0 ? 0 : servedAgeMillis.sum() / hitCount);
+        metrics.put("maxServedAgeMillis", maxServedAgeMillis.get());
+        return metrics;
+    }
+
+    private static int stripe(Long productId) {
+        return productId.hashCode() & (INVALIDATION_STRIPES - 1);
+    }
+
+    private StockLevel withTokens(Long productId, StockLevel level) {
+        if (!flashSaleService.isArmed(productId)) {
+            return level;
+        }
+        int tokens = flashSaleService.availableTokens(productId);
+        return new StockLevel(level.stockQuantity(), tokens, level.reorderPoint(), level.loadedMillis());
+    }
+
+    /**
+     * Stock figures of one product. flashTokens is live on the instance serving the
+     * flash sale, the loaded armed remaining elsewhere.
+     */
+    public record StockLevel(int stockQuantity, int flashTokens, Integer reorderPoint, long loadedMillis) {
+
+        public int available() {
+            return stockQuantity + flashTokens;
+        }
+    }
+}
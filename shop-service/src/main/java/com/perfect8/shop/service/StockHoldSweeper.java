@@ -0,0 +1,74 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.repository.StockHoldRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock Hold Sweeper - Version 1.0
+ * Returns expired stock holds (unpaid orders) to sellable stock.
+ *
+ * Every shop.stock-holds.sweep-ms the due holds are read oldest first through the
+ * expiry_date index and released in batches of shop.stock-holds.sweep-batch-size,
+ * one transaction per batch. Rows locked by a confirming payment (or by another
+ * instance sweeping) are skipped, so a hold is settled exactly once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockHoldSweeper {
+
+    // Upper bound per run so a large backlog cannot keep the scheduler thread busy
+    private static final int MAX_BATCHES_PER_SWEEP = 20;
+
+    private final InventoryService inventoryService;
+    private final StockHoldRepository stockHoldRepository;
+
+    @Value("${shop.stock-holds.sweep-batch-size:500}")
+    private int batchSize;
+
+    private final AtomicLong totalExpired = new AtomicLong();
+    private final AtomicLong lastSweepExpired = new AtomicLong();
+    private volatile LocalDateTime lastSweep;
+
+    @Scheduled(fixedDelayString = "${shop.stock-holds.sweep-ms:15000}",
+            initialDelayString = "${shop.stock-holds.sweep-ms:15000}")
+    public void sweep() {
+        int expired = 0;
+        try {
+            for (int batch = 0; batch < MAX_BATCHES_PER_SWEEP; batch++) {
+                int count = inventoryService.expireHolds(batchSize);
+                expired += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Stock hold sweep failed after {} expired holds: {}", expired, e.getMessage(), e);
+        }
+
+        if (expired > 0) {
+            log.info("Released {} expired stock holds", expired);
+        }
+        totalExpired.addAndGet(expired);
+        lastSweepExpired.set(expired);
+        lastSweep = LocalDateTime.now();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("activeHolds", stockHoldRepository.countActive(LocalDateTime.now()));
+        metrics.put("totalExpired", totalExpired.get());
+        metrics.put("lastSweepExpired", lastSweepExpired.get());
+        metrics.put("lastSweep", lastSweep);
+        return metrics;
+    }
+}
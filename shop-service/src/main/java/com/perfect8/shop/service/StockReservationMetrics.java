@@ -0,0 +1,107 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stock Reservation Metrics - Version 1.0
+ * Per-product contention counters for the conditional stock UPDATE.
+ *
+ * - attempts / reserved / rejected (not enough stock when the UPDATE ran)
+ * - statement time incl. row lock wait (avg / max) - grows when many checkouts
+ *   queue on the same hot row
+ *
+ * Only LongAdders on the hot path; SKUs are looked up from the catalog snapshot
+ * when the metrics are read. Memory is bounded by the number of products.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockReservationMetrics {
+
+    private final CatalogReadModel catalogReadModel;
+
+    private final ConcurrentHashMap<Long, ProductStats> stats = new ConcurrentHashMap<>();
+
+    public void recordReservation(Long productId, int quantity, boolean reserved, long elapsedNanos) {
+        ProductStats productStats = stats.computeIfAbsent(productId, id -> new ProductStats());
+        productStats.attempts.increment();
+        if (reserved) {
+            productStats.reserved.increment();
+            productStats.unitsReserved.add(quantity);
+        } else {
+            productStats.rejected.increment();
+        }
+        productStats.totalNanos.add(elapsedNanos);
+        productStats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    public void recordRelease(Long productId, int quantity) {
+        stats.computeIfAbsent(productId, id -> new ProductStats()).unitsReleased.add(quantity);
+    }
+
+    /**
+     * Totals plus the most contended products (most rejections, then most attempts).
+     */
+    public Map<String, Object> getMetrics(int limit) {
+        long attempts = 0;
+        long rejected = 0;
+        List<Map.Entry<Long, ProductStats>> entries = new ArrayList<>(stats.entrySet());
+        for (Map.Entry<Long, ProductStats> entry : entries) {
+            attempts += entry.getValue().attempts.sum();
+            rejected += entry.getValue().rejected.sum();
+        }
+
+        entries.sort(Comparator
+                .comparingLong((Map.Entry<Long, ProductStats> entry) -> entry.getValue().rejected.sum()).reversed()
+                .thenComparing(Comparator.comparingLong(
+                        (Map.Entry<Long, ProductStats> entry) -> entry.getValue().attempts.sum()).reversed()));
+
+        CatalogSnapshot snapshot = catalogReadModel.getSnapshot();
+        List<Map<String, Object>> products = new ArrayList<>();
+        for (Map.Entry<Long, ProductStats> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            ProductStats productStats = entry.getValue();
+            long productAttempts = productStats.attempts.sum();
+            Map<String, Object> product = new HashMap<>();
+            product.put("productId", entry.getKey());
+            Product cached = snapshot != null ? snapshot.getProduct(entry.getKey()) : null;
+            if (cached != null) {
+                product.put("sku", cached.getSku());
+            }
+            product.put("attempts", productAttempts);
+            product.put("reserved", productStats.reserved.sum());
+            product.put("rejected", productStats.rejected.sum());
+            product.put("unitsReserved", productStats.unitsReserved.sum());
+            product.put("unitsReleased", productStats.unitsReleased.sum());
+            product.put("avgUpdateMicros", productAttempts == 0 ? 0 : productStats.totalNanos.sum() / productAttempts / 1000);
+            product.put("maxUpdateMicros", productStats.maxNanos.get() / 1000);
+            products.add(product);
+        }
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("attempts", attempts);
+        metrics.put("rejected", rejected);
+        metrics.put("trackedProducts", entries.size());
+        metrics.put("mostContended", products);
+        return metrics;
+    }
+
+    private static final class ProductStats {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder reserved = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder unitsReserved = new LongAdder();
+        final LongAdder unitsReleased = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+}
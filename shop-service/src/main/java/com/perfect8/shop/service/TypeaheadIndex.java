@@ -0,0 +1,383 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Category;
+import com.perfect8.shop.entity.Product;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead Index - Version 1.0
+ * Prefix trie behind GET /api/products/autocomplete.
+ *
+ * Keys (folded with SearchTokenizer.fold, no stemming):
+ * - Product name, plus every word start inside it ("röd skjorta" is also found by "skj")
+ * - Product SKU
+ * - Category name
+ *
+ * Every trie node caches its top-K suggestions by popularity
+ * (salesCount * SALES_WEIGHT + views), so a lookup is a walk down the prefix
+ * and a read of an already sorted array - no sorting, no DB.
+ *
+ * Built from the full catalog load (CatalogReadModel, also re-run on its background
+ * schedule) and patched per product on writes: only the nodes on the paths of the
+ * changed keys are recomputed, bottom-up, from their children's top-K.
+ */
+@Slf4j
+@Service
+public class TypeaheadIndex implements CatalogListener {
+
+    public static final int TOP_K = 10;
+
+    private static final long SALES_WEIGHT = 10;
+    private static final int MAX_KEY_LENGTH = 40;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+    private final Map<Long, List<IndexedKey>> keysByProductId = new HashMap<>();
+    private final Map<Long, IndexedKey> keyByCategoryId = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ========== CatalogListener ==========
+
+    @Override
+    public void onCatalogLoaded(Collection<Product> activeProducts) {
+        long start = System.currentTimeMillis();
+
+        // Build off to the side, swap in under the write lock
+        Node newRoot = new Node();
+        Map<Long, List<IndexedKey>> newProductKeys = new HashMap<>();
+        Map<Long, Long> categoryPopularity = new HashMap<>();
+        Map<Long, Category> categories = new HashMap<>();
+
+        for (Product product : activeProducts) {
+            List<IndexedKey> keys = productKeys(product);
+            for (IndexedKey key : keys) {
+                insertTerminal(newRoot, key);
+            }
+            newProductKeys.put(product.getProductId(), keys);
+
+            Category category = product.getCategory();
+            if (category != null && category.getCategoryId() != null) {
+                categories.putIfAbsent(category.getCategoryId(), category);
+                categoryPopularity.merge(category.getCategoryId(), popularity(product), Long::sum);
+            }
+        }
+
+        Map<Long, IndexedKey> newCategoryKeys = new HashMap<>();
+        for (Category category : categories.values()) {
+            IndexedKey key = categoryKey(category, categoryPopularity.get(category.getCategoryId()));
+            if (key != null) {
+                insertTerminal(newRoot, key);
+                newCategoryKeys.put(category.getCategoryId(), key);
+            }
+        }
+        newRoot.recomputeSubtree();
+
+        lock.writeLock().lock();
+        try {
+            root = newRoot;
+            keysByProductId.clear();
+            keysByProductId.putAll(newProductKeys);
+            keyByCategoryId.clear();
+            keyByCategoryId.putAll(newCategoryKeys);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Typeahead index built: {} products, {} categories ({} ms)",
+                newProductKeys.size(), newCategoryKeys.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void onProductUpdated(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeProductKeys(product.getProductId());
+            List<IndexedKey> keys = productKeys(product);
+            for (IndexedKey key : keys) {
+                insertTerminal(root, key);
+                recomputePath(key.key);
+            }
+            keysByProductId.put(product.getProductId(), keys);
+
+            // New categories become suggestible right away; popularity is refreshed on the next full load
+            Category category = product.getCategory();
+            if (category != null && category.getCategoryId() != null
+                    && !keyByCategoryId.containsKey(category.getCategoryId())) {
+                IndexedKey key = categoryKey(category, popularity(product));
+                if (key != null) {
+                    insertTerminal(root, key);
+                    recomputePath(key.key);
+                    keyByCategoryId.put(category.getCategoryId(), key);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeProductKeys(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== Lookup ==========
+
+    /**
+     * Top suggestions for a typed prefix, most popular first.
+     * Returns a view of the node's cached array - callers must not modify it.
+     * The prefix is clamped to MAX_KEY_LENGTH like the indexed keys, so a long
+     * query still finds the products whose key was truncated.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String folded = truncate(SearchTokenizer.fold(prefix).strip());
+        if (folded.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < folded.length() && node != null; i++) {
+                node = node.child(folded.charAt(i));
+            }
+            if (node == null || node.top.length == 0) {
+                return Collections.emptyList();
+            }
+            return Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Internals (caller holds the write lock, or owns an unpublished trie) ==========
+
+    private void removeProductKeys(Long productId) {
+        List<IndexedKey> keys = keysByProductId.remove(productId);
+        if (keys == null) {
+            return;
+        }
+        for (IndexedKey key : keys) {
+            Node node = find(root, key.key);
+            if (node != null && node.terminals != null) {
+                node.terminals.remove(key.suggestion);
+                recomputePath(key.key);
+            }
+        }
+    }
+
+    private static void insertTerminal(Node root, IndexedKey key) {
+        Node node = root;
+        for (int i = 0; i < key.key.length(); i++) {
+            node = node.childOrCreate(key.key.charAt(i));
+        }
+        if (node.terminals == null) {
+            node.terminals = new ArrayList<>(1);
+        }
+        if (!node.terminals.contains(key.suggestion)) {
+            node.terminals.add(key.suggestion);
+        }
+    }
+
+    private void recomputePath(String key) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        int depth = 0;
+        while (depth < key.length()) {
+            Node next = path[depth].child(key.charAt(depth));
+            if (next == null) {
+                break;
+            }
+            path[++depth] = next;
+        }
+        for (int i = depth; i >= 0; i--) {
+            path[i].recomputeTop();
+        }
+    }
+
+    private static Node find(Node root, String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private static List<IndexedKey> productKeys(Product product) {
+        List<IndexedKey> keys = new ArrayList<>(4);
+        long popularity = popularity(product);
+
+        if (product.getName() != null && !product.getName().isBlank()) {
+            Suggestion nameSuggestion = new Suggestion(SuggestionType.PRODUCT, product.getProductId(),
+                    product.getName(), product.getImageUrl(), popularity);
+            // Whole name, then every later word start
+            String folded = SearchTokenizer.fold(product.getName()).strip();
+            addKey(keys, folded, nameSuggestion);
+            for (int i = 1; i < folded.length(); i++) {
+                if (!Character.isLetterOrDigit(folded.charAt(i - 1)) && Character.isLetterOrDigit(folded.charAt(i))) {
+                    addKey(keys, folded.substring(i), nameSuggestion);
+                }
+            }
+        }
+
+        if (product.getSku() != null && !product.getSku().isBlank()) {
+            Suggestion skuSuggestion = new Suggestion(SuggestionType.SKU, product.getProductId(),
+                    product.getSku(), product.getImageUrl(), popularity);
+            addKey(keys, SearchTokenizer.fold(product.getSku()).strip(), skuSuggestion);
+        }
+        return keys;
+    }
+
+    private static IndexedKey categoryKey(Category category, Long popularity) {
+        if (category.getName() == null || category.getName().isBlank()) {
+            return null;
+        }
+        String folded = truncate(SearchTokenizer.fold(category.getName()).strip());
+        Suggestion suggestion = new Suggestion(SuggestionType.CATEGORY, category.getCategoryId(),
+                category.getName(), null, popularity != null ? popularity : 0L);
+        return new IndexedKey(folded, suggestion);
+    }
+
+    private static void addKey(List<IndexedKey> keys, String folded, Suggestion suggestion) {
+        if (!folded.isEmpty()) {
+            keys.add(new IndexedKey(truncate(folded), suggestion));
+        }
+    }
+
+    private static String truncate(String folded) {
+        return folded.length() > MAX_KEY_LENGTH ? folded.substring(0, MAX_KEY_LENGTH) : folded;
+    }
+
+    private static long popularity(Product product) {
+        long sales = product.getSalesCount() != null ? product.getSalesCount() : 0L;
+        long views = product.getViews() != null ? product.getViews() : 0L;
+        return sales * SALES_WEIGHT + views;
+    }
+
+    /**
+     * Trie node - children kept in a char-sorted array (small fan-out, cache friendly).
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+        private char[] childKeys = new char[0];
+        private Node[] children = NO_CHILDREN;
+        private List<Suggestion> terminals;
+        private Suggestion[] top = NO_SUGGESTIONS;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(childKeys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(childKeys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            char[] newKeys = new char[childKeys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(childKeys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(childKeys, insertAt, newKeys, insertAt + 1, childKeys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            Node created = new Node();
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = created;
+            childKeys = newKeys;
+            children = newChildren;
+            return created;
+        }
+
+        void recomputeSubtree() {
+            for (Node child : children) {
+                child.recomputeSubtree();
+            }
+            recomputeTop();
+        }
+
+        /**
+         * Top-K of this node = top-K of (own terminals + each child's top-K).
+         * The same suggestion can arrive via several keys (name word starts) - keep it once.
+         */
+        void recomputeTop() {
+            List<Suggestion> candidates = new ArrayList<>();
+            if (terminals != null) {
+                candidates.addAll(terminals);
+            }
+            for (Node child : children) {
+                Collections.addAll(candidates, child.top);
+            }
+            if (candidates.isEmpty()) {
+                top = NO_SUGGESTIONS;
+                return;
+            }
+            candidates.sort(Suggestion.BY_POPULARITY);
+            List<Suggestion> selected = new ArrayList<>(TOP_K);
+            for (Suggestion candidate : candidates) {
+                if (selected.size() == TOP_K) {
+                    break;
+                }
+                if (!selected.contains(candidate)) {
+                    selected.add(candidate);
+                }
+            }
+            top = selected.toArray(NO_SUGGESTIONS);
+        }
+    }
+
+    private record IndexedKey(String key, Suggestion suggestion) {
+    }
+
+    public enum SuggestionType {
+        PRODUCT, SKU, CATEGORY
+    }
+
+    /**
+     * Immutable suggestion - identity based equality, one instance per product name/SKU/category.
+     */
+    @Getter
+    public static final class Suggestion {
+        private static final Comparator<Suggestion> BY_POPULARITY =
+                Comparator.comparingLong(Suggestion::getPopularity).reversed()
+                        .thenComparing(Suggestion::getText, String.CASE_INSENSITIVE_ORDER)
+                        .thenComparingLong(Suggestion::getId);
+
+        private final SuggestionType type;
+        private final Long id;
+        private final String text;
+        private final String imageUrl;
+        private final long popularity;
+
+        Suggestion(SuggestionType type, Long id, String text, String imageUrl, long popularity) {
+            this.type = type;
+            this.id = id;
+            this.text = text;
+            this.imageUrl = imageUrl;
+            this.popularity = popularity;
+        }
+    }
+}
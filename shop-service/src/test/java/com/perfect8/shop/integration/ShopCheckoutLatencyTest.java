@@ -0,0 +1,197 @@
+package com.perfect8.shop.integration;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checkout latency by order size (v1.3)
+ *
+ * Times POST /shop/api/orders for 1, 10 and 50-line orders through the gateway and
+ * prints p50 / p99 / max per size. With the batched checkout the 50-line p99 should
+ * stay close to the 1-line p99 - the statements per order no longer grow with the lines.
+ *
+ * Every created order is cancelled again (holds go back to stock), like ShopOrderFlowTest.
+ *
+ * Tuning (system properties):
+ * - checkout.latency.samples - timed orders per size (default 20)
+ * - checkout.latency.warmup  - untimed orders per size first (default 3)
+ * - checkout.latency.max-p99-ms - fail when a size's p99 is above this (default: report only)
+ *
+ * NOTE: Needs a JWT user with a linked shop customer and at least 50 products in stock,
+ * otherwise the sizes that can not be built are skipped.
+ */
+@DisplayName("Shop Service - Checkout Latency (v1.3)")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ShopCheckoutLatencyTest {
+
+    private static RequestSpecification authenticatedSpec;
+
+    private static final String BASE_URL = "https://p8.rantila.com";
+    private static final String TEST_EMAIL = "cmb@p8.se";
+    private static final String TEST_PASSWORD = "magnus123";
+
+    private static final String LOGIN_ENDPOINT = "/api/auth/login";
+    private static final String ORDERS_ENDPOINT = "/shop/api/orders";
+    private static final String PRODUCTS_ENDPOINT = "/shop/api/products";
+
+    private static final int SAMPLES = Integer.getInteger("checkout.latency.samples", 20);
+    private static final int WARMUP = Integer.getInteger("checkout.latency.warmup", 3);
+    private static final long MAX_P99_MILLIS = Long.getLong("checkout.latency.max-p99-ms", 0L);
+
+    // customerId is replaced with the authenticated customer by OrderController
+    private static final String ORDER_BODY = """
+            {
+                "customerId": 0,
+                "orderItems": [%s],
+                "subtotal": %s,
+                "totalAmount": %s,
+                "currency": "SEK",
+                "shippingAddressLine1": "Testgatan 1",
+                "shippingCity": "Karlskoga",
+                "shippingPostalCode": "69132",
+                "shippingCountry": "SE",
+                "notes": "Checkout latency test",
+                "source": "API"
+            }
+            """;
+
+    private static List<Long> productIds = new ArrayList<>();
+    private static List<BigDecimal> prices = new ArrayList<>();
+
+    @BeforeAll
+    public static void setup() {
+        RestAssured.useRelaxedHTTPSValidation();
+        RestAssured.baseURI = BASE_URL;
+
+        String jwtToken = getAuthToken();
+        if (jwtToken == null) {
+            return;
+        }
+        authenticatedSpec = new RequestSpecBuilder()
+                .setBaseUri(BASE_URL)
+                .setContentType(ContentType.JSON)
+                .setAccept(ContentType.JSON)
+                .addHeader("Authorization", "Bearer " + jwtToken)
+                .build();
+
+        Response products = given().spec(authenticatedSpec)
+                .queryParam("size", 100)
+                .queryParam("inStock", true)
+        .when().get(PRODUCTS_ENDPOINT)
+        .then().statusCode(200).extract().response();
+        productIds = products.jsonPath().getList("data.content.productId", Long.class);
+        prices = products.jsonPath().getList("data.content.price", BigDecimal.class);
+
+        System.out.println("🚀 Checkout latency: " + BASE_URL + " (" + productIds.size() + " products in stock, "
+                + SAMPLES + " samples per size)");
+    }
+
+    private static String getAuthToken() {
+        try {
+            String loginBody = """
+                    {"email": "%s", "password": "%s"}
+                    """.formatted(TEST_EMAIL, TEST_PASSWORD);
+
+            return given()
+                    .contentType(ContentType.JSON)
+                    .body(loginBody)
+            .when()
+                    .post(BASE_URL + LOGIN_ENDPOINT)
+            .then()
+                    .statusCode(200)
+                    .extract().response().jsonPath().getString("accessToken");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("LATENCY: 1-line orders")
+    public void testCheckoutLatency_1Line() {
+        measure(1);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("LATENCY: 10-line orders")
+    public void testCheckoutLatency_10Lines() {
+        measure(10);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("LATENCY: 50-line orders")
+    public void testCheckoutLatency_50Lines() {
+        measure(50);
+    }
+
+    private void measure(int lines) {
+        Assumptions.assumeTrue(authenticatedSpec != null, "JWT required");
+        Assumptions.assumeTrue(productIds.size() >= lines, "Need " + lines + " products in stock");
+
+        String orderBody = orderBody(lines);
+        long[] millis = new long[SAMPLES];
+        for (int run = 0; run < WARMUP + SAMPLES; run++) {
+            long start = System.nanoTime();
+            Response response = given().spec(authenticatedSpec).body(orderBody)
+            .when().post(ORDERS_ENDPOINT)
+            .then().extract().response();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Admin JWT may not have a linked customer in shopDB - nothing to measure then
+            Assumptions.assumeTrue(response.getStatusCode() == 200 || response.getStatusCode() == 201,
+                    "Order creation returned " + response.getStatusCode());
+            cancel(response.jsonPath().getLong("data.orderId"));
+
+            if (run >= WARMUP) {
+                millis[run - WARMUP] = elapsedMillis;
+            }
+        }
+
+        Arrays.sort(millis);
+        long p99 = percentile(millis, 0.99);
+        System.out.printf("📋 %2d lines: p50 %d ms, p99 %d ms, max %d ms (%d orders)%n",
+                lines, percentile(millis, 0.50), p99, millis[millis.length - 1], SAMPLES);
+
+        if (MAX_P99_MILLIS > 0) {
+            assertTrue(p99 <= MAX_P99_MILLIS, lines + "-line p99 " + p99 + " ms is above " + MAX_P99_MILLIS + " ms");
+        }
+    }
+
+    private String orderBody(int lines) {
+        StringJoiner items = new StringJoiner(", ");
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int line = 0; line < lines; line++) {
+            items.add("{\"productId\": %d, \"quantity\": 1, \"unitPrice\": %s}"
+                    .formatted(productIds.get(line), prices.get(line).toPlainString()));
+            subtotal = subtotal.add(prices.get(line));
+        }
+        return ORDER_BODY.formatted(items, subtotal.toPlainString(), subtotal.toPlainString());
+    }
+
+    private void cancel(Long orderId) {
+        given().spec(authenticatedSpec)
+                .queryParam("reason", "Checkout latency test cleanup")
+        .when().post(ORDERS_ENDPOINT + "/" + orderId + "/cancel")
+        .then().statusCode(200);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
@@ -0,0 +1,221 @@
+package com.perfect8.shop.integration;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Flash-sale load test (v1.3)
+ *
+ * Many concurrent checkouts of ONE product, first through the normal reserve path
+ * (every order serializes on the products row), then with the same product armed as a
+ * flash sale (orders take in-memory tokens). Prints orders per second for both.
+ *
+ * A test product is created for the run and soft-deleted afterwards; every order is
+ * cancelled again (stock and tokens go back) before the product is disarmed.
+ *
+ * Tuning (system properties):
+ * - flash-sale.load.threads - concurrent clients (default 16)
+ * - flash-sale.load.seconds - length of each phase (default 10)
+ *
+ * NOTE: Needs an admin JWT with a linked shop customer (orders are created with it),
+ * otherwise the test is skipped.
+ */
+@DisplayName("Shop Service - Flash Sale Load Test (v1.3)")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ShopFlashSaleLoadTest {
+
+    private static RequestSpecification authenticatedSpec;
+
+    private static final String BASE_URL = "https://p8.rantila.com";
+    private static final String TEST_EMAIL = "cmb@p8.se";
+    private static final String TEST_PASSWORD = "magnus123";
+
+    private static final String LOGIN_ENDPOINT = "/api/auth/login";
+    private static final String PRODUCTS_ENDPOINT = "/shop/api/products";
+    private static final String ORDERS_ENDPOINT = "/shop/api/orders";
+
+    private static final int THREADS = Integer.getInteger("flash-sale.load.threads", 16);
+    private static final int SECONDS = Integer.getInteger("flash-sale.load.seconds", 10);
+
+    private static final int STOCK = 100_000;
+    private static final int FLASH_SALE_TOKENS = 50_000;
+    private static final String TEST_SKU = "LOAD-FLASH-" + System.currentTimeMillis();
+
+    // customerId is replaced with the authenticated customer by OrderController
+    private static final String ORDER_BODY = """
+            {
+                "customerId": 0,
+                "orderItems": [{"productId": %d, "quantity": 1, "unitPrice": 10.00}],
+                "subtotal": 10.00,
+                "totalAmount": 10.00,
+                "currency": "SEK",
+                "shippingAddressLine1": "Testgatan 1",
+                "shippingCity": "Karlskoga",
+                "shippingPostalCode": "69132",
+                "shippingCountry": "SE",
+                "notes": "Flash sale load test",
+                "source": "API"
+            }
+            """;
+
+    private static Long productId;
+    private static double normalOrdersPerSecond;
+
+    @BeforeAll
+    public static void setup() {
+        RestAssured.useRelaxedHTTPSValidation();
+        RestAssured.baseURI = BASE_URL;
+
+        String jwtToken = getAuthToken();
+        if (jwtToken == null) {
+            return;
+        }
+        authenticatedSpec = new RequestSpecBuilder()
+                .setBaseUri(BASE_URL)
+                .setContentType(ContentType.JSON)
+                .setAccept(ContentType.JSON)
+                .addHeader("Authorization", "Bearer " + jwtToken)
+                .build();
+
+        String productBody = """
+                {
+                    "name": "Flash sale load test",
+                    "description": "Created by ShopFlashSaleLoadTest",
+                    "price": 10.00,
+                    "sku": "%s",
+                    "stockQuantity": %d,
+                    "categoryId": 1
+                }
+                """.formatted(TEST_SKU, STOCK);
+        Response response = given().spec(authenticatedSpec).body(productBody)
+        .when().post(PRODUCTS_ENDPOINT)
+        .then().extract().response();
+        if (response.getStatusCode() == 200) {
+            productId = response.jsonPath().getLong("data.productId");
+            System.out.println("🚀 Flash sale load test: product " + productId + ", " + THREADS + " clients, "
+                    + SECONDS + " s per phase");
+        }
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        if (authenticatedSpec == null || productId == null) {
+            return;
+        }
+        given().spec(authenticatedSpec).when().delete(PRODUCTS_ENDPOINT + "/" + productId + "/flash-sale");
+        given().spec(authenticatedSpec).when().delete(PRODUCTS_ENDPOINT + "/" + productId);
+        System.out.println("🧹 Test product " + productId + " disarmed and deleted");
+    }
+
+    private static String getAuthToken() {
+        try {
+            String loginBody = """
+                    {"email": "%s", "password": "%s"}
+                    """.formatted(TEST_EMAIL, TEST_PASSWORD);
+
+            return given()
+                    .contentType(ContentType.JSON)
+                    .body(loginBody)
+            .when()
+                    .post(BASE_URL + LOGIN_ENDPOINT)
+            .then()
+                    .statusCode(200)
+                    .extract().response().jsonPath().getString("accessToken");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("LOAD: concurrent checkouts through the normal reserve path")
+    public void testNormalPathThroughput() throws Exception {
+        Assumptions.assumeTrue(authenticatedSpec != null, "JWT required");
+        Assumptions.assumeTrue(productId != null, "Test product required");
+
+        normalOrdersPerSecond = runPhase("normal path");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("LOAD: concurrent checkouts of the armed flash sale")
+    public void testFlashSaleThroughput() throws Exception {
+        Assumptions.assumeTrue(authenticatedSpec != null, "JWT required");
+        Assumptions.assumeTrue(productId != null, "Test product required");
+
+        given().spec(authenticatedSpec)
+                .queryParam("tokens", FLASH_SALE_TOKENS)
+        .when().post(PRODUCTS_ENDPOINT + "/" + productId + "/flash-sale")
+        .then().statusCode(200);
+
+        double flashOrdersPerSecond = runPhase("flash sale");
+        if (normalOrdersPerSecond > 0) {
+            System.out.printf("📋 Flash sale vs normal path: %.2fx%n", flashOrdersPerSecond / normalOrdersPerSecond);
+        }
+    }
+
+    /**
+     * SECONDS of THREADS clients creating 1-line orders back to back - returns orders per second
+     */
+    private double runPhase(String name) throws Exception {
+        List<Long> orderIds = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failed = new AtomicInteger();
+        String orderBody = ORDER_BODY.formatted(productId);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int client = 0; client < THREADS; client++) {
+                futures.add(clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Response response = given().spec(authenticatedSpec).body(orderBody)
+                        .when().post(ORDERS_ENDPOINT)
+                        .then().extract().response();
+                        if (response.getStatusCode() == 200 || response.getStatusCode() == 201) {
+                            orderIds.add(response.jsonPath().getLong("data.orderId"));
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            // Admin JWT may not have a linked customer in shopDB - nothing to measure then
+            Assumptions.assumeTrue(!orderIds.isEmpty(), "No order could be created");
+            double ordersPerSecond = orderIds.size() / elapsedSeconds;
+            System.out.printf("📋 %s: %d orders in %.1f s = %.1f orders/s (%d failed)%n",
+                    name, orderIds.size(), elapsedSeconds, ordersPerSecond, failed.get());
+            return ordersPerSecond;
+        } finally {
+            clients.shutdownNow();
+            for (Long orderId : orderIds) {
+                given().spec(authenticatedSpec)
+                        .queryParam("reason", "Flash sale load test cleanup")
+                .when().post(ORDERS_ENDPOINT + "/" + orderId + "/cancel")
+                .then().statusCode(anyOf(is(200), is(400)));
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.dto.UpdateCartItemRequest;
+import com.perfect8.shop.entity.Cart;
+import com.perfect8.shop.entity.CartItem;
+import com.perfect8.shop.entity.Customer;
+import com.perfect8.shop.entity.Product;
+import com.perfect8.shop.repository.CartItemRepository;
+import com.perfect8.shop.repository.CartRepository;
+import com.perfect8.shop.repository.CustomerRepository;
+import com.perfect8.shop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Write-through cart views (no database, no Spring context): a flush runs Cart's
+ * @PreUpdate like Hibernate does - saveAndFlush at once, save at commit - and the
+ * stored updated_date is what CartRepository.findUpdatedDateByCartId returns.
+ */
+class CartCacheWriteThroughTest {
+
+    private static final long CUSTOMER_ID = 7L;
+    private static final long CART_ID = 70L;
+    private static final long PRODUCT_ID = 700L;
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final StockAvailabilityCache stockAvailabilityCache = mock(StockAvailabilityCache.class);
+    private final CatalogReadModel catalogReadModel = mock(CatalogReadModel.class);
+
+    // The carts.updated_date column
+    private final AtomicReference<LocalDateTime> storedUpdatedDate = new AtomicReference<>();
+
+    // Saved but not flushed - written when the test commits
+    private final List<Cart> pendingFlush = new ArrayList<>();
+
+    private CartCache cartCache;
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        cartCache = new CartCache();
+        ReflectionTestUtils.setField(cartCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cartCache, "ttlSeconds", 300L);
+
+        cartService = new CartService(cartRepository, mock(CartItemRepository.class), productRepository,
+                mock(CustomerRepository.class), mock(ShippingService.class), stockAvailabilityCache, cartCache,
+                catalogReadModel, mock(JdbcTemplate.class), mock(GuestCartStore.class));
+
+        Product product = new Product();
+        product.setProductId(PRODUCT_ID);
+        product.setName("Mug");
+        product.setPrice(new BigDecimal("99.00"));
+
+        Customer customer = new Customer();
+        customer.setCustomerId(CUSTOMER_ID);
+
+        Cart cart = new Cart();
+        cart.setCartId(CART_ID);
+        cart.setCustomer(customer);
+        cart.setCreatedDate(LocalDateTime.now().minusDays(1));
+        cart.setUpdatedDate(LocalDateTime.now().minusDays(1));
+
+        CartItem cartItem = new CartItem();
+        cartItem.setCartItemId(701L);
+        cartItem.setCart(cart);
+        cartItem.setProduct(product);
+        cartItem.setQuantity(1);
+        cartItem.setUnitPrice(product.getPrice());
+        cart.getItems().add(cartItem);
+        storedUpdatedDate.set(cart.getUpdatedDate());
+
+        when(cartRepository.findWithItemsByCustomerId(CUSTOMER_ID)).thenReturn(List.of(cart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> {
+            pendingFlush.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenAnswer(invocation -> {
+            flush(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(cartRepository.findUpdatedDateByCartId(CART_ID))
+                .thenAnswer(invocation -> Optional.ofNullable(storedUpdatedDate.get()));
+        when(productRepository.findById(PRODUCT_ID)).thenReturn(Optional.of(product));
+        when(stockAvailabilityCache.getAvailable(anyLong())).thenReturn(100);
+        when(stockAvailabilityCache.getLevels(anyList())).thenReturn(
+                Map.of(PRODUCT_ID, new StockAvailabilityCache.StockLevel(100, 0, null, System.currentTimeMillis())));
+    }
+
+    @Test
+    @DisplayName("A read right after a cart change is served from the write-through view")
+    void mutateThenReadIsACacheHit() {
+        UpdateCartItemRequest request = new UpdateCartItemRequest();
+        request.setProductId(PRODUCT_ID);
+        request.setQuantity(3);
+        cartService.updateCartItem(CUSTOMER_ID, request);
+        commit();
+
+        assertEquals(3, cartService.getCart(CUSTOMER_ID).getTotalQuantity());
+        assertEquals(1, cartService.getCartItemCount(CUSTOMER_ID));
+
+        Map<String, Object> metrics = cartCache.getMetrics();
+        assertEquals(2L, metrics.get("hits"));
+        assertEquals(0L, metrics.get("stale"));
+        // Only the mutation loaded the cart aggregate
+        verify(cartRepository, times(1)).findWithItemsByCustomerId(CUSTOMER_ID);
+    }
+
+    @Test
+    @DisplayName("A change stored through another instance evicts the cached view")
+    void newerStoredCartIsStale() {
+        cartService.getCart(CUSTOMER_ID);
+        storedUpdatedDate.set(storedUpdatedDate.get().plusSeconds(1));
+
+        cartService.getCart(CUSTOMER_ID);
+
+        assertEquals(1L, cartCache.getMetrics().get("stale"));
+        verify(cartRepository, times(2)).findWithItemsByCustomerId(CUSTOMER_ID);
+    }
+
+    private void commit() {
+        pendingFlush.forEach(this::flush);
+        pendingFlush.clear();
+    }
+
+    private void flush(Cart cart) {
+        ReflectionTestUtils.invokeMethod(cart, "onUpdate");
+        storedUpdatedDate.set(cart.getUpdatedDate());
+    }
+}
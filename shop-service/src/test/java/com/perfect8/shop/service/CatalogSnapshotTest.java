@@ -0,0 +1,99 @@
+package com.perfect8.shop.service;
+
+import com.perfect8.shop.entity.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for CatalogSnapshot batched updates (no database, no Spring context).
+ */
+class CatalogSnapshotTest {
+
+    private static final CatalogSnapshot.Filter ALL = CatalogSnapshot.Filter.builder().build();
+
+    @Test
+    @DisplayName("Batched insert, update and removal keep every sort order correct")
+    void withChangesKeepsSortOrders() {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(1, List.of(
+                product(1L, "Banana", "20.00", 5),
+                product(2L, "Apple", "30.00", 5),
+                product(3L, "Cherry", "10.00", 5)));
+
+        CatalogSnapshot changed = snapshot.withChanges(2,
+                List.of(product(2L, "Apple", "5.00", 5), product(4L, "Date", "15.00", 5)),
+                Set.of(1L));
+
+        assertEquals(List.of(2L, 3L, 4L), ids(changed, "name"));
+        assertEquals(List.of(2L, 3L, 4L), ids(changed, "price"));
+        assertEquals(List.of(2L, 3L, 4L), ids(changed, "productId"));
+        assertNull(changed.getProduct(1L));
+        assertEquals(3, changed.size());
+
+        // the old snapshot is untouched
+        assertEquals(List.of(3L, 1L, 2L), ids(snapshot, "price"));
+    }
+
+    @Test
+    @DisplayName("Stock-only change updates the in-stock filter without reordering")
+    void stockOnlyChange() {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(1, List.of(
+                product(1L, "Banana", "20.00", 5),
+                product(2L, "Apple", "30.00", 5)));
+
+        CatalogSnapshot changed = snapshot.withChanges(2, List.of(product(1L, "Banana", "20.00", 0)), Set.of());
+
+        CatalogSnapshot.Filter inStock = CatalogSnapshot.Filter.builder().inStock(true).build();
+        assertEquals(List.of(2L), changed.find(inStock, PageRequest.of(0, 10)).map(Product::getProductId).toList());
+        assertEquals(List.of(2L, 1L), ids(changed, "name"));
+    }
+
+    @Test
+    @DisplayName("A removed product that comes back is inserted at its sorted position")
+    void reactivatedProduct() {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(1, List.of(
+                product(1L, "Banana", "20.00", 5),
+                product(2L, "Apple", "30.00", 5)));
+
+        CatalogSnapshot removed = snapshot.withChanges(2, List.of(), Set.of(2L));
+        CatalogSnapshot restored = removed.withChanges(3, List.of(product(2L, "Apple", "30.00", 5)), Set.of());
+
+        assertEquals(List.of(1L), ids(removed, "name"));
+        assertEquals(List.of(2L, 1L), ids(restored, "name"));
+    }
+
+    @Test
+    @DisplayName("Armed flash-sale units keep a product without sellable stock in stock")
+    void flashSaleUnitsCountAsInStock() {
+        Product armed = product(1L, "Banana", "20.00", 0);
+        armed.setFlashSaleQuantity(25);
+        CatalogSnapshot snapshot = CatalogSnapshot.build(1, List.of(armed, product(2L, "Apple", "30.00", 0)));
+
+        CatalogSnapshot.Filter inStock = CatalogSnapshot.Filter.builder().inStock(true).build();
+        assertEquals(List.of(1L), snapshot.find(inStock, PageRequest.of(0, 10)).map(Product::getProductId).toList());
+    }
+
+    private static List<Long> ids(CatalogSnapshot snapshot, String sortProperty) {
+        return snapshot.find(ALL, PageRequest.of(0, 100, Sort.by(sortProperty)))
+                .map(Product::getProductId)
+                .toList();
+    }
+
+    private static Product product(Long productId, String name, String price, int stock) {
+        return Product.builder()
+                .productId(productId)
+                .name(name)
+                .price(new BigDecimal(price))
+                .sku("SKU-" + productId)
+                .stockQuantity(stock)
+                .build();
+    }
+}
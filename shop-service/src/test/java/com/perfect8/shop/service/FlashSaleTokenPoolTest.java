@@ -0,0 +1,148 @@
+package com.perfect8.shop.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load tests for the flash-sale token pool (no database, no Spring context):
+ * many threads taking tokens must never get more than were armed, and a disarm
+ * racing with checkouts and rollbacks must not lose or invent a token.
+ */
+class FlashSaleTokenPoolTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    @DisplayName("Concurrent checkouts take exactly the armed tokens - never more")
+    void concurrentTakesNeverOversell() throws Exception {
+        FlashSaleService.TokenPool pool = armedPool(10_000);
+        AtomicLong taken = new AtomicLong();
+
+        runConcurrently(() -> {
+            while (true) {
+                int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                if (pool.tryTake(quantity)) {
+                    taken.addAndGet(quantity);
+                } else if (!pool.tryTake(1)) {
+                    return;
+                } else {
+                    taken.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(10_000, taken.get());
+        assertEquals(0, pool.available());
+    }
+
+    @Test
+    @DisplayName("Disarm racing with checkouts and rollbacks accounts for every token")
+    void disarmDuringLoadKeepsTokens() throws Exception {
+        FlashSaleService.TokenPool pool = armedPool(50_000);
+        AtomicLong taken = new AtomicLong();
+        AtomicLong givenBack = new AtomicLong();
+        AtomicInteger drained = new AtomicInteger();
+        CountDownLatch halfway = new CountDownLatch(THREADS * 200);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> {
+                    for (int round = 0; round < 2_000; round++) {
+                        int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                        if (!pool.tryTake(quantity)) {
+                            halfway.countDown();
+                            continue;
+                        }
+                        taken.addAndGet(quantity);
+                        // Every third checkout rolls back
+                        if (round % 3 == 0 && pool.giveBack(quantity)) {
+                            givenBack.addAndGet(quantity);
+                        }
+                        halfway.countDown();
+                    }
+                }));
+            }
+            workers.add(executor.submit(() -> {
+                halfway.await();
+                drained.set(pool.disarm());
+                return null;
+            }));
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertFalse(pool.isArmed());
+        assertEquals(0, pool.available());
+        assertEquals(50_000, taken.get() - givenBack.get() + drained.get());
+        assertFalse(pool.tryTake(1));
+        assertFalse(pool.giveBack(1));
+    }
+
+    @Test
+    @DisplayName("No tokens are handed out once the lease is due")
+    void expiredLeaseStopsTakes() {
+        FlashSaleService.TokenPool pool = new FlashSaleService.TokenPool(4);
+        pool.arm(100, System.currentTimeMillis() - 1);
+
+        assertFalse(pool.tryTake(1));
+        assertEquals(100, pool.available());
+
+        pool.renew(Long.MAX_VALUE);
+        assertTrue(pool.tryTake(1));
+        assertEquals(99, pool.available());
+    }
+
+    @Test
+    @DisplayName("A discarded pool refuses rollbacks - the new owner already counts them")
+    void discardedPoolRefusesGiveBack() {
+        FlashSaleService.TokenPool pool = armedPool(10);
+        assertTrue(pool.tryTake(4));
+
+        pool.discard();
+
+        assertTrue(pool.lost);
+        assertFalse(pool.giveBack(4));
+        assertEquals(0, pool.available());
+    }
+
+    private static FlashSaleService.TokenPool armedPool(int tokens) {
+        FlashSaleService.TokenPool pool = new FlashSaleService.TokenPool(4);
+        pool.arm(tokens, Long.MAX_VALUE);
+        return pool;
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}